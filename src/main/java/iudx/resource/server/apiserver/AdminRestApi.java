@@ -24,6 +24,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import iudx.resource.server.apiserver.handlers.AuthHandler;
+import iudx.resource.server.authenticator.AuthenticationService;
 import iudx.resource.server.cache.CacheService;
 import iudx.resource.server.cache.cachelmpl.CacheType;
 import iudx.resource.server.common.*;
@@ -48,10 +49,12 @@ public final class AdminRestApi {
   private final MeteringService auditService;
   private final ObjectMapper objectMapper = new ObjectMapper();
   private final CacheService cacheService;
+  private final AuthenticationService authenticator;
   private Api api;
 
-  AdminRestApi(Vertx vertx, Router router, Api api) {
+  AdminRestApi(Vertx vertx, Router router, Api api, AuthenticationService authenticator) {
     this.vertx = vertx;
+    this.authenticator = authenticator;
     this.router = router;
     this.rmqBrokerService = DataBrokerService.createProxy(vertx, BROKER_SERVICE_ADDRESS);
     this.auditService = MeteringService.createProxy(vertx, METERING_SERVICE_ADDRESS);
@@ -63,22 +66,22 @@ public final class AdminRestApi {
   public Router init() {
     router
         .post(REVOKE_TOKEN)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleRevokeTokenRequest);
 
     router
         .post(RESOURCE_ATTRIBS)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::createUniqueAttribute);
 
     router
         .put(RESOURCE_ATTRIBS)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::updateUniqueAttribute);
 
     router
         .delete(RESOURCE_ATTRIBS)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::deleteUniqueAttribute);
 
     return router;
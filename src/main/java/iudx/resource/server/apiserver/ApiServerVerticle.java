@@ -5,14 +5,16 @@ import static iudx.resource.server.apiserver.util.Constants.*;
 import static iudx.resource.server.apiserver.util.Util.errorResponse;
 import static iudx.resource.server.authenticator.Constants.ROLE;
 import static iudx.resource.server.cache.cachelmpl.CacheType.CATALOGUE_CACHE;
+import static iudx.resource.server.common.Constants.AUTH_SERVICE_ADDRESS;
 import static iudx.resource.server.common.Constants.CACHE_SERVICE_ADDRESS;
 import static iudx.resource.server.common.Constants.PG_SERVICE_ADDRESS;
+import static iudx.resource.server.common.Constants.RAW_RESULTS;
 import static iudx.resource.server.common.HttpStatusCode.BAD_REQUEST;
 import static iudx.resource.server.common.HttpStatusCode.NOT_FOUND;
 import static iudx.resource.server.common.HttpStatusCode.UNAUTHORIZED;
 import static iudx.resource.server.common.ResponseUrn.*;
-import static iudx.resource.server.database.archives.Constants.ITEM_TYPES;
 import static iudx.resource.server.database.archives.Constants.TIME_LIMIT;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 import static iudx.resource.server.metering.util.Constants.DELEGATOR_ID;
 import static iudx.resource.server.metering.util.Constants.EPOCH_TIME;
 import static iudx.resource.server.metering.util.Constants.ISO_TIME;
@@ -21,10 +23,13 @@ import static iudx.resource.server.metering.util.Constants.TYPE_KEY;
 
 import io.netty.handler.codec.http.HttpConstants;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.QueryStringEncoder;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
@@ -53,7 +58,10 @@ import iudx.resource.server.apiserver.service.CatalogueService;
 import iudx.resource.server.apiserver.subscription.SubsType;
 import iudx.resource.server.apiserver.subscription.SubscriptionService;
 import iudx.resource.server.apiserver.util.RequestType;
+import iudx.resource.server.authenticator.AuthenticationService;
+import iudx.resource.server.authenticator.AuthenticationVerticle;
 import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.cache.CatalogueCacheReplica;
 import iudx.resource.server.common.Api;
 import iudx.resource.server.common.HttpStatusCode;
 import iudx.resource.server.common.ResponseUrn;
@@ -71,7 +79,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.UUID;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -105,6 +113,7 @@ public class ApiServerVerticle extends AbstractVerticle {
   private static final String LATEST_SEARCH_ADDRESS = "iudx.rs.latest.service";
   private static final String METERING_SERVICE_ADDRESS = "iudx.rs.metering.service";
   private static final String ENCRYPTION_SERVICE_ADDRESS = "iudx.rs.encryption.service";
+  private static final String SEARCH_STREAM_ADDRESS_PREFIX = "iudx.rs.search.stream.";
   int timeLimitForAsync;
   private HttpServer server;
   private Router router;
@@ -125,7 +134,9 @@ public class ApiServerVerticle extends AbstractVerticle {
   private Api api;
   private LatestDataService latestDataService;
   private CacheService cacheService;
+  private AuthenticationService authenticator;
   private int timeLimit;
+  private boolean isStreamingSearchEnabled;
 
   /**
    * This method is used to start the Verticle. It deploys a verticle in a cluster, reads the
@@ -162,6 +173,7 @@ public class ApiServerVerticle extends AbstractVerticle {
     String[] timeLimitConfig = config().getString(TIME_LIMIT).split(",");
     timeLimit = Integer.valueOf(timeLimitConfig[2]);
     timeLimitForAsync = config().getInteger("timeLimitForAsync");
+    isStreamingSearchEnabled = config().getBoolean("enableStreamingSearch", false);
 
     router = Router.router(vertx);
 
@@ -169,6 +181,15 @@ public class ApiServerVerticle extends AbstractVerticle {
     dxApiBasePath = config().getString("dxApiBasePath");
     api = Api.getInstance(dxApiBasePath);
 
+    cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
+    /* Verify tokens in this verticle, or through the AuthenticationVerticle by default */
+    if ("embedded".equalsIgnoreCase(config().getString("authMode"))) {
+      LOGGER.info("embedded authentication");
+      authenticator = AuthenticationVerticle.createEmbedded(vertx, config(), cacheService);
+    } else {
+      authenticator = AuthenticationService.createProxy(vertx, AUTH_SERVICE_ADDRESS);
+    }
+
     /* Define the APIs, methods, endpoints and associated methods. */
 
     router = Router.router(vertx);
@@ -222,15 +243,24 @@ public class ApiServerVerticle extends AbstractVerticle {
     router
         .get(api.getEntitiesUrl())
         .handler(entityValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleEntitiesQuery)
         .failureHandler(validationsFailureHandler);
 
+    ValidationHandler latestBatchValidationHandler =
+        new ValidationHandler(vertx, RequestType.LATEST_BATCH);
+    router
+        .get(api.getLatestEntitiesUrl())
+        .handler(latestBatchValidationHandler)
+        .handler(AuthHandler.create(authenticator, api))
+        .handler(this::handleLatestBatchQuery)
+        .failureHandler(validationsFailureHandler);
+
     ValidationHandler latestValidationHandler = new ValidationHandler(vertx, RequestType.LATEST);
     router
         .get(api.getEntitiesUrl() + "/*")
         .handler(latestValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleLatestEntitiesQuery)
         .failureHandler(validationsFailureHandler);
 
@@ -240,7 +270,7 @@ public class ApiServerVerticle extends AbstractVerticle {
         .post(api.getPostTemporalQueryPath())
         .consumes(APPLICATION_JSON)
         .handler(postTemporalValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handlePostEntitiesQuery)
         .failureHandler(validationsFailureHandler);
 
@@ -250,7 +280,7 @@ public class ApiServerVerticle extends AbstractVerticle {
         .post(api.getPostEntitiesQueryPath())
         .consumes(APPLICATION_JSON)
         .handler(postEntitiesValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handlePostEntitiesQuery)
         .failureHandler(validationsFailureHandler);
 
@@ -259,7 +289,7 @@ public class ApiServerVerticle extends AbstractVerticle {
     router
         .get(api.getTemporalUrl())
         .handler(temporalValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleTemporalQuery)
         .failureHandler(validationsFailureHandler);
 
@@ -269,38 +299,38 @@ public class ApiServerVerticle extends AbstractVerticle {
     router
         .post(api.getSubscriptionUrl())
         .handler(subsValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleSubscriptions)
         .failureHandler(validationsFailureHandler);
     // append sub
     router
         .patch(api.getSubscriptionUrl() + "/:userid/:alias")
         .handler(subsValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::appendSubscription)
         .failureHandler(validationsFailureHandler);
     // update sub
     router
         .put(api.getSubscriptionUrl() + "/:userid/:alias")
         .handler(subsValidationHandler)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::updateSubscription)
         .failureHandler(validationsFailureHandler);
     // get sub
     router
         .get(api.getSubscriptionUrl() + "/:userid/:alias")
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getSubscription);
 
     // get sub for all queue
     router
         .get(api.getSubscriptionUrl())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getAllSubscriptionForUser);
     // delete sub
     router
         .delete(api.getSubscriptionUrl() + "/:userid/:alias")
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::deleteSubscription);
 
     /* Management Api endpoints */
@@ -308,53 +338,53 @@ public class ApiServerVerticle extends AbstractVerticle {
 
     router
         .get(api.getIudxConsumerAuditUrl())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getConsumerAuditDetail);
     router
         .get(api.getIudxProviderAuditUrl())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getProviderAuditDetail);
 
     // adapter
     router
         .post(api.getIngestionPath())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::registerAdapter);
 
     router
         .delete(api.getIngestionPath() + "/*")
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::deleteAdapter);
 
     router
         .get(api.getIngestionPath() + "/:UUID")
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getAdapterDetails);
 
     router
         .post(api.getIngestionPath() + "/heartbeat")
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::publishHeartbeat);
     router
         .post(api.getIngestionPathEntities())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::publishDataFromAdapter);
     router
         .get(api.getIngestionPath())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getAllAdaptersForUsers);
 
     // Metering extension
     router
         .get(api.getMonthlyOverview())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getMonthlyOverview)
         .failureHandler(validationsFailureHandler);
 
     // Metering Summary
     router
         .get(api.getSummaryPath())
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::getAllSummaryHandler)
         .failureHandler(validationsFailureHandler);
 
@@ -424,7 +454,6 @@ public class ApiServerVerticle extends AbstractVerticle {
     databroker = DataBrokerService.createProxy(vertx, BROKER_SERVICE_ADDRESS);
     meteringService = MeteringService.createProxy(vertx, METERING_SERVICE_ADDRESS);
     latestDataService = LatestDataService.createProxy(vertx, LATEST_SEARCH_ADDRESS);
-    cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
     managementApi = new ManagementApiImpl();
     subsService = new SubscriptionService();
     catalogueService = new CatalogueService(cacheService);
@@ -435,13 +464,17 @@ public class ApiServerVerticle extends AbstractVerticle {
 
     router
         .route(api.getAsyncPath() + "/*")
-        .subRouter(new AsyncRestApi(vertx, router, api, timeLimitForAsync).init());
+        .subRouter(
+            new AsyncRestApi(vertx, router, api, timeLimitForAsync, cacheService, authenticator)
+                .init());
 
-    router.route(ADMIN + "/*").subRouter(new AdminRestApi(vertx, router, api).init());
+    router
+        .route(ADMIN + "/*")
+        .subRouter(new AdminRestApi(vertx, router, api, authenticator).init());
 
     router
         .post(dxApiBasePath + RESET_PWD)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(
             handler -> {
               new ManagementRestApi(databroker).resetPassword(handler);
@@ -669,6 +702,8 @@ public class ApiServerVerticle extends AbstractVerticle {
     json.put(JSON_INSTANCEID, instanceId);
     json.put(JSON_ID, new JsonArray().add(id));
     json.put(JSON_SEARCH_TYPE, "latestSearch");
+    // results are only decoded when they need to be encrypted
+    json.put(RAW_RESULTS, request.getHeader(HEADER_PUBLIC_KEY) == null);
     LOGGER.debug("Info: IUDX query json;" + json);
     Future<List<String>> filtersFuture = catalogueService.getApplicableFilters(id);
     filtersFuture.onComplete(
@@ -684,6 +719,31 @@ public class ApiServerVerticle extends AbstractVerticle {
         });
   }
 
+  /**
+   * Latest data of several resources, e.g. for a dashboard, for endpoint
+   * /ngsi-ld/v1/entities/latest?id=id1,id2. The token is authorised for each id.
+   *
+   * @param routingContext RoutingContext Object
+   */
+  private void handleLatestBatchQuery(RoutingContext routingContext) {
+    LOGGER.trace("Info:handleLatestBatchQuery method started.;");
+    HttpServerRequest request = routingContext.request();
+    HttpServerResponse response = routingContext.response();
+
+    JsonArray ids = new JsonArray();
+    for (String id : request.getParam(NGSILDQUERY_ID).split(",")) {
+      if (!ids.contains(id)) {
+        ids.add(id);
+      }
+    }
+    JsonObject json = new JsonObject();
+    json.put(JSON_INSTANCEID, request.getHeader(HEADER_HOST));
+    json.put(JSON_ID, ids);
+    json.put(JSON_SEARCH_TYPE, "latestSearch");
+    LOGGER.debug("Info: IUDX query json;" + json);
+    executeLatestSearchQuery(routingContext, json, response);
+  }
+
   /**
    * This method is used to handle all NGSI-LD queries for endpoint /ngsi-ld/v1/entities/**.
    *
@@ -716,6 +776,9 @@ public class ApiServerVerticle extends AbstractVerticle {
             JsonObject json;
             QueryMapper queryMapper = new QueryMapper(routingContext, timeLimit);
             json = queryMapper.toJson(ngsildquery, false);
+            if (json == null) {
+              return;
+            }
             /* HTTP request instance/host details */
             String instanceId = request.getHeader(HEADER_HOST);
             json.put(JSON_INSTANCEID, instanceId);
@@ -772,6 +835,9 @@ public class ApiServerVerticle extends AbstractVerticle {
             NgsildQueryParams ngsildquery = new NgsildQueryParams(requestJson);
             QueryMapper queryMapper = new QueryMapper(routingContext, timeLimit);
             JsonObject json = queryMapper.toJson(ngsildquery, requestJson.containsKey("temporalQ"));
+            if (json == null) {
+              return;
+            }
             String instanceId = request.getHeader(HEADER_HOST);
             json.put(JSON_INSTANCEID, instanceId);
             requestJson.put("ids", json.getJsonArray("id"));
@@ -857,11 +923,23 @@ public class ApiServerVerticle extends AbstractVerticle {
    */
   private void executeSearchQuery(
       RoutingContext context, JsonObject json, HttpServerResponse response) {
+    if (isStreamingSearchEnabled
+        && context.request().getHeader(HEADER_PUBLIC_KEY) == null
+        && !json.containsKey(NGSILDQUERY_CURSOR)) {
+      executeStreamingSearchQuery(context, json, response);
+      return;
+    }
     Future<JsonObject> searchDbFuture = database.search(json);
     searchDbFuture.onComplete(
         handler -> {
           if (handler.succeeded()) {
             LOGGER.info("Success: Search Success");
+            String nextCursor = handler.result().getString(NEXT_CURSOR);
+            if (nextCursor != null) {
+              String nextLink = getNextPageLink(context.request(), nextCursor);
+              handler.result().put(NEXT_LINK, nextLink);
+              response.putHeader(HEADER_LINK, "<" + nextLink + ">; rel=\"next\"");
+            }
             if (context.request().getHeader(HEADER_PUBLIC_KEY) == null) {
               handleSuccessResponse(
                   response, ResponseType.Ok.getCode(), handler.result().toString());
@@ -893,7 +971,64 @@ public class ApiServerVerticle extends AbstractVerticle {
         });
   }
 
-  private void executeLatestSearchQuery(
+  /**
+   * Execute a search query in DB, writing the response body page by page as it is read from DB. A
+   * page is acknowledged to DB only once the response write queue has room again, so a slow client
+   * slows down the DB reads instead of growing the heap.
+   *
+   * @param json valid json query
+   * @param response HttpServerResponse
+   */
+  private void executeStreamingSearchQuery(
+      RoutingContext context, JsonObject json, HttpServerResponse response) {
+    String streamAddress = SEARCH_STREAM_ADDRESS_PREFIX + UUID.randomUUID();
+    MessageConsumer<Buffer> consumer =
+        vertx
+            .eventBus()
+            .consumer(
+                streamAddress,
+                message -> {
+                  if (response.closed()) {
+                    message.fail(HttpStatusCode.BAD_REQUEST.getValue(), "client connection closed");
+                    return;
+                  }
+                  if (!response.headWritten()) {
+                    response
+                        .setChunked(true)
+                        .putHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .setStatusCode(ResponseType.Ok.getCode());
+                  }
+                  response.write(message.body());
+                  if (response.writeQueueFull()) {
+                    response.drainHandler(drain -> message.reply(null));
+                  } else {
+                    message.reply(null);
+                  }
+                });
+    Promise<Void> registration = Promise.promise();
+    consumer.completionHandler(registration);
+    registration
+        .future()
+        .compose(registered -> database.searchStream(json, streamAddress))
+        .onComplete(
+            handler -> {
+              consumer.unregister();
+              if (handler.succeeded()) {
+                LOGGER.info("Success: Search stream Success");
+                response.end();
+                context.data().put(RESPONSE_SIZE, response.bytesWritten());
+                Future.future(fu -> updateAuditTable(context));
+              } else if (!response.headWritten()) {
+                LOGGER.error("Fail: Search stream Fail");
+                processBackendResponse(response, handler.cause().getMessage());
+              } else {
+                LOGGER.error("Fail: Search stream broken : " + handler.cause().getMessage());
+                response.reset();
+              }
+            });
+  }
+
+  void executeLatestSearchQuery(
       RoutingContext context, JsonObject json, HttpServerResponse response) {
     latestDataService.getLatestData(
         json,
@@ -902,9 +1037,9 @@ public class ApiServerVerticle extends AbstractVerticle {
             LOGGER.info("Latest data search succeeded");
             if (context.request().getHeader(HEADER_PUBLIC_KEY) == null) {
               handleSuccessResponse(
-                  response, ResponseType.Ok.getCode(), handler.result().toString());
+                  response, ResponseType.Ok.getCode(), encodeLatestResponse(handler.result()));
               context.data().put(RESPONSE_SIZE, response.bytesWritten());
-              Future.future(fu -> updateAuditTable(context));
+              auditLatestQuery(context, json.getJsonArray(JSON_ID));
             } else {
               //                Encryption
               Future<JsonObject> future =
@@ -917,7 +1052,7 @@ public class ApiServerVerticle extends AbstractVerticle {
                       handleSuccessResponse(
                           response, ResponseType.Ok.getCode(), handler.result().encode());
                       context.data().put(RESPONSE_SIZE, response.bytesWritten());
-                      Future.future(fu -> updateAuditTable(context));
+                      auditLatestQuery(context, json.getJsonArray(JSON_ID));
                     } else {
                       LOGGER.error("Encryption not completed");
                       processBackendResponse(response, encryptionHandler.cause().getMessage());
@@ -930,6 +1065,27 @@ public class ApiServerVerticle extends AbstractVerticle {
         });
   }
 
+  /**
+   * Latest search response as sent to the client, with results that came back as undecoded JSON
+   * text spliced in as they are.
+   *
+   * @param result latest search response
+   * @return encoded response
+   */
+  private String encodeLatestResponse(JsonObject result) {
+    String rawResults = (String) result.remove(RAW_RESULTS);
+    if (rawResults == null) {
+      return result.toString();
+    }
+    String encoded = result.encode();
+    String separator = result.isEmpty() ? "" : ",";
+    return encoded.substring(0, encoded.length() - 1)
+        + separator
+        + "\"results\":"
+        + rawResults
+        + "}";
+  }
+
   /**
    * Encrypts the result of API response. Used for Search and Count APIs
    *
@@ -987,6 +1143,9 @@ public class ApiServerVerticle extends AbstractVerticle {
             QueryMapper queryMapper = new QueryMapper(routingContext, timeLimit);
 
             JsonObject json = queryMapper.toJson(ngsildquery, true);
+            if (json == null) {
+              return;
+            }
             json.put(JSON_INSTANCEID, instanceId);
             LOGGER.debug("Info: IUDX temporal json query;" + json);
             /* HTTP request body as Json */
@@ -1035,26 +1194,12 @@ public class ApiServerVerticle extends AbstractVerticle {
     jsonObj.put(USER_ID, authInfo.getString(USER_ID));
     jsonObj.put(JSON_INSTANCEID, instanceId);
     String entities = jsonObj.getJsonArray("entities").getString(0);
-    JsonObject cacheJson = new JsonObject().put("key", entities).put("type", CATALOGUE_CACHE);
     HttpServerResponse response = routingContext.response();
-    cacheService
-        .get(cacheJson)
+    CatalogueCacheReplica.getItem(cacheService, entities)
         .onSuccess(
             cacheServiceResult -> {
-              Set<String> type =
-                  new HashSet<String>(cacheServiceResult.getJsonArray("type").getList());
-              Set<String> itemTypeSet =
-                  type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-              itemTypeSet.retainAll(ITEM_TYPES);
-
-              String resourceGroup;
-              if (!itemTypeSet.contains("Resource")) {
-                resourceGroup = cacheServiceResult.getString("id");
-              } else {
-                resourceGroup = cacheServiceResult.getString("resourceGroup");
-              }
-              jsonObj.put("type", itemTypeSet.iterator().next());
-              jsonObj.put("resourcegroup", resourceGroup);
+              jsonObj.put("type", cacheServiceResult.getItemType());
+              jsonObj.put("resourcegroup", cacheServiceResult.getGroupId());
 
               Future<JsonObject> subsReq =
                   subsService.createSubscription(
@@ -1553,6 +1698,27 @@ public class ApiServerVerticle extends AbstractVerticle {
             });
   }
 
+  /**
+   * Link to the next page of a cursor paginated query, the request itself with its cursor replaced.
+   *
+   * @param request current request
+   * @param nextCursor cursor returned by DB for the next page
+   * @return path and query of the next page
+   */
+  private String getNextPageLink(HttpServerRequest request, String nextCursor) {
+    QueryStringEncoder encoder = new QueryStringEncoder(request.path());
+    request
+        .params()
+        .forEach(
+            param -> {
+              if (!NGSILDQUERY_CURSOR.equals(param.getKey())) {
+                encoder.addParam(param.getKey(), param.getValue());
+              }
+            });
+    encoder.addParam(NGSILDQUERY_CURSOR, nextCursor);
+    return encoder.toString();
+  }
+
   /**
    * handle HTTP response.
    *
@@ -1645,8 +1811,29 @@ public class ApiServerVerticle extends AbstractVerticle {
         || ngsildquery.getTemporalRelation().getEndTime() != null;
   }
 
-  private Future<Void> updateAuditTable(RoutingContext context) {
+  /**
+   * Audit a latest query. A query for several ids is audited once per id, each with its share of
+   * the response size, as if the ids had been queried one by one.
+   */
+  private void auditLatestQuery(RoutingContext context, JsonArray ids) {
+    if (ids == null || ids.size() < 2) {
+      Future.future(fu -> updateAuditTable(context));
+      return;
+    }
     JsonObject authInfo = (JsonObject) context.data().get("authInfo");
+    long responseSize = ((Number) context.data().get(RESPONSE_SIZE)).longValue() / ids.size();
+    for (int i = 0; i < ids.size(); i++) {
+      JsonObject idAuthInfo = authInfo.copy().put(ID, ids.getString(i));
+      Future.future(fu -> updateAuditTable(idAuthInfo, responseSize));
+    }
+  }
+
+  private Future<Void> updateAuditTable(RoutingContext context) {
+    return updateAuditTable(
+        (JsonObject) context.data().get("authInfo"), context.data().get(RESPONSE_SIZE));
+  }
+
+  private Future<Void> updateAuditTable(JsonObject authInfo, Object responseSize) {
     LOGGER.debug("auth info" + authInfo);
     Promise<Void> promise = Promise.promise();
     JsonObject request = new JsonObject();
@@ -1687,7 +1874,7 @@ public class ApiServerVerticle extends AbstractVerticle {
                 request.put(USER_ID, authInfo.getValue(USER_ID));
                 request.put(ID, authInfo.getValue(ID));
                 request.put(API, authInfo.getValue(API_ENDPOINT));
-                request.put(RESPONSE_SIZE, context.data().get(RESPONSE_SIZE));
+                request.put(RESPONSE_SIZE, responseSize);
                 request.put(PROVIDER_ID, providerId);
                 meteringService.insertMeteringValuesInRmq(
                     request,
@@ -1710,9 +1897,9 @@ public class ApiServerVerticle extends AbstractVerticle {
 
   private Future<JsonObject> getEntityName(JsonObject request) {
     Promise<JsonObject> promise = Promise.promise();
-    String getEntityNameQuery = ENTITY_QUERY.replace("$0", request.getString(SUBSCRIPTION_ID));
-    postgresService.executeQuery(
-        getEntityNameQuery,
+    postgresService.executeParameterizedQuery(
+        ENTITY_QUERY,
+        params(request.getString(SUBSCRIPTION_ID)),
         pgHandler -> {
           if (pgHandler.succeeded() && !pgHandler.result().getJsonArray("result").isEmpty()) {
             request.put(
@@ -1735,23 +1922,11 @@ public class ApiServerVerticle extends AbstractVerticle {
   private Future<JsonObject> getCacheItem(JsonObject cacheJson) {
     Promise<JsonObject> promise = Promise.promise();
     JsonObject cacheResult = new JsonObject();
-    cacheService
-        .get(cacheJson)
+    CatalogueCacheReplica.getItem(cacheService, cacheJson.getString("key"))
         .onSuccess(
             cacheServiceResult -> {
-              Set<String> type =
-                  new HashSet<String>(cacheServiceResult.getJsonArray("type").getList());
-              Set<String> itemTypeSet =
-                  type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-              itemTypeSet.retainAll(ITEM_TYPES);
-              String resourceGroup;
-              if (!itemTypeSet.contains("Resource")) {
-                resourceGroup = cacheServiceResult.getString("id");
-              } else {
-                resourceGroup = cacheServiceResult.getString("resourceGroup");
-              }
-              cacheResult.put("type", itemTypeSet.iterator().next());
-              cacheResult.put("resourcegroup", resourceGroup);
+              cacheResult.put("type", cacheServiceResult.getItemType());
+              cacheResult.put("resourcegroup", cacheServiceResult.getGroupId());
               promise.complete(cacheResult);
             })
         .onFailure(
@@ -10,8 +10,8 @@ import static iudx.resource.server.common.Constants.*;
 import static iudx.resource.server.common.HttpStatusCode.BAD_REQUEST;
 import static iudx.resource.server.common.ResponseUrn.BACKING_SERVICE_FORMAT_URN;
 import static iudx.resource.server.common.ResponseUrn.INVALID_PARAM_URN;
-import static iudx.resource.server.database.archives.Constants.ITEM_TYPES;
 import static iudx.resource.server.database.postgres.Constants.INSERT_S3_PENDING_SQL;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 
 import com.google.common.hash.Hashing;
 import io.netty.handler.codec.http.HttpConstants;
@@ -35,8 +35,9 @@ import iudx.resource.server.apiserver.query.NgsildQueryParams;
 import iudx.resource.server.apiserver.query.QueryMapper;
 import iudx.resource.server.apiserver.response.ResponseType;
 import iudx.resource.server.apiserver.service.CatalogueService;
+import iudx.resource.server.authenticator.AuthenticationService;
 import iudx.resource.server.cache.CacheService;
-import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.CatalogueCacheReplica;
 import iudx.resource.server.common.Api;
 import iudx.resource.server.common.HttpStatusCode;
 import iudx.resource.server.common.ResponseUrn;
@@ -47,7 +48,6 @@ import iudx.resource.server.databroker.DataBrokerService;
 import iudx.resource.server.encryption.EncryptionService;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -62,16 +62,24 @@ public class AsyncRestApi {
   private final PostgresService postgresService;
   private final DataBrokerService databroker;
   private final CacheService cacheService;
+  private final AuthenticationService authenticator;
   private AsyncService asyncService;
   private EncryptionService encryptionService;
   private Api api;
   private int timeLimitForAsync;
 
-  AsyncRestApi(Vertx vertx, Router router, Api api, int timeLimitForAsync) {
+  AsyncRestApi(
+      Vertx vertx,
+      Router router,
+      Api api,
+      int timeLimitForAsync,
+      CacheService cacheService,
+      AuthenticationService authenticator) {
     this.vertx = vertx;
+    this.authenticator = authenticator;
     this.router = router;
     this.databroker = DataBrokerService.createProxy(vertx, BROKER_SERVICE_ADDRESS);
-    this.cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+    this.cacheService = cacheService;
     this.catalogueService = new CatalogueService(cacheService);
     this.validator = new ParamsValidator(catalogueService);
     this.postgresService = PostgresService.createProxy(vertx, PG_SERVICE_ADDRESS);
@@ -89,7 +97,7 @@ public class AsyncRestApi {
     router
         .get(SEARCH)
         .handler(asyncSearchValidation)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleAsyncSearchRequest)
         .failureHandler(validationsFailureHandler);
 
@@ -97,7 +105,7 @@ public class AsyncRestApi {
     router
         .get(STATUS)
         .handler(asyncStatusValidation)
-        .handler(AuthHandler.create(vertx, api))
+        .handler(AuthHandler.create(authenticator, api))
         .handler(this::handleAsyncStatusRequest)
         .failureHandler(validationsFailureHandler);
 
@@ -131,6 +139,9 @@ public class AsyncRestApi {
             NgsildQueryParams ngsildquery = new NgsildQueryParams(params);
             QueryMapper queryMapper = new QueryMapper(routingContext, timeLimitForAsync);
             JsonObject json = queryMapper.toJson(ngsildquery, true, true);
+            if (json == null) {
+              return;
+            }
             json.put(JSON_INSTANCEID, instanceId);
             LOGGER.debug("Info: IUDX json query;" + json);
             JsonObject requestBody = new JsonObject();
@@ -168,37 +179,15 @@ public class AsyncRestApi {
     String searchId = UUID.randomUUID().toString();
     String format = routingContext.request().getHeader(HEADER_RESPONSE_FILE_FORMAT);
 
-    StringBuilder insertQuery =
-        new StringBuilder(
-            INSERT_S3_PENDING_SQL
-                .replace("$1", UUID.randomUUID().toString())
-                .replace("$2", searchId)
-                .replace("$3", requestId)
-                .replace("$4", sub)
-                .replace("$5", QueryProgress.SUBMITTED.toString())
-                .replace("$6", String.valueOf(0.0))
-                .replace("$7", json.toString()));
+    JsonArray insertParams =
+        params(
+            UUID.randomUUID(), searchId, requestId, sub, QueryProgress.SUBMITTED, 0.0, json.copy());
 
     String resourceId = json.getJsonArray("id").getString(0);
-    JsonObject cacheRequest = new JsonObject();
-    cacheRequest.put("type", CacheType.CATALOGUE_CACHE);
-    cacheRequest.put("key", resourceId);
-    cacheService
-        .get(cacheRequest)
+    CatalogueCacheReplica.getItem(cacheService, resourceId)
         .onSuccess(
             successHandler -> {
-              Set<String> type = new HashSet<String>(successHandler.getJsonArray("type").getList());
-              Set<String> itemTypeSet =
-                  type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-              itemTypeSet.retainAll(ITEM_TYPES);
-
-              String groupId;
-              if (!itemTypeSet.contains("Resource")) {
-                groupId = resourceId;
-              } else {
-                groupId = successHandler.getString("resourceGroup");
-              }
-              json.put("resourceGroup", groupId);
+              json.put("resourceGroup", successHandler.getGroupId());
               JsonObject rmqQueryMessage =
                   new JsonObject()
                       .put("searchId", searchId)
@@ -210,8 +199,9 @@ public class AsyncRestApi {
                       .put(DRL, authInfo.getString(DRL))
                       .put(DID, authInfo.getString(DID));
 
-              postgresService.executeQuery(
-                  insertQuery.toString(),
+              postgresService.executeParameterizedQuery(
+                  INSERT_S3_PENDING_SQL,
+                  insertParams,
                   pgInsertHandler -> {
                     if (pgInsertHandler.succeeded()) {
                       databroker.publishMessage(
@@ -55,6 +55,7 @@ public class ParamsValidator {
     validParams.add(NGSILDQUERY_TIME_PROPERTY);
     validParams.add(NGSILDQUERY_FROM);
     validParams.add(NGSILDQUERY_SIZE);
+    validParams.add(NGSILDQUERY_CURSOR);
 
     // for IUDX count query
     validParams.add(IUDXQUERY_OPTIONS);
@@ -68,6 +69,8 @@ public class ParamsValidator {
     validHeaders.add(HEADER_CSV);
     validHeaders.add(HEADER_JSON);
     validHeaders.add(HEADER_PARQUET);
+    validHeaders.add(HEADER_JSON_GZIP);
+    validHeaders.add(HEADER_CSV_GZIP);
   }
 
   private CatalogueService catalogueService;
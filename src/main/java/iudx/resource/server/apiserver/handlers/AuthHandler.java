@@ -28,16 +28,28 @@ import org.apache.logging.log4j.Logger;
 public class AuthHandler implements Handler<RoutingContext> {
 
   private static final Logger LOGGER = LogManager.getLogger(AuthHandler.class);
-  static AuthenticationService authenticator;
   private static Api api;
   private final String authInfo = "authInfo";
   private final List<String> noAuthRequired = bypassEndpoint;
+  AuthenticationService authenticator;
   private HttpServerRequest request;
 
   public static AuthHandler create(Vertx vertx, Api apis) {
-    authenticator = AuthenticationService.createProxy(vertx, AUTH_SERVICE_ADDRESS);
+    return create(AuthenticationService.createProxy(vertx, AUTH_SERVICE_ADDRESS), apis);
+  }
+
+  /**
+   * Handler authenticating requests with the given service, e.g. one embedded in the api server.
+   *
+   * @param authenticator AuthenticationService
+   * @param apis Api
+   * @return AuthHandler
+   */
+  public static AuthHandler create(AuthenticationService authenticator, Api apis) {
     api = apis;
-    return new AuthHandler();
+    AuthHandler authHandler = new AuthHandler();
+    authHandler.authenticator = authenticator;
+    return authHandler;
   }
 
   @Override
@@ -4,6 +4,7 @@ import static iudx.resource.server.apiserver.util.Constants.IUDXQUERY_OPTIONS;
 import static iudx.resource.server.apiserver.util.Constants.MSG_INVALID_PARAM;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_ATTRIBUTE;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_COORDINATES;
+import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_CURSOR;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_ENDTIME;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_FROM;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_GEOMETRY;
@@ -50,6 +51,7 @@ public class NgsildQueryParams {
   private String options;
   private String pageFrom;
   private String pageSize;
+  private String pageCursor;
 
   public NgsildQueryParams() {}
 
@@ -138,6 +140,9 @@ public class NgsildQueryParams {
         case NGSILDQUERY_FROM:
           this.pageFrom = entry.getValue();
           break;
+        case NGSILDQUERY_CURSOR:
+          this.pageCursor = entry.getValue();
+          break;
         default:
           LOGGER.warn(MSG_INVALID_PARAM + ":" + entry.getKey());
           break;
@@ -315,6 +320,10 @@ public class NgsildQueryParams {
     return pageSize;
   }
 
+  public String getPageCursor() {
+    return pageCursor;
+  }
+
   @Override
   public String toString() {
     return "NGSILDQueryParams [id="
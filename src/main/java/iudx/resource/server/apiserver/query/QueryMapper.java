@@ -146,6 +146,27 @@ public class QueryMapper {
     if (params.getPageSize() != null) {
       json.put(NGSILDQUERY_SIZE, params.getPageSize());
     }
+    if (params.getPageCursor() != null) {
+      if (!isTemporal || isAsyncQuery) {
+        DxRuntimeException ex =
+            new DxRuntimeException(
+                BAD_REQUEST.getValue(),
+                INVALID_PARAM_URN,
+                "cursor pagination is only supported on temporal queries.");
+        this.context.fail(400, ex);
+        return null;
+      }
+      if (params.getPageFrom() != null) {
+        DxRuntimeException ex =
+            new DxRuntimeException(
+                BAD_REQUEST.getValue(),
+                INVALID_PARAM_VALUE_URN,
+                "offset is not allowed with cursor pagination.");
+        this.context.fail(400, ex);
+        return null;
+      }
+      json.put(NGSILDQUERY_CURSOR, params.getPageCursor());
+    }
 
     json.put(JSON_SEARCH_TYPE, getSearchType(isAsyncQuery));
     LOGGER.debug("Info : json " + json);
@@ -1,19 +1,15 @@
 package iudx.resource.server.apiserver.service;
 
-import static iudx.resource.server.apiserver.util.Util.toList;
-import static iudx.resource.server.database.archives.Constants.*;
-
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.cache.CatalogueCacheReplica;
 import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.cachelmpl.CatalogueItem;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -94,57 +90,43 @@ public class CatalogueService {
 
   public Future<List<String>> getApplicableFilters(String id) {
     Promise<List<String>> promise = Promise.promise();
-    JsonObject cacheRequests = new JsonObject();
-    cacheRequests.put("type", CacheType.CATALOGUE_CACHE);
-    cacheRequests.put("key", id);
-    Future<JsonObject> groupIdFuture = cacheService.get(cacheRequests);
-    groupIdFuture.onComplete(
-        grpId -> {
-          if (grpId.succeeded()) {
-            Set<String> type = new HashSet<String>(grpId.result().getJsonArray("type").getList());
-            Set<String> itemTypeSet =
-                type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-            itemTypeSet.retainAll(ITEM_TYPES);
-
-            String groupId;
-            if (!itemTypeSet.contains("Resource")) {
-              groupId = id;
-            } else {
-              groupId = grpId.result().getString("resourceGroup");
-            }
-
-            LOGGER.debug("groupId = " + groupId);
-            JsonObject cacheRequest = new JsonObject();
-            cacheRequest.put("type", CacheType.CATALOGUE_CACHE);
-            cacheRequest.put("key", groupId);
-            Future<JsonObject> groupFilter = cacheService.get(cacheRequest);
-            JsonObject itemCacheRequest = cacheRequest.copy();
-            itemCacheRequest.put("key", id);
-            Future<JsonObject> itemFilters = cacheService.get(itemCacheRequest);
-            List<String> filters = new ArrayList<String>();
-            CompositeFuture.all(List.of(groupFilter, itemFilters))
-                .onComplete(
-                    ar -> {
-                      if (ar.failed()) {
-                        promise.fail("no filters available for : " + id);
-                        return;
-                      }
-                      if (groupFilter.result().containsKey("iudxResourceAPIs")) {
-                        filters.addAll(
-                            toList(groupFilter.result().getJsonArray("iudxResourceAPIs")));
-                        promise.complete(filters);
-                      }
-
-                      if (itemFilters.result().containsKey("iudxResourceAPIs")) {
-                        filters.addAll(
-                            toList(itemFilters.result().getJsonArray("iudxResourceAPIs")));
-                        promise.complete(filters);
-                      }
-                    });
-          } else {
-            LOGGER.debug("Failed : " + grpId.cause().getMessage());
-          }
-        });
+    CatalogueCacheReplica.getItem(cacheService, id)
+        .onComplete(
+            itemResult -> {
+              if (itemResult.failed()) {
+                LOGGER.debug("Failed : " + itemResult.cause().getMessage());
+                promise.fail("no filters available for : " + id);
+                return;
+              }
+              CatalogueItem item = itemResult.result();
+              String groupId = item.getGroupId();
+              LOGGER.debug("groupId = " + groupId);
+              Future<CatalogueItem> groupFuture =
+                  item.isResource()
+                      ? CatalogueCacheReplica.getItem(cacheService, groupId)
+                      : Future.succeededFuture(item);
+              groupFuture.onComplete(
+                  groupResult -> {
+                    if (groupResult.failed()) {
+                      promise.fail("no filters available for : " + id);
+                      return;
+                    }
+                    List<String> groupApis = groupResult.result().getIudxResourceApis();
+                    List<String> itemApis = item.isResource() ? item.getIudxResourceApis() : null;
+                    if (groupApis == null && itemApis == null) {
+                      promise.fail("no filters available for : " + id);
+                      return;
+                    }
+                    List<String> filters = new ArrayList<String>();
+                    if (groupApis != null) {
+                      filters.addAll(groupApis);
+                    }
+                    if (itemApis != null) {
+                      filters.addAll(itemApis);
+                    }
+                    promise.complete(filters);
+                  });
+            });
     return promise.future();
   }
 
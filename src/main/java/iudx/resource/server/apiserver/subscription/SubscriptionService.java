@@ -4,6 +4,7 @@ import static iudx.resource.server.apiserver.util.Constants.*;
 import static iudx.resource.server.apiserver.util.Constants.SUBSCRIPTION_ID;
 import static iudx.resource.server.authenticator.Constants.ROLE;
 import static iudx.resource.server.cache.cachelmpl.CacheType.CATALOGUE_CACHE;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 import static iudx.resource.server.databroker.util.Constants.*;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -16,6 +17,7 @@ import iudx.resource.server.cache.CacheService;
 import iudx.resource.server.common.ResponseUrn;
 import iudx.resource.server.database.postgres.PostgresService;
 import iudx.resource.server.databroker.DataBrokerService;
+import java.time.LocalDateTime;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -89,25 +91,24 @@ public class SubscriptionService {
                               cacheResult.containsKey(RESOURCE_GROUP)
                                   ? "RESOURCE"
                                   : "RESOURCE_GROUP";
-                          StringBuilder query =
-                              new StringBuilder(
-                                  CREATE_SUB_SQL
-                                      .replace("$1", brokerResponse.getString("id"))
-                                      .replace("$2", subType.type)
-                                      .replace("$3", brokerResponse.getString("id"))
-                                      .replace("$4", json.getJsonArray("entities").getString(0))
-                                      .replace("$5", authInfo.getString("expiry"))
-                                      .replace("$6", cacheResult.getString("name"))
-                                      .replace("$7", cacheResult.toString())
-                                      .replace("$8", authInfo.getString("userid"))
-                                      .replace("$9", cacheResult.getString(RESOURCE_GROUP))
-                                      .replace("$a", cacheResult.getString("provider"))
-                                      .replace("$b", delegatorId)
-                                      .replace("$c", type));
+                          JsonArray params =
+                              params(
+                                  brokerResponse.getString("id"),
+                                  subType.type,
+                                  brokerResponse.getString("id"),
+                                  json.getJsonArray("entities").getString(0),
+                                  LocalDateTime.parse(authInfo.getString("expiry")),
+                                  cacheResult.getString("name"),
+                                  cacheResult,
+                                  authInfo.getString("userid"),
+                                  cacheResult.getString(RESOURCE_GROUP),
+                                  cacheResult.getString("provider"),
+                                  delegatorId,
+                                  type);
 
-                          LOGGER.debug("query: " + query);
-                          pgService.executeQuery(
-                              query.toString(),
+                          pgService.executeParameterizedQuery(
+                              CREATE_SUB_SQL,
+                              params,
                               pgHandler -> {
                                 if (pgHandler.succeeded()) {
                                   promise.complete(response);
@@ -163,12 +164,9 @@ public class SubscriptionService {
     String queueName = json.getString(SUBSCRIPTION_ID);
     String entity = json.getJsonArray("entities").getString(0);
 
-    StringBuilder selectQuery =
-        new StringBuilder(SELECT_SUB_SQL.replace("$1", queueName).replace("$2", entity));
-
-    LOGGER.debug(selectQuery);
-    pgService.executeQuery(
-        selectQuery.toString(),
+    pgService.executeParameterizedQuery(
+        SELECT_SUB_SQL,
+        params(queueName, entity),
         handler -> {
           if (handler.succeeded()) {
             JsonArray resultArray = handler.result().getJsonArray("result");
@@ -179,15 +177,9 @@ public class SubscriptionService {
                   .put(JSON_DETAIL, "Subscription not found for [queue,entity]");
               promise.fail(res.toString());
             } else {
-              StringBuilder updateQuery =
-                  new StringBuilder(
-                      UPDATE_SUB_SQL
-                          .replace("$1", authInfo.getString("expiry"))
-                          .replace("$2", queueName)
-                          .replace("$3", entity));
-              LOGGER.debug(updateQuery);
-              pgService.executeQuery(
-                  updateQuery.toString(),
+              pgService.executeParameterizedQuery(
+                  UPDATE_SUB_SQL,
+                  params(LocalDateTime.parse(authInfo.getString("expiry")), queueName, entity),
                   pgHandler -> {
                     if (pgHandler.succeeded()) {
                       JsonObject response = new JsonObject();
@@ -241,12 +233,9 @@ public class SubscriptionService {
         .onComplete(
             handler -> {
               if (handler.succeeded()) {
-                StringBuilder query =
-                    new StringBuilder(
-                        DELETE_SUB_SQL.replace("$1", json.getString(SUBSCRIPTION_ID)));
-                LOGGER.debug(query);
-                pgService.executeQuery(
-                    query.toString(),
+                pgService.executeParameterizedQuery(
+                    DELETE_SUB_SQL,
+                    params(json.getString(SUBSCRIPTION_ID)),
                     pgHandler -> {
                       if (pgHandler.succeeded()) {
                         handler.result().remove("status");
@@ -298,11 +287,9 @@ public class SubscriptionService {
       JsonObject json, PostgresService pgService) {
     LOGGER.info("getAllSubscriptionQueueForUser() method started");
     Promise<JsonObject> promise = Promise.promise();
-    StringBuilder query = new StringBuilder(GET_ALL_QUEUE.replace("$1", json.getString("userid")));
-
-    LOGGER.debug("query: " + query);
-    pgService.executeQuery(
-        query.toString(),
+    pgService.executeParameterizedQuery(
+        GET_ALL_QUEUE,
+        params(json.getString("userid")),
         pgHandler -> {
           if (pgHandler.succeeded()) {
             promise.complete(pgHandler.result());
@@ -364,24 +351,24 @@ public class SubscriptionService {
                                   ? "RESOURCE"
                                   : "RESOURCE_GROUP";
 
-                          StringBuilder query =
-                              new StringBuilder(
-                                  APPEND_SUB_SQL
-                                      .replace("$1", json.getString(SUBSCRIPTION_ID))
-                                      .replace("$2", subType.type)
-                                      .replace("$3", json.getString(SUBSCRIPTION_ID))
-                                      .replace("$4", json.getJsonArray("entities").getString(0))
-                                      .replace("$5", authInfo.getString("expiry"))
-                                      .replace("$6", cacheResult.getString("name"))
-                                      .replace("$7", cacheResult.toString())
-                                      .replace("$8", authInfo.getString("userid"))
-                                      .replace("$9", cacheResult.getString(RESOURCE_GROUP))
-                                      .replace("$a", cacheResult.getString("provider"))
-                                      .replace("$b", delegatorId)
-                                      .replace("$c", type));
-                          LOGGER.debug(query);
-                          pgService.executeQuery(
-                              query.toString(),
+                          JsonArray params =
+                              params(
+                                  json.getString(SUBSCRIPTION_ID),
+                                  subType.type,
+                                  json.getString(SUBSCRIPTION_ID),
+                                  json.getJsonArray("entities").getString(0),
+                                  LocalDateTime.parse(authInfo.getString("expiry")),
+                                  cacheResult.getString("name"),
+                                  cacheResult,
+                                  authInfo.getString("userid"),
+                                  cacheResult.getString(RESOURCE_GROUP),
+                                  cacheResult.getString("provider"),
+                                  delegatorId,
+                                  type);
+
+                          pgService.executeParameterizedQuery(
+                              APPEND_SUB_SQL,
+                              params,
                               pgHandler -> {
                                 if (pgHandler.succeeded()) {
                                   JsonObject responses = new JsonObject();
@@ -26,6 +26,7 @@ public class Constants {
   // NGSI-LD endpoints
   public static final String NGSILD_BASE_PATH = "/ngsi-ld/v1";
   public static final String NGSILD_ENTITIES_URL = "/entities";
+  public static final String NGSILD_LATEST_ENTITIES_URL = "/entities/latest";
   // path regex
   public static final String ENTITITES_URL_REGEX = NGSILD_ENTITIES_URL + "(.*)";
   public static final String NGSILD_TEMPORAL_URL = "/temporal/entities";
@@ -120,12 +121,18 @@ public class Constants {
   public static final String NGSILDQUERY_TIME_PROPERTY = "timeProperty";
   public static final String NGSILDQUERY_FROM = "offset";
   public static final String NGSILDQUERY_SIZE = "limit";
+  public static final String NGSILDQUERY_CURSOR = "cursor";
+  public static final String NGSILDQUERY_CURSOR_START = "*";
+  public static final String NEXT_CURSOR = "nextCursor";
+  public static final String NEXT_LINK = "nextLink";
 
   // Header params
   public static final String HEADER_TOKEN = "token";
   public static final String HEADER_CSV = "csv";
   public static final String HEADER_JSON = "json";
   public static final String HEADER_PARQUET = "parquet";
+  public static final String HEADER_JSON_GZIP = "json.gz";
+  public static final String HEADER_CSV_GZIP = "csv.gz";
   public static final String HEADER_HOST = "Host";
   public static final String HEADER_ACCEPT = "Accept";
   public static final String HEADER_CONTENT_LENGTH = "Content-Length";
@@ -138,6 +145,7 @@ public class Constants {
   public static final String COUNT_HEADER = "Count";
   public static final String PUBLIC_TOKEN = "public";
   public static final String HEADER_PUBLIC_KEY = "publicKey";
+  public static final String HEADER_LINK = "Link";
   public static final String HEADER_RESPONSE_FILE_FORMAT = "format";
 
   // request/response params
@@ -251,6 +259,13 @@ public class Constants {
   public static final Pattern VALIDATION_ID_PATTERN =
       Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
   public static final int VALIDATION_MAX_ATTRS = 5;
+  public static final int VALIDATION_MAX_LATEST_IDS = 100;
+  public static final Pattern VALIDATION_LATEST_IDS_PATTERN =
+      Pattern.compile(
+          "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}"
+              + "(,[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}){0,"
+              + (VALIDATION_MAX_LATEST_IDS - 1)
+              + "}$");
   public static final int VALIDATION_MAX_DAYS_INTERVAL_ALLOWED = 10;
   public static final int VALIDATION_MAX_DAYS_INTERVAL_ALLOWED_FOR_ASYNC = 365;
   public static final int VALIDATION_COORDINATE_PRECISION_ALLOWED = 6;
@@ -284,27 +299,28 @@ public class Constants {
   public static final Pattern VALIDATION_Q_ATTR_PATTERN = Pattern.compile("^[a-zA-Z0-9_]{1,100}$");
   public static final Pattern VALIDATION_Q_VALUE_PATTERN =
       Pattern.compile("^[a-zA-Z0-9_.-]{1,100}$");
+  public static final Pattern VALIDATION_CURSOR_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]{1,4096}$");
 
   // subscriptions queries
   public static final String CREATE_SUB_SQL =
       "INSERT INTO subscriptions"
           + "(_id,_type,queue_name,entity,expiry,dataset_name,dataset_json,user_id,"
           + "resource_group,provider_id,delegator_id,item_type) "
-          + "VALUES('$1','$2','$3','$4','$5','$6','$7','$8','$9','$a','$b','$c')";
+          + "VALUES($1,$2,$3,$4,$5,$6,$7,$8,$9,$10,$11,$12)";
 
   public static final String UPDATE_SUB_SQL =
-      "UPDATE subscriptions SET expiry='$1' where queue_name='$2' and entity='$3'";
+      "UPDATE subscriptions SET expiry=$1 where queue_name=$2 and entity=$3";
 
   public static final String APPEND_SUB_SQL =
       "INSERT INTO subscriptions(_id,_type,queue_name,entity,expiry,dataset_name,dataset_json,user_id,"
           + "resource_group,provider_id,delegator_id,item_type) "
-          + "VALUES('$1','$2','$3','$4','$5','$6','$7','$8','$9','$a','$b','$c') "
+          + "VALUES($1,$2,$3,$4,$5,$6,$7,$8,$9,$10,$11,$12) "
           + "ON CONFLICT(queue_name,entity) DO NOTHING";
 
-  public static final String DELETE_SUB_SQL = "DELETE FROM subscriptions where queue_name='$1'";
+  public static final String DELETE_SUB_SQL = "DELETE FROM subscriptions where queue_name=$1";
 
   public static final String SELECT_SUB_SQL =
-      "SELECT * from subscriptions where queue_name='$1' and entity='$2'";
+      "SELECT * from subscriptions where queue_name=$1 and entity=$2";
 
   public static final String NO_CONTENT = "204";
 
@@ -312,9 +328,8 @@ public class Constants {
   public static final String ENDT = "endtime";
   public static final String GET_ALL_QUEUE =
       "SELECT queue_name as queueName,entity,dataset_json as catItem "
-          + "FROM subscriptions WHERE user_id ='$1'";
-  public static final String ENTITY_QUERY =
-      "select entity from subscriptions where queue_name='$0'";
+          + "FROM subscriptions WHERE user_id =$1";
+  public static final String ENTITY_QUERY = "select entity from subscriptions where queue_name=$1";
   public static final String LIMITPARAM = "limit";
   public static final String OFFSETPARAM = "offset";
   public static final String TOTALHITS = "totalHits";
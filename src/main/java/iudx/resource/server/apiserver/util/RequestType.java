@@ -4,6 +4,7 @@ public enum RequestType {
   ENTITY("entity"),
   TEMPORAL("temporal"),
   LATEST("latest"),
+  LATEST_BATCH("latest_batch"),
   ASYNC_SEARCH("async_search"),
   ASYNC_STATUS("async_status"),
   POST_TEMPORAL("post_temporal_schema.json"),
@@ -56,6 +56,9 @@ public class ValidatorsHandlersFactory {
       case LATEST:
         validator = getLatestRequestValidations(parameters);
         break;
+      case LATEST_BATCH:
+        validator = getLatestBatchRequestValidations(parameters);
+        break;
       case POST_TEMPORAL:
         validator = getPostEntitiesValidations(vertx, parameters, body, requestType);
         break;
@@ -133,6 +136,7 @@ public class ValidatorsHandlersFactory {
     // pagination optional fields
     validators.add(new PaginationLimitTypeValidator(parameters.get(NGSILDQUERY_SIZE), false));
     validators.add(new PaginationOffsetTypeValidator(parameters.get(NGSILDQUERY_FROM), false));
+    validators.add(new CursorTypeValidator(parameters.get(NGSILDQUERY_CURSOR), false));
 
     // optional header public key
     validators.add(new HeaderKeyTypeValidation(parameters.get(HEADER_PUBLIC_KEY), false));
@@ -151,6 +155,19 @@ public class ValidatorsHandlersFactory {
     return validators;
   }
 
+  private List<Validator> getLatestBatchRequestValidations(final MultiMap parameters) {
+
+    List<Validator> validators = new ArrayList<>();
+    validators.add(
+        new StringTypeValidator(
+            parameters.get(NGSILDQUERY_ID), true, VALIDATION_LATEST_IDS_PATTERN));
+
+    // optional header public key
+    validators.add(new HeaderKeyTypeValidation(parameters.get(HEADER_PUBLIC_KEY), false));
+
+    return validators;
+  }
+
   private List<Validator> getPostEntitiesValidations(
       Vertx vertx,
       final MultiMap parameters,
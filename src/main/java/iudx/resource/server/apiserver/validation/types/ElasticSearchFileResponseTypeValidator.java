@@ -37,6 +37,8 @@ public class ElasticSearchFileResponseTypeValidator implements Validator {
       throw new DxRuntimeException(failureCode(), INVALID_HEADER_VALUE_URN, failureMessage());
     } else if (value.equals(HEADER_CSV) || value.equals(HEADER_PARQUET) || value.equals(HEADER_JSON)) {
       return true;
+    } else if (value.equals(HEADER_JSON_GZIP) || value.equals(HEADER_CSV_GZIP)) {
+      return true;
     }
     LOGGER.error("Validation error : Invalid header format type");
     throw new DxRuntimeException(failureCode(), INVALID_HEADER_VALUE_URN, failureMessage(value));
@@ -35,15 +35,10 @@ import org.apache.logging.log4j.Logger;
 public class AuthenticationVerticle extends AbstractVerticle {
 
   private static final Logger LOGGER = LogManager.getLogger(AuthenticationVerticle.class);
+  private static final long KEY_FETCH_RETRY_DELAY_MS = 1000;
   private AuthenticationService jwtAuthenticationService;
   private ServiceBinder binder;
   private MessageConsumer<JsonObject> consumer;
-  private WebClient webClient;
-
-  private CacheService cacheService;
-  private MeteringService meteringService;
-  private Api api;
-  private String dxApiBasePath;
 
   static WebClient createWebClient(Vertx vertx, JsonObject config) {
     return createWebClient(vertx, config, false);
@@ -67,13 +62,51 @@ public class AuthenticationVerticle extends AbstractVerticle {
    */
   @Override
   public void start() throws Exception {
-
-    getJwtPublicKey(vertx, config())
+    binder = new ServiceBinder(vertx);
+    CacheService cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
+    createService(vertx, config(), cacheService)
         .onSuccess(
+            service -> {
+              jwtAuthenticationService = service;
+
+              /* Publish the Authentication service with the Event Bus against an address. */
+              consumer =
+                  binder
+                      .setAddress(AUTH_SERVICE_ADDRESS)
+                      .register(AuthenticationService.class, jwtAuthenticationService);
+
+              LOGGER.info("Authentication verticle deployed");
+            })
+        .onFailure(
             handler -> {
-              String cert = handler;
-              binder = new ServiceBinder(vertx);
+              LOGGER.error("failed to get JWT public key from auth server");
+              LOGGER.error("Authentication verticle deployment failed.");
+            });
+  }
+
+  /**
+   * Authentication service that verifies tokens in the calling verticle instead of going through
+   * the event bus, used by the api server when {@code authMode} is {@code embedded}. Requests wait
+   * until the JWT public key is fetched from the auth server, a failed fetch is retried with a
+   * backoff.
+   *
+   * @param vertx Vertx
+   * @param config authentication config (audience, authServerHost, jwtIgnoreExpiry, enableLimits
+   *     and the common config)
+   * @param cacheService cache service of the calling verticle
+   * @return AuthenticationService
+   */
+  public static AuthenticationService createEmbedded(
+      Vertx vertx, JsonObject config, CacheService cacheService) {
+    return new DeferredAuthenticationService(
+        vertx, () -> createService(vertx, config, cacheService), KEY_FETCH_RETRY_DELAY_MS);
+  }
 
+  static Future<AuthenticationService> createService(
+      Vertx vertx, JsonObject config, CacheService cacheService) {
+    return getJwtPublicKey(vertx, config)
+        .map(
+            cert -> {
               JWTAuthOptions jwtAuthOptions = new JWTAuthOptions();
               jwtAuthOptions.getJWTOptions().setLeeway(30);
               jwtAuthOptions.addPubSecKey(
@@ -82,8 +115,8 @@ public class AuthenticationVerticle extends AbstractVerticle {
                * Default jwtIgnoreExpiry is false. If set through config, then that value is taken
                */
               boolean jwtIgnoreExpiry =
-                  config().getBoolean("jwtIgnoreExpiry") != null
-                      && config().getBoolean("jwtIgnoreExpiry");
+                  config.getBoolean("jwtIgnoreExpiry") != null
+                      && config.getBoolean("jwtIgnoreExpiry");
               if (jwtIgnoreExpiry) {
                 jwtAuthOptions.getJWTOptions().setIgnoreExpiration(true).setLeeway(30);
                 LOGGER.warn(
@@ -91,27 +124,12 @@ public class AuthenticationVerticle extends AbstractVerticle {
                         + "do not set IgnoreExpiration in production!!");
               }
 
-              cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
-              meteringService = MeteringService.createProxy(vertx, METERING_SERVICE_ADDRESS);
-              dxApiBasePath = config().getString("dxApiBasePath");
-              api = Api.getInstance(dxApiBasePath);
+              MeteringService meteringService =
+                  MeteringService.createProxy(vertx, METERING_SERVICE_ADDRESS);
+              Api api = Api.getInstance(config.getString("dxApiBasePath"));
               JWTAuth jwtAuth = JWTAuth.create(vertx, jwtAuthOptions);
-              jwtAuthenticationService =
-                  new JwtAuthenticationServiceImpl(
-                      vertx, jwtAuth, config(), cacheService, meteringService, api);
-
-              /* Publish the Authentication service with the Event Bus against an address. */
-              consumer =
-                  binder
-                      .setAddress(AUTH_SERVICE_ADDRESS)
-                      .register(AuthenticationService.class, jwtAuthenticationService);
-
-              LOGGER.info("Authentication verticle deployed");
-            })
-        .onFailure(
-            handler -> {
-              LOGGER.error("failed to get JWT public key from auth server");
-              LOGGER.error("Authentication verticle deployment failed.");
+              return new JwtAuthenticationServiceImpl(
+                  vertx, jwtAuth, config, cacheService, meteringService, api);
             });
   }
 
@@ -120,9 +138,9 @@ public class AuthenticationVerticle extends AbstractVerticle {
     binder.unregister(consumer);
   }
 
-  private Future<String> getJwtPublicKey(Vertx vertx, JsonObject config) {
+  private static Future<String> getJwtPublicKey(Vertx vertx, JsonObject config) {
     Promise<String> promise = Promise.promise();
-    webClient = createWebClient(vertx, config);
+    WebClient webClient = createWebClient(vertx, config);
     String authCert = config.getString("dxAuthBasePath") + AUTH_CERTIFICATE_PATH;
     webClient
         .get(443, config.getString("authServerHost"), authCert)
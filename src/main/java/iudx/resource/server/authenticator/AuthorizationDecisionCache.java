@@ -0,0 +1,165 @@
+package iudx.resource.server.authenticator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of token introspections that allowed access, keyed by the token digest, the requested
+ * id, the endpoint and the method. A decision is served until the {@code exp} of its token; it is
+ * evicted when the client of the token is revoked and all decisions are dropped when catalogue
+ * items change, as the access policy of a resource may come from its group.
+ *
+ * <p>An introspection running while its client is revoked, or while the catalogue changes, may
+ * still allow access. Every invalidation bumps a generation; the caller reads the generation
+ * before the checks and the decision is not kept if it changed meanwhile.
+ *
+ * <p>Lookups are counted in {@code auth.decision.cache.gets}, tagged with {@code result} hit or
+ * miss.
+ */
+class AuthorizationDecisionCache {
+
+  static final String CACHE_GETS = "auth.decision.cache.gets";
+  static final long DEFAULT_SIZE = 10000;
+
+  private final Cache<String, Decision> cache;
+  // invalidations per client, kept as long as an introspection could possibly run
+  private final Cache<String, Long> subGenerations =
+      CacheBuilder.newBuilder().expireAfterWrite(1L, TimeUnit.HOURS).build();
+  private final AtomicLong allGeneration = new AtomicLong();
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * Cache holding at most {@code maximumSize} decisions.
+   *
+   * @param maximumSize maximum number of decisions
+   * @param registry MeterRegistry, may be null
+   */
+  AuthorizationDecisionCache(long maximumSize, MeterRegistry registry) {
+    MeterRegistry meterRegistry = registry == null ? Metrics.globalRegistry : registry;
+    // entries are checked against exp on every get, the write expiry only bounds memory
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .build();
+    this.hits = counter(meterRegistry, "hit");
+    this.misses = counter(meterRegistry, "miss");
+  }
+
+  private static Counter counter(MeterRegistry registry, String result) {
+    return Counter.builder(CACHE_GETS)
+        .description("Lookups of memoised authorization decisions")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static String key(String token, String id, String endPoint, String method) {
+    return Hashing.sha256().hashString(token, StandardCharsets.UTF_8)
+        + "|"
+        + id
+        + "|"
+        + endPoint
+        + "|"
+        + method;
+  }
+
+  /**
+   * Response of an earlier introspection of the same request.
+   *
+   * @return copy of the response, or null when there is none or the token has expired
+   */
+  JsonObject get(String token, String id, String endPoint, String method) {
+    String key = key(token, id, endPoint, method);
+    Decision decision = cache.getIfPresent(key);
+    if (decision != null && decision.exp <= Instant.now().getEpochSecond()) {
+      cache.invalidate(key);
+      decision = null;
+    }
+    if (decision == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return decision.response.copy();
+  }
+
+  /**
+   * Generation of the decisions of a client, it changes whenever they are invalidated.
+   *
+   * @param sub client id
+   * @return generation to pass to {@link #put}
+   */
+  long generation(String sub) {
+    return allGeneration.get() + subGenerations.asMap().getOrDefault(sub, 0L);
+  }
+
+  /**
+   * Remember the response of an introspection that allowed access, unless the decisions of the
+   * client were invalidated since {@code generation} was read.
+   *
+   * @param sub client id of the token
+   * @param exp expiry of the token, epoch seconds
+   * @param response introspection response, it is copied
+   * @param generation {@link #generation(String)} of the client before the introspection
+   */
+  void put(
+      String token,
+      String id,
+      String endPoint,
+      String method,
+      String sub,
+      long exp,
+      JsonObject response,
+      long generation) {
+    if (generation != generation(sub)) {
+      return;
+    }
+    String key = key(token, id, endPoint, method);
+    cache.put(key, new Decision(sub, exp, response.copy()));
+    // an invalidation racing the put may have missed the new entry
+    if (generation != generation(sub)) {
+      cache.invalidate(key);
+    }
+  }
+
+  /**
+   * Evict every decision made for tokens of the client.
+   *
+   * @param sub client id
+   */
+  void invalidateSub(String sub) {
+    subGenerations.asMap().merge(sub, 1L, Long::sum);
+    cache.asMap().values().removeIf(decision -> sub.equals(decision.sub));
+  }
+
+  void invalidateAll() {
+    allGeneration.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  private static final class Decision {
+    final String sub;
+    final long exp;
+    final JsonObject response;
+
+    Decision(String sub, long exp, JsonObject response) {
+      this.sub = sub;
+      this.exp = exp;
+      this.response = response;
+    }
+  }
+}
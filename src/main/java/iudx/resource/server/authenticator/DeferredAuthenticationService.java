@@ -0,0 +1,79 @@
+package iudx.resource.server.authenticator;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Authentication service that is usable once its creation, e.g. fetching the JWT key, is done. A
+ * failed creation is retried with an exponential backoff; requests made meanwhile fail.
+ */
+class DeferredAuthenticationService implements AuthenticationService {
+
+  private static final Logger LOGGER = LogManager.getLogger(DeferredAuthenticationService.class);
+  static final long MAX_RETRY_DELAY_MS = 60_000;
+
+  private final Vertx vertx;
+  private final Supplier<Future<AuthenticationService>> factory;
+  private final long initialRetryDelay;
+  private long retryDelay;
+  private volatile Future<AuthenticationService> service;
+
+  /**
+   * Service created by {@code factory}, called again after {@code initialRetryDelay} ms, then
+   * twice as late up to {@link #MAX_RETRY_DELAY_MS}, until it succeeds.
+   *
+   * @param vertx Vertx
+   * @param factory creates the service
+   * @param initialRetryDelay delay before the first retry in ms
+   */
+  DeferredAuthenticationService(
+      Vertx vertx, Supplier<Future<AuthenticationService>> factory, long initialRetryDelay) {
+    this.vertx = vertx;
+    this.factory = factory;
+    this.initialRetryDelay = initialRetryDelay;
+    this.retryDelay = initialRetryDelay;
+    create();
+  }
+
+  private void create() {
+    Future<AuthenticationService> attempt = factory.get();
+    service = attempt;
+    attempt
+        .onSuccess(created -> retryDelay = initialRetryDelay)
+        .onFailure(
+            cause -> {
+              long delay = retryDelay;
+              retryDelay = Math.min(MAX_RETRY_DELAY_MS, retryDelay * 2);
+              LOGGER.error(
+                  "authentication service unavailable, retrying in {} ms : {}",
+                  delay,
+                  cause.getMessage());
+              vertx.setTimer(delay, timerId -> create());
+            });
+  }
+
+  @Override
+  public AuthenticationService tokenInterospect(
+      JsonObject request, JsonObject authenticationInfo, Handler<AsyncResult<JsonObject>> handler) {
+    Future<AuthenticationService> current = service;
+    if (current.succeeded()) {
+      current.result().tokenInterospect(request, authenticationInfo, handler);
+      return this;
+    }
+    current.onComplete(
+        ar -> {
+          if (ar.succeeded()) {
+            ar.result().tokenInterospect(request, authenticationInfo, handler);
+          } else {
+            handler.handle(Future.failedFuture("authentication service unavailable"));
+          }
+        });
+    return this;
+  }
+}
@@ -1,13 +1,15 @@
 package iudx.resource.server.authenticator;
 
 import static iudx.resource.server.authenticator.Constants.*;
-import static iudx.resource.server.database.archives.Constants.ITEM_TYPES;
+import static iudx.resource.server.common.Constants.CATALOGUE_CACHE_INVALIDATION_ADDRESS;
+import static iudx.resource.server.common.Constants.REVOKED_CLIENT_ADDRESS;
 
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.authentication.TokenCredentials;
@@ -15,6 +17,7 @@ import io.vertx.ext.auth.jwt.JWTAuth;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import io.vertx.micrometer.backends.BackendRegistries;
 import iudx.resource.server.authenticator.authorization.AuthorizationContextFactory;
 import iudx.resource.server.authenticator.authorization.AuthorizationRequest;
 import iudx.resource.server.authenticator.authorization.AuthorizationStrategy;
@@ -23,16 +26,18 @@ import iudx.resource.server.authenticator.authorization.JwtAuthorization;
 import iudx.resource.server.authenticator.authorization.Method;
 import iudx.resource.server.authenticator.model.JwtData;
 import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.cache.CatalogueCacheReplica;
 import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.cachelmpl.CatalogueItem;
 import iudx.resource.server.common.Api;
+import iudx.resource.server.metering.ApiQuotaCounter;
 import iudx.resource.server.metering.MeteringService;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -49,6 +54,10 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
   final MeteringService meteringService;
   final Api apis;
   final String catBasePath;
+  final VerifiedTokenCache verifiedTokens;
+  final AuthorizationDecisionCache decisions;
+  final ApiQuotaCounter apiQuota;
+  final ProviderOwnerCache providerOwners;
   boolean isLimitsEnabled;
   String relationshipCatPath;
 
@@ -74,6 +83,33 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     catWebClient = WebClient.create(vertx, options);
     this.cache = cacheService;
     this.meteringService = meteringService;
+    this.verifiedTokens =
+        new VerifiedTokenCache(
+            config.getLong("jwtCacheSize", VerifiedTokenCache.DEFAULT_SIZE),
+            BackendRegistries.getDefaultNow());
+    this.apiQuota = new ApiQuotaCounter(vertx);
+    this.providerOwners = new ProviderOwnerCache(this::getProvider);
+    this.decisions =
+        new AuthorizationDecisionCache(
+            config.getLong("authDecisionCacheSize", AuthorizationDecisionCache.DEFAULT_SIZE),
+            BackendRegistries.getDefaultNow());
+    vertx
+        .eventBus()
+        .<JsonObject>consumer(
+            REVOKED_CLIENT_ADDRESS,
+            message -> {
+              String sub = message.body().getString("id");
+              verifiedTokens.invalidateSub(sub);
+              decisions.invalidateSub(sub);
+            });
+    vertx
+        .eventBus()
+        .<JsonObject>consumer(
+            CATALOGUE_CACHE_INVALIDATION_ADDRESS,
+            message -> {
+              decisions.invalidateAll();
+              providerOwners.invalidate(message.body());
+            });
   }
 
   private static boolean isIngestionEntitiesEndpoint(JsonObject authenticationInfo) {
@@ -92,6 +128,22 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     String token = authenticationInfo.getString("token");
     String method = authenticationInfo.getString("method");
 
+    if (id != null && id.contains(",") && endPoint.equalsIgnoreCase(apis.getEntitiesUrl())) {
+      authorizeEachId(request, authenticationInfo, id.split(","), handler);
+      return this;
+    }
+
+    // with limits the decision depends on the consumption so far, ingestion on the provider
+    boolean memoise =
+        token != null && !isLimitsEnabled && !isIngestionEntitiesEndpoint(authenticationInfo);
+    if (memoise) {
+      JsonObject decision = decisions.get(token, id, endPoint, method);
+      if (decision != null) {
+        handler.handle(Future.succeededFuture(decision));
+        return this;
+      }
+    }
+
     Future<JwtData> jwtDecodeFuture = decodeJwt(token);
 
     boolean skipResourceIdCheck =
@@ -115,6 +167,8 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
         .compose(
             decodeHandler -> {
               result.jwtData = decodeHandler;
+              // read before the revocation and catalogue checks the decision depends on
+              result.generation = decisions.generation(result.jwtData.getSub());
               return isValidAudienceValue(result.jwtData);
             })
         .compose(
@@ -194,6 +248,17 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
             })
         .onSuccess(
             successHandler -> {
+              if (memoise && result.jwtData.getExp() != null) {
+                decisions.put(
+                    token,
+                    id,
+                    endPoint,
+                    method,
+                    result.jwtData.getSub(),
+                    result.jwtData.getExp(),
+                    successHandler,
+                    result.generation);
+              }
               handler.handle(Future.succeededFuture(successHandler));
             })
         .onFailure(
@@ -204,7 +269,29 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     return this;
   }
 
+  /**
+   * Authorise a query for several ids, e.g. a batched latest query, by authorising the token for
+   * each id on its own. The query is allowed only if every id is; the first refusal is returned.
+   */
+  private void authorizeEachId(
+      JsonObject request,
+      JsonObject authenticationInfo,
+      String[] ids,
+      Handler<AsyncResult<JsonObject>> handler) {
+    List<Future<JsonObject>> idDecisions = new ArrayList<>();
+    for (String id : ids) {
+      Promise<JsonObject> idDecision = Promise.promise();
+      tokenInterospect(request, authenticationInfo.copy().put("id", id), idDecision);
+      idDecisions.add(idDecision.future());
+    }
+    Future.all(idDecisions).map(all -> idDecisions.get(0).result()).onComplete(handler);
+  }
+
   Future<JwtData> decodeJwt(String jwtToken) {
+    JwtData verified = jwtToken == null ? null : verifiedTokens.get(jwtToken);
+    if (verified != null) {
+      return Future.succeededFuture(verified);
+    }
     Promise<JwtData> promise = Promise.promise();
     TokenCredentials creds = new TokenCredentials(jwtToken);
 
@@ -215,6 +302,7 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
               JwtData jwtData = new JwtData(user.principal());
               jwtData.setExp(user.get("exp"));
               jwtData.setIat(user.get("iat"));
+              verifiedTokens.put(jwtToken, jwtData);
               promise.complete(jwtData);
             })
         .onFailure(
@@ -229,69 +317,33 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
   public Future<String> isOpenResource(String id) {
     LOGGER.trace("isOpenResource() started");
 
-    JsonObject cacheRequest = new JsonObject();
-    cacheRequest.put("type", CacheType.CATALOGUE_CACHE);
-    cacheRequest.put("key", id);
-    Future<JsonObject> resourceIdFuture = cache.get(cacheRequest);
-
     Promise<String> promise = Promise.promise();
-    resourceIdFuture.onComplete(
-        isResourceExistHandler -> {
-          if (isResourceExistHandler.failed()) {
-            promise.fail("Not Found  : " + id);
-            return;
-          } else {
-            Set<String> type =
-                new HashSet<String>(isResourceExistHandler.result().getJsonArray("type").getList());
-            Set<String> itemTypeSet =
-                type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-            itemTypeSet.retainAll(ITEM_TYPES);
-            String groupId;
-            if (!itemTypeSet.contains("Resource")) {
-              groupId = id;
-            } else {
-              groupId = isResourceExistHandler.result().getString("resourceGroup");
-            }
-            JsonObject resourceGroupCacheRequest = cacheRequest.copy();
-            resourceGroupCacheRequest.put("key", groupId);
-            Future<JsonObject> groupIdFuture = cache.get(resourceGroupCacheRequest);
-            groupIdFuture.onComplete(
-                groupCacheResultHandler -> {
-                  if (groupCacheResultHandler.failed()) {
-                    if (resourceIdFuture.result() != null
-                        && resourceIdFuture.result().containsKey("accessPolicy")) {
-                      String acl = resourceIdFuture.result().getString("accessPolicy");
-                      promise.complete(acl);
-                    } else {
-                      LOGGER.error("ACL not defined in group or resource item");
-                      promise.fail("ACL not defined in group or resource item");
-                      return;
-                    }
-                  } else {
-                    String acl = null;
-
-                    JsonObject groupCacheResult = groupCacheResultHandler.result();
-                    if (groupCacheResult != null && groupCacheResult.containsKey("accessPolicy")) {
-                      acl = groupIdFuture.result().getString("accessPolicy");
-                    }
-
-                    JsonObject resourceCacheResult = resourceIdFuture.result();
-                    if (resourceCacheResult != null
-                        && resourceCacheResult.containsKey("accessPolicy")) {
-                      acl = resourceIdFuture.result().getString("accessPolicy");
+    CatalogueCacheReplica.getItem(cache, id)
+        .onComplete(
+            isResourceExistHandler -> {
+              if (isResourceExistHandler.failed()) {
+                promise.fail("Not Found  : " + id);
+                return;
+              }
+              CatalogueItem item = isResourceExistHandler.result();
+              Future<CatalogueItem> groupFuture =
+                  item.isResource()
+                      ? CatalogueCacheReplica.getItem(cache, item.getGroupId())
+                      : Future.succeededFuture(item);
+              groupFuture.onComplete(
+                  groupCacheResultHandler -> {
+                    String acl = item.getAccessPolicy();
+                    if (acl == null && groupCacheResultHandler.succeeded()) {
+                      acl = groupCacheResultHandler.result().getAccessPolicy();
                     }
-
                     if (acl == null) {
                       LOGGER.error("ACL not defined in group or resource item");
                       promise.fail("ACL not defined in group or resource item");
-                      return;
                     } else {
                       promise.complete(acl);
                     }
-                  }
-                });
-          }
-        });
+                  });
+            });
 
     return promise.future();
   }
@@ -332,45 +384,12 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     JwtAuthorization jwtAuthStrategy = new JwtAuthorization(authStrategy);
     LOGGER.info("endPoint : " + authInfo.getString("apiEndpoint"));
 
-    OffsetDateTime startDateTime = OffsetDateTime.now(ZoneId.of("Z", ZoneId.SHORT_IDS));
-    OffsetDateTime endDateTime = startDateTime.withHour(00).withMinute(00).withSecond(00);
-
-    JsonObject meteringCountRequest = new JsonObject();
-    meteringCountRequest.put("timeRelation", "during");
-    meteringCountRequest.put("startTime", endDateTime.toString());
-    meteringCountRequest.put("endTime", startDateTime.toString());
-    meteringCountRequest.put("userid", jwtData.getSub());
-    meteringCountRequest.put("endPoint", "/consumer/audit");
-    meteringCountRequest.put("options", "count");
-
-    LOGGER.debug("metering request : " + meteringCountRequest);
     if (isLimitsEnabled) {
-      meteringService.executeReadQuery(
-          meteringCountRequest,
-          meteringCountHandler -> {
-            if (meteringCountHandler.succeeded()) {
-              JsonObject consumedApiCount = new JsonObject();
-              LOGGER.info("metering response : " + meteringCountHandler.result());
-              JsonObject meteringResponse = meteringCountHandler.result();
-              consumedApiCount.put(
-                  "api",
-                  meteringResponse.getJsonArray("results").getJsonObject(0).getInteger("total"));
-              if (jwtAuthStrategy.isAuthorized(authRequest, jwtData, consumedApiCount)) {
-                LOGGER.info("User access is allowed.");
-                promise.complete(createValidateAccessSuccessResponse(jwtData));
-              } else {
-                LOGGER.error("failed - no access provided to endpoint");
-                JsonObject result = new JsonObject().put("401", "no access provided to endpoint");
-                promise.fail(result.toString());
-              }
-            } else {
-              LOGGER.error("failed to get metering response");
-              String failureMessage = meteringCountHandler.cause().getMessage();
-              JsonObject failureJson = new JsonObject(failureMessage);
-              int failureCode = failureJson.getInteger("type");
-              if (failureCode == 204) {
-                JsonObject consumedApiCount = new JsonObject();
-                consumedApiCount.put("api", 0);
+      apiQuota
+          .count(jwtData.getSub(), () -> countAuditedCalls(jwtData.getSub()))
+          .onSuccess(
+              count -> {
+                JsonObject consumedApiCount = new JsonObject().put("api", count);
                 if (jwtAuthStrategy.isAuthorized(authRequest, jwtData, consumedApiCount)) {
                   LOGGER.info("User access is allowed.");
                   promise.complete(createValidateAccessSuccessResponse(jwtData));
@@ -379,12 +398,12 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
                   JsonObject result = new JsonObject().put("401", "no access provided to endpoint");
                   promise.fail(result.toString());
                 }
-              }
-
-              //          JsonObject result = new JsonObject().put("401", "Access limit exceeds");
-              //          promise.fail(result.toString());
-            }
-          });
+              })
+          .onFailure(
+              failure -> {
+                LOGGER.error("failed to get api consumption of user");
+                promise.fail(failure.getMessage());
+              });
     } else {
       if (jwtAuthStrategy.isAuthorized(authRequest, jwtData)) {
         LOGGER.info("User access is allowed.");
@@ -398,6 +417,47 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     return promise.future();
   }
 
+  /** Today's audit rows of the user, read once a day to seed the api quota counter. */
+  private Future<Long> countAuditedCalls(String userId) {
+    OffsetDateTime startDateTime = OffsetDateTime.now(ZoneId.of("Z", ZoneId.SHORT_IDS));
+    OffsetDateTime endDateTime = startDateTime.withHour(00).withMinute(00).withSecond(00);
+
+    JsonObject meteringCountRequest = new JsonObject();
+    meteringCountRequest.put("timeRelation", "during");
+    meteringCountRequest.put("startTime", endDateTime.toString());
+    meteringCountRequest.put("endTime", startDateTime.toString());
+    meteringCountRequest.put("userid", userId);
+    meteringCountRequest.put("endPoint", "/consumer/audit");
+    meteringCountRequest.put("options", "count");
+
+    LOGGER.debug("metering request : " + meteringCountRequest);
+    Promise<Long> promise = Promise.promise();
+    meteringService.executeReadQuery(
+        meteringCountRequest,
+        meteringCountHandler -> {
+          if (meteringCountHandler.succeeded()) {
+            LOGGER.info("metering response : " + meteringCountHandler.result());
+            JsonObject meteringResponse = meteringCountHandler.result();
+            promise.complete(
+                meteringResponse.getJsonArray("results").getJsonObject(0).getLong("total"));
+          } else if (isNoContent(meteringCountHandler.cause().getMessage())) {
+            promise.complete(0L);
+          } else {
+            LOGGER.error("failed to get metering response");
+            promise.fail(meteringCountHandler.cause().getMessage());
+          }
+        });
+    return promise.future();
+  }
+
+  private static boolean isNoContent(String failureMessage) {
+    try {
+      return new JsonObject(failureMessage).getInteger("type", 0) == 204;
+    } catch (DecodeException e) {
+      return false;
+    }
+  }
+
   private boolean checkOpenEndPoints(String endPoint) {
     for (String item : OPEN_ENDPOINTS) {
       if (endPoint.contains(item)) {
@@ -450,8 +510,12 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
 
   Future<String> getProviderUserId(String id) {
     LOGGER.trace("getProviderUserId () started");
+    return providerOwners.get(id);
+  }
+
+  private Future<JsonObject> getProvider(String id) {
     relationshipCatPath = catBasePath + "/relationship";
-    Promise<String> promise = Promise.promise();
+    Promise<JsonObject> promise = Promise.promise();
     LOGGER.debug("id: " + id);
     catWebClient
         .get(port, host, relationshipCatPath)
@@ -462,22 +526,16 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
             catHandler -> {
               if (catHandler.succeeded()) {
                 JsonArray response = catHandler.result().bodyAsJsonObject().getJsonArray("results");
-                response.forEach(
-                    json -> {
-                      JsonObject res = (JsonObject) json;
-                      String providerUserId = null;
-                      providerUserId = res.getString("providerUserId");
-                      if (providerUserId == null) {
-                        providerUserId = res.getString("ownerUserId");
-                        LOGGER.info(" owneruserid : " + providerUserId);
-                      }
-                      promise.complete(providerUserId);
-                    });
-
+                if (response == null || response.isEmpty()) {
+                  promise.fail("provider not found for : " + id);
+                } else {
+                  promise.complete(response.getJsonObject(0));
+                }
               } else {
                 LOGGER.error(
                     "Failed to call catalogue  while getting provider user id {}",
                     catHandler.cause().getMessage());
+                promise.fail(catHandler.cause());
               }
             });
 
@@ -558,5 +616,6 @@ public class JwtAuthenticationServiceImpl implements AuthenticationService {
     JwtData jwtData;
     boolean isResourceExist;
     boolean isOpen;
+    long generation;
   }
 }
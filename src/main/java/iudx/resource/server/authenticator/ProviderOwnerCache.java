@@ -0,0 +1,114 @@
+package iudx.resource.server.authenticator;
+
+import static iudx.resource.server.cache.CatalogueCacheReplica.INVALIDATE_ALL;
+import static iudx.resource.server.cache.CatalogueCacheReplica.INVALIDATE_IDS;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * User owning the provider of a resource, as used to authorize ingestion. Owners are looked up in
+ * the catalogue once per resource and kept for an hour; concurrent lookups of one resource share a
+ * single catalogue call. Catalogue change events evict the resources that changed and the
+ * resources of providers that changed.
+ */
+class ProviderOwnerCache {
+
+  private static final Logger LOGGER = LogManager.getLogger(ProviderOwnerCache.class);
+
+  private final Cache<String, Owner> owners =
+      CacheBuilder.newBuilder().maximumSize(10000).expireAfterWrite(1L, TimeUnit.HOURS).build();
+  private final Map<String, Future<String>> loading = new ConcurrentHashMap<>();
+  private final Function<String, Future<JsonObject>> providerLookup;
+
+  /**
+   * Cache loading owners through the given lookup.
+   *
+   * @param providerLookup provider item of a resource id
+   */
+  ProviderOwnerCache(Function<String, Future<JsonObject>> providerLookup) {
+    this.providerLookup = providerLookup;
+  }
+
+  /**
+   * User owning the provider of the resource.
+   *
+   * @param id resource id
+   * @return providerUserId of the provider, or its ownerUserId when there is none
+   */
+  Future<String> get(String id) {
+    Owner owner = owners.getIfPresent(id);
+    if (owner != null) {
+      return Future.succeededFuture(owner.userId);
+    }
+
+    Promise<String> promise = Promise.promise();
+    Future<String> pending = loading.putIfAbsent(id, promise.future());
+    if (pending != null) {
+      return pending;
+    }
+    providerLookup
+        .apply(id)
+        .onComplete(
+            ar -> {
+              loading.remove(id, promise.future());
+              if (ar.failed()) {
+                promise.fail(ar.cause());
+                return;
+              }
+              JsonObject provider = ar.result();
+              String userId = provider.getString("providerUserId");
+              if (userId == null) {
+                userId = provider.getString("ownerUserId");
+                LOGGER.info(" owneruserid : " + userId);
+              }
+              if (userId != null) {
+                owners.put(id, new Owner(provider.getString("id"), userId));
+              }
+              promise.complete(userId);
+            });
+    return promise.future();
+  }
+
+  /**
+   * Apply a catalogue change event.
+   *
+   * @param invalidation ids of the changed items, or all when too many items changed
+   */
+  void invalidate(JsonObject invalidation) {
+    JsonArray ids = invalidation.getJsonArray(INVALIDATE_IDS);
+    if (invalidation.getBoolean(INVALIDATE_ALL, false) || ids == null) {
+      owners.invalidateAll();
+      return;
+    }
+    Set<String> changed = ids.stream().map(Object::toString).collect(Collectors.toSet());
+    owners.asMap().keySet().removeAll(changed);
+    owners.asMap().values().removeIf(owner -> changed.contains(owner.providerId));
+  }
+
+  long size() {
+    return owners.size();
+  }
+
+  private static final class Owner {
+    final String providerId;
+    final String userId;
+
+    Owner(String providerId, String userId) {
+      this.providerId = providerId;
+      this.userId = userId;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package iudx.resource.server.authenticator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import iudx.resource.server.authenticator.model.JwtData;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens whose signature and claims were already verified, keyed by the SHA-256 digest of the
+ * token so the raw token is not kept in memory. An entry is served only until the {@code exp} of
+ * its token and is evicted when the client of the token is revoked.
+ *
+ * <p>Lookups are counted in {@code auth.jwt.cache.gets}, tagged with {@code result} hit or miss;
+ * the hit ratio is the hit count over the sum of both.
+ */
+class VerifiedTokenCache {
+
+  static final String CACHE_GETS = "auth.jwt.cache.gets";
+  static final long DEFAULT_SIZE = 10000;
+
+  private final Cache<String, JwtData> cache;
+  private final Counter hits;
+  private final Counter misses;
+
+  /**
+   * Cache holding at most {@code maximumSize} tokens.
+   *
+   * @param maximumSize maximum number of tokens
+   * @param registry MeterRegistry, may be null
+   */
+  VerifiedTokenCache(long maximumSize, MeterRegistry registry) {
+    MeterRegistry meterRegistry = registry == null ? Metrics.globalRegistry : registry;
+    // entries are checked against exp on every get, the write expiry only bounds memory
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .build();
+    this.hits = counter(meterRegistry, "hit");
+    this.misses = counter(meterRegistry, "miss");
+  }
+
+  private static Counter counter(MeterRegistry registry, String result) {
+    return Counter.builder(CACHE_GETS)
+        .description("Lookups of verified tokens")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static String digest(String token) {
+    return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Verified claims of the token.
+   *
+   * @param token jwt
+   * @return claims, or null when the token was not verified yet or has expired
+   */
+  JwtData get(String token) {
+    String key = digest(token);
+    JwtData jwtData = cache.getIfPresent(key);
+    if (jwtData != null
+        && jwtData.getExp() != null
+        && jwtData.getExp() <= Instant.now().getEpochSecond()) {
+      cache.invalidate(key);
+      jwtData = null;
+    }
+    (jwtData == null ? misses : hits).increment();
+    return jwtData;
+  }
+
+  /**
+   * Remember verified claims, callers must not modify them afterwards.
+   *
+   * @param token jwt
+   * @param jwtData claims of the token
+   */
+  void put(String token, JwtData jwtData) {
+    cache.put(digest(token), jwtData);
+  }
+
+  /**
+   * Evict every token issued to the client.
+   *
+   * @param sub client id
+   */
+  void invalidateSub(String sub) {
+    cache.asMap().values().removeIf(jwtData -> sub.equals(jwtData.getSub()));
+  }
+
+  long size() {
+    return cache.size();
+  }
+}
@@ -16,6 +16,19 @@ public interface CacheService {
     return new CacheServiceVertxEBProxy(vertx, address);
   }
 
+  /**
+   * Proxy answering catalogue lookups from a local {@link CatalogueCacheReplica}, meant to be
+   * created once per verticle instance.
+   *
+   * @param vertx Vertx of the verticle
+   * @param address cache service address
+   * @return CacheService
+   */
+  @GenIgnore
+  static CacheService createReplica(Vertx vertx, String address) {
+    return new CatalogueCacheReplica(vertx, createProxy(vertx, address));
+  }
+
   /**
    * get value from cache passing a json object specifying cache name (in case of multiple caches
    * are configured) and key.
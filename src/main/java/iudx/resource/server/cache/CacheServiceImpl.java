@@ -106,6 +106,8 @@ public class CacheServiceImpl implements CacheService {
 
     if (cache != null && key != null && value != null) {
       cache.put(key, cache.createCacheValue(key, value));
+    } else if (cache != null && key != null) {
+      cache.refresh(key);
     } else {
       cache.refreshCache();
     }
@@ -1,6 +1,7 @@
 package iudx.resource.server.cache;
 
 import static iudx.resource.server.common.Constants.CACHE_SERVICE_ADDRESS;
+import static iudx.resource.server.common.Constants.CATALOGUE_ITEM_ADDRESS;
 import static iudx.resource.server.common.Constants.PG_SERVICE_ADDRESS;
 
 import io.vertx.core.AbstractVerticle;
@@ -8,6 +9,7 @@ import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ServiceBinder;
 import iudx.resource.server.cache.cachelmpl.CatalogueCacheImpl;
+import iudx.resource.server.cache.cachelmpl.CatalogueItemCodec;
 import iudx.resource.server.database.postgres.PostgresService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -17,6 +19,7 @@ public class CacheVerticle extends AbstractVerticle {
   private static final Logger LOGGER = LogManager.getLogger(CacheVerticle.class);
 
   private MessageConsumer<JsonObject> consumer;
+  private MessageConsumer<String> itemConsumer;
   private ServiceBinder binder;
 
   private CacheService cacheService;
@@ -33,11 +36,24 @@ public class CacheVerticle extends AbstractVerticle {
     binder = new ServiceBinder(vertx);
     consumer = binder.setAddress(CACHE_SERVICE_ADDRESS).register(CacheService.class, cacheService);
 
+    CatalogueItemCodec.register(vertx);
+    itemConsumer =
+        vertx
+            .eventBus()
+            .consumer(
+                CATALOGUE_ITEM_ADDRESS,
+                message ->
+                    catalogueCache
+                        .getItem(message.body())
+                        .onSuccess(item -> message.reply(item))
+                        .onFailure(failure -> message.fail(404, "No entry for given key")));
+
     LOGGER.info("Cache Verticle deployed.");
   }
 
   @Override
   public void stop() {
     binder.unregister(consumer);
+    itemConsumer.unregister();
   }
 }
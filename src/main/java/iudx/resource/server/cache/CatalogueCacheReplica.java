@@ -0,0 +1,156 @@
+package iudx.resource.server.cache;
+
+import static iudx.resource.server.common.Constants.CATALOGUE_CACHE_INVALIDATION_ADDRESS;
+import static iudx.resource.server.common.Constants.CATALOGUE_ITEM_ADDRESS;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.cachelmpl.CatalogueItem;
+import iudx.resource.server.cache.cachelmpl.CatalogueItemCodec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Read-through replica of the catalogue cache, embedded by every verticle instance that looks up
+ * catalogue items. An item read once from the cache verticle is kept as a parsed {@link
+ * CatalogueItem} and answered from local memory afterwards, concurrent misses for the same id share
+ * one event bus request, and every other request goes to the {@link CacheService} proxy unchanged.
+ * Use {@link #getItem(CacheService, String)} to read the parsed item without a json copy.
+ *
+ * <p>The {@code CatalogueCacheImpl} of the cache verticle publishes the ids of changed or removed
+ * items on {@link iudx.resource.server.common.Constants#CATALOGUE_CACHE_INVALIDATION_ADDRESS} as
+ * {@code {"ids":[...]}}, or {@code {"all":true}} when too many changed; entries also expire after
+ * {@link #DEFAULT_TTL_MINUTES} in case an invalidation is missed.
+ */
+public class CatalogueCacheReplica implements CacheService {
+
+  public static final String INVALIDATE_IDS = "ids";
+  public static final String INVALIDATE_ALL = "all";
+  private static final Logger LOGGER = LogManager.getLogger(CatalogueCacheReplica.class);
+  private static final long DEFAULT_MAX_SIZE = 5000;
+  private static final long DEFAULT_TTL_MINUTES = 60;
+
+  private final CacheService delegate;
+  private final Vertx vertx;
+  private final Cache<String, CatalogueItem> items;
+  private final Map<String, Future<CatalogueItem>> loading = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  public CatalogueCacheReplica(Vertx vertx, CacheService delegate) {
+    this(vertx, delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL_MINUTES);
+  }
+
+  CatalogueCacheReplica(Vertx vertx, CacheService delegate, long maxSize, long ttlMinutes) {
+    this.vertx = vertx;
+    this.delegate = delegate;
+    this.items =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+            .build();
+    CatalogueItemCodec.register(vertx);
+    vertx
+        .eventBus()
+        .<JsonObject>consumer(
+            CATALOGUE_CACHE_INVALIDATION_ADDRESS, message -> invalidate(message.body()));
+  }
+
+  /**
+   * Parsed catalogue item for the given id, read from the replica when the cache service is one and
+   * through {@link CacheService#get(JsonObject)} otherwise.
+   *
+   * @param cacheService cache service of the caller
+   * @param id catalogue item id
+   * @return Future of the item
+   */
+  public static Future<CatalogueItem> getItem(CacheService cacheService, String id) {
+    if (cacheService instanceof CatalogueCacheReplica) {
+      return ((CatalogueCacheReplica) cacheService).getItem(id);
+    }
+    JsonObject request = new JsonObject().put("type", CacheType.CATALOGUE_CACHE).put("key", id);
+    return cacheService.get(request).map(CatalogueItem::new);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Future<JsonObject> get(JsonObject request) {
+    String key = request.getString("key");
+    if (key == null || !CacheType.CATALOGUE_CACHE.name().equals(request.getString("type"))) {
+      return delegate.get(request);
+    }
+    return getItem(key).map(CatalogueItem::toJson);
+  }
+
+  /**
+   * Parsed catalogue item for the given id.
+   *
+   * @param key catalogue item id
+   * @return Future of the item, failed when the catalogue does not hold it
+   */
+  public Future<CatalogueItem> getItem(String key) {
+    CatalogueItem item = items.getIfPresent(key);
+    if (item != null) {
+      return Future.succeededFuture(item);
+    }
+
+    Promise<CatalogueItem> promise = Promise.promise();
+    Future<CatalogueItem> pending = loading.putIfAbsent(key, promise.future());
+    if (pending != null) {
+      return pending;
+    }
+    long loadGeneration = generation.get();
+    vertx
+        .eventBus()
+        .<CatalogueItem>request(CATALOGUE_ITEM_ADDRESS, key)
+        .map(Message::body)
+        .onComplete(
+            result -> {
+              loading.remove(key, promise.future());
+              // an invalidation received while loading may concern this very item
+              if (result.succeeded() && generation.get() == loadGeneration) {
+                items.put(key, result.result());
+              }
+              promise.handle(result);
+            });
+    return promise.future();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Future<JsonObject> put(JsonObject request) {
+    return delegate.put(request);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Future<JsonObject> refresh(JsonObject request) {
+    return delegate.refresh(request);
+  }
+
+  void invalidate(JsonObject invalidation) {
+    generation.incrementAndGet();
+    JsonArray ids = invalidation.getJsonArray(INVALIDATE_IDS);
+    if (invalidation.getBoolean(INVALIDATE_ALL, false) || ids == null) {
+      LOGGER.debug("catalogue replica invalidated");
+      items.invalidateAll();
+    } else {
+      LOGGER.debug("catalogue replica invalidated for {} items", ids.size());
+      ids.forEach(id -> items.invalidate(id));
+    }
+  }
+
+  long size() {
+    return items.size();
+  }
+}
@@ -1,15 +1,25 @@
 package iudx.resource.server.cache.cachelmpl;
 
+import static iudx.resource.server.common.Constants.CATALOGUE_CACHE_INVALIDATION_ADDRESS;
+
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,15 +28,29 @@ public class CatalogueCacheImpl implements IudxCache {
 
   private static final Logger LOGGER = LogManager.getLogger(CatalogueCacheImpl.class);
   private static final CacheType cacheType = CacheType.CATALOGUE_CACHE;
+  private static final int MAX_INVALIDATED_IDS = 1000;
+  private static final long UNKNOWN_ID_TTL_SECONDS = 60;
+  private static final String ITEM_FIELDS =
+      "id,provider,name,description,label,accessPolicy,type,iudxResourceAPIs,instance,"
+          + "resourceGroup,providerUserId,ownerUserId";
 
   static WebClient catWebClient;
-  private final Cache<String, CacheValue<JsonObject>> cache =
-      CacheBuilder.newBuilder().maximumSize(5000).expireAfterWrite(1L, TimeUnit.DAYS).build();
+  // replaced as a whole by every full refresh, readers never see a partially filled cache
+  private volatile Cache<String, CatalogueItem> cache = newItemCache();
+  private final Cache<String, Boolean> unknownIds =
+      CacheBuilder.newBuilder()
+          .maximumSize(10000)
+          .expireAfterWrite(UNKNOWN_ID_TTL_SECONDS, TimeUnit.SECONDS)
+          .build();
+  private final Map<String, Future<CatalogueItem>> loading = new ConcurrentHashMap<>();
+  private Future<Void> refreshing;
   private String catHost;
   private int catPort;
   private String catBasePath;
+  private final Vertx vertx;
 
   public CatalogueCacheImpl(Vertx vertx, JsonObject config) {
+    this.vertx = vertx;
     LOGGER.debug("config : {}", config);
     this.catHost = config.getString("catServerHost");
     this.catPort = config.getInteger("catServerPort");
@@ -53,26 +77,47 @@ public class CatalogueCacheImpl implements IudxCache {
 
   @Override
   public Future<CacheValue<JsonObject>> get(String key) {
+    return getItem(key).map(item -> item::toJson);
+  }
+
+  /**
+   * Parsed catalogue item for the given id. An id missing from the cache is looked up on its own
+   * through the catalogue item API, concurrent misses for one id share that call and ids the
+   * catalogue does not hold are remembered for {@link #UNKNOWN_ID_TTL_SECONDS}.
+   *
+   * @param key catalogue item id
+   * @return Future of the item, failed when the catalogue server does not hold it
+   */
+  public Future<CatalogueItem> getItem(String key) {
     LOGGER.trace("request for id : {}", key);
-    Promise<CacheValue<JsonObject>> promise = Promise.promise();
-    if (cache.getIfPresent(key) != null) {
-      return Future.succeededFuture(cache.getIfPresent(key));
-    } else {
-      populateCache()
-          .onSuccess(
-              successHandler -> {
-                if (cache.getIfPresent(key) != null) {
-                  promise.complete(cache.getIfPresent(key));
-                } else {
-                  LOGGER.info("key :{} not found in cache/catatlgue server", key);
-                  promise.fail("key not found");
-                }
-              })
-          .onFailure(
-              failureHandler -> {
-                promise.fail("Value not found");
-              });
+    CatalogueItem item = cache.getIfPresent(key);
+    if (item != null) {
+      return Future.succeededFuture(item);
+    }
+    if (unknownIds.getIfPresent(key) != null) {
+      return Future.failedFuture("key not found");
     }
+
+    Promise<CatalogueItem> promise = Promise.promise();
+    Future<CatalogueItem> pending = loading.putIfAbsent(key, promise.future());
+    if (pending != null) {
+      return pending;
+    }
+    fetchItem(key)
+        .onComplete(
+            ar -> {
+              loading.remove(key, promise.future());
+              if (ar.failed()) {
+                promise.fail("Value not found");
+              } else if (ar.result() == null) {
+                LOGGER.info("key :{} not found in cache/catatlgue server", key);
+                unknownIds.put(key, Boolean.TRUE);
+                promise.fail("key not found");
+              } else {
+                cache.put(key, ar.result());
+                promise.complete(ar.result());
+              }
+            });
     return promise.future();
   }
 
@@ -83,32 +128,119 @@ public class CatalogueCacheImpl implements IudxCache {
     return Future.succeededFuture();
   }
 
+  /**
+   * Applies a change of one catalogue item: the item is looked up again through the item API and
+   * replaced, or dropped when the catalogue no longer holds it as ACTIVE.
+   *
+   * @param key catalogue item id
+   * @return Future completed once the cache holds the current item
+   */
+  @Override
+  public Future<Void> refresh(String key) {
+    LOGGER.debug("refresh() for id : {}", key);
+    return fetchItem(key)
+        .map(
+            item -> {
+              CatalogueItem current = cache.getIfPresent(key);
+              if (item == null) {
+                cache.invalidate(key);
+                unknownIds.put(key, Boolean.TRUE);
+              } else {
+                cache.put(key, item);
+                unknownIds.invalidate(key);
+              }
+              if (!Objects.equals(current, item)) {
+                publishInvalidation(List.of(key));
+              }
+              return null;
+            });
+  }
+
+  /** Looks up one ACTIVE item, the future holds null when the catalogue does not have it. */
+  private Future<CatalogueItem> fetchItem(String id) {
+    Promise<CatalogueItem> promise = Promise.promise();
+    catWebClient
+        .get(catPort, catHost, catBasePath + "/item")
+        .addQueryParam("id", id)
+        .send(
+            catHandler -> {
+              if (catHandler.failed()) {
+                LOGGER.error("catalogue item call failed for id : {}", id);
+                promise.fail(catHandler.cause());
+                return;
+              }
+              HttpResponse<Buffer> response = catHandler.result();
+              int status = response.statusCode();
+              if (status == 404) {
+                promise.complete();
+                return;
+              }
+              JsonObject body = response.bodyAsJsonObject();
+              JsonArray results = body == null ? null : body.getJsonArray("results");
+              if (status != 200 || results == null) {
+                LOGGER.error("catalogue item call failed for id : {} [{}]", id, status);
+                promise.fail("catalogue item call failed");
+                return;
+              }
+              CatalogueItem item = null;
+              for (Object result : results) {
+                JsonObject json = (JsonObject) result;
+                if (id.equals(json.getString("id"))
+                    && "ACTIVE".equals(json.getString("itemStatus", "ACTIVE"))) {
+                  item = new CatalogueItem(project(json));
+                }
+              }
+              promise.complete(item);
+            });
+    return promise.future();
+  }
+
+  /** The item limited to the fields the full refresh asks for, so both compare equal. */
+  private static JsonObject project(JsonObject item) {
+    JsonObject projected = new JsonObject();
+    for (String field : ITEM_FIELDS.split(",")) {
+      if (item.containsKey(field)) {
+        projected.put(field, item.getValue(field));
+      }
+    }
+    return projected;
+  }
+
+  private static Cache<String, CatalogueItem> newItemCache() {
+    return CacheBuilder.newBuilder().maximumSize(5000).expireAfterWrite(1L, TimeUnit.DAYS).build();
+  }
+
+  /** Downloads all ACTIVE items into a new cache and swaps it in, one download at a time. */
   private Future<Void> populateCache() {
+    if (refreshing != null) {
+      return refreshing;
+    }
     LOGGER.debug("refresh() cache started");
     Promise<Void> promise = Promise.promise();
+    refreshing = promise.future();
     String url = catBasePath + "/search";
     catWebClient
         .get(catPort, catHost, url)
         .addQueryParam("property", "[itemStatus]")
         .addQueryParam("value", "[[ACTIVE]]")
-        .addQueryParam(
-            "filter",
-            "[id,provider,name,description,label,accessPolicy,type,"
-                + "iudxResourceAPIs,instance,resourceGroup]")
+        .addQueryParam("filter", "[" + ITEM_FIELDS + "]")
         .expect(ResponsePredicate.JSON)
         .send(
             catHandler -> {
+              refreshing = null;
               if (catHandler.succeeded()) {
                 JsonArray response = catHandler.result().bodyAsJsonObject().getJsonArray("results");
-                cache.invalidateAll();
+                List<String> changedIds = changedIds(response);
+                Cache<String, CatalogueItem> refreshed = newItemCache();
                 response.forEach(
                     json -> {
-                      JsonObject res = (JsonObject) json;
-                      String id = res.getString("id");
-                      CacheValue<JsonObject> cacheValue = createCacheValue(id, res.toString());
-                      cache.put(id, cacheValue);
+                      CatalogueItem item = new CatalogueItem((JsonObject) json);
+                      refreshed.put(item.getId(), item);
                     });
+                cache = refreshed;
+                unknownIds.invalidateAll();
                 LOGGER.debug("refresh() cache completed");
+                publishInvalidation(changedIds);
                 promise.complete();
               } else if (catHandler.failed()) {
                 LOGGER.error("Failed to populate catalogue cache");
@@ -119,13 +251,41 @@ public class CatalogueCacheImpl implements IudxCache {
     return promise.future();
   }
 
+  /** Ids of the cached items the refreshed catalogue changes or no longer holds. */
+  private List<String> changedIds(JsonArray refreshed) {
+    Map<String, CatalogueItem> current = cache.asMap();
+    List<String> changed = new ArrayList<>();
+    if (current.isEmpty()) {
+      return changed;
+    }
+    Map<String, JsonObject> refreshedItems = new HashMap<>(refreshed.size());
+    refreshed.forEach(
+        json -> refreshedItems.put(((JsonObject) json).getString("id"), (JsonObject) json));
+    current.forEach(
+        (id, value) -> {
+          if (!value.json().equals(refreshedItems.get(id))) {
+            changed.add(id);
+          }
+        });
+    return changed;
+  }
+
+  /** Tell the {@code CatalogueCacheReplica}s to drop the items changed by a refresh. */
+  private void publishInvalidation(List<String> changedIds) {
+    if (changedIds.isEmpty()) {
+      return;
+    }
+    LOGGER.debug("{} catalogue items changed", changedIds.size());
+    JsonObject invalidation =
+        changedIds.size() > MAX_INVALIDATED_IDS
+            ? new JsonObject().put("all", true)
+            : new JsonObject().put("ids", new JsonArray(changedIds));
+    vertx.eventBus().publish(CATALOGUE_CACHE_INVALIDATION_ADDRESS, invalidation);
+  }
+
   @Override
   public CacheValue<JsonObject> createCacheValue(String key, String value) {
-    return new CacheValue<JsonObject>() {
-      @Override
-      public JsonObject getValue() {
-        return new JsonObject(value);
-      }
-    };
+    CatalogueItem item = new CatalogueItem(new JsonObject(value));
+    return item::toJson;
   }
 }
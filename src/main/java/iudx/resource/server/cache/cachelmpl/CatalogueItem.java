@@ -0,0 +1,154 @@
+package iudx.resource.server.cache.cachelmpl;
+
+import static iudx.resource.server.database.archives.Constants.ITEM_TYPES;
+import static iudx.resource.server.database.archives.Constants.ITEM_TYPE_RESOURCE;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable catalogue item, parsed once when the catalogue cache is refreshed. The fields every
+ * request needs (resource or group, resource group, provider, access policy and the applicable
+ * {@code iudxResourceAPIs}) are precomputed, so reading them is a field access instead of a JSON
+ * walk.
+ *
+ * <p>Instances are safe to share between verticles; {@link CatalogueItemCodec} hands the same
+ * instance to local event bus consumers and sends the item JSON to other nodes.
+ */
+public final class CatalogueItem {
+
+  private final JsonObject json;
+  private final String id;
+  private final String name;
+  private final String provider;
+  private final String accessPolicy;
+  private final String resourceGroup;
+  private final String instance;
+  private final Set<String> itemTypes;
+  private final List<String> iudxResourceApis;
+
+  /**
+   * Parses a catalogue item, the given json is copied.
+   *
+   * @param item catalogue item as returned by the catalogue server
+   */
+  public CatalogueItem(JsonObject item) {
+    this.json = item.copy();
+    this.id = json.getString("id");
+    this.name = json.getString("name");
+    this.provider = json.getString("provider");
+    this.accessPolicy = json.getString("accessPolicy");
+    this.resourceGroup = json.getString("resourceGroup");
+    this.instance = json.getString("instance");
+
+    Set<String> types = new LinkedHashSet<>();
+    JsonArray typeArray = json.getJsonArray("type");
+    if (typeArray != null) {
+      for (Object type : typeArray) {
+        String[] parts = type.toString().split(":");
+        if (parts.length > 1 && ITEM_TYPES.contains(parts[1])) {
+          types.add(parts[1]);
+        }
+      }
+    }
+    this.itemTypes = Collections.unmodifiableSet(types);
+
+    JsonArray apis = json.getJsonArray("iudxResourceAPIs");
+    if (apis == null) {
+      this.iudxResourceApis = null;
+    } else {
+      List<String> list = new ArrayList<>(apis.size());
+      apis.forEach(api -> list.add(api.toString()));
+      this.iudxResourceApis = Collections.unmodifiableList(list);
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getProvider() {
+    return provider;
+  }
+
+  public String getAccessPolicy() {
+    return accessPolicy;
+  }
+
+  public String getResourceGroup() {
+    return resourceGroup;
+  }
+
+  public String getInstance() {
+    return instance;
+  }
+
+  /**
+   * Item types without their prefix, limited to Resource, ResourceGroup, ResourceServer and
+   * Provider.
+   */
+  public Set<String> getItemTypes() {
+    return itemTypes;
+  }
+
+  /**
+   * The first of {@link #getItemTypes()}, used where a single item type is stored.
+   *
+   * @return item type or null when the item has none of the known types
+   */
+  public String getItemType() {
+    return itemTypes.isEmpty() ? null : itemTypes.iterator().next();
+  }
+
+  public boolean isResource() {
+    return itemTypes.contains(ITEM_TYPE_RESOURCE);
+  }
+
+  /** Resource group of a resource, the item itself for every other type. */
+  public String getGroupId() {
+    return isResource() ? resourceGroup : id;
+  }
+
+  /**
+   * Applicable {@code iudxResourceAPIs} of the item.
+   *
+   * @return unmodifiable list, or null when the item does not declare them
+   */
+  public List<String> getIudxResourceApis() {
+    return iudxResourceApis;
+  }
+
+  /** Copy of the catalogue item json. */
+  public JsonObject toJson() {
+    return json.copy();
+  }
+
+  /** The item json itself, callers must not modify it. */
+  JsonObject json() {
+    return json;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof CatalogueItem && json.equals(((CatalogueItem) o).json));
+  }
+
+  @Override
+  public int hashCode() {
+    return json.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return json.encode();
+  }
+}
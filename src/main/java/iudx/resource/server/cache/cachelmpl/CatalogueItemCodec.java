@@ -0,0 +1,57 @@
+package iudx.resource.server.cache.cachelmpl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Event bus codec for {@link CatalogueItem}. Local consumers receive the sender's instance, which
+ * is immutable; other nodes receive the item json and parse it once.
+ */
+public class CatalogueItemCodec implements MessageCodec<CatalogueItem, CatalogueItem> {
+
+  private static final String NAME = "catalogue-item";
+
+  /**
+   * Registers the codec as the default codec of {@link CatalogueItem}, once per Vertx instance.
+   *
+   * @param vertx Vertx
+   */
+  public static void register(Vertx vertx) {
+    try {
+      vertx.eventBus().registerDefaultCodec(CatalogueItem.class, new CatalogueItemCodec());
+    } catch (IllegalStateException e) {
+      // already registered by another verticle
+    }
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, CatalogueItem item) {
+    Buffer json = item.json().toBuffer();
+    buffer.appendInt(json.length());
+    buffer.appendBuffer(json);
+  }
+
+  @Override
+  public CatalogueItem decodeFromWire(int pos, Buffer buffer) {
+    int length = buffer.getInt(pos);
+    pos += 4;
+    return new CatalogueItem(new JsonObject(buffer.slice(pos, pos + length)));
+  }
+
+  @Override
+  public CatalogueItem transform(CatalogueItem item) {
+    return item;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+}
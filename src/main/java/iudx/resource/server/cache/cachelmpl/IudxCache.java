@@ -11,5 +11,8 @@ public interface IudxCache {
 
   Future<Void> refreshCache();
 
+  /** Reloads one key from the source of the cache, dropping it when the source no longer has it. */
+  Future<Void> refresh(String key);
+
   CacheValue<JsonObject> createCacheValue(String key, String value);
 }
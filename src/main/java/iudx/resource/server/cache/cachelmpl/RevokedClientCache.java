@@ -9,6 +9,8 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.common.Constants;
 import iudx.resource.server.database.postgres.PostgresService;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,9 +23,11 @@ public class RevokedClientCache implements IudxCache {
   private final Cache<String, CacheValue<JsonObject>> cache =
       CacheBuilder.newBuilder().maximumSize(5000).expireAfterWrite(1L, TimeUnit.DAYS).build();
 
+  private final Vertx vertx;
   private PostgresService pgService;
 
   public RevokedClientCache(Vertx vertx, PostgresService postgresService) {
+    this.vertx = vertx;
     this.pgService = postgresService;
     refreshCache();
 
@@ -37,6 +41,7 @@ public class RevokedClientCache implements IudxCache {
   @Override
   public Future<Void> put(String key, CacheValue<JsonObject> value) {
     cache.put(key, value);
+    publishRevocation(value);
     return Future.succeededFuture();
   }
 
@@ -59,7 +64,7 @@ public class RevokedClientCache implements IudxCache {
         handler -> {
           if (handler.succeeded()) {
             JsonArray clientIdArray = handler.result().getJsonArray("result");
-            cache.invalidateAll();
+            Set<String> keys = new HashSet<>();
             clientIdArray.forEach(
                 e -> {
                   JsonObject clientInfo = (JsonObject) e;
@@ -67,7 +72,10 @@ public class RevokedClientCache implements IudxCache {
                   String expiry = clientInfo.getString("expiry");
                   CacheValue<JsonObject> cacheValue = createCacheValue(key, expiry);
                   this.cache.put(key, cacheValue);
+                  keys.add(key);
                 });
+            // reconcile in place, entries added by events meanwhile are kept only if still in db
+            cache.asMap().keySet().retainAll(keys);
             promise.complete();
           } else {
             promise.fail("failed to refresh");
@@ -76,6 +84,36 @@ public class RevokedClientCache implements IudxCache {
     return promise.future();
   }
 
+  @Override
+  public Future<Void> refresh(String key) {
+    Promise<Void> promise = Promise.promise();
+    pgService.executePreparedQuery(
+        Constants.SELECT_REVOKE_TOKEN_BY_ID_SQL,
+        new JsonObject().put("id", key),
+        handler -> {
+          if (handler.succeeded()) {
+            JsonArray result = handler.result().getJsonArray("result");
+            if (result == null || result.isEmpty()) {
+              cache.invalidate(key);
+            } else {
+              CacheValue<JsonObject> value =
+                  createCacheValue(key, result.getJsonObject(0).getString("expiry"));
+              cache.put(key, value);
+              publishRevocation(value);
+            }
+            promise.complete();
+          } else {
+            promise.fail("failed to refresh");
+          }
+        });
+    return promise.future();
+  }
+
+  /** Tell every verticle that tokens of the client issued before the expiry are revoked. */
+  private void publishRevocation(CacheValue<JsonObject> value) {
+    vertx.eventBus().publish(Constants.REVOKED_CLIENT_ADDRESS, value.getValue());
+  }
+
   @Override
   public CacheValue<JsonObject> createCacheValue(String key, String expiry) {
     return new CacheValue<JsonObject>() {
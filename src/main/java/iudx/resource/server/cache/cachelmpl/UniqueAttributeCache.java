@@ -9,6 +9,8 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.common.Constants;
 import iudx.resource.server.database.postgres.PostgresService;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -59,7 +61,7 @@ public class UniqueAttributeCache implements IudxCache {
         handler -> {
           if (handler.succeeded()) {
             JsonArray clientIdArray = handler.result().getJsonArray("result");
-            cache.invalidateAll();
+            Set<String> keys = new HashSet<>();
             clientIdArray.forEach(
                 e -> {
                   JsonObject clientInfo = (JsonObject) e;
@@ -67,7 +69,33 @@ public class UniqueAttributeCache implements IudxCache {
                   String value = clientInfo.getString("unique_attribute");
                   CacheValue<JsonObject> cacheValue = createCacheValue(key, value);
                   this.cache.put(key, cacheValue);
+                  keys.add(key);
                 });
+            // reconcile in place, entries added by events meanwhile are kept only if still in db
+            cache.asMap().keySet().retainAll(keys);
+            promise.complete();
+          } else {
+            promise.fail("failed to refreash");
+          }
+        });
+    return promise.future();
+  }
+
+  @Override
+  public Future<Void> refresh(String key) {
+    Promise<Void> promise = Promise.promise();
+    postgresService.executePreparedQuery(
+        Constants.SELECT_UNIQUE_ATTRIBUTE_BY_ID,
+        new JsonObject().put("id", key),
+        handler -> {
+          if (handler.succeeded()) {
+            JsonArray result = handler.result().getJsonArray("result");
+            if (result == null || result.isEmpty()) {
+              cache.invalidate(key);
+            } else {
+              String value = result.getJsonObject(0).getString("unique_attribute");
+              cache.put(key, createCacheValue(key, value));
+            }
             promise.complete();
           } else {
             promise.fail("failed to refreash");
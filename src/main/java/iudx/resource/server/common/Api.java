@@ -7,6 +7,7 @@ public class Api {
   private static volatile Api apiInstance;
   private final String dxApiBasePath;
   private StringBuilder entitiesUrl;
+  private StringBuilder latestEntitiesUrl;
   private StringBuilder temporalUrl;
   private StringBuilder subscriptionUrl;
   private StringBuilder postTemporalQueryPath;
@@ -45,6 +46,7 @@ public class Api {
 
   private void buildPaths() {
     entitiesUrl = new StringBuilder(dxApiBasePath).append(NGSILD_ENTITIES_URL);
+    latestEntitiesUrl = new StringBuilder(dxApiBasePath).append(NGSILD_LATEST_ENTITIES_URL);
     temporalUrl = new StringBuilder(dxApiBasePath).append(NGSILD_TEMPORAL_URL);
     subscriptionUrl = new StringBuilder(dxApiBasePath).append(NGSILD_SUBSCRIPTION_URL);
     postTemporalQueryPath =
@@ -68,6 +70,10 @@ public class Api {
     return entitiesUrl.toString();
   }
 
+  public String getLatestEntitiesUrl() {
+    return latestEntitiesUrl.toString();
+  }
+
   public String getTemporalUrl() {
     return temporalUrl.toString();
   }
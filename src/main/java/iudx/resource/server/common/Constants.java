@@ -6,6 +6,10 @@ public class Constants {
   public static final String PG_SERVICE_ADDRESS = "iudx.rs.pgsql.service";
 
   public static final String CACHE_SERVICE_ADDRESS = "iudx.rs.cache.service";
+  public static final String CATALOGUE_CACHE_INVALIDATION_ADDRESS =
+      "iudx.rs.cache.catalogue.invalidation";
+  public static final String CATALOGUE_ITEM_ADDRESS = "iudx.rs.cache.catalogue.item";
+  public static final String REVOKED_CLIENT_ADDRESS = "iudx.rs.cache.revoked.client";
   public static final String LATEST_SERVICE_ADDRESS = "iudx.rs.latest.service";
   public static final String AUTH_SERVICE_ADDRESS = "iudx.rs.authentication.service";
   public static final String ASYNC_SERVICE_ADDRESS = "iudx.rs.async.service";
@@ -13,6 +17,8 @@ public class Constants {
   public static final String BROKER_SERVICE_ADDRESS = "iudx.rs.broker.service";
   public static final String METERING_SERVICE_ADDRESS = "iudx.rs.metering.service";
   public static final String ENCRYPTION_SERVICE_ADDRESS = "iudx.rs.encryption.service";
+  /* latest search flag asking for results as undecoded JSON text, and the field carrying them */
+  public static final String RAW_RESULTS = "rawResults";
   public static final String CREATE_INGESTION_SQL =
       "INSERT INTO "
           + "adaptors_details(exchange_name,resource_id,dataset_name,dataset_details_json,user_id,providerid) "
@@ -29,7 +35,12 @@ public class Constants {
   public static String UNIQUE_ATTR_EX_ROUTING_KEY = "unique-attribute";
   public static String UNIQUE_ATTR_Q = "rs-unique-attributes";
   public static String ASYNC_QUERY_Q = "rs-async-query";
+  public static String CATALOGUE_ITEM_Q = "rs-catalogue-items";
   // postgres queries
   public static String SELECT_REVOKE_TOKEN_SQL = "SELECT * FROM revoked_tokens";
   public static String SELECT_UNIQUE_ATTRIBUTE = "SELECT * from unique_attributes";
+  public static String SELECT_REVOKE_TOKEN_BY_ID_SQL =
+      "SELECT * FROM revoked_tokens WHERE _id = $1";
+  public static String SELECT_UNIQUE_ATTRIBUTE_BY_ID =
+      "SELECT * from unique_attributes WHERE resource_id = $1";
 }
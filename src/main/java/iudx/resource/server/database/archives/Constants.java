@@ -79,6 +79,11 @@ public class Constants {
   /*pagination*/
   public static final String PARAM_SIZE = "limit";
   public static final String PARAM_FROM = "offset";
+  public static final String CURSOR = "cursor";
+  public static final String NEXT_CURSOR = "nextCursor";
+  public static final String CURSOR_KEEP_ALIVE = "5m";
+  public static final String CURSOR_PAGE_KEEP_ALIVE = "1m";
+  public static final String CURSOR_SORT_FIELD = "observationDateTime";
 
   /* Errors */
   public static final String INVALID_OPERATOR = "Invalid operator";
@@ -107,6 +112,7 @@ public class Constants {
   public static final String ROOT_CAUSE = "root_cause";
   public static final String REASON = "reason";
   public static final String MALFORMED_ID = "Malformed Id ";
+  public static final String INVALID_CURSOR = "Invalid cursor";
   public static final String STATUS = "status";
   public static final String INDEX_NOT_FOUND = "index_not_found_exception";
   public static final String INVALID_RESOURCE_ID = "Invalid resource id";
@@ -146,5 +152,9 @@ public class Constants {
 
   public static final int DEFAULT_SIZE_VALUE = 5000;
   public static final int DEFAULT_FROM_VALUE = 0;
+  // max documents a synchronous search may match, beyond which the async api has to be used
+  public static final int RESPONSE_SIZE_LIMIT = 50000;
+  // documents fetched from ES and handed to the http response per page while streaming
+  public static final int STREAM_PAGE_SIZE = 1000;
   public static final String COUNT_MATCH_ALL_QUERY = "{\"query\": { \"match_all\": {} }}";
 }
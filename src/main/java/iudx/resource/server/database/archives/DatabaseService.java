@@ -52,6 +52,18 @@ public interface DatabaseService {
    */
   Future<JsonObject> search(JsonObject request);
 
+  /**
+   * The searchStream implements the search operation with the database, handing the response body
+   * page by page to a consumer instead of building it in memory. Every page is sent as a Buffer to
+   * streamAddress and the next page is fetched only after the consumer replies to it.
+   *
+   * @param request - search request query
+   * @param streamAddress - event bus address of the consumer writing the response
+   * @return Future completed once the whole body has been sent, failed before the first page for
+   *     the same errors as {@link #search(JsonObject)}
+   */
+  Future<JsonObject> searchStream(JsonObject request, String streamAddress);
+
   /**
    * The countQuery implements the count operation with the database.
    *
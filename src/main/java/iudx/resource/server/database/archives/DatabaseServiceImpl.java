@@ -6,15 +6,18 @@ import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.search.SourceConfig;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.cache.CacheService;
-import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.CatalogueCacheReplica;
+import iudx.resource.server.cache.cachelmpl.CatalogueItem;
 import iudx.resource.server.common.ResponseUrn;
 import iudx.resource.server.database.elastic.ElasticClient;
 import iudx.resource.server.database.elastic.QueryDecoder;
+import iudx.resource.server.database.elastic.SearchCursor;
 import iudx.resource.server.database.elastic.exception.EsQueryException;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -37,6 +40,7 @@ public class DatabaseServiceImpl implements DatabaseService {
   private QueryDecoder queryDecoder = new QueryDecoder();
   private String timeLimit;
   private String tenantPrefix;
+  private Vertx vertx;
 
   public DatabaseServiceImpl(
       ElasticClient client, String timeLimit, String tenantPrefix, CacheService cacheService) {
@@ -46,6 +50,16 @@ public class DatabaseServiceImpl implements DatabaseService {
     this.cacheService = cacheService;
   }
 
+  public DatabaseServiceImpl(
+      Vertx vertx,
+      ElasticClient client,
+      String timeLimit,
+      String tenantPrefix,
+      CacheService cacheService) {
+    this(client, timeLimit, tenantPrefix, cacheService);
+    this.vertx = vertx;
+  }
+
   public int getOrDefault(JsonObject json, String key, int def) {
     if (json.containsKey(key)) {
       int value = Integer.parseInt(json.getString(key));
@@ -67,51 +81,32 @@ public class DatabaseServiceImpl implements DatabaseService {
               })
           .onSuccess(
               handler -> {
-                String resourceGroup = handler.getString("resourceGroup");
-                StringBuilder tenantBuilder = new StringBuilder(tenantPrefix);
-                final String searchIndex;
-                if (!this.tenantPrefix.equals("none")) {
-                  searchIndex = String.valueOf(tenantBuilder.append("__").append(resourceGroup));
-                } else {
-                  searchIndex = resourceGroup;
-                }
-                // String searchIndex = tenantBuilder;
+                final String searchIndex = getSearchIndex(handler.getString("resourceGroup"));
                 final int sizeKeyValue = getOrDefault(request, PARAM_SIZE, DEFAULT_SIZE_VALUE);
                 final int fromKeyValue = getOrDefault(request, PARAM_FROM, DEFAULT_FROM_VALUE);
 
                 Query query = queryDecoder.getQuery(request);
                 LOGGER.info("query : " + query.toString());
-                CountResultPlaceholder countPlaceHolder = new CountResultPlaceholder();
-                Future<JsonObject> countFuture = client.asyncCount(searchIndex, query);
-                countFuture
-                    .compose(
-                        countQueryHandler -> {
-                          long count =
-                              countQueryHandler
-                                  .getJsonArray("results")
-                                  .getJsonObject(0)
-                                  .getInteger("totalHits");
-                          LOGGER.info("count : " + count);
-                          if (count > 50000) {
-                            JsonObject json = new JsonObject();
-                            json.put("type", 413);
-                            json.put("title", ResponseUrn.PAYLOAD_TOO_LARGE_URN.getUrn());
-                            json.put("details", ResponseUrn.PAYLOAD_TOO_LARGE_URN.getMessage()+ " use filters to get value within limit or use async api");
-                            return Future.failedFuture(json.toString());
-                          }
-                          countPlaceHolder.setCount(count);
-                          SourceConfig sourceFilter = queryDecoder.getSourceConfigFilters(request);
-                          return client.asyncSearch(
-                              searchIndex, query, sizeKeyValue, fromKeyValue, sourceFilter);
-                        })
+                SourceConfig sourceFilter = queryDecoder.getSourceConfigFilters(request);
+                if (request.containsKey(CURSOR)) {
+                  searchWithCursor(request, searchIndex, query, sizeKeyValue, sourceFilter)
+                      .onSuccess(promise::complete)
+                      .onFailure(failureHandler -> promise.fail(failureHandler.getMessage()));
+                  return;
+                }
+                client
+                    .asyncSearchWithCount(
+                        searchIndex,
+                        query,
+                        sizeKeyValue,
+                        fromKeyValue,
+                        sourceFilter,
+                        RESPONSE_SIZE_LIMIT)
                     .onSuccess(
                         successHandler -> {
                           LOGGER.debug("Success: Successful DB request");
                           JsonObject responseJson = successHandler;
-                          responseJson
-                              .put(PARAM_SIZE, sizeKeyValue)
-                              .put(PARAM_FROM, fromKeyValue)
-                              .put("totalHits", countPlaceHolder.getCount());
+                          responseJson.put(PARAM_SIZE, sizeKeyValue).put(PARAM_FROM, fromKeyValue);
                           promise.complete(responseJson);
                         })
                     .onFailure(
@@ -130,6 +125,61 @@ public class DatabaseServiceImpl implements DatabaseService {
     return promise.future();
   }
 
+  @Override
+  public Future<JsonObject> searchStream(JsonObject request, String streamAddress) {
+    Promise<JsonObject> promise = Promise.promise();
+    request.put(TIME_LIMIT, timeLimit);
+    try {
+      Future<JsonObject> validationFuture = checkQuery(request);
+      validationFuture
+          .onFailure(
+              handler -> {
+                promise.fail(handler.toString());
+              })
+          .onSuccess(
+              handler -> {
+                final String searchIndex = getSearchIndex(handler.getString("resourceGroup"));
+                final int sizeKeyValue = getOrDefault(request, PARAM_SIZE, DEFAULT_SIZE_VALUE);
+                final int fromKeyValue = getOrDefault(request, PARAM_FROM, DEFAULT_FROM_VALUE);
+
+                Query query = queryDecoder.getQuery(request);
+                LOGGER.info("query : " + query.toString());
+                SourceConfig sourceFilter = queryDecoder.getSourceConfigFilters(request);
+                ResultStreamWriter writer =
+                    new ResultStreamWriter(streamAddress, sizeKeyValue, fromKeyValue);
+                client
+                    .asyncStreamSearch(
+                        searchIndex,
+                        query,
+                        sizeKeyValue,
+                        fromKeyValue,
+                        sourceFilter,
+                        RESPONSE_SIZE_LIMIT,
+                        STREAM_PAGE_SIZE,
+                        writer::writePage)
+                    .compose(streamResult -> writer.end().map(streamResult))
+                    .onSuccess(
+                        successHandler -> {
+                          LOGGER.debug("Success: Successful DB stream request");
+                          JsonObject responseJson = successHandler;
+                          responseJson.put(PARAM_SIZE, sizeKeyValue).put(PARAM_FROM, fromKeyValue);
+                          promise.complete(responseJson);
+                        })
+                    .onFailure(
+                        failureHandler -> {
+                          LOGGER.info("failed to stream query : " + failureHandler);
+                          promise.fail(failureHandler.getMessage());
+                        });
+              });
+    } catch (EsQueryException ex) {
+      ResponseUrn exceptionUrn = ResponseUrn.BAD_REQUEST_URN;
+      promise.fail(new EsQueryException(exceptionUrn, ex.getMessage()).toString());
+    } catch (Exception ex) {
+      promise.fail(new EsQueryException("Exception occured executing query").toString());
+    }
+    return promise.future();
+  }
+
   @Override
   public Future<JsonObject> count(JsonObject request) {
     Promise<JsonObject> promise = Promise.promise();
@@ -151,14 +201,7 @@ public class DatabaseServiceImpl implements DatabaseService {
                           ResponseUrn.BAD_REQUEST_URN, "Count is not supported with filtering"));
                   return;
                 }
-                final String searchIndex;
-                String resourceGroup = handler.getString("resourceGroup");
-                StringBuilder tenantBuilder = new StringBuilder(tenantPrefix);
-                if (!this.tenantPrefix.equals("none")) {
-                  searchIndex = String.valueOf(tenantBuilder.append("__").append(resourceGroup));
-                } else {
-                  searchIndex = resourceGroup;
-                }
+                final String searchIndex = getSearchIndex(handler.getString("resourceGroup"));
                 Query query = queryDecoder.getQuery(request);
                 LOGGER.info("query : " + query.toString());
                 Future<JsonObject> countFuture = client.asyncCount(searchIndex, query);
@@ -181,43 +224,93 @@ public class DatabaseServiceImpl implements DatabaseService {
     return promise.future();
   }
 
+  private Future<JsonObject> searchWithCursor(
+      JsonObject request, String searchIndex, Query query, int size, SourceConfig sourceFilter) {
+    String token = request.getString(CURSOR);
+    SearchCursor cursor = null;
+    if (!SearchCursor.START.equals(token)) {
+      try {
+        cursor = SearchCursor.decode(token);
+      } catch (IllegalArgumentException ex) {
+        LOGGER.error("Invalid cursor : {}", token);
+      }
+      if (cursor == null || !cursor.getIndex().equals(searchIndex)) {
+        return Future.failedFuture(
+            new EsQueryException(ResponseUrn.BAD_REQUEST_URN, INVALID_CURSOR).toString());
+      }
+    }
+    return client
+        .asyncCursorSearch(searchIndex, query, size, sourceFilter, cursor)
+        .map(responseJson -> responseJson.put(PARAM_SIZE, size));
+  }
+
+  private String getSearchIndex(String resourceGroup) {
+    if (!this.tenantPrefix.equals("none")) {
+      return tenantPrefix + "__" + resourceGroup;
+    }
+    return resourceGroup;
+  }
+
   public Future<JsonObject> checkQuery(JsonObject request) {
     Promise<JsonObject> promise = Promise.promise();
-    JsonObject cacheRequest = new JsonObject();
-    cacheRequest.put("type", CacheType.CATALOGUE_CACHE);
-    cacheRequest.put("key", request.getJsonArray(ID).getString(0));
-    Future<JsonObject> getItemType = cacheService.get(cacheRequest);
+    Future<CatalogueItem> getItemType =
+        CatalogueCacheReplica.getItem(cacheService, request.getJsonArray(ID).getString(0));
     getItemType.onSuccess(
-        itemType -> {
-          Set<String> type = new HashSet<String>(itemType.getJsonArray("type").getList());
-          Set<String> itemTypeSet =
-              type.stream().map(e -> e.split(":")[1]).collect(Collectors.toSet());
-          itemTypeSet.retainAll(ITEM_TYPES);
-
-          if (!itemTypeSet.contains("Resource")) {
+        item -> {
+          if (!item.isResource()) {
             LOGGER.error("Malformed ID: " + request.getJsonArray(ID).getString(0));
             promise.fail(new EsQueryException(ResponseUrn.BAD_REQUEST_URN, MALFORMED_ID));
           } else {
-            promise.complete(itemType);
+            promise.complete(item.toJson());
           }
         });
 
     return promise.future();
   }
 
-  private class CountResultPlaceholder {
-    private long count;
+  /**
+   * Sends the search response body to the stream consumer, one page per event bus request. The
+   * first page carries the response envelope and the consumer's reply acts as the ack for the next.
+   */
+  private class ResultStreamWriter {
+    private final String streamAddress;
+    private final int size;
+    private final int from;
+    private boolean headWritten;
 
-    public CountResultPlaceholder() {
-      this.count = 0L;
+    ResultStreamWriter(String streamAddress, int size, int from) {
+      this.streamAddress = streamAddress;
+      this.size = size;
+      this.from = from;
     }
 
-    public long getCount() {
-      return this.count;
+    Future<Void> writePage(long totalHits, Buffer hits) {
+      Buffer page;
+      if (!headWritten) {
+        String head =
+            new ResponseBuilder(SUCCESS)
+                .setTypeAndTitle(200)
+                .getResponse()
+                .put(PARAM_SIZE, size)
+                .put(PARAM_FROM, from)
+                .put(TOTAL_HITS, totalHits)
+                .encode();
+        page =
+            Buffer.buffer(head.length() + hits.length() + 16)
+                .appendString(head.substring(0, head.length() - 1))
+                .appendString(",\"" + RESULTS + "\":[")
+                .appendBuffer(hits);
+        headWritten = true;
+      } else if (hits.length() == 0) {
+        return Future.succeededFuture();
+      } else {
+        page = Buffer.buffer(hits.length() + 1).appendByte((byte) ',').appendBuffer(hits);
+      }
+      return vertx.eventBus().request(streamAddress, page).mapEmpty();
     }
 
-    public void setCount(long count) {
-      this.count = count;
+    Future<Void> end() {
+      return vertx.eventBus().request(streamAddress, Buffer.buffer("]}")).mapEmpty();
     }
   }
 }
@@ -51,10 +51,10 @@ public class DatabaseVerticle extends AbstractVerticle {
     password = config().getString("dbPassword");
     timeLimit = config().getString("timeLimit");
     tenantPrefix = config().getString("tenantPrefix");
-    cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+    cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
     client = new ElasticClient(databaseIp, databasePort, user, password);
     binder = new ServiceBinder(vertx);
-    database = new DatabaseServiceImpl(client, timeLimit, tenantPrefix, cacheService);
+    database = new DatabaseServiceImpl(vertx, client, timeLimit, tenantPrefix, cacheService);
 
     consumer =
         binder.setAddress(DATABASE_SERVICE_ADDRESS).register(DatabaseService.class, database);
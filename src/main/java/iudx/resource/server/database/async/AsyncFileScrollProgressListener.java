@@ -1,6 +1,7 @@
 package iudx.resource.server.database.async;
 
 import static iudx.resource.server.database.postgres.Constants.UPDATE_S3_PROGRESS_SQL;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
@@ -20,6 +21,8 @@ public class AsyncFileScrollProgressListener implements ProgressListener {
   private PriorityQueue<Double> progressQueue;
   private PostgresService postgresService;
   private ExecutorService executor;
+  private volatile long fetchMillis;
+  private volatile long writeMillis;
 
   public AsyncFileScrollProgressListener(String searchId, PostgresService service) {
     progressQueue = new PriorityQueue<Double>(Collections.reverseOrder());
@@ -67,14 +70,10 @@ public class AsyncFileScrollProgressListener implements ProgressListener {
 
   private Future<Void> updateProgress(double progress, ExecutionCounter executionCounter) {
     Promise<Void> promise = Promise.promise();
-    StringBuilder query =
-        new StringBuilder(
-            UPDATE_S3_PROGRESS_SQL
-                .replace("$1", String.valueOf(progress * 100.0))
-                .replace("$2", searchId));
-    LOGGER.debug("updating progress : " + query.toString());
-    postgresService.executeQuery(
-        query.toString(),
+    LOGGER.debug("updating progress of {} : {}", searchId, progress);
+    postgresService.executeParameterizedQuery(
+        UPDATE_S3_PROGRESS_SQL,
+        params(progress * 100.0, searchId),
         pgHandler -> {
           LOGGER.debug(pgHandler);
           if (pgHandler.succeeded()) {
@@ -90,8 +89,16 @@ public class AsyncFileScrollProgressListener implements ProgressListener {
     return promise.future();
   }
 
+  @Override
+  public void updateStageTimings(long fetchMillis, long writeMillis) {
+    this.fetchMillis = fetchMillis;
+    this.writeMillis = writeMillis;
+  }
+
   @Override
   public void finish() {
+    LOGGER.info(
+        "export [{}] stage timings : fetch {} ms, write {} ms", searchId, fetchMillis, writeMillis);
     progressQueue.add(1.0);
     if (executor != null) {
       executor.shutdownNow();
@@ -8,6 +8,7 @@ import static iudx.resource.server.database.async.util.Constants.*;
 import static iudx.resource.server.database.async.util.Constants.STATUS;
 import static iudx.resource.server.database.async.util.Constants.USER_ID;
 import static iudx.resource.server.database.postgres.Constants.*;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 import static iudx.resource.server.metering.util.Constants.*;
 import static iudx.resource.server.metering.util.Constants.API;
 import static iudx.resource.server.metering.util.Constants.TYPE_KEY;
@@ -18,6 +19,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.apiserver.util.Constants;
@@ -27,12 +29,14 @@ import iudx.resource.server.common.ResponseUrn;
 import iudx.resource.server.database.archives.ResponseBuilder;
 import iudx.resource.server.database.async.util.QueryProgress;
 import iudx.resource.server.database.async.util.S3FileOpsHelper;
+import iudx.resource.server.database.async.util.S3MultipartOutputStream;
 import iudx.resource.server.database.async.util.Util;
 import iudx.resource.server.database.elastic.ElasticClient;
 import iudx.resource.server.database.elastic.QueryDecoder;
 import iudx.resource.server.database.postgres.PostgresService;
 import iudx.resource.server.metering.MeteringService;
 import java.io.File;
+import java.io.OutputStream;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -56,6 +60,10 @@ public class AsyncServiceImpl implements AsyncService {
   private ResponseBuilder responseBuilder;
   private String filePath;
   private String tenantPrefix;
+  private final int scrollSlices;
+  private final int parquetRowGroupSize;
+  private final WorkerExecutor exportExecutor;
+  private final boolean streamingUpload;
 
   public AsyncServiceImpl(
       Vertx vertx,
@@ -64,7 +72,11 @@ public class AsyncServiceImpl implements AsyncService {
       S3FileOpsHelper s3FileOpsHelper,
       String filePath,
       String tenantPrefix,
-      CacheService cacheService) {
+      CacheService cacheService,
+      int scrollSlices,
+      int parquetRowGroupSize,
+      WorkerExecutor exportExecutor,
+      boolean streamingUpload) {
     this.vertx = vertx;
     this.client = client;
     this.pgService = pgService;
@@ -74,15 +86,18 @@ public class AsyncServiceImpl implements AsyncService {
     this.meteringService = MeteringService.createProxy(vertx, METERING_SERVICE_ADDRESS);
     this.tenantPrefix = tenantPrefix;
     this.cacheService = cacheService;
+    this.scrollSlices = scrollSlices;
+    this.parquetRowGroupSize = parquetRowGroupSize;
+    this.exportExecutor = exportExecutor;
+    this.streamingUpload = streamingUpload;
   }
 
   @Override
   public AsyncService asyncStatus(
       String sub, String searchId, Handler<AsyncResult<JsonObject>> handler) {
-    StringBuilder query = new StringBuilder(SELECT_S3_STATUS_SQL.replace("$1", searchId));
-
-    pgService.executeQuery(
-        query.toString(),
+    pgService.executeParameterizedQuery(
+        SELECT_S3_STATUS_SQL,
+        params(searchId),
         pgHandler -> {
           if (pgHandler.succeeded()) {
             JsonArray results = pgHandler.result().getJsonArray("result");
@@ -164,11 +179,9 @@ public class AsyncServiceImpl implements AsyncService {
 
   private Future<Void> updateQueryExecutionStatus(String searchId, QueryProgress status) {
     Promise<Void> promise = Promise.promise();
-    StringBuilder querySb =
-        new StringBuilder(
-            UPDATE_STATUS_SQL.replace("$1", status.toString()).replace("$2", searchId));
-    pgService.executeQuery(
-        querySb.toString(),
+    pgService.executeParameterizedQuery(
+        UPDATE_STATUS_SQL,
+        params(status, searchId),
         handler -> {
           if (handler.succeeded()) {
             LOGGER.debug("status : {} update for search id : {}", status.toString(), searchId);
@@ -190,14 +203,9 @@ public class AsyncServiceImpl implements AsyncService {
   Future<JsonArray> getRecord4RequestId(String requestId) {
     Promise<JsonArray> promise = Promise.promise();
 
-    StringBuilder query =
-        new StringBuilder(
-            SELECT_S3_SEARCH_SQL
-                .replace("$1", requestId)
-                .replace("$2", QueryProgress.COMPLETE.toString()));
-
-    pgService.executeQuery(
-        query.toString(),
+    pgService.executeParameterizedQuery(
+        SELECT_S3_SEARCH_SQL,
+        params(requestId, QueryProgress.COMPLETE),
         pgHandler -> {
           if (pgHandler.succeeded()) {
             JsonArray results = pgHandler.result().getJsonArray("result");
@@ -212,11 +220,12 @@ public class AsyncServiceImpl implements AsyncService {
     return promise.future();
   }
 
-  Future<Void> executePgQuery(String query) {
+  Future<Void> executePgQuery(String query, JsonArray params) {
     Promise<Void> promise = Promise.promise();
 
-    pgService.executeQuery(
+    pgService.executeParameterizedQuery(
         query,
+        params,
         handler -> {
           if (handler.succeeded()) {
             promise.complete();
@@ -239,23 +248,22 @@ public class AsyncServiceImpl implements AsyncService {
       String drl,
       String did) {
     String objectId = record.getJsonObject(0).getString(OBJECT_ID);
-    String expiry = LocalDateTime.now().plusDays(1).toString();
+    LocalDateTime expiry = LocalDateTime.now().plusDays(1);
     long fileSize = record.getJsonObject(0).getLong(SIZE_KEY);
     long urlExpiry = ZonedDateTime.now().plusDays(1).toInstant().toEpochMilli();
     URL s3Url = s3FileOpsHelper.generatePreSignedUrl(urlExpiry, objectId);
 
-    StringBuilder queryStringBuilder =
-        new StringBuilder(
-            UPDATE_S3_URL_SQL
-                .replace("$1", s3Url.toString())
-                .replace("$2", expiry)
-                .replace("$3", QueryProgress.COMPLETE.toString())
-                .replace("$4", objectId)
-                .replace("$5", String.valueOf(100.0d))
-                .replace("$6", String.valueOf(fileSize))
-                .replace("$7", searchId));
-
-    executePgQuery(queryStringBuilder.toString())
+    JsonArray params =
+        params(
+            s3Url.toString(),
+            expiry,
+            QueryProgress.COMPLETE,
+            objectId,
+            100.0d,
+            fileSize,
+            searchId);
+
+    executePgQuery(UPDATE_S3_URL_SQL, params)
         .onSuccess(
             handler -> {
               LOGGER.info("Query completed with existing requestId & objectId");
@@ -284,6 +292,44 @@ public class AsyncServiceImpl implements AsyncService {
 
     ProgressListener progressListener = new AsyncFileScrollProgressListener(searchId, pgService);
 
+    if (streamingUpload) {
+      S3MultipartOutputStream uploadStream =
+          s3FileOpsHelper.openUploadStream(objectId, file.getName());
+      scrollQuery(
+          file,
+          query,
+          searchId,
+          progressListener,
+          format,
+          uploadStream,
+          scrollHandler -> {
+            if (scrollHandler.succeeded()) {
+              JsonObject uploadResult = s3FileOpsHelper.uploadResult(objectId);
+              long fileSize = uploadStream.getSize();
+              completeExport(
+                      searchId,
+                      objectId,
+                      uploadResult.getString("s3_url"),
+                      fileSize,
+                      progressListener,
+                      null)
+                  .onSuccess(
+                      completed -> updateAuditTable(id, userId, fileSize, role, drl, did));
+            } else {
+              LOGGER.error("Scroll API operation failed for searchId : " + searchId);
+              LOGGER.error("Scroll API failure cause : ", scrollHandler.cause());
+              vertx.executeBlocking(
+                  () -> {
+                    uploadStream.abort();
+                    return null;
+                  },
+                  false);
+              updateErrorStatus(searchId);
+            }
+          });
+      return;
+    }
+
     scrollQuery(
         file,
         query,
@@ -298,74 +344,96 @@ public class AsyncServiceImpl implements AsyncService {
                 s3UploadHandler -> {
                   if (s3UploadHandler.succeeded()) {
                     JsonObject uploadResult = s3UploadHandler.result();
-                    String s3Url = uploadResult.getString("s3_url");
-                    String expiry = LocalDateTime.now().plusDays(1).toString();
                     Long fileSize = file.length();
-                    // update DB for search ID and requestId;
-                    progressListener.finish();
-                    StringBuilder updateQuery =
-                        new StringBuilder(
-                            UPDATE_S3_URL_SQL
-                                .replace("$1", s3Url)
-                                .replace("$2", expiry)
-                                .replace("$3", QueryProgress.COMPLETE.toString())
-                                .replace("$4", objectId)
-                                .replace("$5", String.valueOf(100.0))
-                                .replace("$6", String.valueOf(fileSize))
-                                .replace("$7", searchId));
-
-                    executePgQuery(updateQuery.toString())
+                    completeExport(
+                            searchId,
+                            objectId,
+                            uploadResult.getString("s3_url"),
+                            fileSize,
+                            progressListener,
+                            file)
                         .onSuccess(
-                            recordUpdateHandler -> {
-                              LOGGER.debug("updated status in postgres");
-                              Future.future(
-                                  fu -> updateAuditTable(id, userId, fileSize, role, drl, did));
-                              try {
-                                vertx.fileSystem().deleteBlocking(filePath + "/" + file.getName());
-                              } catch (Exception ex) {
-                                LOGGER.error(
-                                    "File deletion operation failed for fileName : "
-                                        + "{} try to delete manually to reclaim disk-space",
-                                    file.getName());
-                              }
-                            })
-                        .onFailure(
-                            recordInsertFailure -> {
-                              LOGGER.error(
-                                  "Postgres insert failure[COMPLETE status] {}",
-                                  recordInsertFailure);
-                            });
-
+                            completed -> updateAuditTable(id, userId, fileSize, role, drl, did));
                   } else {
                     LOGGER.error("File upload to S3 failed for fileName : {}", file.getName());
                     LOGGER.error("S3 upload failure cause : ", s3UploadHandler.cause());
-                    StringBuilder updateFailQuery =
-                        new StringBuilder(
-                            UPDATE_STATUS_SQL
-                                .replace("$1", QueryProgress.ERROR.toString())
-                                .replace("$2", searchId));
-                    Future.future(fu -> util.writeToDb(updateFailQuery));
+                    updateErrorStatus(searchId);
                   }
                 });
           } else {
             LOGGER.error("Scroll API operation failed for searchId : " + searchId);
             LOGGER.error("Scroll API failure cause : ", scrollHandler.cause());
-            StringBuilder updateFailQuery =
-                new StringBuilder(
-                    UPDATE_STATUS_SQL
-                        .replace("$1", QueryProgress.ERROR.toString())
-                        .replace("$2", searchId));
-            Future.future(fu -> util.writeToDb(updateFailQuery));
+            updateErrorStatus(searchId);
           }
         });
   }
 
+  /**
+   * Marks the search as COMPLETE with the url of the uploaded object, and deletes the local export
+   * file if there is one.
+   */
+  private Future<Void> completeExport(
+      String searchId,
+      String objectId,
+      String s3Url,
+      long fileSize,
+      ProgressListener progressListener,
+      File file) {
+    LocalDateTime expiry = LocalDateTime.now().plusDays(1);
+    // update DB for search ID and requestId;
+    progressListener.finish();
+    JsonArray params =
+        params(s3Url, expiry, QueryProgress.COMPLETE, objectId, 100.0, fileSize, searchId);
+
+    return executePgQuery(UPDATE_S3_URL_SQL, params)
+        .onSuccess(
+            recordUpdateHandler -> {
+              LOGGER.debug("updated status in postgres");
+              if (file == null) {
+                return;
+              }
+              try {
+                vertx.fileSystem().deleteBlocking(filePath + "/" + file.getName());
+              } catch (Exception ex) {
+                LOGGER.error(
+                    "File deletion operation failed for fileName : "
+                        + "{} try to delete manually to reclaim disk-space",
+                    file.getName());
+              }
+            })
+        .onFailure(
+            recordInsertFailure -> {
+              LOGGER.error("Postgres insert failure[COMPLETE status] {}", recordInsertFailure);
+            });
+  }
+
+  private void updateErrorStatus(String searchId) {
+    Future.future(
+        fu -> util.writeToDb(UPDATE_STATUS_SQL, params(QueryProgress.ERROR, searchId)));
+  }
+
+  public AsyncService scrollQuery(
+      File file,
+      JsonObject request,
+      String searchId,
+      ProgressListener progressListener,
+      String format,
+      Handler<AsyncResult<JsonObject>> handler) {
+    return scrollQuery(file, request, searchId, progressListener, format, null, handler);
+  }
+
+  /**
+   * Export the result of an async search into {@code file}, or into {@code sink} when one is given.
+   *
+   * @param sink stream to export into instead of the file, it is closed once the export succeeds
+   */
   public AsyncService scrollQuery(
       File file,
       JsonObject request,
       String searchId,
       ProgressListener progressListener,
       String format,
+      OutputStream sink,
       Handler<AsyncResult<JsonObject>> handler) {
 
     Query query;
@@ -415,7 +483,18 @@ public class AsyncServiceImpl implements AsyncService {
     }
     Future<JsonObject> asyncFuture =
         client.asyncScroll(
-            file, searchIndex, query, sourceFilters, searchId, progressListener, format, filePath);
+            file,
+            sink,
+            searchIndex,
+            query,
+            sourceFilters,
+            searchId,
+            progressListener,
+            format,
+            filePath,
+            scrollSlices,
+            parquetRowGroupSize,
+            exportExecutor);
     asyncFuture.onComplete(
         scrollHandler -> {
           if (scrollHandler.succeeded()) {
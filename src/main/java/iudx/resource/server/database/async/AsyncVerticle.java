@@ -3,8 +3,10 @@ package iudx.resource.server.database.async;
 import static iudx.resource.server.common.Constants.*;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.backends.BackendRegistries;
 import io.vertx.serviceproxy.ServiceBinder;
 import iudx.resource.server.cache.CacheService;
 import iudx.resource.server.database.async.util.S3FileOpsHelper;
@@ -42,6 +44,7 @@ public class AsyncVerticle extends AbstractVerticle {
   private String endPoint;
   private String accessKey;
   private String accessSecret;
+  private WorkerExecutor exportExecutor;
 
   /**
    * This method is used to start the Verticle. It deploys a verticle in a cluster, registers the
@@ -64,16 +67,42 @@ public class AsyncVerticle extends AbstractVerticle {
     endPoint = config().getString("endPoint", null);
     accessKey = config().getString("accessKey", null);
     accessSecret = config().getString("accessSecret", null);
+    int scrollSlices = config().getInteger("scrollSlices", 1);
+    int parquetRowGroupSize = config().getInteger("parquetRowGroupSize", 50000);
+    exportExecutor =
+        vertx.createSharedWorkerExecutor(
+            config().getString("threadPoolName", "async-query-pool"),
+            config().getInteger("threadPoolSize", 20));
     pgService = PostgresService.createProxy(vertx, PG_SERVICE_ADDRESS);
-    cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+    cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
     client = new ElasticClient(databaseIp, databasePort, user, password);
+    boolean streamingUpload = config().getBoolean("streamingUpload", false);
     fileOpsHelper =
-        new S3FileOpsHelper(endPoint, clientRegion, accessKey, accessSecret, bucketName);
+        new S3FileOpsHelper(
+            endPoint,
+            clientRegion,
+            accessKey,
+            accessSecret,
+            bucketName,
+            config().getInteger("uploadPartSizeMb", 16),
+            config().getInteger("uploadParallelism", 4),
+            config().getInteger("s3MaxConnections", 50),
+            BackendRegistries.getDefaultNow());
 
     binder = new ServiceBinder(vertx);
     asyncService =
         new AsyncServiceImpl(
-            vertx, client, pgService, fileOpsHelper, filePath, tenantPrefix, cacheService);
+            vertx,
+            client,
+            pgService,
+            fileOpsHelper,
+            filePath,
+            tenantPrefix,
+            cacheService,
+            scrollSlices,
+            parquetRowGroupSize,
+            exportExecutor,
+            streamingUpload);
 
     consumer = binder.setAddress(ASYNC_SERVICE_ADDRESS).register(AsyncService.class, asyncService);
   }
@@ -81,5 +110,7 @@ public class AsyncVerticle extends AbstractVerticle {
   @Override
   public void stop() {
     binder.unregister(consumer);
+    exportExecutor.close();
+    fileOpsHelper.close();
   }
 }
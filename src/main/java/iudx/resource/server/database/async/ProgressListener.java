@@ -4,5 +4,14 @@ public interface ProgressListener {
 
   void updateProgress(double progress);
 
+  /**
+   * Time spent so far waiting on ES for batches and writing them to the file, summed over every
+   * scroll slice of the export.
+   *
+   * @param fetchMillis cumulative fetch time in milliseconds
+   * @param writeMillis cumulative format and write time in milliseconds
+   */
+  void updateStageTimings(long fetchMillis, long writeMillis);
+
   void finish();
 }
@@ -1,8 +1,11 @@
 package iudx.resource.server.database.async.util;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import java.io.File;
 import java.net.URI;
@@ -12,52 +15,135 @@ import java.time.ZonedDateTime;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
+/**
+ * S3 access of the async exports. The sync client, async client and presigner are created once
+ * with the helper and shared by every upload and presign, so connections, credentials and TLS
+ * sessions are reused; {@link #close()} releases them.
+ */
 public class S3FileOpsHelper {
 
   private static final Logger LOGGER = LogManager.getLogger(S3FileOpsHelper.class);
+  private static final int DEFAULT_UPLOAD_PART_SIZE_MB = 16;
+  private static final int DEFAULT_UPLOAD_PARALLELISM = 4;
+  private static final int DEFAULT_MAX_CONNECTIONS = 50;
+  private static final int MIN_UPLOAD_PART_SIZE_MB = 5;
+  private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration CONNECTION_MAX_IDLE_TIME = Duration.ofSeconds(60);
 
   private final String endpoint;
   private final String region;
-  private final String accessKey;
-  private final String secretKey;
   private final String bucketName;
+  private final int uploadPartSize;
+  private final int uploadParallelism;
+  private final AwsCredentialsProvider credentialsProvider;
+  private final S3Client s3Client;
+  private final S3AsyncClient s3AsyncClient;
+  private final S3Presigner presigner;
+  private final S3UploadMetrics metrics;
 
   // KEEP YOUR ORIGINAL CONSTRUCTOR (values come from config)
   public S3FileOpsHelper(
       String endpoint, String region, String accessKey, String secretKey, String bucketName) {
+    this(
+        endpoint,
+        region,
+        accessKey,
+        secretKey,
+        bucketName,
+        DEFAULT_UPLOAD_PART_SIZE_MB,
+        DEFAULT_UPLOAD_PARALLELISM,
+        DEFAULT_MAX_CONNECTIONS,
+        null);
+  }
+
+  /**
+   * Helper whose streamed uploads use parts of {@code uploadPartSizeMb} MB, up to {@code
+   * uploadParallelism} of them uploading concurrently.
+   *
+   * @param maxConnections size of the connection pool of each client
+   * @param registry registry of the upload metrics, the global registry when null
+   */
+  public S3FileOpsHelper(
+      String endpoint,
+      String region,
+      String accessKey,
+      String secretKey,
+      String bucketName,
+      int uploadPartSizeMb,
+      int uploadParallelism,
+      int maxConnections,
+      MeterRegistry registry) {
     this.endpoint = endpoint;
     this.region = region;
-    this.accessKey = accessKey;
-    this.secretKey = secretKey;
     this.bucketName = bucketName;
+    // S3 rejects parts below 5 MB other than the last one
+    this.uploadPartSize = Math.max(MIN_UPLOAD_PART_SIZE_MB, uploadPartSizeMb) * 1024 * 1024;
+    this.uploadParallelism = Math.max(1, uploadParallelism);
+    this.credentialsProvider = buildCredentialsProvider(accessKey, secretKey);
+    this.s3Client = buildS3Client(Math.max(1, maxConnections));
+    this.s3AsyncClient = buildS3AsyncClient(Math.max(1, maxConnections));
+    this.presigner = buildPresigner();
+    this.metrics = new S3UploadMetrics(registry);
+  }
+
+  private static AwsCredentialsProvider buildCredentialsProvider(
+      String accessKey, String secretKey) {
+    if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
+      return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+    return DefaultCredentialsProvider.create();
   }
 
-  private S3Client buildS3Client() {
+  private S3Client buildS3Client(int maxConnections) {
     S3ClientBuilder builder =
         S3Client.builder()
             .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
-            .region(Region.of(region));
+            .region(Region.of(region))
+            .credentialsProvider(credentialsProvider)
+            .httpClientBuilder(
+                ApacheHttpClient.builder()
+                    .maxConnections(maxConnections)
+                    .connectionTimeout(CONNECTION_TIMEOUT)
+                    .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                    .tcpKeepAlive(true));
 
-    if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-      builder.credentialsProvider(
-          StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
-    } else {
-      builder.credentialsProvider(DefaultCredentialsProvider.create());
+    if (endpoint != null && !endpoint.isEmpty()) {
+      builder.endpointOverride(URI.create(endpoint));
     }
 
+    return builder.build();
+  }
+
+  private S3AsyncClient buildS3AsyncClient(int maxConnections) {
+    S3AsyncClientBuilder builder =
+        S3AsyncClient.builder()
+            .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+            .region(Region.of(region))
+            .credentialsProvider(credentialsProvider)
+            .httpClientBuilder(
+                NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(maxConnections)
+                    .connectionTimeout(CONNECTION_TIMEOUT)
+                    .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                    .tcpKeepAlive(true));
+
     if (endpoint != null && !endpoint.isEmpty()) {
       builder.endpointOverride(URI.create(endpoint));
     }
@@ -66,14 +152,8 @@ public class S3FileOpsHelper {
   }
 
   private S3Presigner buildPresigner() {
-    S3Presigner.Builder builder = S3Presigner.builder().region(Region.of(region));
-
-    if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-      builder.credentialsProvider(
-          StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
-    } else {
-      builder.credentialsProvider(DefaultCredentialsProvider.create());
-    }
+    S3Presigner.Builder builder =
+        S3Presigner.builder().region(Region.of(region)).credentialsProvider(credentialsProvider);
 
     if (endpoint != null && !endpoint.isEmpty()) {
       builder.endpointOverride(URI.create(endpoint));
@@ -86,44 +166,77 @@ public class S3FileOpsHelper {
   }
 
   /**
-   * Upload file and return JSON with s3_url, expiry (local datetime string) and object_id. This
-   * matches your old behaviour (expiry = now + 1 day).
+   * Upload file and return JSON with s3_url, expiry (local datetime string) and object_id. The
+   * upload runs on the async client, the handler is called back on the caller's context.
    */
   public void s3Upload(File file, String objectKey, Handler<AsyncResult<JsonObject>> handler) {
-    try (S3Client s3Client = buildS3Client()) {
-
-      PutObjectRequest putRequest =
-          PutObjectRequest.builder()
-              .bucket(bucketName)
-              .key(objectKey)
-              .contentDisposition("attachment; filename=" + file.getName())
-              .build();
+    Context context = Vertx.currentContext();
+    long start = System.nanoTime();
+    long size = file.length();
+    PutObjectRequest putRequest =
+        PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(objectKey)
+            .contentDisposition("attachment; filename=" + file.getName())
+            .build();
 
-      s3Client.putObject(putRequest, RequestBody.fromFile(file));
-      LOGGER.info("Object upload complete");
-
-      // keep the old behaviour: expiry = now + 1 day (as earlier code did)
-      ZonedDateTime zdt = ZonedDateTime.now().plusDays(1);
-      long expiryEpochMillis = zdt.toEpochSecond() * 1000L;
+    s3AsyncClient
+        .putObject(putRequest, AsyncRequestBody.fromFile(file))
+        .handle(
+            (response, failure) -> {
+              metrics.recordUpload("file", size, System.nanoTime() - start, failure == null);
+              AsyncResult<JsonObject> result;
+              if (failure == null) {
+                LOGGER.info("Object upload complete");
+                result = Future.succeededFuture(uploadResult(objectKey));
+              } else {
+                LOGGER.error("S3 upload error", failure);
+                result = Future.failedFuture(failure);
+              }
+              if (context != null) {
+                context.runOnContext(v -> handler.handle(result));
+              } else {
+                handler.handle(result);
+              }
+              return null;
+            });
+  }
 
-      // call presign with the same long you used previously (epoch millis).
-      URL presigned = generatePreSignedUrl(expiryEpochMillis, objectKey);
+  /**
+   * Open a stream uploading into {@code objectKey} while it is written, see {@link
+   * S3MultipartOutputStream}. The object is stored once the stream is closed.
+   *
+   * @param objectKey key of the object
+   * @param fileName file name offered to clients downloading the object
+   * @return S3MultipartOutputStream
+   */
+  public S3MultipartOutputStream openUploadStream(String objectKey, String fileName) {
+    return new S3MultipartOutputStream(
+        s3Client,
+        bucketName,
+        objectKey,
+        "attachment; filename=" + fileName,
+        uploadPartSize,
+        uploadParallelism,
+        metrics);
+  }
 
-      JsonObject result =
-          new JsonObject()
-              .put("s3_url", presigned == null ? null : presigned.toString())
-              .put("expiry", zdt.toLocalDateTime().toString())
-              .put("object_id", objectKey);
+  /**
+   * JSON with s3_url, expiry (local datetime string) and object_id of an uploaded object. This
+   * matches your old behaviour (expiry = now + 1 day).
+   */
+  public JsonObject uploadResult(String objectKey) {
+    // keep the old behaviour: expiry = now + 1 day (as earlier code did)
+    ZonedDateTime zdt = ZonedDateTime.now().plusDays(1);
+    long expiryEpochMillis = zdt.toEpochSecond() * 1000L;
 
-      handler.handle(Future.succeededFuture(result));
+    // call presign with the same long you used previously (epoch millis).
+    URL presigned = generatePreSignedUrl(expiryEpochMillis, objectKey);
 
-    } catch (S3Exception e) {
-      LOGGER.error("S3 upload error", e);
-      handler.handle(Future.failedFuture(e));
-    } catch (Exception e) {
-      LOGGER.error("Unexpected error during S3 upload", e);
-      handler.handle(Future.failedFuture(e));
-    }
+    return new JsonObject()
+        .put("s3_url", presigned == null ? null : presigned.toString())
+        .put("expiry", zdt.toLocalDateTime().toString())
+        .put("object_id", objectKey);
   }
 
   public URL generatePreSignedUrl(long expiryValue, String objectKey) {
@@ -136,7 +249,8 @@ public class S3FileOpsHelper {
     if (durationMillis < minMillis) durationMillis = minMillis;
     else if (durationMillis > maxMillis) durationMillis = maxMillis;
 
-    try (S3Presigner presigner = buildPresigner()) {
+    long start = System.nanoTime();
+    try {
       GetObjectRequest getRequest =
           GetObjectRequest.builder().bucket(bucketName).key(objectKey).build();
 
@@ -151,6 +265,15 @@ public class S3FileOpsHelper {
     } catch (Exception e) {
       LOGGER.error("Presigned URL generation failed", e);
       return null;
+    } finally {
+      metrics.recordPresign(System.nanoTime() - start);
     }
   }
+
+  /** Release the clients and their connection pools. */
+  public void close() {
+    s3Client.close();
+    s3AsyncClient.close();
+    presigner.close();
+  }
 }
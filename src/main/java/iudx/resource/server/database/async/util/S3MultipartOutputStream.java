@@ -0,0 +1,293 @@
+package iudx.resource.server.database.async.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Uploads everything written to it into one S3 object through a multipart upload, so an export
+ * never has to be held on local disk. Bytes are collected into parts of {@code partSize}, every
+ * full part is uploaded in the background while the next one is filled, and at most {@code
+ * parallelism} parts are uploading at any time: a writer that gets ahead of S3 blocks until a part
+ * buffer is free again.
+ *
+ * <p>{@link #close()} uploads the last part and completes the upload, an object smaller than one
+ * part is uploaded with a single put instead. {@link #abort()} discards everything uploaded so far.
+ * The S3 client is shared and stays open.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+
+  private static final Logger LOGGER = LogManager.getLogger(S3MultipartOutputStream.class);
+
+  private final S3Client s3Client;
+  private final String bucketName;
+  private final String objectKey;
+  private final String contentDisposition;
+  private final int partSize;
+  private final ExecutorService uploadPool;
+  private final BlockingQueue<byte[]> freeBuffers;
+  private final int maxBuffers;
+  private final S3UploadMetrics metrics;
+  private final long startNanos;
+  private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+  private int allocatedBuffers;
+  private byte[] buffer;
+  private int position;
+  private String uploadId;
+  private long size;
+  private boolean closed;
+
+  public S3MultipartOutputStream(
+      S3Client s3Client,
+      String bucketName,
+      String objectKey,
+      String contentDisposition,
+      int partSize,
+      int parallelism,
+      S3UploadMetrics metrics) {
+    this.s3Client = s3Client;
+    this.bucketName = bucketName;
+    this.objectKey = objectKey;
+    this.contentDisposition = contentDisposition;
+    this.partSize = partSize;
+    this.uploadPool = Executors.newFixedThreadPool(parallelism);
+    // one buffer being filled plus one per part being uploaded
+    this.maxBuffers = parallelism + 1;
+    this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+    this.buffer = new byte[partSize];
+    this.allocatedBuffers = 1;
+    this.metrics = metrics;
+    this.startNanos = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void write(int b) throws IOException {
+    ensureOpen();
+    buffer[position++] = (byte) b;
+    size++;
+    if (position == partSize) {
+      uploadPart();
+    }
+  }
+
+  @Override
+  public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+    ensureOpen();
+    while (length > 0) {
+      int count = Math.min(length, partSize - position);
+      System.arraycopy(bytes, offset, buffer, position, count);
+      position += count;
+      offset += count;
+      length -= count;
+      size += count;
+      if (position == partSize) {
+        uploadPart();
+      }
+    }
+  }
+
+  /**
+   * Uploads the last part and completes the upload.
+   *
+   * @throws IOException when any part failed to upload, the upload is aborted in that case
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (uploadId == null) {
+        s3Client.putObject(
+            PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .contentDisposition(contentDisposition)
+                .build(),
+            RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, position), position));
+      } else {
+        if (position > 0) {
+          startPartUpload();
+        }
+        List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+        for (CompletableFuture<CompletedPart> part : parts) {
+          completedParts.add(part.join());
+        }
+        s3Client.completeMultipartUpload(
+            CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                .build());
+      }
+      LOGGER.info("Object upload complete, {} bytes in {} parts", size, Math.max(1, parts.size()));
+      metrics.recordUpload("stream", size, System.nanoTime() - startNanos, true);
+    } catch (RuntimeException e) {
+      metrics.recordUpload("stream", size, System.nanoTime() - startNanos, false);
+      abortUpload();
+      throw new IOException("upload of " + objectKey + " failed", unwrap(e));
+    } finally {
+      release();
+    }
+  }
+
+  /** Discards the upload, nothing is stored under the object key. */
+  public synchronized void abort() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    metrics.recordUpload("stream", size, System.nanoTime() - startNanos, false);
+    try {
+      abortUpload();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Number of bytes written into the stream, i.e. the size of the uploaded object.
+   *
+   * @return size in bytes
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("stream closed");
+    }
+  }
+
+  private void uploadPart() throws IOException {
+    if (uploadId == null) {
+      try {
+        uploadId =
+            s3Client
+                .createMultipartUpload(
+                    CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .contentDisposition(contentDisposition)
+                        .build())
+                .uploadId();
+      } catch (RuntimeException e) {
+        throw new IOException("upload of " + objectKey + " failed", e);
+      }
+    }
+    for (CompletableFuture<CompletedPart> part : parts) {
+      if (part.isCompletedExceptionally()) {
+        try {
+          part.join();
+        } catch (RuntimeException e) {
+          throw new IOException("upload of " + objectKey + " failed", unwrap(e));
+        }
+      }
+    }
+    startPartUpload();
+    buffer = nextBuffer();
+    position = 0;
+  }
+
+  private void startPartUpload() {
+    final byte[] data = buffer;
+    final int length = position;
+    final int partNumber = parts.size() + 1;
+    final String id = uploadId;
+    parts.add(
+        CompletableFuture.supplyAsync(
+            () -> {
+              long partStart = System.nanoTime();
+              try {
+                String etag =
+                    s3Client
+                        .uploadPart(
+                            UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(objectKey)
+                                .uploadId(id)
+                                .partNumber(partNumber)
+                                .contentLength((long) length)
+                                .build(),
+                            RequestBody.fromInputStream(
+                                new ByteArrayInputStream(data, 0, length), length))
+                        .eTag();
+                metrics.recordPart(System.nanoTime() - partStart);
+                LOGGER.debug("uploaded part {} of {}", partNumber, objectKey);
+                return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+              } finally {
+                freeBuffers.offer(data);
+              }
+            },
+            uploadPool));
+  }
+
+  private byte[] nextBuffer() throws IOException {
+    byte[] free = freeBuffers.poll();
+    if (free != null) {
+      return free;
+    }
+    if (allocatedBuffers < maxBuffers) {
+      allocatedBuffers++;
+      return new byte[partSize];
+    }
+    try {
+      return freeBuffers.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for a part upload");
+    }
+  }
+
+  private void abortUpload() {
+    if (uploadId == null) {
+      return;
+    }
+    // parts still uploading would otherwise be stored after the abort
+    parts.forEach(part -> part.handle((completed, failure) -> null).join());
+    try {
+      s3Client.abortMultipartUpload(
+          AbortMultipartUploadRequest.builder()
+              .bucket(bucketName)
+              .key(objectKey)
+              .uploadId(uploadId)
+              .build());
+      LOGGER.info("multipart upload of {} aborted", objectKey);
+    } catch (RuntimeException e) {
+      LOGGER.error("failed to abort multipart upload of {}", objectKey, e);
+    }
+  }
+
+  private void release() {
+    uploadPool.shutdown();
+    buffer = null;
+    freeBuffers.clear();
+  }
+
+  private static Throwable unwrap(RuntimeException e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
+}
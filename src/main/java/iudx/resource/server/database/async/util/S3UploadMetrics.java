@@ -0,0 +1,75 @@
+package iudx.resource.server.database.async.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the S3 uploads of async exports. Upload throughput is {@code s3_upload_bytes_sum} over
+ * {@code s3_upload_duration_seconds_sum}.
+ */
+public class S3UploadMetrics {
+
+  static final String UPLOAD_DURATION = "s3.upload.duration";
+  static final String UPLOAD_BYTES = "s3.upload.bytes";
+  static final String PART_DURATION = "s3.upload.part.duration";
+  static final String PRESIGN_DURATION = "s3.presign.duration";
+
+  private final MeterRegistry registry;
+  private final Timer partDuration;
+  private final Timer presignDuration;
+
+  /**
+   * Meters registered into the given registry, or into the global registry when there is none,
+   * e.g. when vert.x metrics are disabled.
+   *
+   * @param registry MeterRegistry, may be null
+   */
+  public S3UploadMetrics(MeterRegistry registry) {
+    this.registry = registry == null ? Metrics.globalRegistry : registry;
+    this.partDuration =
+        Timer.builder(PART_DURATION)
+            .description("Time to upload one part of a multipart upload")
+            .register(this.registry);
+    this.presignDuration =
+        Timer.builder(PRESIGN_DURATION)
+            .description("Time to create a pre-signed download url")
+            .register(this.registry);
+  }
+
+  /**
+   * Record one finished upload.
+   *
+   * @param mode file or stream
+   * @param bytes size of the object
+   * @param nanos time from the start of the upload to its completion
+   * @param succeeded whether the object was stored
+   */
+  public void recordUpload(String mode, long bytes, long nanos, boolean succeeded) {
+    String outcome = succeeded ? "success" : "failure";
+    Timer.builder(UPLOAD_DURATION)
+        .description("Time to upload an export to S3")
+        .tag("mode", mode)
+        .tag("outcome", outcome)
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+    if (succeeded) {
+      DistributionSummary.builder(UPLOAD_BYTES)
+          .description("Size of the exports uploaded to S3")
+          .baseUnit("bytes")
+          .tag("mode", mode)
+          .register(registry)
+          .record(bytes);
+    }
+  }
+
+  public void recordPart(long nanos) {
+    partDuration.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordPresign(long nanos) {
+    presignDuration.record(nanos, TimeUnit.NANOSECONDS);
+  }
+}
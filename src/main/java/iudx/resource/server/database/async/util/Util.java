@@ -2,9 +2,11 @@ package iudx.resource.server.database.async.util;
 
 import static iudx.resource.server.database.archives.Constants.*;
 import static iudx.resource.server.database.postgres.Constants.INSERT_S3_PENDING_SQL;
+import static iudx.resource.server.database.postgres.TupleCodec.params;
 
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.database.postgres.PostgresService;
 import java.util.UUID;
@@ -20,11 +22,12 @@ public class Util {
     this.pgService = pgService;
   }
 
-  public Future<Void> writeToDb(StringBuilder query) {
+  public Future<Void> writeToDb(String query, JsonArray params) {
     Promise<Void> promise = Promise.promise();
 
-    pgService.executeQuery(
-        query.toString(),
+    pgService.executeParameterizedQuery(
+        query,
+        params,
         pgHandler -> {
           if (pgHandler.succeeded()) {
             promise.complete();
@@ -36,18 +39,16 @@ public class Util {
   }
 
   public Future<Void> writeToDb(String searchId, String requestId, String sub) {
-
-    StringBuilder query =
-        new StringBuilder(
-            INSERT_S3_PENDING_SQL
-                .replace("$1", UUID.randomUUID().toString())
-                .replace("$2", searchId)
-                .replace("$3", requestId)
-                .replace("$4", sub)
-                .replace("$5", QueryProgress.IN_PROGRESS.toString())
-                .replace("$6", String.valueOf(0.0)));
-
-    return writeToDb(query);
+    return writeToDb(
+        INSERT_S3_PENDING_SQL,
+        params(
+            UUID.randomUUID(),
+            searchId,
+            requestId,
+            sub,
+            QueryProgress.IN_PROGRESS,
+            0.0,
+            new JsonObject()));
   }
 
   public boolean isValidQuery(JsonObject query) {
@@ -0,0 +1,177 @@
+package iudx.resource.server.database.elastic;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable column layout of a CSV export. Column names are the flattened paths of the JSON values,
+ * object keys and array positions joined by dots as in {@link JsonFlatten}, e.g. {@code
+ * location.coordinates.0}. The paths are compiled into a tree walked by {@link CsvRowWriter}, so a
+ * plan can be shared by any number of writers and threads.
+ */
+public final class CsvColumnPlan {
+  private final Set<String> columns;
+  private final Node root;
+
+  /**
+   * Compile the key and array position segments of every column into the path tree. A name that
+   * several paths flatten to, e.g. of a key {@code a.b} and of a key {@code b} nested in {@code a},
+   * is one column reached through each of them.
+   */
+  private CsvColumnPlan(Map<String, List<List<String>>> columnPaths) {
+    this.columns = Collections.unmodifiableSet(columnPaths.keySet());
+    Builder root = new Builder();
+    int index = 0;
+    for (List<List<String>> paths : columnPaths.values()) {
+      for (List<String> path : paths) {
+        Builder node = root;
+        for (String segment : path) {
+          node = node.children.computeIfAbsent(segment, s -> new Builder());
+        }
+        node.column = index;
+      }
+      index++;
+    }
+    this.root = root.build();
+  }
+
+  /**
+   * Plan of the given columns, in the given order. The names are split on dots, so the column of a
+   * key that contains a dot is only found by a plan of {@link #discover(List)}.
+   *
+   * @param columns flattened column names
+   * @return CsvColumnPlan
+   */
+  public static CsvColumnPlan of(Collection<String> columns) {
+    Map<String, List<List<String>>> columnPaths = new LinkedHashMap<>();
+    for (String column : columns) {
+      columnPaths.putIfAbsent(column, List.of(Arrays.asList(column.split("\\.", -1))));
+    }
+    return new CsvColumnPlan(columnPaths);
+  }
+
+  /**
+   * Plan of every non-null value path found in the given hits, in the order they are first seen.
+   *
+   * @param searchHits sample of the exported documents
+   * @return CsvColumnPlan
+   */
+  public static CsvColumnPlan discover(List<Hit<ObjectNode>> searchHits) {
+    Map<String, List<List<String>>> columnPaths = new LinkedHashMap<>();
+    for (Hit<ObjectNode> hit : searchHits) {
+      if (hit.source() != null) {
+        collect(hit.source(), new ArrayList<>(), columnPaths);
+      }
+    }
+    return new CsvColumnPlan(columnPaths);
+  }
+
+  private static void collect(
+      JsonNode node, List<String> path, Map<String, List<List<String>>> columnPaths) {
+    if (node.isValueNode()) {
+      if (!node.isNull()) {
+        List<List<String>> paths =
+            columnPaths.computeIfAbsent(String.join(".", path), column -> new ArrayList<>());
+        if (!paths.contains(path)) {
+          paths.add(List.copyOf(path));
+        }
+      }
+    } else if (node.isArray()) {
+      for (int i = 0; i < node.size(); i++) {
+        path.add(String.valueOf(i));
+        collect(node.get(i), path, columnPaths);
+        path.remove(path.size() - 1);
+      }
+    } else if (node.isObject()) {
+      Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        path.add(field.getKey());
+        collect(field.getValue(), path, columnPaths);
+        path.remove(path.size() - 1);
+      }
+    }
+  }
+
+  /**
+   * Column names in CSV order.
+   *
+   * @return unmodifiable set of column names
+   */
+  public Set<String> columns() {
+    return columns;
+  }
+
+  public int size() {
+    return columns.size();
+  }
+
+  Node root() {
+    return root;
+  }
+
+  /**
+   * Node of the path tree. Object members are looked up by name, array elements by position; a
+   * node may be both a column and the parent of deeper columns when documents disagree on a shape.
+   */
+  static final class Node {
+    final int column;
+    final String[] names;
+    final Node[] fields;
+    final Node[] elements;
+
+    private Node(int column, String[] names, Node[] fields, Node[] elements) {
+      this.column = column;
+      this.names = names;
+      this.fields = fields;
+      this.elements = elements;
+    }
+  }
+
+  private static final class Builder {
+    private final Map<String, Builder> children = new LinkedHashMap<>();
+    private int column = -1;
+
+    private Node build() {
+      String[] names = new String[children.size()];
+      Node[] fields = new Node[children.size()];
+      Node[] elements = new Node[0];
+      int i = 0;
+      for (Map.Entry<String, Builder> child : children.entrySet()) {
+        names[i] = child.getKey();
+        fields[i] = child.getValue().build();
+        int position = position(child.getKey());
+        if (position >= 0) {
+          if (position >= elements.length) {
+            elements = Arrays.copyOf(elements, position + 1);
+          }
+          elements[position] = fields[i];
+        }
+        i++;
+      }
+      return new Node(column, names, fields, elements);
+    }
+
+    private static int position(String segment) {
+      if (segment.isEmpty() || segment.length() > 5) {
+        return -1;
+      }
+      for (int i = 0; i < segment.length(); i++) {
+        if (segment.charAt(i) < '0' || segment.charAt(i) > '9') {
+          return -1;
+        }
+      }
+      return Integer.parseInt(segment);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package iudx.resource.server.database.elastic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes documents as CSV rows laid out by a {@link CsvColumnPlan}. Every document is walked along
+ * the plan straight into a reusable row of value nodes, fields outside the plan are never visited
+ * and no per-document map or path string is built. A writer belongs to a single export and is not
+ * thread-safe, the plan it reads is.
+ */
+final class CsvRowWriter {
+  private final CsvColumnPlan plan;
+  private final Writer writer;
+  private final JsonNode[] row;
+
+  CsvRowWriter(CsvColumnPlan plan, Writer writer) {
+    this.plan = plan;
+    this.writer = writer;
+    this.row = new JsonNode[plan.size()];
+  }
+
+  CsvColumnPlan plan() {
+    return plan;
+  }
+
+  void writeHeader() throws IOException {
+    boolean first = true;
+    for (String column : plan.columns()) {
+      if (!first) {
+        writer.write(',');
+      }
+      writer.write(column);
+      first = false;
+    }
+    writer.write('\n');
+  }
+
+  void writeRow(JsonNode document) throws IOException {
+    walk(document, plan.root());
+    for (int i = 0; i < row.length; i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writeCell(row[i]);
+    }
+    writer.write('\n');
+    Arrays.fill(row, null);
+  }
+
+  private void walk(JsonNode node, CsvColumnPlan.Node planNode) {
+    if (node.isValueNode()) {
+      if (planNode.column >= 0) {
+        row[planNode.column] = node;
+      }
+    } else if (node.isObject()) {
+      for (int i = 0; i < planNode.names.length; i++) {
+        JsonNode child = node.get(planNode.names[i]);
+        if (child != null) {
+          walk(child, planNode.fields[i]);
+        }
+      }
+    } else if (node.isArray()) {
+      int size = Math.min(node.size(), planNode.elements.length);
+      for (int i = 0; i < size; i++) {
+        if (planNode.elements[i] != null) {
+          walk(node.get(i), planNode.elements[i]);
+        }
+      }
+    }
+  }
+
+  /** Numbers, booleans and strings are written, other values (null, binary) leave the cell empty. */
+  private void writeCell(JsonNode value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    if (value.isInt() || value.isLong()) {
+      writer.write(Long.toString(value.longValue()));
+    } else if (value.isFloat() || value.isDouble()) {
+      writer.write(Double.toString(value.doubleValue()));
+    } else if (value.isNumber()) {
+      writer.write(value.numberValue().toString());
+    } else if (value.isBoolean()) {
+      writer.write(value.booleanValue() ? "true" : "false");
+    } else if (value.isTextual()) {
+      writeText(value.textValue());
+    }
+  }
+
+  private void writeText(String text) throws IOException {
+    boolean quote = false;
+    for (int i = 0; i < text.length() && !quote; i++) {
+      char c = text.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quote) {
+      writer.write(text);
+      return;
+    }
+    writer.write('"');
+    int start = 0;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '"') {
+        writer.write(text, start, i + 1 - start);
+        writer.write('"');
+        start = i + 1;
+      }
+    }
+    writer.write(text, start, text.length() - start);
+    writer.write('"');
+  }
+}
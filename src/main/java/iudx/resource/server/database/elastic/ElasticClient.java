@@ -4,12 +4,14 @@ import static iudx.resource.server.database.archives.Constants.*;
 
 import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.Time;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
-import co.elastic.clients.elasticsearch.core.ClearScrollRequest;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeRequest;
 import co.elastic.clients.elasticsearch.core.CountRequest;
-import co.elastic.clients.elasticsearch.core.ScrollRequest;
-import co.elastic.clients.elasticsearch.core.ScrollResponse;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeRequest;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.SourceConfig;
@@ -19,13 +21,17 @@ import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import iudx.resource.server.common.ResponseUrn;
 import iudx.resource.server.database.archives.ResponseBuilder;
 import iudx.resource.server.database.async.ProgressListener;
 import java.io.File;
+import java.io.OutputStream;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
@@ -65,116 +71,125 @@ public class ElasticClient {
     asyncClient = new ElasticsearchAsyncClient(transport);
   }
 
+  /**
+   * Export every document matching the query into {@code file}, reading the index through {@code
+   * slices} concurrent scroll slices. File writes run on {@code executor} and ES calls never block
+   * a thread.
+   *
+   * @param file file to export into, or the base name of part files when a sink is given
+   * @param sink stream to export into instead of the file, null to write the file
+   * @param index index to query
+   * @param query bool query built by {@link QueryDecoder}
+   * @param source _source fields to include, null for all
+   * @param searchId async search id
+   * @param progressListener listener updated with the share of documents written
+   * @param format json or csv
+   * @param filePath directory of the export files
+   * @param slices number of scroll slices to read concurrently
+   * @param parquetRowGroupSize documents per row group of a parquet export
+   * @param executor worker pool for file writes
+   * @return Future completed once the file is fully written
+   */
   public Future<JsonObject> asyncScroll(
       File file,
+      OutputStream sink,
       String index,
       Query query,
       String[] source,
       String searchId,
       ProgressListener progressListener,
       String format,
-      String filePath) {
+      String filePath,
+      int slices,
+      int parquetRowGroupSize,
+      WorkerExecutor executor) {
+    LOGGER.debug(
+        "exporting {} into {} with {} slices",
+        searchId,
+        sink != null ? "upload stream" : file.getAbsolutePath(),
+        slices);
+    return new SlicedScrollExport(
+            asyncClient,
+            executor,
+            file,
+            sink,
+            index,
+            query,
+            source,
+            progressListener,
+            format,
+            slices,
+            parquetRowGroupSize)
+        .export()
+        .map(exported -> new JsonObject())
+        .onFailure(failure -> LOGGER.error("scroll export failed for {}", searchId, failure));
+  }
+
+  public Future<JsonObject> asyncSearch(
+      String index, Query query, int size, int from, SourceConfig sourceFilterConfig) {
     Promise<JsonObject> promise = Promise.promise();
     SearchRequest searchRequest =
         SearchRequest.of(
-            e -> e.index(index).query(query).size(10000).scroll(scr -> scr.time("5m")));
-
+            e ->
+                e.index(index)
+                    .query(query)
+                    .size(size)
+                    .from(from)
+                    .source(sourceFilterConfig)
+                    .timeout("180s"));
     asyncClient
         .search(searchRequest, ObjectNode.class)
         .whenCompleteAsync(
-            (response, ex) -> {
-              String scrollId = null;
+            (response, exception) -> {
+              if (exception != null) {
+                LOGGER.error("async search query failed : {}", exception);
+                promise.fail(exception);
+                return;
+              }
               try {
-                // LOGGER.info("response : {}",response.toString());
-                scrollId = response.scrollId();
-
-                long totalHits = response.hits().total().value();
-                LOGGER.debug("Total documents to be downloaded : " + totalHits);
-
-                List<Hit<ObjectNode>> searchHits = response.hits().hits();
-                LOGGER.debug("Total records : {}", searchHits.size());
-
-                EsResponseFormatterFactory convertFactory =
-                    new EsResponseFormatterFactory(format, file);
-                EsResponseFormatter instance = convertFactory.createInstance();
-
-                LOGGER.debug(file.getAbsolutePath());
-
-                int totaldocsDownloaded = 0;
-                Set<String> headers = null;
-
-                if (format.equalsIgnoreCase("json")) {
-                  instance.write(searchHits);
-                } else {
-                  headers = instance.writeToCsv(searchHits);
-                }
-
-                int totalIterations = totalHits < 10000 ? 1 : (int) Math.ceil(totalHits / 10000.0);
-                double iterationCount = 0.0;
-                double progress;
-                boolean appendComma = false;
-                while (searchHits != null && searchHits.size() > 0) {
-                  long downloadedDocs = searchHits.size();
-                  totaldocsDownloaded += downloadedDocs;
-
-                  String downloadLogMessage = "downloaded {} docs of {} total [{} new]";
-                  LOGGER.debug(downloadLogMessage, totaldocsDownloaded, totalHits, downloadedDocs);
-                  iterationCount += 1;
-                  progress = iterationCount / totalIterations;
-                  // keeping progress at 90% of actual to update the last 10% after upload to
-                  // external (s3)
-                  double finalProgress = progress * 0.9;
-                  Future.future(handler -> progressListener.updateProgress(finalProgress));
-
-                  if (format.equalsIgnoreCase("json")) {
-                    instance.append(searchHits, appendComma);
-                  } else {
-                    instance.append(searchHits, appendComma, headers);
-                  }
-
-                  ScrollRequest scrollRequest = nextScrollRequest(scrollId);
-                  CompletableFuture<ScrollResponse<ObjectNode>> future =
-                      asyncClient.scroll(scrollRequest, ObjectNode.class);
-                  ScrollResponse<ObjectNode> scrollResponse = future.get();
-                  scrollId = scrollResponse.scrollId();
-                  searchHits = scrollResponse.hits().hits();
-                  appendComma = true;
+                if (response.hits().total().value() == 0) {
+                  responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(204);
+                  responseBuilder.setMessage(EMPTY_RESPONSE);
+                  promise.fail(responseBuilder.getResponse().toString());
+                  return;
                 }
 
-                instance.finish();
-                promise.complete();
+                JsonArray dbResponse = JsonNodeConverter.decodeHits(response.hits().hits());
 
-              } catch (Exception exception) {
-                promise.fail("failed for some exception");
-                exception.printStackTrace();
-              } finally {
-                clearScrollRequest(scrollId);
+                responseBuilder = new ResponseBuilder(SUCCESS).setTypeAndTitle(200);
+                responseBuilder.setMessage(dbResponse);
+                promise.complete(responseBuilder.getResponse());
+              } catch (Exception ex) {
+                LOGGER.error("Exception occurred while executing query: {}", ex);
+                JsonObject dbException = new JsonObject(ex.getMessage());
+                responseBuilder =
+                    new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(dbException);
+                promise.fail(responseBuilder.getResponse().toString());
               }
             });
     return promise.future();
   }
 
-  private ScrollRequest nextScrollRequest(final String scrollId) {
-    return ScrollRequest.of(
-        scrollRequest -> scrollRequest.scrollId(scrollId).scroll(Time.of(t -> t.time("5m"))));
-  }
-
-  private void clearScrollRequest(String scrollId) {
-    if (scrollId != null) {
-      LOGGER.debug("Closing scroll request with id : {}", scrollId);
-      final String finalScroll = scrollId;
-      ClearScrollRequest clearScrollRequest = ClearScrollRequest.of(f -> f.scrollId(finalScroll));
-      try {
-        asyncClient.clearScroll(clearScrollRequest);
-      } catch (Exception e) {
-        LOGGER.error(e);
-        LOGGER.error(e.getMessage());
-      }
-    }
-  }
-
-  public Future<JsonObject> asyncSearch(
-      String index, Query query, int size, int from, SourceConfig sourceFilterConfig) {
+  /**
+   * Search with the total hit count resolved in the same round trip. The count is tracked only up
+   * to {@code maxTotalHits + 1}, enough to decide whether the result crosses the response limit
+   * without asking ES for an exact count over the whole index.
+   *
+   * @param index index to query
+   * @param query bool query built by {@link QueryDecoder}
+   * @param size page size
+   * @param from page offset
+   * @param sourceFilterConfig _source filter
+   * @param maxTotalHits upper limit of matching documents allowed for a synchronous response
+   * @return Future with results and totalHits, failed with 204 when empty or 413 when too large
+   */
+  public Future<JsonObject> asyncSearchWithCount(
+      String index,
+      Query query,
+      int size,
+      int from,
+      SourceConfig sourceFilterConfig,
+      int maxTotalHits) {
     Promise<JsonObject> promise = Promise.promise();
     SearchRequest searchRequest =
         SearchRequest.of(
@@ -184,6 +199,7 @@ public class ElasticClient {
                     .size(size)
                     .from(from)
                     .source(sourceFilterConfig)
+                    .trackTotalHits(t -> t.count(maxTotalHits + 1))
                     .timeout("180s"));
     asyncClient
         .search(searchRequest, ObjectNode.class)
@@ -194,38 +210,208 @@ public class ElasticClient {
                 promise.fail(exception);
                 return;
               }
-              JsonObject queryResult;
               try {
-                JsonArray dbResponse = new JsonArray();
-                if (response.hits().total().value() == 0) {
-                  responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(204);
-                  responseBuilder.setMessage(EMPTY_RESPONSE);
-                  promise.fail(responseBuilder.getResponse().toString());
+                long totalHits = response.hits().total().value();
+                LOGGER.info("count : " + totalHits);
+                String totalHitsFailure = checkTotalHits(totalHits, maxTotalHits);
+                if (totalHitsFailure != null) {
+                  promise.fail(totalHitsFailure);
                   return;
                 }
 
-                // TODO : explore client API docs to directly get response, avoid loop over response
-                // to
-                // create a seprate Json
-                for (Hit<ObjectNode> esHitResponse : response.hits().hits()) {
-                  queryResult = new JsonObject(esHitResponse.source().toString());
-                  dbResponse.add(queryResult);
-                }
+                JsonArray dbResponse = JsonNodeConverter.decodeHits(response.hits().hits());
 
-                responseBuilder = new ResponseBuilder(SUCCESS).setTypeAndTitle(200);
-                responseBuilder.setMessage(dbResponse);
-                promise.complete(responseBuilder.getResponse());
+                ResponseBuilder successResponse = new ResponseBuilder(SUCCESS).setTypeAndTitle(200);
+                successResponse.setMessage(dbResponse);
+                promise.complete(successResponse.getResponse().put(TOTAL_HITS, totalHits));
               } catch (Exception ex) {
                 LOGGER.error("Exception occurred while executing query: {}", ex);
                 JsonObject dbException = new JsonObject(ex.getMessage());
-                responseBuilder =
+                ResponseBuilder failureResponse =
                     new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(dbException);
-                promise.fail(responseBuilder.getResponse().toString());
+                promise.fail(failureResponse.getResponse().toString());
               }
             });
     return promise.future();
   }
 
+  /**
+   * Page through the search window [from, from + size) in pages of {@code pageSize} documents.
+   * Each page is handed to {@code pageHandler} together with the total hit count as comma separated
+   * _source documents, and the next page is fetched only once the future returned by the handler
+   * completes. A slow consumer therefore holds back the ES reads instead of piling up pages. Pages
+   * are read from one point-in-time in _shard_doc order, so documents indexed meanwhile neither
+   * shift nor repeat pages; the point-in-time is closed when the stream ends.
+   *
+   * @param index index to query
+   * @param query bool query built by {@link QueryDecoder}
+   * @param size total number of documents requested
+   * @param from offset of the first document
+   * @param sourceFilterConfig _source filter
+   * @param maxTotalHits upper limit of matching documents allowed for a synchronous response
+   * @param pageSize documents fetched per ES request
+   * @param pageHandler consumer of (totalHits, encoded page)
+   * @return Future with totalHits once every page is consumed, failed with 204 when empty or 413
+   *     when too large before any page is handed over
+   */
+  public Future<JsonObject> asyncStreamSearch(
+      String index,
+      Query query,
+      int size,
+      int from,
+      SourceConfig sourceFilterConfig,
+      int maxTotalHits,
+      int pageSize,
+      BiFunction<Long, Buffer, Future<Void>> pageHandler) {
+    SearchStream stream =
+        new SearchStream(index, query, sourceFilterConfig, maxTotalHits, pageSize, pageHandler);
+    stream.start(from, size);
+    return stream.promise.future();
+  }
+
+  /**
+   * Search one page of a point-in-time/search_after pagination sorted on (observationDateTime,
+   * _shard_doc). The first page opens the point-in-time and resolves the total hit count, later
+   * pages continue after the sort values carried by {@code cursor}, so a page costs the same at any
+   * depth. The point-in-time is closed once the last page is read. Every page keeps it alive for
+   * one more minute only, so a client that stops paging does not hold it open for long.
+   *
+   * @param index index to query
+   * @param query bool query built by {@link QueryDecoder}
+   * @param size page size
+   * @param sourceFilterConfig _source filter
+   * @param cursor cursor returned with the previous page, null for the first page
+   * @return Future with results, totalHits on the first page and nextCursor while more pages may
+   *     exist, failed with 204 when the page is empty
+   */
+  public Future<JsonObject> asyncCursorSearch(
+      String index, Query query, int size, SourceConfig sourceFilterConfig, SearchCursor cursor) {
+    Future<String> pitFuture;
+    if (cursor == null) {
+      OpenPointInTimeRequest pitRequest =
+          OpenPointInTimeRequest.of(
+              o -> o.index(index).keepAlive(Time.of(t -> t.time(CURSOR_PAGE_KEEP_ALIVE))));
+      pitFuture =
+          Future.fromCompletionStage(asyncClient.openPointInTime(pitRequest)).map(r -> r.id());
+    } else {
+      pitFuture = Future.succeededFuture(cursor.getPitId());
+    }
+    return pitFuture.compose(
+        pitId -> {
+          boolean firstPage = cursor == null;
+          SearchRequest searchRequest =
+              SearchRequest.of(
+                  e -> {
+                    e.pit(
+                            p ->
+                                p.id(pitId)
+                                    .keepAlive(Time.of(t -> t.time(CURSOR_PAGE_KEEP_ALIVE))))
+                        .query(query)
+                        .size(size)
+                        .source(sourceFilterConfig)
+                        .sort(sortAscending(CURSOR_SORT_FIELD), sortAscending("_shard_doc"))
+                        .trackTotalHits(t -> t.enabled(firstPage))
+                        .timeout("180s");
+                    if (!firstPage) {
+                      e.searchAfter(cursor.getSearchAfter());
+                    }
+                    return e;
+                  });
+          Promise<JsonObject> promise = Promise.promise();
+          asyncClient
+              .search(searchRequest, ObjectNode.class)
+              .whenCompleteAsync(
+                  (response, exception) -> {
+                    if (exception != null) {
+                      LOGGER.error("async cursor search query failed : {}", exception);
+                      closePointInTime(pitId);
+                      promise.fail(exception);
+                      return;
+                    }
+                    try {
+                      List<Hit<ObjectNode>> hits = response.hits().hits();
+                      if (hits.isEmpty()) {
+                        closePointInTime(pitId);
+                        promise.fail(emptyResponse());
+                        return;
+                      }
+                      ResponseBuilder successResponse =
+                          new ResponseBuilder(SUCCESS).setTypeAndTitle(200);
+                      successResponse.setMessage(JsonNodeConverter.decodeHits(hits));
+                      JsonObject result = successResponse.getResponse();
+                      if (firstPage) {
+                        result.put(TOTAL_HITS, response.hits().total().value());
+                      }
+                      // the point in time is a snapshot, so the total counted on the first page
+                      // tells when the last page is reached, even if it is a full page
+                      long remainingHits =
+                          (firstPage ? response.hits().total().value() : cursor.getRemainingHits())
+                              - hits.size();
+                      if (hits.size() < size || remainingHits <= 0) {
+                        closePointInTime(pitId);
+                      } else {
+                        String nextPitId = response.pitId() != null ? response.pitId() : pitId;
+                        List<FieldValue> searchAfter = hits.get(hits.size() - 1).sort();
+                        result.put(
+                            NEXT_CURSOR,
+                            new SearchCursor(index, nextPitId, searchAfter, remainingHits)
+                                .encode());
+                      }
+                      promise.complete(result);
+                    } catch (Exception ex) {
+                      LOGGER.error("async cursor search page failed : {}", ex);
+                      closePointInTime(pitId);
+                      promise.tryFail(ex);
+                    }
+                  });
+          return promise.future();
+        });
+  }
+
+  private static SortOptions sortAscending(String field) {
+    return SortOptions.of(s -> s.field(f -> f.field(field).order(SortOrder.Asc)));
+  }
+
+  private void closePointInTime(String pitId) {
+    ClosePointInTimeRequest closeRequest = ClosePointInTimeRequest.of(c -> c.id(pitId));
+    asyncClient
+        .closePointInTime(closeRequest)
+        .whenComplete(
+            (response, exception) -> {
+              if (exception != null) {
+                LOGGER.warn("failed to close point in time : {}", exception.getMessage());
+              }
+            });
+  }
+
+  /**
+   * Failure of a synchronous response with {@code totalHits} matching documents.
+   *
+   * @return 204 response when nothing matched, 413 response above {@code maxTotalHits}, else null
+   */
+  String checkTotalHits(long totalHits, int maxTotalHits) {
+    if (totalHits == 0) {
+      return emptyResponse();
+    }
+    if (totalHits > maxTotalHits) {
+      JsonObject json = new JsonObject();
+      json.put("type", 413);
+      json.put("title", ResponseUrn.PAYLOAD_TOO_LARGE_URN.getUrn());
+      json.put(
+          "details",
+          ResponseUrn.PAYLOAD_TOO_LARGE_URN.getMessage()
+              + " use filters to get value within limit or use async api");
+      return json.toString();
+    }
+    return null;
+  }
+
+  private String emptyResponse() {
+    ResponseBuilder emptyResponse = new ResponseBuilder(FAILED).setTypeAndTitle(204);
+    emptyResponse.setMessage(EMPTY_RESPONSE);
+    return emptyResponse.getResponse().toString();
+  }
+
   public Future<JsonObject> asyncCount(String index, Query query) {
     Promise<JsonObject> promise = Promise.promise();
     CountRequest countRequest = CountRequest.of(e -> e.index(index).query(query));
@@ -260,4 +446,133 @@ public class ElasticClient {
             });
     return promise.future();
   }
+
+  private class SearchStream {
+    private final String index;
+    private final Query query;
+    private final SourceConfig sourceFilterConfig;
+    private final int maxTotalHits;
+    private final int pageSize;
+    private final BiFunction<Long, Buffer, Future<Void>> pageHandler;
+    private final Promise<JsonObject> promise = Promise.promise();
+    private String pitId;
+    private long totalHits = -1;
+
+    SearchStream(
+        String index,
+        Query query,
+        SourceConfig sourceFilterConfig,
+        int maxTotalHits,
+        int pageSize,
+        BiFunction<Long, Buffer, Future<Void>> pageHandler) {
+      this.index = index;
+      this.query = query;
+      this.sourceFilterConfig = sourceFilterConfig;
+      this.maxTotalHits = maxTotalHits;
+      this.pageSize = pageSize;
+      this.pageHandler = pageHandler;
+    }
+
+    /**
+     * Read the window through a point-in-time, so every page sees the same snapshot of the index.
+     * The first page starts at {@code from}, later pages continue after the _shard_doc of the last
+     * hit, which keeps them clear of index.max_result_window.
+     */
+    void start(int from, int size) {
+      promise
+          .future()
+          .onComplete(
+              done -> {
+                if (pitId != null) {
+                  closePointInTime(pitId);
+                }
+              });
+      OpenPointInTimeRequest pitRequest =
+          OpenPointInTimeRequest.of(
+              o -> o.index(index).keepAlive(Time.of(t -> t.time(CURSOR_KEEP_ALIVE))));
+      asyncClient
+          .openPointInTime(pitRequest)
+          .whenCompleteAsync(
+              (response, exception) -> {
+                if (exception != null) {
+                  LOGGER.error("async stream search failed to open point in time : {}", exception);
+                  promise.tryFail(exception);
+                  return;
+                }
+                pitId = response.id();
+                fetch(from, size, null);
+              });
+    }
+
+    private void fetch(int from, int remaining, List<FieldValue> searchAfter) {
+      final boolean firstPage = totalHits < 0;
+      final int size = Math.min(remaining, pageSize);
+      SearchRequest searchRequest =
+          SearchRequest.of(
+              e -> {
+                e.pit(p -> p.id(pitId).keepAlive(Time.of(t -> t.time(CURSOR_KEEP_ALIVE))))
+                    .query(query)
+                    .size(size)
+                    .source(sourceFilterConfig)
+                    .sort(sortAscending("_shard_doc"))
+                    .trackTotalHits(t -> firstPage ? t.count(maxTotalHits + 1) : t.enabled(false))
+                    .timeout("180s");
+                if (searchAfter == null) {
+                  e.from(from);
+                } else {
+                  e.searchAfter(searchAfter);
+                }
+                return e;
+              });
+      asyncClient
+          .search(searchRequest, ObjectNode.class)
+          .whenCompleteAsync(
+              (response, exception) -> {
+                if (exception != null) {
+                  LOGGER.error("async stream search query failed : {}", exception);
+                  promise.tryFail(exception);
+                  return;
+                }
+                try {
+                  if (response.pitId() != null) {
+                    pitId = response.pitId();
+                  }
+                  if (firstPage) {
+                    totalHits = response.hits().total().value();
+                    LOGGER.info("count : " + totalHits);
+                    String totalHitsFailure = checkTotalHits(totalHits, maxTotalHits);
+                    if (totalHitsFailure != null) {
+                      promise.tryFail(totalHitsFailure);
+                      return;
+                    }
+                  }
+                  List<Hit<ObjectNode>> hits = response.hits().hits();
+                  if (!firstPage && hits.isEmpty()) {
+                    promise.tryComplete(new JsonObject().put(TOTAL_HITS, totalHits));
+                    return;
+                  }
+                  int nextFrom = from + hits.size();
+                  int nextRemaining = remaining - hits.size();
+                  boolean lastPage =
+                      hits.size() < size || nextRemaining <= 0 || nextFrom >= totalHits;
+                  List<FieldValue> nextSearchAfter =
+                      hits.isEmpty() ? null : hits.get(hits.size() - 1).sort();
+                  pageHandler
+                      .apply(totalHits, JsonNodeConverter.encodeHits(hits))
+                      .onSuccess(
+                          ack -> {
+                            if (lastPage) {
+                              promise.tryComplete(new JsonObject().put(TOTAL_HITS, totalHits));
+                            } else {
+                              fetch(nextFrom, nextRemaining, nextSearchAfter);
+                            }
+                          })
+                      .onFailure(promise::tryFail);
+                } catch (Exception ex) {
+                  LOGGER.error("async stream search page failed : {}", ex);
+                  promise.tryFail(ex);
+                }
+              });
+    }
+  }
 }
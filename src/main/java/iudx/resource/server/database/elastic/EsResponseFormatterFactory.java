@@ -1,30 +1,137 @@
 package iudx.resource.server.database.elastic;
 
 import static iudx.resource.server.apiserver.util.Constants.HEADER_CSV;
+import static iudx.resource.server.apiserver.util.Constants.HEADER_PARQUET;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
 
 public class EsResponseFormatterFactory {
-  private AbstractEsSearchResponseFormatter responseToCsv;
-  // private AbstractConvertElasticSearchResponse responseToParquet;
-  private AbstractEsSearchResponseFormatter responseToJson;
-  private String format;
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String format;
+  private final File file;
+  private final OutputStream outputStream;
+  private final int parquetRowGroupSize;
 
   public EsResponseFormatterFactory(String format, File file) {
+    this(format, file, EsResponseFormatterToParquet.DEFAULT_ROW_GROUP_SIZE);
+  }
+
+  /**
+   * Formatters created by this factory write into the given file.
+   *
+   * @param format requested format
+   * @param file file of the export
+   * @param parquetRowGroupSize documents per row group of a parquet export
+   */
+  public EsResponseFormatterFactory(String format, File file, int parquetRowGroupSize) {
+    this.format = format;
+    this.file = file;
+    this.outputStream = null;
+    this.parquetRowGroupSize = rowGroupSize(parquetRowGroupSize);
+  }
+
+  /**
+   * Formatters created by this factory write into the given stream instead of a file, e.g. the
+   * multipart upload of the export.
+   *
+   * @param format requested format
+   * @param outputStream stream closed by the formatter once the export is finished
+   * @param parquetRowGroupSize documents per row group of a parquet export
+   */
+  public EsResponseFormatterFactory(
+      String format, OutputStream outputStream, int parquetRowGroupSize) {
     this.format = format;
-    responseToCsv = new EsResponseFormatterToCsv(file);
-    // responseToParquet = new ConvertElasticResponseToParquet(file);
-    responseToJson = new EsResponseFormatterToJson(file);
+    this.file = null;
+    this.outputStream = outputStream;
+    this.parquetRowGroupSize = rowGroupSize(parquetRowGroupSize);
   }
 
+  private static int rowGroupSize(int size) {
+    return size > 0 ? size : EsResponseFormatterToParquet.DEFAULT_ROW_GROUP_SIZE;
+  }
+
+  /**
+   * Format of the records of an export, e.g. json for json.gz.
+   *
+   * @param format requested format
+   * @return format without its compression extension
+   */
+  public static String baseFormat(String format) {
+    return isCompressed(format)
+        ? format.substring(0, format.length() - GZIP_EXTENSION.length())
+        : format;
+  }
+
+  /**
+   * Whether the export of the requested format is gzip compressed, i.e. json.gz or csv.gz.
+   *
+   * @param format requested format
+   * @return true for a compressed format
+   */
+  public static boolean isCompressed(String format) {
+    return format != null && format.endsWith(GZIP_EXTENSION);
+  }
+
+  /**
+   * Compression stage of the requested format in front of {@code out}, {@code out} itself for an
+   * uncompressed format.
+   *
+   * @param format requested format
+   * @param out stream receiving the export
+   * @return OutputStream to write the export into
+   * @throws IOException when the gzip header cannot be written
+   */
+  public static OutputStream compress(String format, OutputStream out) throws IOException {
+    return isCompressed(format) ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+  }
+
+  /**
+   * Creates the formatter of the requested format, only that formatter opens the file. Records are
+   * written as buffered UTF-8, through gzip for a compressed format. Parquet is binary and
+   * compresses its own pages, so it gets the raw stream.
+   *
+   * @return EsResponseFormatter writing into the file
+   */
   public EsResponseFormatter createInstance() {
-    switch (format) {
+    if (HEADER_PARQUET.equals(format)) {
+      return new EsResponseFormatterToParquet(
+          new BufferedOutputStream(openStream(), BUFFER_SIZE), parquetRowGroupSize);
+    }
+    Writer writer = openWriter();
+    switch (baseFormat(format)) {
       case HEADER_CSV:
-        return responseToCsv;
-        //            case HEADER_PARQUET:
-        //                return responseToParquet;
+        return new EsResponseFormatterToCsv(writer);
       default:
-        return responseToJson;
+        return new EsResponseFormatterToJson(writer);
+    }
+  }
+
+  private Writer openWriter() {
+    try {
+      return new BufferedWriter(
+          new OutputStreamWriter(compress(format, openStream()), StandardCharsets.UTF_8),
+          BUFFER_SIZE);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private OutputStream openStream() {
+    try {
+      return outputStream != null ? outputStream : Files.newOutputStream(file.toPath());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
   }
 }
@@ -1,20 +1,18 @@
 package iudx.resource.server.database.elastic;
 
 import co.elastic.clients.elasticsearch.core.search.Hit;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 public class EsResponseFormatterToCsv extends AbstractEsSearchResponseFormatter {
-  static JsonFlatten jsonFlatten;
-  static LinkedHashMap<String, Object> map;
-  FileWriter fileWriter;
+  Writer fileWriter;
+  private CsvRowWriter rowWriter;
 
   /**
    * Converts JSON records from Elasticsearch batch response to CSV format and writes it into a CSV
@@ -25,90 +23,60 @@ public class EsResponseFormatterToCsv extends AbstractEsSearchResponseFormatter
   public EsResponseFormatterToCsv(File file) {
     super(file);
     try {
-      this.fileWriter = new FileWriter(file);
+      this.fileWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
   /**
-   * Flattens each record from Elastic search response and appends it to the file
+   * Writes ElasticSearch batch responses as CSV into the given writer, which is closed by {@link
+   * #finish()}.
    *
-   * @param searchHits ElasticSearch response searchHits
+   * @param writer Writer to write CSV records
    */
-  public void flattenRecord(List<Hit<ObjectNode>> searchHits, Set<String> headers) {
-    for (Hit hit : searchHits) {
-      jsonFlatten = new JsonFlatten((JsonNode) hit.source());
-      map = jsonFlatten.flatten();
-      /*Set<String> header = map.keySet();*/
-      /*appendToCsvFile(map, header);*/
-      appendToCsvFile(map, headers);
-    }
+  public EsResponseFormatterToCsv(Writer writer) {
+    super(null);
+    this.fileWriter = writer;
   }
 
   /**
-   * Produces set of headers from the first record or row of the data
+   * Flattens each record from Elastic search response along the column plan and appends it to the
+   * file
    *
-   * @param searchHits Elastic search scroll response
+   * @param searchHits ElasticSearch response searchHits
+   * @param headers columns of the file, the plan of {@link #writeToCsv(List)} when they match
    */
-  public Set<String> getHeader(List<Hit<ObjectNode>> searchHits) {
-    Hit<ObjectNode> firstHit = searchHits.get(0);
-    if (jsonFlatten == null) {
-      jsonFlatten = new JsonFlatten((JsonNode) firstHit.source());
+  public void flattenRecord(List<Hit<ObjectNode>> searchHits, Set<String> headers) {
+    if (rowWriter == null
+        || (rowWriter.plan().columns() != headers && !rowWriter.plan().columns().equals(headers))) {
+      rowWriter = new CsvRowWriter(CsvColumnPlan.of(headers), fileWriter);
     }
-    map = jsonFlatten.flatten();
-    Set<String> header = map.keySet();
-    simpleFileWriter(header);
-    return header;
-  }
-
-  /**
-   * Appends the values from the records to the csv file according to the header
-   *
-   * @param map Data to be appended
-   * @param header Set of headers
-   */
-  public void appendToCsvFile(Map<String, Object> map, Set<String> header) {
-
-    StringBuilder stringBuilder = new StringBuilder();
-
-    for (String field : header) {
-      Object cell = map.get(field);
-      if (cell == null) {
-        stringBuilder.append("").append(",");
-      } else {
-        String cellValue = cell.toString();
-        if (cellValue.contains(",") || cellValue.contains("\"")) {
-          cellValue = "\"" + cellValue.replace("\"", "\"\"") + "\"";
+    try {
+      for (Hit<ObjectNode> hit : searchHits) {
+        if (hit.source() != null) {
+          rowWriter.writeRow(hit.source());
         }
-        stringBuilder.append(cellValue).append(",");
       }
-    }
-
-    String row = stringBuilder.substring(0, stringBuilder.length() - 1);
-    try {
-      fileWriter.append(row).append("\n");
-    } catch (IOException ex) {
-      throw new RuntimeException(ex);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
   }
 
   /**
-   * Writes the column names or the header for the csv file
+   * Discovers the columns of the file from the given records and writes them as the header
    *
-   * @param header Set of headers to be written
+   * @param searchHits sample of the Elastic search scroll response
+   * @return columns of the file
    */
-  private void simpleFileWriter(Set<String> header) {
-    StringBuilder stringBuilder = new StringBuilder();
-    for (String obj : header) {
-      stringBuilder.append(obj + ",");
-    }
-    String data = stringBuilder.substring(0, stringBuilder.length() - 1);
+  public Set<String> getHeader(List<Hit<ObjectNode>> searchHits) {
+    rowWriter = new CsvRowWriter(CsvColumnPlan.discover(searchHits), fileWriter);
     try {
-      fileWriter.write(data + "\n");
+      rowWriter.writeHeader();
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    return rowWriter.plan().columns();
   }
 
   @Override
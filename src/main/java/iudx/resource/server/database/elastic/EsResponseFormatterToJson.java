@@ -3,8 +3,10 @@ package iudx.resource.server.database.elastic;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Set;
 import org.apache.logging.log4j.LogManager;
@@ -12,7 +14,7 @@ import org.apache.logging.log4j.Logger;
 
 public class EsResponseFormatterToJson extends AbstractEsSearchResponseFormatter {
   /*private static final Logger LOGGER = LogManager.getLogger(EsResponseFormatterToJson.class);*/
-  FileWriter fileWriter;
+  Writer fileWriter;
 
   /**
    * Writes ElasticSearch response batch response into a JSON File
@@ -22,12 +24,23 @@ public class EsResponseFormatterToJson extends AbstractEsSearchResponseFormatter
   public EsResponseFormatterToJson(File file) {
     super(file);
     try {
-      this.fileWriter = new FileWriter(file);
+      this.fileWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Writes ElasticSearch batch responses as JSON into the given writer, which is closed by {@link
+   * #finish()}.
+   *
+   * @param writer Writer to write JSON records
+   */
+  public EsResponseFormatterToJson(Writer writer) {
+    super(null);
+    this.fileWriter = writer;
+  }
+
   @Override
   public void write(List<Hit<ObjectNode>> searchHits) {
     try {
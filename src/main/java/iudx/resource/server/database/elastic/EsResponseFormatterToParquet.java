@@ -2,32 +2,67 @@ package iudx.resource.server.database.elastic;
 
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import iudx.resource.server.database.elastic.parquet.ParquetWriter;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.util.*;
-
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes ElasticSearch responses as a columnar Parquet file, see {@link ParquetWriter}. The schema
+ * is inferred from the first hits and widened by fields showing up in later batches; row groups
+ * hold {@code rowGroupSize} documents.
+ */
 public class EsResponseFormatterToParquet extends AbstractEsSearchResponseFormatter {
-  //    private File file;
-  //    private static final Logger LOGGER =
-  // LogManager.getLogger(ConvertElasticResponseToParquet.class);
+  static final int DEFAULT_ROW_GROUP_SIZE = 50000;
+
+  private final ParquetWriter parquetWriter;
 
-  public EsResponseFormatterToParquet(File file) {
+  /**
+   * Writes ElasticSearch batch responses into a Parquet file
+   *
+   * @param file File to write the Parquet file into
+   * @param rowGroupSize documents per row group
+   */
+  public EsResponseFormatterToParquet(File file, int rowGroupSize) {
     super(file);
-    this.file = file;
+    try {
+      this.parquetWriter =
+          new ParquetWriter(
+              new BufferedOutputStream(Files.newOutputStream(file.toPath())), rowGroupSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes ElasticSearch batch responses as Parquet into the given stream, which is closed by
+   * {@link #finish()}.
+   *
+   * @param outputStream OutputStream to write the Parquet file into
+   * @param rowGroupSize documents per row group
+   */
+  public EsResponseFormatterToParquet(OutputStream outputStream, int rowGroupSize) {
+    super(null);
+    try {
+      this.parquetWriter = new ParquetWriter(outputStream, rowGroupSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
+  /** Seeds the schema with the fields of the given hits, no row is written. */
   @Override
   public void write(List<Hit<ObjectNode>> searchHits) {
-    //        Schema arrowSchema = this.getSchema(searchHits);
-    //        SchemaMapping parquetSchema = this.getParquetSchema(arrowSchema);
-    //        MessageType messageTypeParquetSchema = parquetSchema.getParquetSchema();
-
-    //        LOGGER.debug("message type parquet schema {}", messageTypeParquetSchema);
-    //        LOGGER.debug("Whats the parquet schema heree ? : {}",parquetSchema.toString());
-    //        LOGGER.debug("\n\n\n\n");
-    //        LOGGER.debug("What is the schema : {} ", parquetSchema.getChildren());
-    //        LOGGER.debug("\n\n\n\n");
-
-    //        ParquetWriter parquetWriter = this.getParquetWriter(file, messageTypeParquetSchema);
+    for (Hit<ObjectNode> hit : searchHits) {
+      if (hit.source() != null) {
+        parquetWriter.declare(hit.source());
+      }
+    }
   }
 
   @Override
@@ -36,91 +71,27 @@ public class EsResponseFormatterToParquet extends AbstractEsSearchResponseFormat
   }
 
   @Override
-  public void finish() {}
+  public void finish() {
+    try {
+      parquetWriter.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 
   @Override
-  public void append(List<Hit<ObjectNode>> searchHits, boolean appendComma) {}
+  public void append(List<Hit<ObjectNode>> searchHits, boolean appendComma) {
+    try {
+      for (Hit<ObjectNode> hit : searchHits) {
+        if (hit.source() != null) {
+          parquetWriter.write(hit.source());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 
   @Override
   public void append(List<Hit<ObjectNode>> searchHits, boolean appendComma, Set<String> headers) {}
-
-  /*    private SchemaMapping getParquetSchema(Schema arrowSchema) {
-      SchemaConverter schemaConverter = new SchemaConverter();
-      return schemaConverter.fromArrow(arrowSchema);
-
-  }*/
-
-  /*
-      private ParquetWriter getParquetWriter(File file, MessageType parquetSchema) {
-          Configuration configuration = new Configuration();
-  //        LOGGER.debug("whats the file path : ");
-          Path path = new Path(file.getPath());
-          try {
-              HadoopOutputFile hadoopOutputFile = HadoopOutputFile.fromPath(path,configuration);
-              ParquetFileWriter p = new ParquetFileWriter(
-                      hadoopOutputFile,
-                      parquetSchema,
-                      ParquetFileWriter.Mode.CREATE, 1024, 1024, 1024, 1024, true
-              );
-
-          } catch (IOException e) {
-              throw new RuntimeException(e);
-          }
-
-          return null;
-      }
-  */
-
-  /*    public Schema getSchema(List<Hit<ObjectNode>> searchHits) {
-          for (Hit hit : searchHits) {
-              JsonObject jsonSource = new JsonObject(hit.source().toString());
-              List<Field> fields = new ArrayList<>();
-              Set<String> firstHit = jsonSource.fieldNames();
-              for(String s : firstHit)
-              {
-                  var value = jsonSource.getValue(s);
-                  LOGGER.debug("value : {} ", value);
-                  Field field;
-                  FieldType fieldType;
-                  fieldType = getFieldType(value);
-                  field = new Field(s,fieldType,null);
-                  fields.add(field);
-              }
-              Schema schema = new Schema(fields);
-  //            LOGGER.debug("whats the schema ? ::::::: ");
-  //            LOGGER.debug("{}", schema);
-              return schema;
-          }
-          return null;
-      }*/
-
-  /*    private FieldType getFieldType(Object value) {
-      FieldType fieldType;
-      if(value instanceof Integer)
-      {
-          fieldType = new FieldType(true,new ArrowType.Int(32, true),null);
-      }else if(value instanceof Long)
-      {
-          fieldType = new FieldType(true,new ArrowType.Int(64, true),null);
-
-      }
-      else if(value instanceof Double)
-      {
-          fieldType = new FieldType(true,new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE),null);
-
-      }
-      else if (value instanceof Boolean)
-      {
-          fieldType = new FieldType(true,ArrowType.Bool.INSTANCE,null);
-      }
-      else if (value instanceof String)
-      {
-          fieldType = new FieldType(true,new ArrowType.Utf8(),null);
-
-      }else {
-          fieldType = new FieldType(true,new ArrowType.Binary(),null);
-      }
-      return fieldType;
-  }*/
-
 }
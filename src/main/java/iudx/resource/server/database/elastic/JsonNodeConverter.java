@@ -0,0 +1,125 @@
+package iudx.resource.server.database.elastic;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps Jackson trees returned by the ES java client straight into Vert.x json types or encoded
+ * bytes, without serialising the tree to a String and parsing it back. Scalars keep the same java
+ * types Vert.x would produce while parsing the equivalent JSON text.
+ */
+public final class JsonNodeConverter {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper(new JsonFactoryBuilder().rootValueSeparator((String) null).build());
+
+  private JsonNodeConverter() {}
+
+  /**
+   * Encode the _source of every hit of a search page as comma separated JSON documents, ready to be
+   * written inside a JSON array.
+   *
+   * @param hits ES hits
+   * @return Buffer with the encoded documents, empty when there are no hits with _source
+   */
+  public static Buffer encodeHits(List<Hit<ObjectNode>> hits) {
+    ByteBuf byteBuf = Unpooled.buffer(hits.size() * 512);
+    try (JsonGenerator generator =
+        MAPPER.getFactory().createGenerator((OutputStream) new ByteBufOutputStream(byteBuf))) {
+      boolean appendComma = false;
+      for (Hit<ObjectNode> hit : hits) {
+        ObjectNode source = hit.source();
+        if (source == null) {
+          continue;
+        }
+        if (appendComma) {
+          generator.writeRaw(',');
+        }
+        MAPPER.writeTree(generator, source);
+        appendComma = true;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return Buffer.buffer(byteBuf);
+  }
+
+  /**
+   * Decode the _source of every hit of a search/scroll page.
+   *
+   * @param hits ES hits
+   * @return JsonArray with one JsonObject per hit, hits without _source are skipped
+   */
+  public static JsonArray decodeHits(List<Hit<ObjectNode>> hits) {
+    List<Object> list = new ArrayList<>(hits.size());
+    for (Hit<ObjectNode> hit : hits) {
+      ObjectNode source = hit.source();
+      if (source != null) {
+        list.add(toJsonObject(source));
+      }
+    }
+    return new JsonArray(list);
+  }
+
+  public static JsonObject toJsonObject(ObjectNode node) {
+    Map<String, Object> map = new LinkedHashMap<>(mapCapacity(node.size()));
+    for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+      Map.Entry<String, JsonNode> field = it.next();
+      map.put(field.getKey(), toValue(field.getValue()));
+    }
+    return new JsonObject(map);
+  }
+
+  public static JsonArray toJsonArray(ArrayNode node) {
+    List<Object> list = new ArrayList<>(node.size());
+    for (JsonNode element : node) {
+      list.add(toValue(element));
+    }
+    return new JsonArray(list);
+  }
+
+  private static Object toValue(JsonNode node) {
+    switch (node.getNodeType()) {
+      case OBJECT:
+        return toJsonObject((ObjectNode) node);
+      case ARRAY:
+        return toJsonArray((ArrayNode) node);
+      case STRING:
+        return node.textValue();
+      case NUMBER:
+        return node.numberValue();
+      case BOOLEAN:
+        return node.booleanValue();
+      case BINARY:
+        return node.asText();
+      case NULL:
+      case MISSING:
+        return null;
+      default:
+        throw new IllegalArgumentException("Unknown JSON node type: " + node.getNodeType());
+    }
+  }
+
+  private static int mapCapacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+}
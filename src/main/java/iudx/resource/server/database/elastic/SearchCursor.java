@@ -0,0 +1,111 @@
+package iudx.resource.server.database.elastic;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Continuation token of a point-in-time/search_after pagination. The token handed to clients is
+ * the url-safe base64 of {"index","pit","after","left"}, clients are expected to pass it back
+ * untouched. "left" is the number of hits after "after", the pagination ends when it reaches 0.
+ */
+public final class SearchCursor {
+
+  /** Cursor value used by clients to ask for the first page of a cursor pagination. */
+  public static final String START = "*";
+
+  private static final String INDEX = "index";
+  private static final String PIT = "pit";
+  private static final String AFTER = "after";
+  private static final String LEFT = "left";
+
+  private final String index;
+  private final String pitId;
+  private final List<FieldValue> searchAfter;
+  private final long remainingHits;
+
+  public SearchCursor(
+      String index, String pitId, List<FieldValue> searchAfter, long remainingHits) {
+    this.index = index;
+    this.pitId = pitId;
+    this.searchAfter = Collections.unmodifiableList(new ArrayList<>(searchAfter));
+    this.remainingHits = remainingHits;
+  }
+
+  /**
+   * Decode a token created by {@link #encode()}.
+   *
+   * @param token continuation token passed by the client
+   * @return SearchCursor
+   * @throws IllegalArgumentException when the token is not a valid cursor
+   */
+  public static SearchCursor decode(String token) {
+    try {
+      byte[] decoded = Base64.getUrlDecoder().decode(token);
+      JsonObject json = new JsonObject(new String(decoded, StandardCharsets.UTF_8));
+      String index = json.getString(INDEX);
+      String pitId = json.getString(PIT);
+      JsonArray after = json.getJsonArray(AFTER);
+      Long left = json.getLong(LEFT);
+      if (index == null || pitId == null || after == null || after.isEmpty() || left == null) {
+        throw new IllegalArgumentException("invalid cursor");
+      }
+      List<FieldValue> searchAfter = new ArrayList<>(after.size());
+      for (Object value : after) {
+        searchAfter.add(toFieldValue(value));
+      }
+      return new SearchCursor(index, pitId, searchAfter, left);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("invalid cursor", e);
+    }
+  }
+
+  private static FieldValue toFieldValue(Object value) {
+    if (value instanceof Integer || value instanceof Long) {
+      return FieldValue.of(((Number) value).longValue());
+    } else if (value instanceof Number) {
+      return FieldValue.of(((Number) value).doubleValue());
+    } else if (value instanceof String) {
+      return FieldValue.of((String) value);
+    } else if (value instanceof Boolean) {
+      return FieldValue.of((Boolean) value);
+    }
+    throw new IllegalArgumentException("invalid cursor");
+  }
+
+  public String encode() {
+    JsonArray after = new JsonArray();
+    searchAfter.forEach(value -> after.add(value._get()));
+    String json =
+        new JsonObject()
+            .put(INDEX, index)
+            .put(PIT, pitId)
+            .put(AFTER, after)
+            .put(LEFT, remainingHits)
+            .encode();
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public String getIndex() {
+    return index;
+  }
+
+  public String getPitId() {
+    return pitId;
+  }
+
+  public List<FieldValue> getSearchAfter() {
+    return searchAfter;
+  }
+
+  public long getRemainingHits() {
+    return remainingHits;
+  }
+}
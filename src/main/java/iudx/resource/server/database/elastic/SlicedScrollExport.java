@@ -0,0 +1,526 @@
+package iudx.resource.server.database.elastic;
+
+import static iudx.resource.server.apiserver.util.Constants.HEADER_CSV;
+import static iudx.resource.server.apiserver.util.Constants.HEADER_PARQUET;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.ClearScrollRequest;
+import co.elastic.clients.elasticsearch.core.ScrollRequest;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import iudx.resource.server.database.async.ProgressListener;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exports every document matching a query into a file through {@code slices} concurrent scroll
+ * slices. ES requests are only scheduled from the caller's context, file writes run on the given
+ * {@link WorkerExecutor}, so no thread is ever parked waiting on ES.
+ *
+ * <p>With more than one slice, every slice writes a complete part file of the requested format and
+ * the parts are merged into the target file once all of them are done. A CSV header is resolved
+ * from a sample of probe hits before the slices start, so that every part shares the same columns.
+ * Parts are never compressed, a compressed format is only applied while merging. Parquet files
+ * cannot be concatenated, so a parquet export always runs as a single slice.
+ *
+ * <p>When a sink is given, the export is written into it instead of the target file, e.g. straight
+ * into an S3 upload. It always runs as a single slice then, as sliced parts would have to be kept
+ * on disk until they could be merged into the sink. The sink is closed once the export succeeds and
+ * left open on failure, so that its owner can discard it.
+ */
+class SlicedScrollExport {
+
+  private static final Logger LOGGER = LogManager.getLogger(SlicedScrollExport.class);
+  private static final int BATCH_SIZE = 10000;
+  private static final String SCROLL_KEEP_ALIVE = "5m";
+  private static final int PREFETCH_BATCHES = 2;
+  private static final int MERGE_BUFFER_SIZE = 64 * 1024;
+  private static final int HEADER_SAMPLE_SIZE = 100;
+
+  private final ElasticsearchAsyncClient asyncClient;
+  private final WorkerExecutor executor;
+  private final Context context;
+  private final File file;
+  private final OutputStream sink;
+  private final String index;
+  private final Query query;
+  private final List<String> sourceIncludes;
+  private final ProgressListener progressListener;
+  private final String format;
+  private final String recordFormat;
+  private final int slices;
+  private final int parquetRowGroupSize;
+  private final List<Slice> running = new ArrayList<>();
+  private long totalHits;
+  private long downloadedHits;
+  private long fetchNanos;
+  private long writeNanos;
+
+  SlicedScrollExport(
+      ElasticsearchAsyncClient asyncClient,
+      WorkerExecutor executor,
+      File file,
+      OutputStream sink,
+      String index,
+      Query query,
+      String[] source,
+      ProgressListener progressListener,
+      String format,
+      int slices,
+      int parquetRowGroupSize) {
+    this.asyncClient = asyncClient;
+    this.executor = executor;
+    this.context = Vertx.currentContext();
+    this.file = file;
+    this.sink = sink;
+    this.index = index;
+    this.query = query;
+    this.sourceIncludes = source == null ? null : Arrays.asList(source);
+    this.progressListener = progressListener;
+    this.format = format;
+    this.recordFormat = EsResponseFormatterFactory.baseFormat(format);
+    this.slices =
+        HEADER_PARQUET.equals(recordFormat) || sink != null ? 1 : Math.max(1, slices);
+    this.parquetRowGroupSize = parquetRowGroupSize;
+  }
+
+  Future<Void> export() {
+    // CSV columns and the parquet schema are discovered from the probe hits
+    int probeSize =
+        HEADER_CSV.equals(recordFormat) || HEADER_PARQUET.equals(recordFormat)
+            ? HEADER_SAMPLE_SIZE
+            : 1;
+    SearchRequest probeRequest =
+        SearchRequest.of(
+            e -> {
+              e.index(index).query(query).size(probeSize).trackTotalHits(t -> t.enabled(true));
+              if (sourceIncludes != null) {
+                e.source(s -> s.filter(f -> f.includes(sourceIncludes)));
+              }
+              return e;
+            });
+    return toFuture(asyncClient.search(probeRequest, ObjectNode.class))
+        .compose(
+            probe -> {
+              totalHits = probe.hits().total().value();
+              LOGGER.debug("Total documents to be downloaded : {}", totalHits);
+              List<Hit<ObjectNode>> headerHits = probe.hits().hits();
+              if (slices == 1) {
+                Slice slice = new Slice(null, file, sink, format, headerHits);
+                running.add(slice);
+                return slice.start();
+              }
+              List<File> parts = new ArrayList<>(slices);
+              for (int i = 0; i < slices; i++) {
+                File part = new File(file.getPath() + ".part" + i);
+                parts.add(part);
+                running.add(new Slice(i, part, null, recordFormat, headerHits));
+              }
+              // a slice may already fail while it starts, every slice has to be known by then
+              List<Future<Void>> sliceFutures = new ArrayList<>(slices);
+              running.forEach(slice -> sliceFutures.add(slice.start()));
+              // a failed slice cancels the others, the parts are deleted once every slice has
+              // closed its file
+              return Future.join(sliceFutures)
+                  .<Void>compose(all -> executor.executeBlocking(() -> merge(parts), false))
+                  .eventually(
+                      () ->
+                          executor.executeBlocking(
+                              () -> {
+                                parts.forEach(File::delete);
+                                return null;
+                              },
+                              false));
+            });
+  }
+
+  private Void merge(List<File> parts) throws IOException {
+    boolean csv = HEADER_CSV.equals(recordFormat);
+    try (OutputStream target = Files.newOutputStream(file.toPath());
+        OutputStream out =
+            new BufferedOutputStream(
+                EsResponseFormatterFactory.compress(format, target), MERGE_BUFFER_SIZE)) {
+      if (csv) {
+        mergeCsv(parts, out);
+      } else {
+        mergeJson(parts, out);
+      }
+    }
+    return null;
+  }
+
+  /** Parts are JSON arrays, their elements are copied into a single array. */
+  private void mergeJson(List<File> parts, OutputStream out) throws IOException {
+    out.write('[');
+    boolean appendComma = false;
+    for (File part : parts) {
+      long length = part.length();
+      if (length <= 2) {
+        continue;
+      }
+      if (appendComma) {
+        out.write(",\n".getBytes(StandardCharsets.UTF_8));
+      }
+      try (InputStream in = Files.newInputStream(part.toPath())) {
+        in.skipNBytes(1);
+        copy(in, out, length - 2);
+      }
+      appendComma = true;
+    }
+    out.write(']');
+  }
+
+  /** Parts are CSV files with the same header, the header is kept once. */
+  private void mergeCsv(List<File> parts, OutputStream out) throws IOException {
+    boolean headerWritten = false;
+    for (File part : parts) {
+      if (part.length() == 0) {
+        continue;
+      }
+      try (InputStream in = Files.newInputStream(part.toPath())) {
+        if (headerWritten) {
+          skipLine(in);
+        }
+        in.transferTo(out);
+      }
+      headerWritten = true;
+    }
+  }
+
+  private static void skipLine(InputStream in) throws IOException {
+    int read;
+    do {
+      read = in.read();
+    } while (read != -1 && read != '\n');
+  }
+
+  private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    long remaining = length;
+    while (remaining > 0) {
+      int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+      if (read < 0) {
+        break;
+      }
+      out.write(buffer, 0, read);
+      remaining -= read;
+    }
+  }
+
+  private <T> Future<T> toFuture(CompletionStage<T> stage) {
+    return context == null
+        ? Future.fromCompletionStage(stage)
+        : Future.fromCompletionStage(stage, context);
+  }
+
+  private void cancelSlices(Throwable cause) {
+    running.forEach(slice -> slice.cancel(cause));
+  }
+
+  private void updateProgress(int batchSize) {
+    downloadedHits += batchSize;
+    if (totalHits > 0) {
+      // keeping progress at 90% of actual to update the last 10% after upload to external (s3)
+      progressListener.updateProgress(Math.min(1.0, (double) downloadedHits / totalHits) * 0.9);
+    }
+    progressListener.updateStageTimings(
+        TimeUnit.NANOSECONDS.toMillis(fetchNanos), TimeUnit.NANOSECONDS.toMillis(writeNanos));
+  }
+
+  /**
+   * One scroll slice. The next batch is fetched while the previous ones are written, up to {@code
+   * PREFETCH_BATCHES} batches waiting for the writer, so the slice runs at the pace of the slower
+   * of ES and disk instead of their sum. Every callback runs on the export context, so the state
+   * below is never touched concurrently. A failed slice cancels every slice; a slice settles only
+   * once no write runs on its formatter any more and its part file is closed.
+   */
+  private class Slice {
+    private final Integer sliceId;
+    private final File target;
+    private final OutputStream targetStream;
+    private final String sliceFormat;
+    private final List<Hit<ObjectNode>> headerHits;
+    private final Promise<Void> promise = Promise.promise();
+    private final Deque<List<Hit<ObjectNode>>> prefetched = new ArrayDeque<>(PREFETCH_BATCHES);
+    private EsResponseFormatter formatter;
+    private Set<String> headers;
+    private String scrollId;
+    private boolean appendComma;
+    private boolean fetching;
+    private boolean writing;
+    private boolean exhausted;
+    private boolean opening;
+    private boolean finishing;
+    private boolean closed;
+    private Throwable failure;
+
+    Slice(
+        Integer sliceId,
+        File target,
+        OutputStream targetStream,
+        String sliceFormat,
+        List<Hit<ObjectNode>> headerHits) {
+      this.sliceId = sliceId;
+      this.target = target;
+      this.targetStream = targetStream;
+      this.sliceFormat = sliceFormat;
+      this.headerHits = headerHits;
+    }
+
+    Future<Void> start() {
+      if (failure != null) {
+        // cancelled by a sibling before it started
+        promise.tryFail(failure);
+        return promise.future();
+      }
+      SearchRequest searchRequest =
+          SearchRequest.of(
+              e -> {
+                e.index(index)
+                    .query(query)
+                    .size(BATCH_SIZE)
+                    .scroll(scr -> scr.time(SCROLL_KEEP_ALIVE));
+                if (sourceIncludes != null) {
+                  e.source(s -> s.filter(f -> f.includes(sourceIncludes)));
+                }
+                if (sliceId != null) {
+                  e.slice(s -> s.id(String.valueOf(sliceId)).max(slices));
+                }
+                return e;
+              });
+      fetching = true;
+      opening = true;
+      long fetchStart = System.nanoTime();
+      Future<Void> opened = executor.executeBlocking(this::open, false);
+      Future<SearchResponse<ObjectNode>> firstBatch =
+          toFuture(asyncClient.search(searchRequest, ObjectNode.class));
+      // both have to settle, a failure must not release the slice while its file is being opened
+      Future.join(opened, firstBatch)
+          .onComplete(
+              ready -> {
+                opening = false;
+                if (ready.succeeded()) {
+                  fetchNanos += System.nanoTime() - fetchStart;
+                  fetched(firstBatch.result().scrollId(), firstBatch.result().hits());
+                } else {
+                  fetching = false;
+                  if (firstBatch.succeeded()) {
+                    scrollId = firstBatch.result().scrollId();
+                  }
+                  fail(ready.cause());
+                }
+              });
+      return promise.future();
+    }
+
+    private Void open() {
+      formatter =
+          targetStream != null
+              ? new EsResponseFormatterFactory(sliceFormat, targetStream, parquetRowGroupSize)
+                  .createInstance()
+              : new EsResponseFormatterFactory(sliceFormat, target, parquetRowGroupSize)
+                  .createInstance();
+      if (HEADER_CSV.equals(recordFormat)) {
+        if (!headerHits.isEmpty()) {
+          headers = formatter.writeToCsv(headerHits);
+        }
+      } else {
+        formatter.write(headerHits);
+      }
+      return null;
+    }
+
+    private void fetched(String scrollId, HitsMetadata<ObjectNode> hitsMetadata) {
+      fetching = false;
+      this.scrollId = scrollId;
+      if (failure != null) {
+        clearScroll();
+        release();
+        return;
+      }
+      List<Hit<ObjectNode>> hits = hitsMetadata.hits();
+      if (hits == null || hits.isEmpty()) {
+        exhausted = true;
+      } else {
+        prefetched.add(hits);
+      }
+      pump();
+    }
+
+    private void pump() {
+      if (failure != null || promise.future().isComplete()) {
+        return;
+      }
+      if (!fetching && !exhausted && prefetched.size() < PREFETCH_BATCHES) {
+        fetchNext();
+      }
+      if (!writing && !prefetched.isEmpty()) {
+        writeNext(prefetched.poll());
+      }
+      if (exhausted && !writing && prefetched.isEmpty() && !finishing) {
+        finish();
+      }
+    }
+
+    private void fetchNext() {
+      fetching = true;
+      long fetchStart = System.nanoTime();
+      Future.succeededFuture(scrollId)
+          .compose(
+              id ->
+                  toFuture(
+                      asyncClient.scroll(
+                          ScrollRequest.of(
+                              s -> s.scrollId(id).scroll(Time.of(t -> t.time(SCROLL_KEEP_ALIVE)))),
+                          ObjectNode.class)))
+          .onSuccess(
+              response -> {
+                fetchNanos += System.nanoTime() - fetchStart;
+                fetched(response.scrollId(), response.hits());
+              })
+          .onFailure(
+              cause -> {
+                fetching = false;
+                fail(cause);
+              });
+    }
+
+    private void writeNext(List<Hit<ObjectNode>> hits) {
+      writing = true;
+      final boolean comma = appendComma;
+      executor
+          .executeBlocking(
+              () -> {
+                long writeStart = System.nanoTime();
+                if (headers != null) {
+                  formatter.append(hits, comma, headers);
+                } else {
+                  formatter.append(hits, comma);
+                }
+                return System.nanoTime() - writeStart;
+              },
+              false)
+          .onSuccess(
+              elapsed -> {
+                writeNanos += elapsed;
+                writing = false;
+                if (failure != null) {
+                  release();
+                  return;
+                }
+                appendComma = true;
+                updateProgress(hits.size());
+                pump();
+              })
+          .onFailure(
+              cause -> {
+                writing = false;
+                fail(cause);
+              });
+    }
+
+    private void finish() {
+      finishing = true;
+      executor
+          .executeBlocking(
+              () -> {
+                formatter.finish();
+                return null;
+              },
+              false)
+          .onComplete(finished -> closed = true)
+          .onSuccess(
+              finished -> {
+                clearScroll();
+                if (failure != null) {
+                  promise.tryFail(failure);
+                } else {
+                  promise.tryComplete();
+                }
+              })
+          .onFailure(this::fail);
+    }
+
+    private void fail(Throwable cause) {
+      if (failure == null) {
+        LOGGER.error("scroll slice {} failed : {}", sliceId, cause.getMessage());
+        // cancels this slice as well
+        cancelSlices(cause);
+      }
+      clearScroll();
+      release();
+    }
+
+    void cancel(Throwable cause) {
+      if (failure != null) {
+        return;
+      }
+      failure = cause;
+      prefetched.clear();
+      clearScroll();
+      release();
+    }
+
+    /**
+     * Fail the slice once nothing runs on its formatter, after closing the part file. The running
+     * open, write or finish calls it again when it is over.
+     */
+    private void release() {
+      if (opening || writing || (finishing && !closed) || promise.future().isComplete()) {
+        return;
+      }
+      // finishing the formatter would close the sink and store a partial export
+      if (formatter == null || closed || targetStream != null) {
+        promise.tryFail(failure);
+        return;
+      }
+      finishing = true;
+      executor
+          .executeBlocking(
+              () -> {
+                formatter.finish();
+                return null;
+              },
+              false)
+          .onComplete(
+              finished -> {
+                closed = true;
+                promise.tryFail(failure);
+              });
+    }
+
+    private void clearScroll() {
+      if (scrollId != null) {
+        LOGGER.debug("Closing scroll request with id : {}", scrollId);
+        final String finalScroll = scrollId;
+        scrollId = null;
+        asyncClient.clearScroll(ClearScrollRequest.of(f -> f.scrollId(finalScroll)));
+      }
+    }
+  }
+}
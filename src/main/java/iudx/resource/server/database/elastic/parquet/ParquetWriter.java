@@ -0,0 +1,552 @@
+package iudx.resource.server.database.elastic.parquet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer of a Parquet file made of flat, optional columns. Nested objects are flattened
+ * into dotted column names and arrays are kept as JSON text. The type of a column is inferred from
+ * the values of its first row group: integers are stored as INT64, other numbers as DOUBLE,
+ * booleans as BOOLEAN and everything else as UTF8 strings. Mixed values widen the type, integers
+ * and decimals to DOUBLE and anything else to UTF8. Once a column is written its type is fixed, a
+ * later value that does not fit it is kept as text in the UTF8 column {@code <name>$text}.
+ *
+ * <p>Records are buffered into row groups of {@code rowGroupSize} rows. Columns seen for the first
+ * time widen the schema; the row groups written before them get all-null chunks for those columns
+ * when the file is closed. String chunks with repeated values are dictionary encoded. Pages are
+ * GZIP compressed.
+ */
+public final class ParquetWriter implements AutoCloseable {
+
+  private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+  private static final String CREATED_BY = "iudx-resource-server";
+  private static final int MAX_DICTIONARY_BYTES = 1024 * 1024;
+  private static final String TEXT_SUFFIX = "$text";
+
+  // parquet.thrift enum values
+  private static final int TYPE_BOOLEAN = 0;
+  private static final int TYPE_INT64 = 2;
+  private static final int TYPE_DOUBLE = 5;
+  private static final int TYPE_BYTE_ARRAY = 6;
+  private static final int CONVERTED_TYPE_UTF8 = 0;
+  private static final int REPETITION_OPTIONAL = 1;
+  private static final int ENCODING_PLAIN = 0;
+  private static final int ENCODING_RLE = 3;
+  private static final int ENCODING_RLE_DICTIONARY = 8;
+  private static final int CODEC_GZIP = 2;
+  private static final int PAGE_DATA = 0;
+  private static final int PAGE_DICTIONARY = 2;
+
+  private final PositionOutputStream out;
+  private final int rowGroupSize;
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+  private final List<RowGroup> rowGroups = new ArrayList<>();
+  private final Map<String, JsonNode> flattened = new LinkedHashMap<>();
+  private int bufferedRows;
+  private long totalRows;
+  private boolean closed;
+
+  /**
+   * Writer appending the file to {@code out}, which is closed with the writer.
+   *
+   * @param out OutputStream
+   * @param rowGroupSize rows per row group
+   */
+  public ParquetWriter(OutputStream out, int rowGroupSize) throws IOException {
+    this.out = new PositionOutputStream(out);
+    this.rowGroupSize = Math.max(1, rowGroupSize);
+    this.out.write(MAGIC);
+  }
+
+  /**
+   * Add the columns of {@code sample} to the schema, typed after its values, without writing a
+   * row.
+   *
+   * @param sample JSON object
+   */
+  public void declare(JsonNode sample) {
+    flattened.clear();
+    flatten("", sample, flattened);
+    for (Map.Entry<String, JsonNode> field : flattened.entrySet()) {
+      Column column = column(field.getKey());
+      if (!column.fixed) {
+        column.type = widen(column.type, typeOf(field.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Write one record; the row group is flushed once it holds {@code rowGroupSize} rows.
+   *
+   * @param record JSON object
+   */
+  public void write(JsonNode record) throws IOException {
+    flattened.clear();
+    flatten("", record, flattened);
+    for (Map.Entry<String, JsonNode> field : flattened.entrySet()) {
+      Column column = column(field.getKey());
+      JsonNode value = field.getValue();
+      if (column.fixed && !fits(column.type, value)) {
+        column = column(column.name + TEXT_SUFFIX);
+        column.type = TYPE_BYTE_ARRAY;
+      }
+      column.fill(bufferedRows);
+      column.values.add(value);
+    }
+    bufferedRows++;
+    for (Column column : columns.values()) {
+      column.fill(bufferedRows);
+    }
+    totalRows++;
+    if (bufferedRows >= rowGroupSize) {
+      flushRowGroup();
+    }
+  }
+
+  /** Flush the buffered rows and write the footer. */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (bufferedRows > 0) {
+        flushRowGroup();
+      }
+      for (Column column : columns.values()) {
+        if (column.type < 0) {
+          column.type = TYPE_BYTE_ARRAY;
+        }
+      }
+      // row groups written before a column was discovered hold only nulls for it
+      for (RowGroup rowGroup : rowGroups) {
+        for (Column column : columns.values()) {
+          if (!rowGroup.chunks.containsKey(column.name)) {
+            rowGroup.add(column, writeNullChunk(column, rowGroup.numRows));
+          }
+        }
+      }
+      byte[] footer = footer();
+      out.write(footer);
+      out.write(footer.length & 0xFF);
+      out.write(footer.length >>> 8 & 0xFF);
+      out.write(footer.length >>> 16 & 0xFF);
+      out.write(footer.length >>> 24 & 0xFF);
+      out.write(MAGIC);
+    } finally {
+      out.close();
+    }
+  }
+
+  public long getRowCount() {
+    return totalRows;
+  }
+
+  private Column column(String name) {
+    return columns.computeIfAbsent(name, Column::new);
+  }
+
+  private static void flatten(String prefix, JsonNode node, Map<String, JsonNode> target) {
+    if (node == null || !node.isObject()) {
+      return;
+    }
+    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      String name = prefix.isEmpty() ? field.getKey() : prefix + "." + field.getKey();
+      if (field.getValue().isObject()) {
+        flatten(name, field.getValue(), target);
+      } else {
+        target.put(name, field.getValue());
+      }
+    }
+  }
+
+  private static int typeOf(JsonNode value) {
+    if (value == null || value.isNull() || value.isMissingNode()) {
+      return -1;
+    } else if (value.isIntegralNumber() && value.canConvertToLong()) {
+      return TYPE_INT64;
+    } else if (value.isNumber()) {
+      return TYPE_DOUBLE;
+    } else if (value.isBoolean()) {
+      return TYPE_BOOLEAN;
+    }
+    return TYPE_BYTE_ARRAY;
+  }
+
+  /** Narrowest type holding values of both types, -1 standing for no value yet. */
+  private static int widen(int type, int other) {
+    if (type < 0 || type == other) {
+      return other;
+    } else if (other < 0) {
+      return type;
+    } else if ((type == TYPE_INT64 || type == TYPE_DOUBLE)
+        && (other == TYPE_INT64 || other == TYPE_DOUBLE)) {
+      return TYPE_DOUBLE;
+    }
+    return TYPE_BYTE_ARRAY;
+  }
+
+  private static boolean fits(int type, JsonNode value) {
+    int valueType = typeOf(value);
+    return valueType < 0 || widen(type, valueType) == type;
+  }
+
+  private void flushRowGroup() throws IOException {
+    RowGroup rowGroup = new RowGroup(bufferedRows);
+    for (Column column : columns.values()) {
+      if (!column.fixed) {
+        for (JsonNode value : column.values) {
+          column.type = widen(column.type, typeOf(value));
+        }
+        if (column.type < 0) {
+          column.type = TYPE_BYTE_ARRAY;
+        }
+        column.fixed = true;
+      }
+      rowGroup.add(column, writeChunk(column));
+      column.values.clear();
+    }
+    rowGroups.add(rowGroup);
+    bufferedRows = 0;
+  }
+
+  private ChunkMeta writeChunk(Column column) throws IOException {
+    int rows = column.values.size();
+    int[] definitionLevels = new int[rows];
+    ByteArrayOutputStream values = new ByteArrayOutputStream();
+    ChunkMeta chunk = new ChunkMeta(column, rows, out.position());
+
+    if (column.type == TYPE_BYTE_ARRAY) {
+      List<byte[]> strings = new ArrayList<>(rows);
+      for (int i = 0; i < rows; i++) {
+        JsonNode value = column.values.get(i);
+        if (value != null && !value.isNull()) {
+          definitionLevels[i] = 1;
+          strings.add(text(value).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      if (!writeDictionaryEncoded(strings, values, chunk)) {
+        for (byte[] string : strings) {
+          writePlain(string, values);
+        }
+      }
+    } else if (column.type == TYPE_INT64 || column.type == TYPE_DOUBLE) {
+      byte[] buffer = new byte[8];
+      for (int i = 0; i < rows; i++) {
+        JsonNode value = column.values.get(i);
+        if (value != null && value.isNumber()) {
+          definitionLevels[i] = 1;
+          long bits =
+              column.type == TYPE_INT64
+                  ? value.longValue()
+                  : Double.doubleToRawLongBits(value.doubleValue());
+          for (int b = 0; b < 8; b++) {
+            buffer[b] = (byte) (bits >>> (8 * b));
+          }
+          values.write(buffer, 0, 8);
+        }
+      }
+    } else {
+      int[] bits = new int[rows];
+      int count = 0;
+      for (int i = 0; i < rows; i++) {
+        JsonNode value = column.values.get(i);
+        if (value != null && value.isBoolean()) {
+          definitionLevels[i] = 1;
+          bits[count++] = value.booleanValue() ? 1 : 0;
+        }
+      }
+      byte[] packed = new byte[(count + 7) / 8];
+      for (int i = 0; i < count; i++) {
+        packed[i >>> 3] |= (byte) (bits[i] << (i & 7));
+      }
+      values.write(packed, 0, packed.length);
+    }
+
+    chunk.dataPageOffset = out.position();
+    writeDataPage(rows, definitionLevels, values, chunk);
+    return chunk;
+  }
+
+  private ChunkMeta writeNullChunk(Column column, int rows) throws IOException {
+    ChunkMeta chunk = new ChunkMeta(column, rows, out.position());
+    chunk.dataPageOffset = chunk.fileOffset;
+    writeDataPage(rows, new int[rows], new ByteArrayOutputStream(), chunk);
+    return chunk;
+  }
+
+  /**
+   * Write the dictionary page of {@code strings} and their indices into {@code values}, when the
+   * strings repeat enough for a dictionary to pay off.
+   */
+  private boolean writeDictionaryEncoded(
+      List<byte[]> strings, ByteArrayOutputStream values, ChunkMeta chunk) throws IOException {
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    int[] indices = new int[strings.size()];
+    long dictionaryBytes = 0;
+    for (int i = 0; i < strings.size(); i++) {
+      byte[] string = strings.get(i);
+      Integer index = dictionary.get(new String(string, StandardCharsets.ISO_8859_1));
+      if (index == null) {
+        index = dictionary.size();
+        dictionary.put(new String(string, StandardCharsets.ISO_8859_1), index);
+        dictionaryBytes += 4 + string.length;
+        if (dictionaryBytes > MAX_DICTIONARY_BYTES || dictionary.size() > strings.size() / 2) {
+          return false;
+        }
+      }
+      indices[i] = index;
+    }
+    if (dictionary.isEmpty()) {
+      return false;
+    }
+
+    ByteArrayOutputStream page = new ByteArrayOutputStream((int) dictionaryBytes);
+    for (String entry : dictionary.keySet()) {
+      writePlain(entry.getBytes(StandardCharsets.ISO_8859_1), page);
+    }
+    byte[] compressed = gzip(page);
+    ThriftCompactWriter header = new ThriftCompactWriter();
+    header.structBegin();
+    header.i32Field(1, PAGE_DICTIONARY);
+    header.i32Field(2, page.size());
+    header.i32Field(3, compressed.length);
+    header.structField(7);
+    header.i32Field(1, dictionary.size());
+    header.i32Field(2, ENCODING_PLAIN);
+    header.structEnd();
+    header.structEnd();
+    chunk.dictionaryPageOffset = out.position();
+    writePage(header.toByteArray(), page.size(), compressed, chunk);
+
+    int bitWidth = RleBitPackedEncoder.bitWidth(dictionary.size() - 1);
+    values.write(bitWidth);
+    RleBitPackedEncoder.encode(indices, indices.length, bitWidth, values);
+    chunk.dictionaryEncoded = true;
+    return true;
+  }
+
+  private void writeDataPage(
+      int rows, int[] definitionLevels, ByteArrayOutputStream values, ChunkMeta chunk)
+      throws IOException {
+    ByteArrayOutputStream levels = new ByteArrayOutputStream();
+    RleBitPackedEncoder.encode(definitionLevels, rows, 1, levels);
+    ByteArrayOutputStream page = new ByteArrayOutputStream(4 + levels.size() + values.size());
+    int length = levels.size();
+    page.write(length & 0xFF);
+    page.write(length >>> 8 & 0xFF);
+    page.write(length >>> 16 & 0xFF);
+    page.write(length >>> 24 & 0xFF);
+    levels.writeTo(page);
+    values.writeTo(page);
+
+    byte[] compressed = gzip(page);
+    ThriftCompactWriter header = new ThriftCompactWriter();
+    header.structBegin();
+    header.i32Field(1, PAGE_DATA);
+    header.i32Field(2, page.size());
+    header.i32Field(3, compressed.length);
+    header.structField(5);
+    header.i32Field(1, rows);
+    header.i32Field(2, chunk.dictionaryEncoded ? ENCODING_RLE_DICTIONARY : ENCODING_PLAIN);
+    header.i32Field(3, ENCODING_RLE);
+    header.i32Field(4, ENCODING_RLE);
+    header.structEnd();
+    header.structEnd();
+    writePage(header.toByteArray(), page.size(), compressed, chunk);
+  }
+
+  private void writePage(byte[] header, int uncompressedSize, byte[] compressed, ChunkMeta chunk)
+      throws IOException {
+    out.write(header);
+    out.write(compressed);
+    chunk.uncompressedSize += header.length + uncompressedSize;
+    chunk.compressedSize += header.length + compressed.length;
+  }
+
+  private byte[] footer() {
+    ThriftCompactWriter footer = new ThriftCompactWriter();
+    footer.structBegin();
+    footer.i32Field(1, 1);
+    footer.listField(2, ThriftCompactWriter.TYPE_STRUCT, columns.size() + 1);
+    footer.structBegin();
+    footer.stringField(4, "schema");
+    footer.i32Field(5, columns.size());
+    footer.structEnd();
+    for (Column column : columns.values()) {
+      footer.structBegin();
+      footer.i32Field(1, column.type);
+      footer.i32Field(3, REPETITION_OPTIONAL);
+      footer.stringField(4, column.name);
+      if (column.type == TYPE_BYTE_ARRAY) {
+        footer.i32Field(6, CONVERTED_TYPE_UTF8);
+      }
+      footer.structEnd();
+    }
+    footer.i64Field(3, totalRows);
+    footer.listField(4, ThriftCompactWriter.TYPE_STRUCT, rowGroups.size());
+    for (RowGroup rowGroup : rowGroups) {
+      footer.structBegin();
+      footer.listField(1, ThriftCompactWriter.TYPE_STRUCT, columns.size());
+      long totalByteSize = 0;
+      // chunks follow the schema order, whatever order they were written in
+      for (Column column : columns.values()) {
+        ChunkMeta chunk = rowGroup.chunks.get(column.name);
+        totalByteSize += chunk.uncompressedSize;
+        writeColumnChunk(footer, chunk);
+      }
+      footer.i64Field(2, totalByteSize);
+      footer.i64Field(3, rowGroup.numRows);
+      footer.structEnd();
+    }
+    footer.stringField(6, CREATED_BY);
+    footer.structEnd();
+    return footer.toByteArray();
+  }
+
+  private static void writeColumnChunk(ThriftCompactWriter footer, ChunkMeta chunk) {
+    footer.structBegin();
+    footer.i64Field(2, chunk.fileOffset);
+    footer.structField(3);
+    footer.i32Field(1, chunk.column.type);
+    if (chunk.dictionaryEncoded) {
+      footer.listField(2, ThriftCompactWriter.TYPE_I32, 3);
+      footer.i32(ENCODING_PLAIN);
+      footer.i32(ENCODING_RLE);
+      footer.i32(ENCODING_RLE_DICTIONARY);
+    } else {
+      footer.listField(2, ThriftCompactWriter.TYPE_I32, 2);
+      footer.i32(ENCODING_PLAIN);
+      footer.i32(ENCODING_RLE);
+    }
+    footer.listField(3, ThriftCompactWriter.TYPE_BINARY, 1);
+    footer.string(chunk.column.name);
+    footer.i32Field(4, CODEC_GZIP);
+    footer.i64Field(5, chunk.numValues);
+    footer.i64Field(6, chunk.uncompressedSize);
+    footer.i64Field(7, chunk.compressedSize);
+    footer.i64Field(9, chunk.dataPageOffset);
+    if (chunk.dictionaryEncoded) {
+      footer.i64Field(11, chunk.dictionaryPageOffset);
+    }
+    footer.structEnd();
+    footer.structEnd();
+  }
+
+  private static String text(JsonNode value) {
+    return value.isValueNode() ? value.asText() : value.toString();
+  }
+
+  private static void writePlain(byte[] string, ByteArrayOutputStream target) {
+    target.write(string.length & 0xFF);
+    target.write(string.length >>> 8 & 0xFF);
+    target.write(string.length >>> 16 & 0xFF);
+    target.write(string.length >>> 24 & 0xFF);
+    target.write(string, 0, string.length);
+  }
+
+  private static byte[] gzip(ByteArrayOutputStream page) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(page.size() / 2 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      page.writeTo(gzip);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static final class Column {
+    private final String name;
+    private final List<JsonNode> values = new ArrayList<>();
+    private int type = -1;
+    // set once the first chunk of the column is written
+    private boolean fixed;
+
+    private Column(String name) {
+      this.name = name;
+    }
+
+    /** Pad the buffered values with nulls up to {@code rows}. */
+    private void fill(int rows) {
+      while (values.size() < rows) {
+        values.add(null);
+      }
+    }
+  }
+
+  private static final class RowGroup {
+    private final int numRows;
+    private final Map<String, ChunkMeta> chunks = new LinkedHashMap<>();
+
+    private RowGroup(int numRows) {
+      this.numRows = numRows;
+    }
+
+    private void add(Column column, ChunkMeta chunk) {
+      chunks.put(column.name, chunk);
+    }
+  }
+
+  private static final class ChunkMeta {
+    private final Column column;
+    private final int numValues;
+    private final long fileOffset;
+    private long dataPageOffset;
+    private long dictionaryPageOffset;
+    private long uncompressedSize;
+    private long compressedSize;
+    private boolean dictionaryEncoded;
+
+    private ChunkMeta(Column column, int numValues, long fileOffset) {
+      this.column = column;
+      this.numValues = numValues;
+      this.fileOffset = fileOffset;
+    }
+  }
+
+  /** OutputStream keeping track of the file offset, needed by the footer. */
+  private static final class PositionOutputStream extends OutputStream {
+    private final OutputStream delegate;
+    private long position;
+
+    private PositionOutputStream(OutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    long position() {
+      return position;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      position += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
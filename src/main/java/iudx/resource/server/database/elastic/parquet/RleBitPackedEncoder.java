@@ -0,0 +1,81 @@
+package iudx.resource.server.database.elastic.parquet;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Parquet RLE/bit-packing hybrid encoding of small integers, used for definition levels and
+ * dictionary indices. Repeated values of at least 8 are written as RLE runs, everything else is
+ * bit-packed in groups of 8.
+ */
+final class RleBitPackedEncoder {
+
+  private RleBitPackedEncoder() {}
+
+  static void encode(int[] values, int count, int bitWidth, ByteArrayOutputStream out) {
+    int literalStart = 0;
+    int i = 0;
+    while (i < count) {
+      int run = 1;
+      while (i + run < count && values[i + run] == values[i]) {
+        run++;
+      }
+      // bit-packed runs hold multiples of 8 values, so pending literals borrow from the run first
+      int padding = (8 - (i - literalStart) % 8) % 8;
+      if (run >= padding + 8) {
+        i += padding;
+        writeBitPacked(values, literalStart, i, bitWidth, out);
+        writeRle(values[i], run - padding, bitWidth, out);
+        i += run - padding;
+        literalStart = i;
+      } else {
+        i += run;
+      }
+    }
+    writeBitPacked(values, literalStart, count, bitWidth, out);
+  }
+
+  /**
+   * Minimal bit width able to hold {@code maxValue}.
+   *
+   * @param maxValue largest value to encode
+   * @return bit width, at least 1
+   */
+  static int bitWidth(int maxValue) {
+    return Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+  }
+
+  private static void writeRle(int value, int count, int bitWidth, ByteArrayOutputStream out) {
+    varint((long) count << 1, out);
+    for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+      out.write((value >>> (8 * b)) & 0xFF);
+    }
+  }
+
+  private static void writeBitPacked(
+      int[] values, int from, int to, int bitWidth, ByteArrayOutputStream out) {
+    if (from >= to) {
+      return;
+    }
+    int groups = (to - from + 7) / 8;
+    varint((long) groups << 1 | 1, out);
+    byte[] packed = new byte[groups * bitWidth];
+    for (int i = from; i < to; i++) {
+      int bitOffset = (i - from) * bitWidth;
+      for (int b = 0; b < bitWidth; b++) {
+        if ((values[i] >>> b & 1) != 0) {
+          int bit = bitOffset + b;
+          packed[bit >>> 3] |= (byte) (1 << (bit & 7));
+        }
+      }
+    }
+    out.write(packed, 0, packed.length);
+  }
+
+  private static void varint(long value, ByteArrayOutputStream out) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+}
@@ -0,0 +1,107 @@
+package iudx.resource.server.database.elastic.parquet;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal encoder of the Thrift compact protocol, enough to write the page headers and the footer
+ * of a Parquet file. Fields have to be written in increasing id order within a struct.
+ */
+final class ThriftCompactWriter {
+
+  static final int TYPE_I32 = 5;
+  static final int TYPE_I64 = 6;
+  static final int TYPE_BINARY = 8;
+  static final int TYPE_STRUCT = 12;
+  private static final int TYPE_BOOLEAN_TRUE = 1;
+  private static final int TYPE_BOOLEAN_FALSE = 2;
+  private static final int TYPE_LIST = 9;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+  private final Deque<Integer> parentFieldIds = new ArrayDeque<>();
+  private int lastFieldId;
+
+  void structBegin() {
+    parentFieldIds.push(lastFieldId);
+    lastFieldId = 0;
+  }
+
+  void structEnd() {
+    out.write(0);
+    lastFieldId = parentFieldIds.pop();
+  }
+
+  void structField(int id) {
+    fieldHeader(id, TYPE_STRUCT);
+    structBegin();
+  }
+
+  void i32Field(int id, int value) {
+    fieldHeader(id, TYPE_I32);
+    i32(value);
+  }
+
+  void i64Field(int id, long value) {
+    fieldHeader(id, TYPE_I64);
+    varint(zigzag(value));
+  }
+
+  void stringField(int id, String value) {
+    fieldHeader(id, TYPE_BINARY);
+    string(value);
+  }
+
+  void booleanField(int id, boolean value) {
+    fieldHeader(id, value ? TYPE_BOOLEAN_TRUE : TYPE_BOOLEAN_FALSE);
+  }
+
+  /** List field header, followed by {@code size} elements of {@code elementType}. */
+  void listField(int id, int elementType, int size) {
+    fieldHeader(id, TYPE_LIST);
+    if (size < 15) {
+      out.write(size << 4 | elementType);
+    } else {
+      out.write(0xF0 | elementType);
+      varint(size);
+    }
+  }
+
+  void i32(int value) {
+    varint(zigzag(value));
+  }
+
+  void string(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    varint(bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  byte[] toByteArray() {
+    return out.toByteArray();
+  }
+
+  private void fieldHeader(int id, int type) {
+    int delta = id - lastFieldId;
+    if (delta > 0 && delta <= 15) {
+      out.write(delta << 4 | type);
+    } else {
+      out.write(type);
+      varint(zigzag(id));
+    }
+    lastFieldId = id;
+  }
+
+  private void varint(long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+}
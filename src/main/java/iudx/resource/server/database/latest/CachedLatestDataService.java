@@ -0,0 +1,160 @@
+package iudx.resource.server.database.latest;
+
+import static iudx.resource.server.common.Constants.RAW_RESULTS;
+import static iudx.resource.server.database.archives.Constants.ID;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latest data service keeping the latest value of each id for a short time, so bursts of latest
+ * queries for one id are answered by a single Redis read. Entries expire after a configured TTL
+ * and are evicted earlier when a keyspace notification reports a change of their Redis key;
+ * concurrent misses of one id share a single read. Queries for several ids are not cached.
+ *
+ * <p>Lookups are counted in {@code latest.cache.gets}, tagged with {@code result} hit or miss, and
+ * the age of the values served from the cache is recorded in {@code latest.cache.staleness}.
+ */
+class CachedLatestDataService implements LatestDataService {
+
+  static final String CACHE_GETS = "latest.cache.gets";
+  static final String CACHE_STALENESS = "latest.cache.staleness";
+  static final long DEFAULT_SIZE = 10000;
+  private static final String RAW_SUFFIX = " raw";
+
+  private final LatestDataService delegate;
+  private final String tenantPrefix;
+  private final Cache<String, Entry> cache;
+  private final Map<String, Future<JsonObject>> loading = new ConcurrentHashMap<>();
+  private final Counter hits;
+  private final Counter misses;
+  private final DistributionSummary staleness;
+
+  /**
+   * Cache in front of the given service.
+   *
+   * @param delegate service reading the latest values from Redis
+   * @param tenantPrefix prefix of the Redis keys
+   * @param ttlMillis time a value is served from the cache
+   * @param maximumSize maximum number of cached values
+   * @param registry MeterRegistry, may be null
+   */
+  CachedLatestDataService(
+      LatestDataService delegate,
+      String tenantPrefix,
+      long ttlMillis,
+      long maximumSize,
+      MeterRegistry registry) {
+    MeterRegistry meterRegistry = registry == null ? Metrics.globalRegistry : registry;
+    this.delegate = delegate;
+    this.tenantPrefix = tenantPrefix;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+            .build();
+    this.hits = counter(meterRegistry, "hit");
+    this.misses = counter(meterRegistry, "miss");
+    this.staleness =
+        DistributionSummary.builder(CACHE_STALENESS)
+            .description("Age of latest values served from the cache")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+  }
+
+  private static Counter counter(MeterRegistry registry, String result) {
+    return Counter.builder(CACHE_GETS)
+        .description("Lookups of cached latest values")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /** Redis key holding the latest value of the id, see {@link RedisCommandArgsBuilder}. */
+  private String redisKey(String id) {
+    return tenantPrefix.equals("none") ? id : tenantPrefix + ":" + id;
+  }
+
+  @Override
+  public LatestDataService getLatestData(
+      JsonObject request, Handler<AsyncResult<JsonObject>> handler) {
+    JsonArray ids = request.getJsonArray(ID);
+    if (ids == null || ids.size() != 1) {
+      return delegate.getLatestData(request, handler);
+    }
+    String key = redisKey(ids.getString(0));
+    if (request.getBoolean(RAW_RESULTS, false)) {
+      key += RAW_SUFFIX;
+    }
+
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      hits.increment();
+      staleness.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.cachedAt));
+      handler.handle(Future.succeededFuture(entry.response.copy()));
+      return this;
+    }
+    misses.increment();
+
+    Promise<JsonObject> promise = Promise.promise();
+    Future<JsonObject> pending = loading.putIfAbsent(key, promise.future());
+    if (pending != null) {
+      pending.map(JsonObject::copy).onComplete(handler);
+      return this;
+    }
+    String cacheKey = key;
+    long readAt = System.nanoTime();
+    delegate.getLatestData(
+        request,
+        ar -> {
+          loading.remove(cacheKey, promise.future());
+          if (ar.succeeded()) {
+            cache.put(cacheKey, new Entry(ar.result().copy(), readAt));
+          }
+          promise.handle(ar);
+        });
+    promise.future().map(JsonObject::copy).onComplete(handler);
+    return this;
+  }
+
+  /**
+   * Evict the values read from a Redis key that changed.
+   *
+   * @param redisKey key named in the keyspace notification
+   */
+  void invalidate(String redisKey) {
+    cache.invalidate(redisKey);
+    cache.invalidate(redisKey + RAW_SUFFIX);
+  }
+
+  /** Evict every value, as the changes of some keys may have been missed. */
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  private static final class Entry {
+    final JsonObject response;
+    final long cachedAt;
+
+    Entry(JsonObject response, long cachedAt) {
+      this.response = response;
+      this.cachedAt = cachedAt;
+    }
+  }
+}
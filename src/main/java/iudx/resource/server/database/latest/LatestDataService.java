@@ -39,7 +39,8 @@ public interface LatestDataService {
   }
 
   /**
-   * The getLatestData retrieves the latest data.
+   * The getLatestData retrieves the latest data. When the request has several ids their latest
+   * values are fetched together and returned in a single array.
    *
    * @param request which is a JsonObject
    * @param handler which is a Request Handler
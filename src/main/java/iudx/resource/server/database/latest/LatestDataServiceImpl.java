@@ -1,5 +1,6 @@
 package iudx.resource.server.database.latest;
 
+import static iudx.resource.server.common.Constants.RAW_RESULTS;
 import static iudx.resource.server.database.archives.Constants.*;
 
 import io.vertx.core.AsyncResult;
@@ -10,8 +11,10 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.cache.CacheService;
 import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.common.ResponseUrn;
 import iudx.resource.server.database.archives.ResponseBuilder;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -72,7 +75,12 @@ public class LatestDataServiceImpl implements LatestDataService {
       handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
       return null;
     }
+    if (request.getJsonArray(ID).size() > 1) {
+      getLatestValues(request.getJsonArray(ID), handler);
+      return this;
+    }
     String id = request.getJsonArray(ID).getString(0);
+    boolean raw = request.getBoolean(RAW_RESULTS, false);
 
     isUniqueAttrRecordExist(id)
         .onComplete(
@@ -80,6 +88,8 @@ public class LatestDataServiceImpl implements LatestDataService {
               if (uaHandler.succeeded()) {
                 LOGGER.debug("unique_attribute for id :" + id + " is :" + uaHandler.result());
                 getLatestValue(id, true, handler);
+              } else if (raw) {
+                getRawLatestValue(id, handler);
               } else {
                 getLatestValue(id, false, handler);
               }
@@ -90,7 +100,7 @@ public class LatestDataServiceImpl implements LatestDataService {
   private JsonArray extractValues(String key, JsonObject result, boolean groupSnapshot) {
     if (groupSnapshot) {
       result.remove(key);
-      return new JsonArray(result.stream().map(e -> e.getValue()).collect(Collectors.toList()));
+      return new JsonArray(new ArrayList<>(result.getMap().values()));
     }
     return new JsonArray().add(result);
   }
@@ -123,6 +133,99 @@ public class LatestDataServiceImpl implements LatestDataService {
         });
   }
 
+  /**
+   * Latest value of a resource handed back as the JSON text stored in Redis, in the {@code
+   * rawResults} field instead of {@code results}. The value is neither decoded here nor copied as
+   * a JSON tree on its way over the event bus.
+   */
+  private void getRawLatestValue(String id, Handler<AsyncResult<JsonObject>> handler) {
+    RedisArgs args = redisCmdBuilder.getRedisCommandArgs(id, false, this.tenantPrefix);
+
+    LOGGER.debug("key : " + args.getKey() + " path : " + args.getPath());
+    redisClient
+        .getRaw(args.getKey(), args.getPath())
+        .onSuccess(
+            value -> {
+              LOGGER.debug("Success: Successful Redis request");
+              JsonObject response =
+                  new ResponseBuilder(SUCCESS)
+                      .setTypeAndTitle(200)
+                      .getResponse()
+                      .put(RAW_RESULTS, "[" + value + "]");
+              handler.handle(Future.succeededFuture(response));
+            })
+        .onFailure(
+            failure -> {
+              LOGGER.error("Fail: Redis Cache Request;" + failure.getMessage());
+              responseBuilder =
+                  new ResponseBuilder(FAILED).setTypeAndTitle(204).setMessage(failure.getMessage());
+              handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+            });
+  }
+
+  /**
+   * Latest values of several ids read from Redis in one go, see {@link RedisClient#getAll}. Ids
+   * without a latest value are left out of the response; a failed Redis read fails the whole query
+   * with a database error rather than reporting the ids as not found.
+   */
+  private void getLatestValues(JsonArray ids, Handler<AsyncResult<JsonObject>> handler) {
+    List<Future<Boolean>> uniqueAttrs = new ArrayList<>();
+    ids.forEach(
+        id ->
+            uniqueAttrs.add(
+                isUniqueAttrRecordExist(id.toString()).map(true).otherwise(false)));
+
+    Future.all(uniqueAttrs)
+        .compose(
+            uaDone -> {
+              List<RedisArgs> args = new ArrayList<>();
+              for (int i = 0; i < ids.size(); i++) {
+                args.add(
+                    redisCmdBuilder.getRedisCommandArgs(
+                        ids.getString(i), uniqueAttrs.get(i).result(), this.tenantPrefix));
+              }
+              return redisClient
+                  .getAll(args)
+                  .map(
+                      values -> {
+                        JsonArray response = new JsonArray();
+                        for (int i = 0; i < values.size(); i++) {
+                          if (values.get(i) != null) {
+                            response.addAll(
+                                extractValues(
+                                    args.get(i).getKey(),
+                                    values.get(i),
+                                    uniqueAttrs.get(i).result()));
+                          }
+                        }
+                        return response;
+                      });
+            })
+        .onComplete(
+            searchRes -> {
+              if (searchRes.failed()) {
+                LOGGER.error("Fail: Redis Cache Request;" + searchRes.cause().getMessage());
+                responseBuilder =
+                    new ResponseBuilder(FAILED)
+                        .setTypeAndTitle(500, ResponseUrn.DB_ERROR_URN.getUrn())
+                        .setMessage(ResponseUrn.DB_ERROR_URN.getMessage());
+                handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+              } else if (searchRes.result().isEmpty()) {
+                LOGGER.error("Fail: Redis Cache Request;keys not found");
+                responseBuilder =
+                    new ResponseBuilder(FAILED).setTypeAndTitle(204).setMessage("keys not found");
+                handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+              } else {
+                LOGGER.debug("Success: Successful Redis request");
+                responseBuilder =
+                    new ResponseBuilder(SUCCESS)
+                        .setTypeAndTitle(200)
+                        .setMessage(searchRes.result());
+                handler.handle(Future.succeededFuture(responseBuilder.getResponse()));
+              }
+            });
+  }
+
   public Future<JsonObject> isUniqueAttrRecordExist(String id) {
     Promise<JsonObject> promise = Promise.promise();
 
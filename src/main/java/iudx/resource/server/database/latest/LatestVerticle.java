@@ -6,6 +6,7 @@ import static iudx.resource.server.common.Constants.LATEST_SERVICE_ADDRESS;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.backends.BackendRegistries;
 import io.vertx.serviceproxy.ServiceBinder;
 import iudx.resource.server.cache.CacheService;
 import org.apache.logging.log4j.LogManager;
@@ -50,9 +51,13 @@ public class LatestVerticle extends AbstractVerticle {
         .onSuccess(
             handler -> {
               redisClient = handler;
-              cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+              cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
               binder = new ServiceBinder(vertx);
               latestData = new LatestDataServiceImpl(redisClient, cacheService, tenantPrefix);
+              long cacheTtl = config().getLong("latestCacheTtlMillis", 0L);
+              if (cacheTtl > 0) {
+                latestData = createNearCache(cacheTtl);
+              }
               consumer =
                   binder
                       .setAddress(LATEST_SERVICE_ADDRESS)
@@ -65,6 +70,25 @@ public class LatestVerticle extends AbstractVerticle {
             });
   }
 
+  private LatestDataService createNearCache(long ttlMillis) {
+    CachedLatestDataService nearCache =
+        new CachedLatestDataService(
+            latestData,
+            tenantPrefix,
+            ttlMillis,
+            config().getLong("latestCacheSize", CachedLatestDataService.DEFAULT_SIZE),
+            BackendRegistries.getDefaultNow());
+    String keyPattern = tenantPrefix.equals("none") ? "*" : tenantPrefix + ":*";
+    redisClient
+        .onKeyspaceEvents(keyPattern, nearCache::invalidate, gap -> nearCache.invalidateAll())
+        .onFailure(
+            failure ->
+                LOGGER.warn(
+                    "latest values are cached without invalidation until subscribed: "
+                        + failure.getMessage()));
+    return nearCache;
+  }
+
   @Override
   public void stop() {
     if (redisClient != null) {
@@ -2,30 +2,63 @@ package iudx.resource.server.database.latest;
 
 import static iudx.resource.server.database.archives.Constants.FAILED;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.backends.BackendRegistries;
 import io.vertx.redis.client.Command;
 import io.vertx.redis.client.Redis;
 import io.vertx.redis.client.RedisAPI;
 import io.vertx.redis.client.RedisClientType;
+import io.vertx.redis.client.RedisConnection;
 import io.vertx.redis.client.RedisOptions;
 import io.vertx.redis.client.RedisReplicas;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.ResponseType;
 import iudx.resource.server.database.archives.ResponseBuilder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class RedisClient {
   private static final Logger LOGGER = LogManager.getLogger(RedisClient.class);
+  private static final int CLUSTER_SLOTS = 16384;
+  private static final String REDIS_UP = "redis.up";
+  private static final String REDIS_PING = "redis.ping";
+  private static final String REDIS_KEYSPACE_SUBSCRIBED = "redis.keyspace.subscribed";
+  private static final int CONNECT_ATTEMPTS = 5;
+  private static final long CONNECT_BACKOFF_MILLIS = 500;
+  private static final long MAX_BACKOFF_MILLIS = 8000;
+  private static final long HEALTH_CHECK_MILLIS = 10000;
   // private Redis redisClient;
   private ResponseBuilder responseBuilder;
   private Redis clusteredClient;
   private RedisAPI redis;
   private Vertx vertx;
   private JsonObject config;
+  private boolean clustered;
+  private volatile boolean up;
+  private Timer pingTimer;
+  private long healthCheckTimer = -1;
+  private volatile boolean keyspaceSubscribed;
+  private RedisConnection keyspaceConnection;
+  private long keyspaceTimer = -1;
+  private boolean closed;
 
   /**
    * RedisClient - Redis vertx Client Low Level Wrapper
@@ -38,6 +71,23 @@ public class RedisClient {
     this.config = config;
   }
 
+  /** Client sending its commands through the given api, e.g. a mock in tests. */
+  RedisClient(RedisAPI redis) {
+    this.redis = redis;
+  }
+
+  /** Client subscribing through the given standalone client, e.g. a mock in tests. */
+  RedisClient(Vertx vertx, Redis client) {
+    this.vertx = vertx;
+    this.clusteredClient = client;
+  }
+
+  /**
+   * Create the pooled client and wait until Redis answers, retrying with a growing backoff. Every
+   * command takes a connection from the pool, so commands in flight are pipelined over up to
+   * redisMaxPoolSize connections and broken connections are replaced on the next command. The
+   * reachability of Redis is checked periodically afterwards and reported in {@code redis.up}.
+   */
   public Future<RedisClient> start() {
     Promise<RedisClient> promise = Promise.promise();
     StringBuilder redisuri = new StringBuilder();
@@ -54,6 +104,8 @@ public class RedisClient {
     String mode = config.getString("redisMode");
 
     if (mode.equals("CLUSTER")) {
+      clustered = true;
+      // reads are spread over the replicas of each slot
       options =
           new RedisOptions().setType(RedisClientType.CLUSTER).setUseReplicas(RedisReplicas.SHARE);
     } else if (mode.equals("STANDALONE")) {
@@ -65,16 +117,77 @@ public class RedisClient {
     }
     options
         .setMaxWaitingHandlers(config.getInteger("redisMaxWaitingHandlers"))
+        .setMaxPoolSize(config.getInteger("redisMaxPoolSize", options.getMaxPoolSize()))
+        .setMaxPoolWaiting(config.getInteger("redisMaxPoolWaiting", options.getMaxPoolWaiting()))
+        .setPoolRecycleTimeout(
+            config.getInteger("redisPoolRecycleTimeout", options.getPoolRecycleTimeout()))
         .setConnectionString(redisuri.toString());
     clusteredClient = Redis.createClient(vertx, options);
-    clusteredClient.connect(
-        conn -> {
-          redis = RedisAPI.api(conn.result());
-          promise.complete(this);
-        });
+    redis = RedisAPI.api(clusteredClient);
+    registerHealthMetrics();
+    ping(CONNECT_ATTEMPTS, CONNECT_BACKOFF_MILLIS)
+        .onSuccess(
+            pong -> {
+              healthCheckTimer = vertx.setPeriodic(HEALTH_CHECK_MILLIS, id -> checkHealth());
+              promise.complete(this);
+            })
+        .onFailure(promise::fail);
     return promise.future();
   }
 
+  private void registerHealthMetrics() {
+    MeterRegistry registry = BackendRegistries.getDefaultNow();
+    MeterRegistry meterRegistry = registry == null ? Metrics.globalRegistry : registry;
+    Gauge.builder(REDIS_UP, this, client -> client.up ? 1 : 0)
+        .description("Whether Redis answered the last health check")
+        .register(meterRegistry);
+    pingTimer =
+        Timer.builder(REDIS_PING)
+            .description("Round trip of Redis health checks")
+            .register(meterRegistry);
+  }
+
+  private Future<Void> ping(int attempts, long backoffMillis) {
+    long startedAt = System.nanoTime();
+    return redis
+        .ping(List.of())
+        .<Void>mapEmpty()
+        .onComplete(
+            ar -> {
+              up = ar.succeeded();
+              pingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            })
+        .recover(
+            failure -> {
+              if (attempts <= 1) {
+                LOGGER.error("Redis is not reachable: " + failure.getMessage());
+                return Future.failedFuture(failure);
+              }
+              LOGGER.warn(
+                  "Redis is not reachable, retrying in {} ms: {}",
+                  backoffMillis,
+                  failure.getMessage());
+              Promise<Void> retry = Promise.promise();
+              vertx.setTimer(
+                  backoffMillis,
+                  id ->
+                      ping(attempts - 1, Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS))
+                          .onComplete(retry));
+              return retry.future();
+            });
+  }
+
+  private void checkHealth() {
+    boolean wasUp = up;
+    ping(1, CONNECT_BACKOFF_MILLIS)
+        .onComplete(
+            ar -> {
+              if (ar.succeeded() && !wasUp) {
+                LOGGER.info("Redis is reachable again");
+              }
+            });
+  }
+
   /**
    * searchAsync - Wrapper around Redis async search requests.
    *
@@ -121,7 +234,18 @@ public class RedisClient {
    * @param path Redis Path parameter returns Future Object with (JSON) result from Redis
    */
   public Future<JsonObject> get(String key, String path) {
-    Promise<JsonObject> promise = Promise.promise();
+    return getRaw(key, path).map(JsonObject::new);
+  }
+
+  /**
+   * getRaw - Redis vertx JSON.GET wrapper returning the reply bytes as they came from Redis, to be
+   * decoded straight from the buffer or passed on without decoding at all
+   *
+   * @param key Redis Key
+   * @param path Redis Path parameter returns Future Object with the JSON text from Redis
+   */
+  public Future<Buffer> getRaw(String key, String path) {
+    Promise<Buffer> promise = Promise.promise();
     redis
         .send(Command.JSON_GET, key, path)
         .onFailure(
@@ -133,14 +257,243 @@ public class RedisClient {
               if (redisResponse == null) {
                 promise.fail(String.format(" %s key not found", key));
               } else {
-                promise.complete(new JsonObject(redisResponse.toString()));
+                promise.complete(redisResponse.toBuffer());
               }
             });
 
     return promise.future();
   }
 
+  /**
+   * getAll - fetch many keys at once. Keys are grouped by their cluster hash slot and JSON path;
+   * a group of several keys is read with a single JSON.MGET and the groups are sent together, so
+   * they are pipelined over the pooled connections instead of waiting on each other.
+   *
+   * @param args keys and paths to read
+   * @return values in the order of the args, null where the key or path does not exist; failed
+   *     when Redis cannot be read
+   */
+  public Future<List<JsonObject>> getAll(List<RedisArgs> args) {
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < args.size(); i++) {
+      RedisArgs arg = args.get(i);
+      int slot = clustered ? slot(arg.getKey()) : 0;
+      groups.computeIfAbsent(slot + " " + arg.getPath(), group -> new ArrayList<>()).add(i);
+    }
+
+    JsonObject[] values = new JsonObject[args.size()];
+    List<Future<Void>> fetches = new ArrayList<>();
+    for (List<Integer> group : groups.values()) {
+      String path = args.get(group.get(0)).getPath();
+      if (group.size() == 1) {
+        int index = group.get(0);
+        fetches.add(
+            redis
+                .send(Command.JSON_GET, args.get(index).getKey(), path)
+                .onSuccess(
+                    value -> {
+                      if (value != null) {
+                        values[index] = new JsonObject(value.toBuffer());
+                      }
+                    })
+                .<Void>mapEmpty()
+                .recover(
+                    failure ->
+                        isMissingPath(failure)
+                            ? Future.succeededFuture()
+                            : Future.failedFuture(failure)));
+        continue;
+      }
+      List<String> mget = new ArrayList<>();
+      group.forEach(index -> mget.add(args.get(index).getKey()));
+      mget.add(path);
+      fetches.add(
+          redis
+              .jsonMget(mget)
+              .onSuccess(
+                  response -> {
+                    for (int i = 0; i < group.size(); i++) {
+                      Response value = response.get(i);
+                      if (value != null) {
+                        values[group.get(i)] = new JsonObject(value.toBuffer());
+                      }
+                    }
+                  })
+              .onFailure(failure -> LOGGER.error("JSON.MGET did not work: " + failure.getMessage()))
+              .<Void>mapEmpty());
+    }
+    return Future.all(fetches).map(fetched -> Arrays.asList(values));
+  }
+
+  /** Whether JSON.GET was answered with an error because the path is not in the stored value. */
+  private static boolean isMissingPath(Throwable failure) {
+    return failure instanceof Response
+        && ((Response) failure).type() == ResponseType.ERROR
+        && String.valueOf(failure.getMessage()).contains("does not exist");
+  }
+
+  /**
+   * onKeyspaceEvents - subscribe to the keyspace notifications of keys matching a pattern, on a
+   * connection of its own. Redis has to publish them, e.g. {@code notify-keyspace-events Kdgx} for
+   * RedisJSON writes, deletes and expiries. In cluster mode every node only publishes the events of
+   * its own keys, so the subscription is refused there. A subscription that fails or drops is
+   * re-established with a growing backoff and its state is reported in {@code
+   * redis.keyspace.subscribed}.
+   *
+   * @param keyPattern glob pattern of the keys
+   * @param keyHandler called with the key of each event
+   * @param gapHandler called when the subscription drops and again once it is back, as events
+   *     published in between are lost
+   * @return future completed once first subscribed
+   */
+  public Future<Void> onKeyspaceEvents(
+      String keyPattern, Handler<String> keyHandler, Handler<Void> gapHandler) {
+    if (clustered) {
+      return Future.failedFuture("keyspace notifications are not supported in cluster mode");
+    }
+    MeterRegistry registry = BackendRegistries.getDefaultNow();
+    Gauge.builder(REDIS_KEYSPACE_SUBSCRIBED, this, client -> client.keyspaceSubscribed ? 1 : 0)
+        .description("Whether the keyspace notifications of Redis are subscribed")
+        .register(registry == null ? Metrics.globalRegistry : registry);
+    String channelPattern = "__keyspace@*__:" + keyPattern;
+    return subscribe(channelPattern, keyHandler, gapHandler, CONNECT_BACKOFF_MILLIS, false);
+  }
+
+  private Future<Void> subscribe(
+      String channelPattern,
+      Handler<String> keyHandler,
+      Handler<Void> gapHandler,
+      long backoffMillis,
+      boolean resubscribe) {
+    return clusteredClient
+        .connect()
+        .compose(
+            connection -> {
+              connection.handler(
+                  message -> {
+                    // [pmessage, pattern, __keyspace@<db>__:<key>, event]
+                    if (message.size() == 4 && "pmessage".equals(message.get(0).toString())) {
+                      String channel = message.get(2).toString();
+                      keyHandler.handle(channel.substring(channel.indexOf("__:") + 3));
+                    }
+                  });
+              connection.exceptionHandler(
+                  failure ->
+                      dropped(connection, channelPattern, keyHandler, gapHandler, failure));
+              connection.endHandler(
+                  end -> dropped(connection, channelPattern, keyHandler, gapHandler, null));
+              return connection
+                  .send(Request.cmd(Command.PSUBSCRIBE).arg(channelPattern))
+                  .onFailure(failure -> connection.close())
+                  .map(connection);
+            })
+        .compose(
+            connection -> {
+              if (closed) {
+                connection.close();
+                return Future.succeededFuture();
+              }
+              keyspaceConnection = connection;
+              keyspaceSubscribed = true;
+              if (resubscribe) {
+                LOGGER.info("keyspace subscription re-established");
+                gapHandler.handle(null);
+              }
+              return Future.<Void>succeededFuture();
+            })
+        .onFailure(
+            failure -> {
+              LOGGER.error(
+                  "keyspace subscription failed, retrying in "
+                      + backoffMillis
+                      + "ms: "
+                      + failure.getMessage());
+              resubscribe(channelPattern, keyHandler, gapHandler, backoffMillis);
+            });
+  }
+
+  private void dropped(
+      RedisConnection connection,
+      String channelPattern,
+      Handler<String> keyHandler,
+      Handler<Void> gapHandler,
+      Throwable failure) {
+    // a connection closes after its exception, only the first signal of the live one counts
+    if (connection != keyspaceConnection) {
+      return;
+    }
+    keyspaceConnection = null;
+    keyspaceSubscribed = false;
+    connection.close();
+    if (closed) {
+      return;
+    }
+    LOGGER.error(
+        "keyspace subscription dropped: "
+            + (failure == null ? "connection closed" : failure.getMessage()));
+    gapHandler.handle(null);
+    resubscribe(channelPattern, keyHandler, gapHandler, CONNECT_BACKOFF_MILLIS);
+  }
+
+  private void resubscribe(
+      String channelPattern,
+      Handler<String> keyHandler,
+      Handler<Void> gapHandler,
+      long backoffMillis) {
+    if (closed) {
+      return;
+    }
+    keyspaceTimer =
+        vertx.setTimer(
+            backoffMillis,
+            id ->
+                subscribe(
+                    channelPattern,
+                    keyHandler,
+                    gapHandler,
+                    Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS),
+                    true));
+  }
+
+  /** Whether the keyspace notifications are currently subscribed. */
+  boolean isKeyspaceSubscribed() {
+    return keyspaceSubscribed;
+  }
+
+  /**
+   * Cluster hash slot of a key, CRC16 of the key or of its hash tag when it has one.
+   *
+   * @param key Redis Key
+   * @return slot of the key
+   */
+  static int slot(String key) {
+    int start = key.indexOf('{');
+    if (start >= 0) {
+      int end = key.indexOf('}', start + 1);
+      if (end > start + 1) {
+        key = key.substring(start + 1, end);
+      }
+    }
+    int crc = 0;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      crc ^= (b & 0xff) << 8;
+      for (int i = 0; i < 8; i++) {
+        crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+      }
+    }
+    return (crc & 0xffff) % CLUSTER_SLOTS;
+  }
+
   public void close() {
+    closed = true;
+    vertx.cancelTimer(healthCheckTimer);
+    vertx.cancelTimer(keyspaceTimer);
+    if (keyspaceConnection != null) {
+      RedisConnection connection = keyspaceConnection;
+      keyspaceConnection = null;
+      keyspaceSubscribed = false;
+      connection.close();
+    }
     redis.close();
   }
 }
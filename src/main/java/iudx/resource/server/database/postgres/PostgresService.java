@@ -7,6 +7,7 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 
@@ -21,6 +22,18 @@ public interface PostgresService {
   PostgresService executePreparedQuery(final String query, final JsonObject queryparams,
       Handler<AsyncResult<JsonObject>> handler);
 
+  /**
+   * Execute a statement with $n placeholders as a prepared statement. Statements are prepared once
+   * per connection and reused, so prefer them over queries with the values spliced in.
+   *
+   * @param query statement with $1, $2.. placeholders
+   * @param params values of the placeholders, see {@link TupleCodec}
+   * @param handler result rows, in the same shape as {@link #executeQuery}
+   * @return PostgresService
+   */
+  @Fluent
+  PostgresService executeParameterizedQuery(
+      final String query, final JsonArray params, Handler<AsyncResult<JsonObject>> handler);
 
   @GenIgnore
   static PostgresService createProxy(Vertx vertx, String address) {
@@ -63,9 +63,54 @@ public final class PostgresServiceImpl implements PostgresService {
     return this;
   }
 
-  // TODO : prepared query works only for String parameters, due to service proxy restriction with
-  // allowed type as arguments. needs to work with TupleBuilder class which will parse other types
-  // like date appropriately to match with postgres types
+  @Override
+  public PostgresService executeParameterizedQuery(
+      final String query, final JsonArray params, Handler<AsyncResult<JsonObject>> handler) {
+
+    Tuple tuple;
+    try {
+      tuple = TupleCodec.decode(params);
+    } catch (RuntimeException e) {
+      handler.handle(Future.failedFuture(dbError(e)));
+      return this;
+    }
+
+    Collector<Row, ?, List<JsonObject>> rowCollector =
+        Collectors.mapping(row -> row.toJson(), Collectors.toList());
+
+    client
+        .preparedQuery(query)
+        .collecting(rowCollector)
+        .execute(tuple)
+        .map(rows -> rows.value())
+        .onSuccess(
+            successHandler -> {
+              JsonObject responseJson =
+                  new JsonObject()
+                      .put("type", ResponseUrn.SUCCESS_URN.getUrn())
+                      .put("title", ResponseUrn.SUCCESS_URN.getMessage())
+                      .put("result", new JsonArray(successHandler));
+              handler.handle(Future.succeededFuture(responseJson));
+            })
+        .onFailure(
+            failureHandler -> {
+              LOGGER.error(failureHandler);
+              handler.handle(Future.failedFuture(dbError(failureHandler)));
+            });
+    return this;
+  }
+
+  private static String dbError(Throwable failure) {
+    return new Response.Builder()
+        .withUrn(ResponseUrn.DB_ERROR_URN.getUrn())
+        .withStatus(HttpStatus.SC_BAD_REQUEST)
+        .withDetail(failure.getLocalizedMessage())
+        .build()
+        .toString();
+  }
+
+  // parameters are bound as they come out of the JsonObject, i.e. as strings, numbers or booleans;
+  // typed parameters such as dates or UUIDs go through executeParameterizedQuery and TupleCodec
   @Override
   public PostgresService executePreparedQuery(
       final String query, final JsonObject queryParams, Handler<AsyncResult<JsonObject>> handler) {
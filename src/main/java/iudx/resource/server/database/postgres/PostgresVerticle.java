@@ -15,6 +15,7 @@ import org.apache.logging.log4j.Logger;
 public class PostgresVerticle extends AbstractVerticle {
 
   private static final Logger LOGGER = LogManager.getLogger(PostgresService.class);
+  private static final int STATEMENT_CACHE_SIZE = 256;
 
   private MessageConsumer<JsonObject> consumer;
   private ServiceBinder binder;
@@ -50,7 +51,10 @@ public class PostgresVerticle extends AbstractVerticle {
             .setUser(databaseUserName)
             .setPassword(databasePassword)
             .setReconnectAttempts(2)
-            .setReconnectInterval(1000L);
+            .setReconnectInterval(1000L)
+            .setCachePreparedStatements(true)
+            .setPreparedStatementCacheMaxSize(
+                config().getInteger("preparedStatementCacheSize", STATEMENT_CACHE_SIZE));
 
     this.poolOptions = new PoolOptions().setMaxSize(poolSize);
     this.pool = PgPool.pool(vertx, connectOptions, poolOptions);
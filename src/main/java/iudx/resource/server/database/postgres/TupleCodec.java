@@ -0,0 +1,119 @@
+package iudx.resource.server.database.postgres;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Carries the parameters of a prepared statement over the service proxy, which only takes JSON
+ * types. Strings, numbers, booleans and nulls are sent as they are, uuids as strings since the
+ * client parses them for uuid columns. Values JSON has no type for are wrapped in an object naming
+ * their type, e.g. {@code {"timestamp":"2024-01-01T10:00:00"}} or {@code {"json":{...}}}.
+ */
+public final class TupleCodec {
+
+  private static final String TIMESTAMP = "timestamp";
+  private static final String TIMESTAMPTZ = "timestamptz";
+  private static final String DATE = "date";
+  private static final String JSON = "json";
+
+  private TupleCodec() {}
+
+  /**
+   * Parameters of a statement.
+   *
+   * @param values parameter values in the order of their placeholders
+   * @return encoded parameters
+   */
+  public static JsonArray params(Object... values) {
+    JsonArray params = new JsonArray();
+    for (Object value : values) {
+      params.add(encode(value));
+    }
+    return params;
+  }
+
+  /**
+   * Parameters of a statement.
+   *
+   * @param tuple parameter values in the order of their placeholders
+   * @return encoded parameters
+   */
+  public static JsonArray encode(Tuple tuple) {
+    JsonArray params = new JsonArray();
+    for (int i = 0; i < tuple.size(); i++) {
+      params.add(encode(tuple.getValue(i)));
+    }
+    return params;
+  }
+
+  private static Object encode(Object value) {
+    if (value == null
+        || value instanceof String
+        || value instanceof Number
+        || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof UUID || value instanceof Enum) {
+      return value.toString();
+    }
+    if (value instanceof LocalDateTime) {
+      return new JsonObject().put(TIMESTAMP, value.toString());
+    }
+    if (value instanceof OffsetDateTime) {
+      return new JsonObject().put(TIMESTAMPTZ, value.toString());
+    }
+    if (value instanceof LocalDate) {
+      return new JsonObject().put(DATE, value.toString());
+    }
+    if (value instanceof JsonObject || value instanceof JsonArray) {
+      return new JsonObject().put(JSON, value);
+    }
+    throw new IllegalArgumentException(
+        "unsupported statement parameter type " + value.getClass().getName());
+  }
+
+  /**
+   * Tuple of encoded parameters.
+   *
+   * @param params parameters from {@link #encode(Tuple)} or {@link #params(Object...)}
+   * @return tuple to execute a statement with
+   */
+  public static Tuple decode(JsonArray params) {
+    Tuple tuple = Tuple.tuple();
+    if (params == null) {
+      return tuple;
+    }
+    for (int i = 0; i < params.size(); i++) {
+      tuple.addValue(decode(params.getValue(i)));
+    }
+    return tuple;
+  }
+
+  private static Object decode(Object param) {
+    if (!(param instanceof JsonObject)) {
+      return param;
+    }
+    JsonObject typed = (JsonObject) param;
+    if (typed.size() != 1) {
+      throw new IllegalArgumentException("statement parameter " + typed + " has no single type");
+    }
+    String type = typed.fieldNames().iterator().next();
+    switch (type) {
+      case TIMESTAMP:
+        return LocalDateTime.parse(typed.getString(type));
+      case TIMESTAMPTZ:
+        return OffsetDateTime.parse(typed.getString(type));
+      case DATE:
+        return LocalDate.parse(typed.getString(type));
+      case JSON:
+        return typed.getValue(type);
+      default:
+        throw new IllegalArgumentException("unsupported statement parameter type " + type);
+    }
+  }
+}
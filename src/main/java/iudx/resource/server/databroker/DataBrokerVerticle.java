@@ -19,6 +19,7 @@ import iudx.resource.server.cache.CacheService;
 import iudx.resource.server.common.Vhosts;
 import iudx.resource.server.database.async.AsyncService;
 import iudx.resource.server.databroker.listeners.AsyncQueryListener;
+import iudx.resource.server.databroker.listeners.CatalogueItemQlistener;
 import iudx.resource.server.databroker.listeners.RevokeClientQlistener;
 import iudx.resource.server.databroker.listeners.RmqListeners;
 import iudx.resource.server.databroker.listeners.UniqueAttribQlistener;
@@ -167,7 +168,7 @@ public class DataBrokerVerticle extends AbstractVerticle {
     rabbitWebClient = new RabbitWebClient(vertx, webConfig, propObj);
     pgClient = new PostgresClient(vertx, connectOptions, poolOptions);
     rabbitClient = new RabbitClient(vertx, config, rabbitWebClient, pgClient, config());
-    cache = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+    cache = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
     binder = new ServiceBinder(vertx);
     iudxRabbitMqClient = RabbitMQClient.create(vertx, iudxConfig);
     iudxRabbitMqClient
@@ -191,11 +192,14 @@ public class DataBrokerVerticle extends AbstractVerticle {
         new UniqueAttribQlistener(vertx, cache, config, internalVhost);
     RmqListeners asyncQueryQlistener =
         new AsyncQueryListener(vertx, config, internalVhost, asyncService);
+    RmqListeners catalogueItemQlistener =
+        new CatalogueItemQlistener(vertx, cache, config, internalVhost);
 
     // start
     revokeQlistener.start();
     uniqueAttrQlistener.start();
     asyncQueryQlistener.start();
+    catalogueItemQlistener.start();
 
     /* Publish the Data Broker service with the Event Bus against an address. */
 
@@ -0,0 +1,89 @@
+package iudx.resource.server.databroker.listeners;
+
+import static iudx.resource.server.common.Constants.CATALOGUE_ITEM_Q;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.rabbitmq.QueueOptions;
+import io.vertx.rabbitmq.RabbitMQClient;
+import io.vertx.rabbitmq.RabbitMQConsumer;
+import io.vertx.rabbitmq.RabbitMQOptions;
+import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.cache.cachelmpl.CacheType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Listens for catalogue item create, update and delete events and refreshes only the changed item
+ * in the catalogue cache. The hourly full refresh of the cache stays as reconciliation.
+ */
+public class CatalogueItemQlistener implements RmqListeners {
+
+  private static final Logger LOGGER = LogManager.getLogger(CatalogueItemQlistener.class);
+  private final CacheService cache;
+  private final QueueOptions options =
+      new QueueOptions().setMaxInternalQueueSize(1000).setKeepMostRecent(true);
+  RabbitMQClient client;
+
+  public CatalogueItemQlistener(
+      Vertx vertx, CacheService cache, RabbitMQOptions config, String vhost) {
+    config.setVirtualHost(vhost);
+    this.client = RabbitMQClient.create(vertx, config);
+    this.cache = cache;
+  }
+
+  @Override
+  public void start() {
+    Future<Void> future = client.start();
+    future.onComplete(
+        clientStartHandler -> {
+          if (clientStartHandler.succeeded()) {
+            LOGGER.trace("starting Q listener for catalogue items");
+            client.basicConsumer(
+                CATALOGUE_ITEM_Q,
+                options,
+                rmqConsumer -> {
+                  if (rmqConsumer.succeeded()) {
+                    RabbitMQConsumer mqConsumer = rmqConsumer.result();
+                    mqConsumer.handler(
+                        message -> {
+                          Buffer body = message.body();
+                          if (body == null) {
+                            LOGGER.error("Empty json received from catalogue item queue");
+                            return;
+                          }
+                          JsonObject itemEvent = new JsonObject(body);
+                          LOGGER.debug("received message from catalogue item Q :" + itemEvent);
+                          String key = itemEvent.getString("id");
+                          if (key == null) {
+                            LOGGER.error("catalogue item event without id");
+                            return;
+                          }
+                          // the item is looked up again, so create, update and delete are alike
+                          JsonObject cacheJson = new JsonObject();
+                          cacheJson.put("type", CacheType.CATALOGUE_CACHE);
+                          cacheJson.put("key", key);
+                          cache
+                              .refresh(cacheJson)
+                              .onSuccess(
+                                  successHandler ->
+                                      LOGGER.debug(
+                                          "catalogue item message published to Cache Verticle"))
+                              .onFailure(
+                                  failureHandler ->
+                                      LOGGER.debug(
+                                          "catalogue item message "
+                                              + "published to Cache Verticle fail"));
+                        });
+                  } else {
+                    LOGGER.error("catalogue item Q consumer failed : {}", rmqConsumer.cause());
+                  }
+                });
+          } else {
+            LOGGER.error("Rabbit client startup failed.");
+          }
+        });
+  }
+}
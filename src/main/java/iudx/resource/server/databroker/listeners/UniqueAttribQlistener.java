@@ -64,11 +64,10 @@ public class UniqueAttribQlistener implements RmqListeners {
                               return;
                             }
 
+                            // create carries the value, for update and delete only the key is
+                            // reloaded from DB instead of the whole table
+                            cacheJson.put("key", key);
                             if (event.equals(BroadcastEventType.CREATE)) {
-                              // pass key and value only for create event, for others update,delete
-                              // cache will
-                              // fetch from DB.
-                              cacheJson.put("key", key);
                               cacheJson.put("value", value);
                             }
 
@@ -0,0 +1,119 @@
+package iudx.resource.server.metering;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.AsyncMap;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Number of API calls a user made today (UTC), kept in a shared data map so the limit check does
+ * not count the audit rows of the user on every request. A counter is seeded once per day from
+ * the audit table, the first time the limit of the user is checked, and incremented as the calls
+ * of the user are metered. When the server runs clustered the map is shared by all nodes through
+ * the cluster manager, otherwise it is local to the JVM.
+ */
+public class ApiQuotaCounter {
+
+  static final String MAP_NAME = "iudx.rs.metering.api.quota";
+  private static final Logger LOGGER = LogManager.getLogger(ApiQuotaCounter.class);
+  // counters of yesterday are dropped on their own after the day is over
+  private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(25);
+  private static final int MAX_ATTEMPTS = 5;
+
+  private final Vertx vertx;
+  private final Map<String, Future<Long>> seeding = new ConcurrentHashMap<>();
+
+  public ApiQuotaCounter(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  static String key(String userId) {
+    return userId + ":" + LocalDate.now(ZoneOffset.UTC);
+  }
+
+  private Future<AsyncMap<String, Long>> map() {
+    return vertx.sharedData().getAsyncMap(MAP_NAME);
+  }
+
+  /**
+   * API calls of the user today.
+   *
+   * @param userId user id
+   * @param auditedCount count of today's audit rows of the user, used only to seed the counter
+   * @return number of calls
+   */
+  public Future<Long> count(String userId, Supplier<Future<Long>> auditedCount) {
+    String key = key(userId);
+    return map()
+        .compose(
+            map ->
+                map.get(key)
+                    .compose(
+                        count ->
+                            count != null
+                                ? Future.succeededFuture(count)
+                                : seed(map, key, auditedCount)));
+  }
+
+  private Future<Long> seed(
+      AsyncMap<String, Long> map, String key, Supplier<Future<Long>> auditedCount) {
+    Promise<Long> promise = Promise.promise();
+    Future<Long> pending = seeding.putIfAbsent(key, promise.future());
+    if (pending != null) {
+      return pending;
+    }
+    LOGGER.debug("seeding api quota counter {}", key);
+    auditedCount
+        .get()
+        // another node may have seeded the counter meanwhile
+        .compose(
+            seed -> map.putIfAbsent(key, seed, TTL_MILLIS).map(prev -> prev == null ? seed : prev))
+        .onComplete(
+            ar -> {
+              seeding.remove(key, promise.future());
+              promise.handle(ar);
+            });
+    return promise.future();
+  }
+
+  /**
+   * Count one metered call of the user. Counters that were not seeded yet are left alone, the call
+   * is then part of the audit rows the counter is seeded from.
+   *
+   * @param userId user id
+   * @return future completed once the call is counted
+   */
+  public Future<Void> increment(String userId) {
+    String key = key(userId);
+    return map().compose(map -> increment(map, key, MAX_ATTEMPTS));
+  }
+
+  private Future<Void> increment(AsyncMap<String, Long> map, String key, int attempts) {
+    return map.get(key)
+        .compose(
+            count -> {
+              if (count == null) {
+                return Future.succeededFuture();
+              }
+              return map.replaceIfPresent(key, count, count + 1, TTL_MILLIS)
+                  .compose(
+                      replaced -> {
+                        if (replaced) {
+                          return Future.succeededFuture();
+                        }
+                        if (attempts <= 1) {
+                          return Future.failedFuture("api quota counter " + key + " is contended");
+                        }
+                        return increment(map, key, attempts - 1);
+                      });
+            });
+  }
+}
@@ -5,6 +5,7 @@ import static iudx.resource.server.authenticator.Constants.ROLE;
 import static iudx.resource.server.common.Constants.*;
 import static iudx.resource.server.metering.util.Constants.*;
 import static iudx.resource.server.metering.util.Constants.IID;
+import static iudx.resource.server.metering.util.Constants.USER_ID;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -40,6 +41,7 @@ public class MeteringServiceImpl implements MeteringService {
   private final ObjectMapper objectMapper = new ObjectMapper();
   private final PostgresService postgresService;
   private final CacheService cacheService;
+  private final ApiQuotaCounter apiQuota;
   String queryPg;
   String queryCount;
   String queryOverview;
@@ -57,6 +59,7 @@ public class MeteringServiceImpl implements MeteringService {
     this.postgresService = postgresService;
     this.rmqService = DataBrokerService.createProxy(vertx, BROKER_SERVICE_ADDRESS);
     this.cacheService = cacheService;
+    this.apiQuota = new ApiQuotaCounter(vertx);
   }
 
   @Override
@@ -414,6 +417,12 @@ public class MeteringServiceImpl implements MeteringService {
           if (rmqHandler.succeeded()) {
             handler.handle(Future.succeededFuture());
             LOGGER.info("inserted into rmq");
+            String userId = request.getString(USER_ID);
+            if (userId != null) {
+              apiQuota
+                  .increment(userId)
+                  .onFailure(failure -> LOGGER.warn(failure.getMessage()));
+            }
           } else {
             LOGGER.error(rmqHandler.cause());
             try {
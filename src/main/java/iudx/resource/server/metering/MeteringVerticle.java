@@ -26,7 +26,7 @@ public class MeteringVerticle extends AbstractVerticle {
   public void start() throws Exception {
     binder = new ServiceBinder(vertx);
     postgresService = PostgresService.createProxy(vertx, PG_SERVICE_ADDRESS);
-    this.cacheService = CacheService.createProxy(vertx, CACHE_SERVICE_ADDRESS);
+    this.cacheService = CacheService.createReplica(vertx, CACHE_SERVICE_ADDRESS);
     metering = new MeteringServiceImpl(vertx, postgresService, cacheService);
     consumer =
         binder.setAddress(METERING_SERVICE_ADDRESS).register(MeteringService.class, metering);
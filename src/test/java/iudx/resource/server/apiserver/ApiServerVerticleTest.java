@@ -0,0 +1,107 @@
+package iudx.resource.server.apiserver;
+
+import static iudx.resource.server.apiserver.util.Constants.HEADER_PUBLIC_KEY;
+import static iudx.resource.server.common.Constants.RAW_RESULTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.common.ResponseUrn;
+import iudx.resource.server.database.latest.LatestDataService;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ApiServerVerticleTest {
+
+  private static final String ID = "iisc.ac.in/rs.iudx.io/pune-env-flood/FWR055";
+
+  @Mock LatestDataService latestDataService;
+  @Mock CacheService cacheService;
+  @Mock RoutingContext routingContext;
+  @Mock HttpServerRequest request;
+  @Mock HttpServerResponse response;
+  @InjectMocks ApiServerVerticle apiServerVerticle;
+
+  @BeforeEach
+  public void setUp() {
+    Map<String, Object> data = new HashMap<>();
+    data.put("authInfo", new JsonObject().put("id", ID));
+    when(routingContext.request()).thenReturn(request);
+    when(routingContext.data()).thenReturn(data);
+    when(request.getHeader(HEADER_PUBLIC_KEY)).thenReturn(null);
+    when(response.putHeader(anyString(), anyString())).thenReturn(response);
+    when(response.setStatusCode(anyInt())).thenReturn(response);
+    when(cacheService.get(any())).thenReturn(Future.failedFuture("not cached"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private JsonObject latestResponse(JsonObject result) {
+    doAnswer(
+            invocation -> {
+              ((Handler<AsyncResult<JsonObject>>) invocation.getArgument(1))
+                  .handle(Future.succeededFuture(result));
+              return null;
+            })
+        .when(latestDataService)
+        .getLatestData(any(), any());
+    apiServerVerticle.executeLatestSearchQuery(
+        routingContext, new JsonObject().put(RAW_RESULTS, true), response);
+
+    ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+    verify(response).end(body.capture());
+    return new JsonObject(body.getValue());
+  }
+
+  @Test
+  @DisplayName("Test latest values passed on raw are sent as the results array")
+  public void testRawLatestResponse() {
+    JsonObject value = new JsonObject().put("id", ID).put("observationDateTime", "2024-01-01");
+    JsonObject result =
+        new JsonObject()
+            .put("type", ResponseUrn.SUCCESS_URN.getUrn())
+            .put("title", "Success")
+            .put(RAW_RESULTS, "[" + value.encode() + "]");
+
+    JsonObject body = latestResponse(result);
+
+    assertEquals(new JsonArray().add(value), body.getJsonArray("results"));
+    assertEquals(ResponseUrn.SUCCESS_URN.getUrn(), body.getString("type"));
+    assertFalse(body.containsKey(RAW_RESULTS));
+  }
+
+  @Test
+  @DisplayName("Test decoded latest values are sent unchanged")
+  public void testLatestResponse() {
+    JsonArray results = new JsonArray().add(new JsonObject().put("id", ID));
+    JsonObject result =
+        new JsonObject()
+            .put("type", ResponseUrn.SUCCESS_URN.getUrn())
+            .put("title", "Success")
+            .put("results", results);
+
+    assertEquals(results, latestResponse(result).getJsonArray("results"));
+  }
+}
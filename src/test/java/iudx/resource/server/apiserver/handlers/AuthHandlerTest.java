@@ -132,7 +132,7 @@ public class AuthHandlerTest {
     when(routingContext.body().asJsonObject()).thenReturn(jsonObject);
     when(routingContext.request()).thenReturn(httpServerRequest);
     when(httpServerRequest.path()).thenReturn(url);
-    AuthHandler.authenticator = mock(AuthenticationService.class);
+    authHandler.authenticator = mock(AuthenticationService.class);
     when(httpServerRequest.headers()).thenReturn(map);
     when(map.get(anyString())).thenReturn("Dummy Token");
     when(asyncResult.succeeded()).thenReturn(true);
@@ -143,14 +143,14 @@ public class AuthHandlerTest {
         ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult);
         return null;
       }
-    }).when(AuthHandler.authenticator).tokenInterospect(any(), any(), any());
+    }).when(authHandler.authenticator).tokenInterospect(any(), any(), any());
 
     authHandler.handle(routingContext);
 
     assertEquals(path, routingContext.request().path());
     assertEquals("Dummy Token", routingContext.request().headers().get(HEADER_TOKEN));
     assertEquals("GET", routingContext.request().method().toString());
-    verify(AuthHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
+    verify(authHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
     verify(routingContext, times(3)).body();
 
     vertxTestContext.completeNow();
@@ -173,7 +173,7 @@ public class AuthHandlerTest {
 
     // when(routingContext.body().asJsonObject()).thenReturn(jsonObject);
     when(httpServerRequest.path()).thenReturn(str);
-    AuthHandler.authenticator = mock(AuthenticationService.class);
+    authHandler.authenticator = mock(AuthenticationService.class);
     when(httpServerRequest.headers()).thenReturn(map);
     when(map.get(anyString())).thenReturn("Dummy token");
     when(asyncResult.cause()).thenReturn(throwable);
@@ -186,7 +186,7 @@ public class AuthHandlerTest {
     doAnswer((Answer<AsyncResult<JsonObject>>) arg0 -> {
       ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult);
       return null;
-    }).when(AuthHandler.authenticator).tokenInterospect(any(), any(), any());
+    }).when(authHandler.authenticator).tokenInterospect(any(), any(), any());
 
 
     authHandler.handle(routingContext);
@@ -194,7 +194,7 @@ public class AuthHandlerTest {
     assertEquals(Constants.IUDX_ASYNC_STATUS, routingContext.request().path());
     assertEquals("Dummy token", routingContext.request().headers().get(HEADER_TOKEN));
     assertEquals("GET", routingContext.request().method().toString());
-    verify(AuthHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
+    verify(authHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
     verify(httpServerResponse, times(1)).setStatusCode(anyInt());
     verify(httpServerResponse, times(1)).putHeader(anyString(), anyString());
     verify(httpServerResponse, times(1)).end(anyString());
@@ -220,7 +220,7 @@ public class AuthHandlerTest {
 
     when(routingContext.pathParams()).thenReturn(stringMap);
     when(routingContext.pathParams().isEmpty()).thenReturn(false);
-    AuthHandler.authenticator = mock(AuthenticationService.class);
+    authHandler.authenticator = mock(AuthenticationService.class);
     when(routingContext.pathParams().containsKey(anyString())).thenReturn(true);
     when(routingContext.pathParams().get(anyString())).thenReturn("Dummy_value");
     when(httpServerRequest.headers()).thenReturn(map);
@@ -238,14 +238,14 @@ public class AuthHandlerTest {
         ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult);
         return null;
       }
-    }).when(AuthHandler.authenticator).tokenInterospect(any(), any(), any());
+    }).when(authHandler.authenticator).tokenInterospect(any(), any(), any());
 
     authHandler.handle(routingContext);
 
     assertEquals(Constants.IUDX_ASYNC_STATUS, routingContext.request().path());
     assertEquals("Dummy token", routingContext.request().headers().get(HEADER_TOKEN));
     assertEquals("GET", routingContext.request().method().toString());
-    verify(AuthHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
+    verify(authHandler.authenticator, times(1)).tokenInterospect(any(), any(), any());
     verify(httpServerResponse, times(1)).setStatusCode(anyInt());
     verify(httpServerResponse, times(1)).putHeader(anyString(), anyString());
     verify(httpServerResponse, times(1)).end(anyString());
@@ -257,7 +257,7 @@ public class AuthHandlerTest {
   @DisplayName("Test create method")
   @Test
   public void testCanCreate(VertxTestContext vertxTestContext) {
-    AuthHandler.authenticator = mock(AuthenticationService.class);
+    authHandler.authenticator = mock(AuthenticationService.class);
     assertNotNull(AuthHandler.create(Vertx.vertx(),apis));
     vertxTestContext.completeNow();
   }
@@ -45,6 +45,7 @@ public class ValidationHandlerTest {
         Arguments.of(RequestType.ENTITY),
         Arguments.of(RequestType.TEMPORAL),
         Arguments.of(RequestType.LATEST),
+        Arguments.of(RequestType.LATEST_BATCH),
         Arguments.of(RequestType.POST_TEMPORAL),
         Arguments.of(RequestType.POST_ENTITIES),
         Arguments.of(RequestType.SUBSCRIPTION),
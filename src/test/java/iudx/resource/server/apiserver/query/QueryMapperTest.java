@@ -9,7 +9,9 @@ import static iudx.resource.server.apiserver.util.Constants.JSON_RADIUS;
 import static iudx.resource.server.apiserver.util.Constants.JSON_VALUE;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_ATTRIBUTE;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_COORDINATES;
+import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_CURSOR;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_ENDTIME;
+import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_FROM;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_GEOMETRY;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_GEOPROPERTY;
 import static iudx.resource.server.apiserver.util.Constants.NGSILDQUERY_GEOREL;
@@ -285,6 +287,53 @@ public class QueryMapperTest {
     testContext.completeNow();
   }
 
+  @Test
+  @Description("QueryMapper test for temporal cursor pagination")
+  public void testToJson4TemporalCursor(Vertx vertx, VertxTestContext testContext) {
+    MultiMap map = MultiMap.caseInsensitiveMultiMap();
+    map.add(NGSILDQUERY_ID, "id1");
+    map.add(NGSILDQUERY_TIMEREL, "during");
+    map.add(NGSILDQUERY_TIME, "2020-01-23T14:20:00Z");
+    map.add(NGSILDQUERY_ENDTIME, "2020-01-24T14:40:00Z");
+    map.add(NGSILDQUERY_CURSOR, "*");
+    NgsildQueryParams params = new NgsildQueryParams(map);
+
+    JsonObject json = qm.toJson(params, true);
+    assertEquals("*", json.getString(NGSILDQUERY_CURSOR));
+    testContext.completeNow();
+  }
+
+  @Test
+  @Description("QueryMapper test for cursor pagination on a non temporal query")
+  public void testToJson4NonTemporalCursor(Vertx vertx, VertxTestContext testContext) {
+    MultiMap map = MultiMap.caseInsensitiveMultiMap();
+    map.add(NGSILDQUERY_ID, "id1");
+    map.add(NGSILDQUERY_CURSOR, "*");
+    NgsildQueryParams params = new NgsildQueryParams(map);
+
+    assertNull(qm.toJson(params, false));
+    assertNull(qm.toJson(params, true, true));
+    verify(context,times(2)).fail(anyInt(),any());
+    testContext.completeNow();
+  }
+
+  @Test
+  @Description("QueryMapper test for cursor pagination with offset")
+  public void testToJson4CursorWithOffset(Vertx vertx, VertxTestContext testContext) {
+    MultiMap map = MultiMap.caseInsensitiveMultiMap();
+    map.add(NGSILDQUERY_ID, "id1");
+    map.add(NGSILDQUERY_TIMEREL, "during");
+    map.add(NGSILDQUERY_TIME, "2020-01-23T14:20:00Z");
+    map.add(NGSILDQUERY_ENDTIME, "2020-01-24T14:40:00Z");
+    map.add(NGSILDQUERY_CURSOR, "*");
+    map.add(NGSILDQUERY_FROM, "100");
+    NgsildQueryParams params = new NgsildQueryParams(map);
+
+    assertNull(qm.toJson(params, true));
+    verify(context,times(1)).fail(anyInt(),any());
+    testContext.completeNow();
+  }
+
   @AfterEach
   public void teardown() {
 
@@ -79,14 +79,13 @@ public class CatalogueServiceTest {
             .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
     when(cache.get(any()))
         .thenReturn(Future.succeededFuture(jsonObject))
-        .thenReturn(Future.succeededFuture(cacheReply))
-        .thenReturn(Future.succeededFuture(new JsonObject()));
+        .thenReturn(Future.succeededFuture(cacheReply));
     catalogueService
         .getApplicableFilters(id)
         .onComplete(
             handler -> {
               if (handler.succeeded()) {
-                verify(cache, times(3)).get(any());
+                verify(cache, times(2)).get(any());
                 vertxTestContext.completeNow();
               } else {
                 vertxTestContext.failNow(handler.cause());
@@ -109,19 +108,19 @@ public class CatalogueServiceTest {
             .put("id", "b58da193-23d9-43eb-b98a-a103d4b6103c")
             .put("type", list)
             .put("name", "dummy_name")
-            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
+            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22")
+            .put("iudxResourceAPIs", new JsonArray().add("TEMPORAL"));
 
     when(cache.get(any()))
         .thenReturn(Future.succeededFuture(jsonObject))
-        .thenReturn(Future.succeededFuture(new JsonObject()))
-        .thenReturn(Future.succeededFuture(cacheReply));
+        .thenReturn(Future.succeededFuture(new JsonObject()));
 
     catalogueService
         .getApplicableFilters(id)
         .onComplete(
             handler -> {
               if (handler.succeeded()) {
-                verify(cache, times(3)).get(any());
+                verify(cache, times(2)).get(any());
                 vertxTestContext.completeNow();
               } else {
                 vertxTestContext.failNow(handler.cause());
@@ -130,7 +129,7 @@ public class CatalogueServiceTest {
   }
 
   @Test
-  @DisplayName("Test getApplicableFilters method fail [Resource level]")
+  @DisplayName("Test getApplicableFilters method fail [No filters for group or resource]")
   public void testGetApplicableFiltersFailItem(VertxTestContext vertxTestContext) {
     String id = "abcd/abcd/abcd";
     JsonObject cacheReply = new JsonObject();
@@ -147,15 +146,14 @@ public class CatalogueServiceTest {
             .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
     when(cache.get(any()))
         .thenReturn(Future.succeededFuture(jsonObject))
-        .thenReturn(Future.succeededFuture(new JsonObject()))
-        .thenReturn(Future.failedFuture("Failed"));
+        .thenReturn(Future.succeededFuture(new JsonObject()));
 
     catalogueService
         .getApplicableFilters(id)
         .onComplete(
             handler -> {
               if (handler.failed()) {
-                verify(cache, times(3)).get(any());
+                verify(cache, times(2)).get(any());
                 vertxTestContext.completeNow();
               } else {
                 vertxTestContext.failNow(handler.cause());
@@ -189,7 +187,7 @@ public class CatalogueServiceTest {
         .onComplete(
             handler -> {
               if (handler.failed()) {
-                verify(cache, times(3)).get(any());
+                verify(cache, times(2)).get(any());
                 vertxTestContext.completeNow();
               } else {
                 vertxTestContext.failNow(handler.cause());
@@ -68,15 +68,16 @@ public class SubscriptionServiceTest {
         when(json.getString(anyString())).thenReturn("STREAMING");
         when(jsonArray.getString(anyInt())).thenReturn("Dummy String");
         when(authInfo.getString(anyString())).thenReturn("Dummy authInfo value");
+        when(authInfo.getString("expiry")).thenReturn("2024-01-01T10:00:00");
         when(service.subscription.create(any())).thenReturn(jsonObjectFuture);
 
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
 
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
@@ -159,6 +160,7 @@ public class SubscriptionServiceTest {
         when(json.getJsonArray(anyString())).thenReturn(jsonArray);
         when(jsonArray.getString(anyInt())).thenReturn("Dummy entity");
         when(authInfo.getString(anyString())).thenReturn("Dummy authinfo value");
+        when(authInfo.getString("expiry")).thenReturn("2024-01-01T10:00:00");
         when(asyncResult.succeeded()).thenReturn(true);
         when(asyncResult.result()).thenReturn(json);
         when(jsonArray.size()).thenReturn(3);
@@ -166,10 +168,10 @@ public class SubscriptionServiceTest {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         service.updateSubscription(json, databroker, pgService, authInfo).onComplete(handler -> {
             if (handler.succeeded()) {
                 JsonObject expected = new JsonObject("{\"type\":\"urn:dx:rs:success\",\"title\":\"success\",\"results\":[{\"entities\":[\"Dummy entity\"]}]}\n");
@@ -195,10 +197,10 @@ public class SubscriptionServiceTest {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         service.updateSubscription(json, databroker, pgService, authInfo).onComplete(handler -> {
             if (handler.succeeded()) {
                 JsonObject expected = new JsonObject().put("type",400)
@@ -225,10 +227,10 @@ public class SubscriptionServiceTest {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         service.updateSubscription(json, databroker, pgService, authInfo).onComplete(handler -> {
             if (handler.failed()) {
                 String throwable = "io.vertx.core.impl.NoStackTraceThrowable: ";
@@ -261,10 +263,10 @@ public class SubscriptionServiceTest {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         service.deleteSubscription(json, databroker, pgService).onComplete(handler -> {
             if (handler.succeeded()) {
                 assertEquals(json, handler.result());
@@ -371,6 +373,7 @@ public class SubscriptionServiceTest {
         when(json.getJsonArray(anyString())).thenReturn(jsonArray);
         when(jsonArray.getString(anyInt())).thenReturn("Dummy entity");
         when(authInfo.getString(anyString())).thenReturn("Dummy expiry");
+        when(authInfo.getString("expiry")).thenReturn("2024-01-01T10:00:00");
         when(jsonArray.getJsonObject(anyInt())).thenReturn(json);
         service = new SubscriptionService();
         service.subscription = mock(Subscription.class);
@@ -386,10 +389,10 @@ public class SubscriptionServiceTest {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         when(cacheService.get(any())).thenReturn(Future.succeededFuture(json));
         service.appendSubscription(json, databroker, pgService, authInfo,cacheService).onComplete(handler -> {
             if (handler.succeeded()) {
@@ -445,10 +448,10 @@ public class SubscriptionServiceTest {
         Mockito.doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg1) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg1.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
 
 
         subscriptionService.getAllSubscriptionQueueForUser(jsonObject, pgService).onComplete(handler -> {
@@ -27,13 +27,16 @@ public class TestElasticSearchFileResponseTypeValidator {
         Arguments.of("json", false),
         Arguments.of("csv", true),
         Arguments.of("parquet", true),
-        Arguments.of("json", true));
+        Arguments.of("json", true),
+        Arguments.of("json.gz", true),
+        Arguments.of("csv.gz", false));
   }
 
   static Stream<Arguments> inputValues() {
 
     return Stream.of(
         Arguments.of("HTML", false),
+        Arguments.of("parquet.gz", false),
         Arguments.of("", true),
         Arguments.of(null, true),
         Arguments.of("", false));
@@ -0,0 +1,95 @@
+package iudx.resource.server.authenticator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AuthorizationDecisionCacheTest {
+
+  private static final String ID = "83c2e5c2-3574-4e11-9530-2b1fbdfce832";
+  private static final String ENDPOINT = "/ngsi-ld/v1/entities";
+
+  private SimpleMeterRegistry registry;
+  private AuthorizationDecisionCache cache;
+  private long exp;
+
+  private double gets(String result) {
+    return registry
+        .get(AuthorizationDecisionCache.CACHE_GETS)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  @BeforeEach
+  public void setUp() {
+    registry = new SimpleMeterRegistry();
+    cache = new AuthorizationDecisionCache(10, registry);
+    exp = Instant.now().getEpochSecond() + 300;
+  }
+
+  @Test
+  @DisplayName("Test decision is served for the same request only")
+  public void testHitAndMiss() {
+    JsonObject response = new JsonObject().put("userid", "sub-1").put("role", "consumer");
+    cache.put("token-1", ID, ENDPOINT, "GET", "sub-1", exp, response, 0);
+    response.put("role", "changed");
+
+    JsonObject decision = cache.get("token-1", ID, ENDPOINT, "GET");
+    assertEquals("consumer", decision.getString("role"));
+    decision.put("role", "changed");
+    assertEquals("consumer", cache.get("token-1", ID, ENDPOINT, "GET").getString("role"));
+    assertNull(cache.get("token-1", ID, ENDPOINT, "POST"));
+    assertNull(cache.get("token-1", "other-id", ENDPOINT, "GET"));
+    assertNull(cache.get("token-2", ID, ENDPOINT, "GET"));
+    assertEquals(2.0, gets("hit"));
+    assertEquals(3.0, gets("miss"));
+  }
+
+  @Test
+  @DisplayName("Test decision of an expired token is dropped")
+  public void testExpired() {
+    long expired = Instant.now().getEpochSecond() - 1;
+    cache.put("token-1", ID, ENDPOINT, "GET", "sub-1", expired, new JsonObject(), 0);
+
+    assertNull(cache.get("token-1", ID, ENDPOINT, "GET"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  @DisplayName("Test revocation and catalogue changes evict decisions")
+  public void testInvalidate() {
+    cache.put("token-1", ID, ENDPOINT, "GET", "sub-1", exp, new JsonObject(), 0);
+    cache.put("token-2", ID, ENDPOINT, "GET", "sub-2", exp, new JsonObject(), 0);
+
+    cache.invalidateSub("sub-1");
+    assertNull(cache.get("token-1", ID, ENDPOINT, "GET"));
+    assertEquals(1, cache.size());
+
+    cache.invalidateAll();
+    assertNull(cache.get("token-2", ID, ENDPOINT, "GET"));
+  }
+
+  @Test
+  @DisplayName("Test a decision made across an invalidation is not kept")
+  public void testInvalidatedDuringIntrospection() {
+    long sub1 = cache.generation("sub-1");
+    long sub2 = cache.generation("sub-2");
+    cache.invalidateSub("sub-1");
+    cache.put("token-1", ID, ENDPOINT, "GET", "sub-1", exp, new JsonObject(), sub1);
+    cache.put("token-2", ID, ENDPOINT, "GET", "sub-2", exp, new JsonObject(), sub2);
+    assertNull(cache.get("token-1", ID, ENDPOINT, "GET"));
+    assertEquals(1, cache.size());
+
+    long all = cache.generation("sub-2");
+    cache.invalidateAll();
+    cache.put("token-2", ID, ENDPOINT, "GET", "sub-2", exp, new JsonObject(), all);
+    assertEquals(0, cache.size());
+  }
+}
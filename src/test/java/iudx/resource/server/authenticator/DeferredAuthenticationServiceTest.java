@@ -0,0 +1,92 @@
+package iudx.resource.server.authenticator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+public class DeferredAuthenticationServiceTest {
+
+  private AuthenticationService delegate;
+
+  @BeforeEach
+  public void setUp() {
+    delegate = mock(AuthenticationService.class);
+    doAnswer(
+            invocation -> {
+              Handler<AsyncResult<JsonObject>> handler = invocation.getArgument(2);
+              handler.handle(Future.succeededFuture(new JsonObject().put("userid", "user")));
+              return delegate;
+            })
+        .when(delegate)
+        .tokenInterospect(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Test requests wait until the service is created")
+  public void testDeferred(Vertx vertx) {
+    Promise<AuthenticationService> created = Promise.promise();
+    AuthenticationService service = new DeferredAuthenticationService(vertx, created::future, 10);
+
+    AtomicReference<AsyncResult<JsonObject>> result = new AtomicReference<>();
+    service.tokenInterospect(new JsonObject(), new JsonObject(), result::set);
+    verify(delegate, never()).tokenInterospect(any(), any(), any());
+
+    created.complete(delegate);
+    assertTrue(result.get().succeeded());
+    assertEquals("user", result.get().result().getString("userid"));
+  }
+
+  @Test
+  @DisplayName("Test requests fail until a retry creates the service")
+  public void testRetry(Vertx vertx, VertxTestContext testContext) {
+    AtomicInteger attempts = new AtomicInteger();
+    AuthenticationService service =
+        new DeferredAuthenticationService(
+            vertx,
+            () ->
+                attempts.incrementAndGet() < 3
+                    ? Future.failedFuture("fail to get JWT public key")
+                    : Future.succeededFuture(delegate),
+            10);
+
+    AtomicReference<AsyncResult<JsonObject>> result = new AtomicReference<>();
+    service.tokenInterospect(new JsonObject(), new JsonObject(), result::set);
+    assertFalse(result.get().succeeded());
+
+    vertx.setTimer(
+        200,
+        timerId ->
+            service.tokenInterospect(
+                new JsonObject(),
+                new JsonObject(),
+                testContext.succeeding(
+                    user ->
+                        testContext.verify(
+                            () -> {
+                              assertEquals("user", user.getString("userid"));
+                              assertEquals(3, attempts.get());
+                              testContext.completeNow();
+                            }))));
+  }
+}
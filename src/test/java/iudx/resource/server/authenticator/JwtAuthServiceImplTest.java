@@ -201,7 +201,7 @@ public class JwtAuthServiceImplTest {
     when(cacheService.get(closedIdJson)).thenReturn(Future.succeededFuture(new JsonObject().put("accessPolicy", "SECURE")));
 
     jwtAuthenticationService.tokenInterospect(request, authInfo, handler -> {
-      if (handler.failed()) {
+      if (handler.succeeded()) {
         testContext.completeNow();
       } else {
         testContext.failNow("invalid access");
@@ -1250,4 +1250,35 @@ public class JwtAuthServiceImplTest {
       }
     });
   }
+
+  @Test
+  @Order(36)
+  @DisplayName("fail - refuse a batched /entities query if any id is not allowed")
+  public void failBatchedEntitiesIds(VertxTestContext testContext) {
+
+    JsonObject request = new JsonObject();
+    JsonObject authInfo = new JsonObject();
+    authInfo.put("token", JwtTokenHelper.closedConsumerApiToken);
+    authInfo.put("id", closeId + "," + invalidId);
+    authInfo.put("apiEndpoint", apis.getEntitiesUrl());
+    authInfo.put("method", Method.GET);
+
+    JsonObject jsonObject =
+        new JsonObject()
+            .put("id", "b58da193-23d9-43eb-b98a-a103d4b6103c")
+            .put("type", new JsonArray().add("iudx:Resource"))
+            .put("name", "dummy_name")
+            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22")
+            .put("value", "2021-09-09T12:52:37")
+            .put("accessPolicy", "SECURE");
+
+    when(cacheService.get(any())).thenReturn(Future.succeededFuture(jsonObject));
+    jwtAuthenticationService.tokenInterospect(request, authInfo, handler -> {
+      if (handler.succeeded()) {
+        testContext.failNow("batched query allowed for an id outside the token");
+      } else {
+        testContext.completeNow();
+      }
+    });
+  }
 }
@@ -0,0 +1,83 @@
+package iudx.resource.server.authenticator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ProviderOwnerCacheTest {
+
+  private static final String RESOURCE_ID = "83c2e5c2-3574-4e11-9530-2b1fbdfce832";
+  private static final String PROVIDER_ID = "b58da193-23d9-43eb-b98a-a103d4b6103c";
+
+  private List<Promise<JsonObject>> lookups;
+  private ProviderOwnerCache cache;
+
+  @BeforeEach
+  public void setUp() {
+    lookups = new ArrayList<>();
+    cache =
+        new ProviderOwnerCache(
+            id -> {
+              Promise<JsonObject> promise = Promise.promise();
+              lookups.add(promise);
+              return promise.future();
+            });
+  }
+
+  @Test
+  @DisplayName("Test concurrent lookups share one catalogue call")
+  public void testSingleFlight() {
+    Future<String> first = cache.get(RESOURCE_ID);
+    Future<String> second = cache.get(RESOURCE_ID);
+    assertSame(first, second);
+    assertEquals(1, lookups.size());
+
+    lookups.get(0).complete(new JsonObject().put("id", PROVIDER_ID).put("ownerUserId", "owner"));
+    assertEquals("owner", first.result());
+    assertEquals("owner", cache.get(RESOURCE_ID).result());
+    assertEquals(1, lookups.size());
+  }
+
+  @Test
+  @DisplayName("Test failed lookup is not remembered")
+  public void testFailure() {
+    Future<String> failed = cache.get(RESOURCE_ID);
+    lookups.get(0).fail("catalogue down");
+    assertTrue(failed.failed());
+
+    cache.get(RESOURCE_ID);
+    assertEquals(2, lookups.size());
+  }
+
+  @Test
+  @DisplayName("Test changes of the resource or its provider evict the owner")
+  public void testInvalidate() {
+    cache.get(RESOURCE_ID);
+    cache.get("other-resource");
+    lookups
+        .get(0)
+        .complete(new JsonObject().put("id", PROVIDER_ID).put("providerUserId", "provider-user"));
+    lookups.get(1).complete(new JsonObject().put("id", "other-provider").put("ownerUserId", "o"));
+    assertEquals(2, cache.size());
+
+    cache.invalidate(new JsonObject().put("ids", new JsonArray().add(PROVIDER_ID)));
+    assertEquals(1, cache.size());
+    cache.invalidate(new JsonObject().put("ids", new JsonArray().add("other-resource")));
+    assertEquals(0, cache.size());
+
+    cache.get(RESOURCE_ID);
+    lookups.get(2).complete(new JsonObject().put("id", PROVIDER_ID).put("ownerUserId", "owner"));
+    cache.invalidate(new JsonObject().put("all", true));
+    assertEquals(0, cache.size());
+  }
+}
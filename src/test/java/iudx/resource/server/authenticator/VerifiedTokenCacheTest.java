@@ -0,0 +1,66 @@
+package iudx.resource.server.authenticator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.authenticator.model.JwtData;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class VerifiedTokenCacheTest {
+
+  private SimpleMeterRegistry registry;
+  private VerifiedTokenCache cache;
+
+  private static JwtData jwtData(String sub, long exp) {
+    JwtData jwtData = new JwtData(new JsonObject().put("sub", sub).put("role", "consumer"));
+    jwtData.setExp((int) exp);
+    return jwtData;
+  }
+
+  private double gets(String result) {
+    return registry.get(VerifiedTokenCache.CACHE_GETS).tag("result", result).counter().count();
+  }
+
+  @BeforeEach
+  public void setUp() {
+    registry = new SimpleMeterRegistry();
+    cache = new VerifiedTokenCache(10, registry);
+  }
+
+  @Test
+  @DisplayName("Test verified token is served until it expires")
+  public void testHitAndMiss() {
+    long now = Instant.now().getEpochSecond();
+    JwtData valid = jwtData("sub-1", now + 300);
+    cache.put("token-1", valid);
+    cache.put("token-2", jwtData("sub-1", now - 1));
+
+    assertSame(valid, cache.get("token-1"));
+    assertNull(cache.get("token-2"));
+    assertNull(cache.get("token-3"));
+    assertEquals(1, cache.size());
+    assertEquals(1.0, gets("hit"));
+    assertEquals(2.0, gets("miss"));
+  }
+
+  @Test
+  @DisplayName("Test revocation evicts every token of the client")
+  public void testInvalidateSub() {
+    long exp = Instant.now().getEpochSecond() + 300;
+    cache.put("token-1", jwtData("sub-1", exp));
+    cache.put("token-2", jwtData("sub-1", exp));
+    cache.put("token-3", jwtData("sub-2", exp));
+
+    cache.invalidateSub("sub-1");
+
+    assertNull(cache.get("token-1"));
+    assertNull(cache.get("token-2"));
+    assertEquals("sub-2", cache.get("token-3").getSub());
+  }
+}
@@ -0,0 +1,223 @@
+package iudx.resource.server.cache;
+
+import static iudx.resource.server.common.Constants.CATALOGUE_CACHE_INVALIDATION_ADDRESS;
+import static iudx.resource.server.common.Constants.CATALOGUE_ITEM_ADDRESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import iudx.resource.server.cache.cachelmpl.CacheType;
+import iudx.resource.server.cache.cachelmpl.CatalogueItem;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+public class CatalogueCacheReplicaTest {
+  private static final String ID = "iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/rs/item";
+
+  private CacheService delegate;
+  private CatalogueCacheReplica replica;
+  private Queue<Future<CatalogueItem>> answers;
+  private int requests;
+
+  @BeforeEach
+  public void setUp(Vertx vertx) {
+    delegate = mock(CacheService.class);
+    answers = new ArrayDeque<>();
+    requests = 0;
+    vertx
+        .eventBus()
+        .<String>consumer(
+            CATALOGUE_ITEM_ADDRESS,
+            message -> {
+              requests++;
+              Future<CatalogueItem> answer = answers.size() > 1 ? answers.poll() : answers.peek();
+              answer.onComplete(
+                  ar -> {
+                    if (ar.succeeded()) {
+                      message.reply(ar.result());
+                    } else {
+                      message.fail(404, ar.cause().getMessage());
+                    }
+                  });
+            });
+    replica = new CatalogueCacheReplica(vertx, delegate);
+  }
+
+  @Test
+  @DisplayName("Test catalogue items are read through once and copied to callers")
+  public void testReadThrough(VertxTestContext testContext) {
+    answers.add(Future.succeededFuture(item("v1")));
+
+    replica
+        .get(request(ID))
+        .compose(first -> replica.get(request(ID)).map(second -> first))
+        .onComplete(
+            testContext.succeeding(
+                first -> {
+                  assertEquals(1, requests);
+                  assertEquals("v1", first.getString("name"));
+                  first.put("name", "changed");
+                  replica
+                      .get(request(ID))
+                      .onComplete(
+                          testContext.succeeding(
+                              again -> {
+                                assertEquals("v1", again.getString("name"));
+                                testContext.completeNow();
+                              }));
+                }));
+  }
+
+  @Test
+  @DisplayName("Test concurrent misses share one event bus request")
+  public void testSingleFlight(VertxTestContext testContext) {
+    Promise<CatalogueItem> pending = Promise.promise();
+    answers.add(pending.future());
+
+    Future<JsonObject> first = replica.get(request(ID));
+    Future<JsonObject> second = replica.get(request(ID));
+    pending.complete(item("v1"));
+
+    Future.all(first, second)
+        .onComplete(
+            testContext.succeeding(
+                all -> {
+                  assertEquals(1, requests);
+                  assertNotSame(first.result(), second.result());
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test typed reads share the parsed item")
+  public void testGetItem(VertxTestContext testContext) {
+    CatalogueItem item = item("v1");
+    answers.add(Future.succeededFuture(item));
+
+    CatalogueCacheReplica.getItem(replica, ID)
+        .compose(first -> CatalogueCacheReplica.getItem(replica, ID).map(second -> first))
+        .onComplete(
+            testContext.succeeding(
+                first -> {
+                  assertSame(item, first);
+                  assertEquals(1, requests);
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test typed reads through a plain cache service parse the proxy reply")
+  public void testGetItemFromProxy(VertxTestContext testContext) {
+    when(delegate.get(any())).thenReturn(Future.succeededFuture(item("v1").toJson()));
+
+    CatalogueCacheReplica.getItem(delegate, ID)
+        .onComplete(
+            testContext.succeeding(
+                item -> {
+                  assertEquals("v1", item.getName());
+                  assertEquals(true, item.isResource());
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test other caches and failures are not kept")
+  public void testPassThrough(VertxTestContext testContext) {
+    answers.add(Future.failedFuture("No entry for given key"));
+    answers.add(Future.succeededFuture(item("v1")));
+    when(delegate.get(any())).thenReturn(Future.failedFuture("No entry for given key"));
+    JsonObject revoked =
+        new JsonObject().put("type", CacheType.REVOKED_CLIENT).put("key", "client-id");
+
+    replica
+        .get(request(ID))
+        .recover(failure -> replica.get(request(ID)))
+        .compose(found -> replica.get(revoked).recover(failure -> Future.succeededFuture()))
+        .onComplete(
+            testContext.succeeding(
+                done -> {
+                  assertEquals(2, requests);
+                  verify(delegate, times(1)).get(any());
+                  assertEquals(1, replica.size());
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test broadcast invalidation drops the listed items")
+  public void testInvalidation(Vertx vertx, VertxTestContext testContext) {
+    answers.add(Future.succeededFuture(item("v1")));
+    answers.add(Future.succeededFuture(item("v2")));
+
+    replica
+        .get(request(ID))
+        .onComplete(
+            testContext.succeeding(
+                first -> {
+                  vertx
+                      .eventBus()
+                      .publish(
+                          CATALOGUE_CACHE_INVALIDATION_ADDRESS,
+                          new JsonObject().put("ids", new JsonArray().add(ID)));
+                  vertx.setTimer(
+                      100,
+                      timer ->
+                          replica
+                              .get(request(ID))
+                              .onComplete(
+                                  testContext.succeeding(
+                                      second -> {
+                                        assertEquals("v2", second.getString("name"));
+                                        assertEquals(2, requests);
+                                        testContext.completeNow();
+                                      })));
+                }));
+  }
+
+  @Test
+  @DisplayName("Test an invalidation received while loading is not overwritten")
+  public void testInvalidationWhileLoading(VertxTestContext testContext) {
+    Promise<CatalogueItem> pending = Promise.promise();
+    answers.add(pending.future());
+
+    Future<JsonObject> loading = replica.get(request(ID));
+    replica.invalidate(new JsonObject().put("all", true));
+    pending.complete(item("v1"));
+
+    loading.onComplete(
+        testContext.succeeding(
+            loaded -> {
+              assertEquals(0, replica.size());
+              testContext.completeNow();
+            }));
+  }
+
+  private static JsonObject request(String id) {
+    return new JsonObject().put("type", CacheType.CATALOGUE_CACHE).put("key", id);
+  }
+
+  private static CatalogueItem item(String name) {
+    return new CatalogueItem(
+        new JsonObject()
+            .put("id", ID)
+            .put("name", name)
+            .put("type", new JsonArray().add("iudx:Resource")));
+  }
+}
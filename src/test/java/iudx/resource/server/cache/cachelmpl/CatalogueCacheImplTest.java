@@ -1,9 +1,11 @@
 package iudx.resource.server.cache.cachelmpl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpRequest;
@@ -11,6 +13,8 @@ import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -20,7 +24,12 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 
+import static iudx.resource.server.common.Constants.CATALOGUE_CACHE_INVALIDATION_ADDRESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 @ExtendWith(VertxExtension.class)
@@ -36,7 +45,10 @@ public class CatalogueCacheImplTest {
     HttpResponse<Buffer> httpResponse;
     @Mock
     AsyncResult<HttpResponse<Buffer>> asyncResult;
+    @Mock
+    EventBus eventBus;
     CatalogueCacheImpl CatalogueCacheImpl;
+    JsonObject catalogueItem;
 
     @BeforeEach
     public void setUp(VertxTestContext vertxTestContext) {
@@ -50,6 +62,7 @@ public class CatalogueCacheImplTest {
         JsonObject jsonObject1 = new JsonObject();
         jsonObject1.put("id", "abcd/abcd/abcd/abcd");
         jsonObject1.put("iudxResourceAPIs", jsonArray1);
+        catalogueItem = jsonObject1;
         jsonArray.add(jsonObject1);
         jsonObject.put("results", jsonArray);
 
@@ -87,5 +100,134 @@ public class CatalogueCacheImplTest {
         vertxTestContext.completeNow();
     }
 
+    @Test
+    @DisplayName("Testing refresh publishes the ids of changed items")
+    void testRefreshPublishesChangedIds(VertxTestContext vertxTestContext) {
+        when(vertxObj.eventBus()).thenReturn(eventBus);
+        CatalogueCacheImpl.refreshCache();
+        verify(eventBus, never()).publish(anyString(), any());
+
+        catalogueItem.put("accessPolicy", "OPEN");
+        CatalogueCacheImpl.refreshCache();
+        verify(eventBus)
+            .publish(
+                CATALOGUE_CACHE_INVALIDATION_ADDRESS,
+                new JsonObject().put("ids", new JsonArray().add("abcd/abcd/abcd/abcd")));
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Testing concurrent misses share one item lookup")
+    void testMissLoadsOneItem(VertxTestContext vertxTestContext) {
+        List<Handler<AsyncResult<HttpResponse<Buffer>>>> sent = stubItemLookup();
+        HttpResponse<Buffer> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.bodyAsJsonObject())
+            .thenReturn(
+                new JsonObject()
+                    .put(
+                        "results",
+                        new JsonArray()
+                            .add(
+                                new JsonObject()
+                                    .put("id", "new-id")
+                                    .put("type", new JsonArray().add("iudx:Resource"))
+                                    .put("itemStatus", "ACTIVE"))));
+
+        Future<CatalogueItem> first = CatalogueCacheImpl.getItem("new-id");
+        Future<CatalogueItem> second = CatalogueCacheImpl.getItem("new-id");
+        assertEquals(1, sent.size());
+        sent.get(0).handle(Future.succeededFuture(response));
+
+        assertSame(first.result(), second.result());
+        assertTrue(first.result().isResource());
+        assertFalse(first.result().toJson().containsKey("itemStatus"));
+        assertSame(first.result(), CatalogueCacheImpl.getItem("new-id").result());
+        assertEquals(1, sent.size());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Testing unknown ids are remembered")
+    void testUnknownIdIsRemembered(VertxTestContext vertxTestContext) {
+        List<Handler<AsyncResult<HttpResponse<Buffer>>>> sent = stubItemLookup();
+        HttpResponse<Buffer> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(404);
+
+        Future<CatalogueItem> first = CatalogueCacheImpl.getItem("unknown-id");
+        sent.get(0).handle(Future.succeededFuture(response));
+
+        assertTrue(first.failed());
+        assertTrue(CatalogueCacheImpl.getItem("unknown-id").failed());
+        assertEquals(1, sent.size());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Testing items stay readable while a refresh is running")
+    void testRefreshKeepsItems(VertxTestContext vertxTestContext) {
+        List<Handler<AsyncResult<HttpResponse<Buffer>>>> sent = new ArrayList<>();
+        doAnswer(
+                invocation -> {
+                    sent.add(invocation.getArgument(0));
+                    return null;
+                })
+            .when(httpRequest)
+            .send(any());
+
+        CatalogueCacheImpl.refreshCache();
+        CatalogueCacheImpl.refreshCache();
+        assertEquals(1, sent.size());
+        assertTrue(CatalogueCacheImpl.getItem("abcd/abcd/abcd/abcd").succeeded());
+
+        sent.get(0).handle(asyncResult);
+        assertTrue(CatalogueCacheImpl.getItem("abcd/abcd/abcd/abcd").succeeded());
+        vertxTestContext.completeNow();
+    }
 
+    @Test
+    @DisplayName("Testing an item event replaces only that item")
+    void testRefreshOneItem(VertxTestContext vertxTestContext) {
+        when(vertxObj.eventBus()).thenReturn(eventBus);
+        List<Handler<AsyncResult<HttpResponse<Buffer>>>> sent = stubItemLookup();
+        HttpResponse<Buffer> updated = mock(HttpResponse.class);
+        when(updated.statusCode()).thenReturn(200, 404);
+        when(updated.bodyAsJsonObject())
+            .thenReturn(
+                new JsonObject()
+                    .put(
+                        "results",
+                        new JsonArray().add(catalogueItem.copy().put("accessPolicy", "OPEN"))));
+
+        CatalogueCacheImpl.refresh("abcd/abcd/abcd/abcd");
+        sent.get(0).handle(Future.succeededFuture(updated));
+        assertEquals(
+            "OPEN", CatalogueCacheImpl.getItem("abcd/abcd/abcd/abcd").result().getAccessPolicy());
+
+        CatalogueCacheImpl.refresh("abcd/abcd/abcd/abcd");
+        sent.get(1).handle(Future.succeededFuture(updated));
+        assertTrue(CatalogueCacheImpl.getItem("abcd/abcd/abcd/abcd").failed());
+        verify(eventBus, times(2))
+            .publish(
+                CATALOGUE_CACHE_INVALIDATION_ADDRESS,
+                new JsonObject().put("ids", new JsonArray().add("abcd/abcd/abcd/abcd")));
+        assertEquals(2, sent.size());
+        vertxTestContext.completeNow();
+    }
+
+    private List<Handler<AsyncResult<HttpResponse<Buffer>>>> stubItemLookup() {
+        HttpRequest<Buffer> itemRequest = mock(HttpRequest.class);
+        List<Handler<AsyncResult<HttpResponse<Buffer>>>> sent = new ArrayList<>();
+        when(CatalogueCacheImpl.catWebClient.get(anyInt(), anyString(), eq("/iudx/cat/v1/item")))
+            .thenReturn(itemRequest);
+        when(itemRequest.addQueryParam(anyString(), anyString())).thenReturn(itemRequest);
+        doAnswer(
+                invocation -> {
+                    sent.add(invocation.getArgument(0));
+                    return null;
+                })
+            .when(itemRequest)
+            .send(any());
+        return sent;
+    }
 }
@@ -0,0 +1,87 @@
+package iudx.resource.server.cache.cachelmpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CatalogueItemTest {
+
+  private static final String GROUP_ID = "8b95ab80-2aaf-4636-a65e-7f2563d0d371";
+  private static final String RESOURCE_ID = "83c2e5c2-3574-4e11-9530-2b1fbdfce832";
+
+  @Test
+  @DisplayName("Test resource fields are parsed once")
+  public void testResource() {
+    JsonObject json =
+        new JsonObject()
+            .put("id", RESOURCE_ID)
+            .put("name", "surat-itms-live-eta")
+            .put("provider", "provider-id")
+            .put("resourceGroup", GROUP_ID)
+            .put("type", new JsonArray().add("iudx:Resource").add("iudx:TransitManagement"))
+            .put("iudxResourceAPIs", new JsonArray().add("TEMPORAL").add("ATTR"));
+    CatalogueItem item = new CatalogueItem(json);
+    json.put("name", "changed");
+
+    assertTrue(item.isResource());
+    assertEquals(GROUP_ID, item.getGroupId());
+    assertEquals("surat-itms-live-eta", item.getName());
+    assertEquals("provider-id", item.getProvider());
+    assertEquals(Set.of("Resource"), item.getItemTypes());
+    assertEquals("Resource", item.getItemType());
+    assertEquals(List.of("TEMPORAL", "ATTR"), item.getIudxResourceApis());
+    assertNull(item.getAccessPolicy());
+    assertThrows(UnsupportedOperationException.class, () -> item.getIudxResourceApis().add("x"));
+  }
+
+  @Test
+  @DisplayName("Test a group is its own group and json is copied out")
+  public void testGroup() {
+    CatalogueItem item =
+        new CatalogueItem(
+            new JsonObject()
+                .put("id", GROUP_ID)
+                .put("accessPolicy", "OPEN")
+                .put("type", new JsonArray().add("iudx:ResourceGroup")));
+
+    assertFalse(item.isResource());
+    assertEquals(GROUP_ID, item.getGroupId());
+    assertEquals("OPEN", item.getAccessPolicy());
+    assertNull(item.getIudxResourceApis());
+    JsonObject copy = item.toJson();
+    copy.put("accessPolicy", "SECURE");
+    assertEquals("OPEN", item.toJson().getString("accessPolicy"));
+  }
+
+  @Test
+  @DisplayName("Test codec shares local items and sends json to other nodes")
+  public void testCodec() {
+    CatalogueItem item =
+        new CatalogueItem(
+            new JsonObject()
+                .put("id", RESOURCE_ID)
+                .put("resourceGroup", GROUP_ID)
+                .put("type", new JsonArray().add("iudx:Resource")));
+    CatalogueItemCodec codec = new CatalogueItemCodec();
+
+    assertSame(item, codec.transform(item));
+    Buffer wire = Buffer.buffer().appendByte((byte) 1);
+    codec.encodeToWire(wire, item);
+    CatalogueItem decoded = codec.decodeFromWire(1, wire);
+    assertNotSame(item, decoded);
+    assertEquals(item, decoded);
+    assertEquals(GROUP_ID, decoded.getGroupId());
+  }
+}
@@ -1,6 +1,7 @@
 package iudx.resource.server.cache.cachelmpl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
@@ -17,6 +18,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 import org.testcontainers.shaded.com.google.common.cache.Cache;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
@@ -70,4 +73,38 @@ public class UniqueAttributeCacheTest {
 
 
     }
+
+    @Test
+    @DisplayName("refresh one key from db")
+    public void refreshKeyTest(VertxTestContext vertxTestContext) {
+        uniqueAttributeCache = new UniqueAttributeCache(vertx, postgresService);
+        JsonObject row =
+            new JsonObject()
+                .put("resource_id", "dummy id")
+                .put("unique_attribute", "license_plate");
+        doAnswer(
+                invocation -> {
+                    JsonObject params = invocation.getArgument(1);
+                    JsonArray result = new JsonArray();
+                    if ("dummy id".equals(params.getString("id"))) {
+                        result.add(row);
+                    }
+                    ((Handler<AsyncResult<JsonObject>>) invocation.getArgument(2))
+                        .handle(Future.succeededFuture(new JsonObject().put("result", result)));
+                    return null;
+                })
+            .when(postgresService)
+            .executePreparedQuery(anyString(), any(), any());
+
+        uniqueAttributeCache.refresh("dummy id");
+        assertEquals(
+            "license_plate",
+            uniqueAttributeCache.get("dummy id").result().getValue().getString("value"));
+
+        uniqueAttributeCache.put(
+            "removed id", uniqueAttributeCache.createCacheValue("removed id", "x"));
+        uniqueAttributeCache.refresh("removed id");
+        assertTrue(uniqueAttributeCache.get("removed id").failed());
+        vertxTestContext.completeNow();
+    }
 }
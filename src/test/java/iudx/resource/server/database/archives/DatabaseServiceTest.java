@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BiFunction;
 
 import io.vertx.core.Future;
 import iudx.resource.server.cache.CacheService;
@@ -29,11 +30,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import iudx.resource.server.configuration.Configuration;
 import iudx.resource.server.database.elastic.ElasticClient;
+import iudx.resource.server.database.elastic.SearchCursor;
 @ExtendWith({VertxExtension.class, MockitoExtension.class})
 public class DatabaseServiceTest {
   private static final Logger LOGGER = LogManager.getLogger(DatabaseServiceTest.class);
@@ -133,8 +137,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
 
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       testContext.completeNow();
@@ -338,8 +341,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -452,8 +454,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertEquals(handler,esJson);
@@ -503,8 +504,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getString("results"));
@@ -594,9 +594,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
 
@@ -682,8 +680,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertEquals(esJson, handler);
@@ -775,9 +772,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getString("results"));
@@ -823,9 +818,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getString("results"));
@@ -872,9 +865,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getString("results"));
@@ -1026,9 +1017,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertEquals(handler,esJson);
@@ -1272,9 +1261,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
     dbSpy.search(request).onSuccess(handler -> {
       assertEquals(esJson, handler);
       testContext.completeNow();
@@ -1391,9 +1378,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
       testContext.completeNow();
@@ -1436,9 +1421,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
       testContext.completeNow();
@@ -1481,9 +1464,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -1527,8 +1508,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
 
     dbSpy.search(request).onSuccess(handler -> {
@@ -1574,8 +1554,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -1637,8 +1616,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -1682,8 +1660,7 @@ public class DatabaseServiceTest {
             .when(dbSpy).checkQuery(any());
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",1)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbSpy.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -2094,9 +2071,8 @@ public class DatabaseServiceTest {
 
    when(cacheService.get(any(JsonObject.class))).thenReturn(Future.succeededFuture(jsonObject));
 
-    JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",60000)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-JsonObject expectedJson = new JsonObject().put("type",413).put("title","urn:dx:rs:payloadTooLarge").put("details","Response size exceeds limit use filters to get value within limit or use async api");
+    JsonObject expectedJson = new JsonObject().put("type",413).put("title","urn:dx:rs:payloadTooLarge").put("details","Response size exceeds limit use filters to get value within limit or use async api");
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),eq(RESPONSE_SIZE_LIMIT))).thenReturn(Future.failedFuture(expectedJson.toString()));
     dbService
         .search(request)
         .onFailure(
@@ -2139,8 +2115,7 @@ JsonObject expectedJson = new JsonObject().put("type",413).put("title","urn:dx:r
     when(cacheService.get(any(JsonObject.class))).thenReturn(Future.succeededFuture(jsonObject));
 
     JsonObject esJson = new JsonObject().put("type","urn:dx:rs:success").put("title","Success").put("results", new JsonArray().add(new JsonObject().put("totalHits",0)));
-    when(elasticClient.asyncCount(anyString(),any())).thenReturn(Future.succeededFuture(esJson));
-    when(elasticClient.asyncSearch(anyString(),any(),anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(esJson));
+    when(elasticClient.asyncSearchWithCount(anyString(),any(),anyInt(),anyInt(),any(),anyInt())).thenReturn(Future.succeededFuture(esJson));
 
     dbService.search(request).onSuccess(handler -> {
       assertNotNull(handler.getJsonArray("results"));
@@ -2383,6 +2358,104 @@ JsonObject expectedJson = new JsonObject().put("type",413).put("title","urn:dx:r
               testContext.completeNow();
             });
   }
-}
 
+  @Test
+  @DisplayName("Testing search stream sends envelope, pages and closing")
+  void searchStream(VertxTestContext testContext) {
+    Vertx vertx = Vertx.vertx();
+    JsonObject request = new JsonObject()
+            .put("id", new JsonArray().add("b58da193-23d9-43eb-b98a-a103d4b6103c"))
+            .put("searchType", "geoSearch_")
+            .put("lon", 72.8296)
+            .put("lat", 21.2)
+            .put("radius", 1000)
+            .put("applicableFilters", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"));
+    JsonObject jsonObject = new JsonObject()
+            .put("id", "b58da193-23d9-43eb-b98a-a103d4b6103c")
+            .put("type", new JsonArray().add("iudx:Resource").add("iudx:TransitManagement"))
+            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
+    when(cacheService.get(any(JsonObject.class))).thenReturn(Future.succeededFuture(jsonObject));
+    when(elasticClient.asyncStreamSearch(
+            anyString(), any(), anyInt(), anyInt(), any(), anyInt(), anyInt(), any()))
+        .thenAnswer(
+            invocation -> {
+              BiFunction<Long, Buffer, Future<Void>> pageHandler = invocation.getArgument(7);
+              return pageHandler
+                  .apply(2L, Buffer.buffer("{\"id\":1}"))
+                  .compose(page -> pageHandler.apply(2L, Buffer.buffer("{\"id\":2}")))
+                  .map(new JsonObject().put("totalHits", 2L));
+            });
+    Buffer body = Buffer.buffer();
+    vertx.eventBus().<Buffer>consumer("test.search.stream", message -> {
+      body.appendBuffer(message.body());
+      message.reply(null);
+    });
+
+    new DatabaseServiceImpl(vertx, elasticClient, timeLimit, tenantPrefix, cacheService)
+        .searchStream(request, "test.search.stream")
+        .onComplete(testContext.succeeding(handler -> testContext.verify(() -> {
+          JsonObject response = body.toJsonObject();
+          assertEquals("urn:dx:rs:success", response.getString("type"));
+          assertEquals(2, response.getInteger("totalHits"));
+          assertEquals(5000, response.getInteger("limit"));
+          assertEquals(new JsonArray().add(new JsonObject().put("id", 1))
+              .add(new JsonObject().put("id", 2)), response.getJsonArray("results"));
+          assertEquals(2, handler.getInteger("totalHits"));
+          vertx.close(testContext.succeeding(closed -> testContext.completeNow()));
+        })));
+  }
+
+  @Test
+  @DisplayName("Testing search with cursor pagination")
+  void searchWithCursor(VertxTestContext testContext) {
+    JsonObject request = new JsonObject()
+            .put("id", new JsonArray().add("b58da193-23d9-43eb-b98a-a103d4b6103c"))
+            .put("searchType", "temporalSearch_")
+            .put("timerel", "during")
+            .put("time", "2020-10-10T20:00:00+05:30")
+            .put("endtime", "2020-10-11T20:00:00+05:30")
+            .put("cursor", "*")
+            .put("applicableFilters", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"));
+    JsonObject jsonObject = new JsonObject()
+            .put("id", "b58da193-23d9-43eb-b98a-a103d4b6103c")
+            .put("type", new JsonArray().add("iudx:Resource").add("iudx:TransitManagement"))
+            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
+    when(cacheService.get(any(JsonObject.class))).thenReturn(Future.succeededFuture(jsonObject));
+    when(elasticClient.asyncCursorSearch(anyString(), any(), anyInt(), any(), isNull()))
+        .thenReturn(Future.succeededFuture(new JsonObject().put("nextCursor", "abc")));
+
+    databaseServiceImpl.search(request).onComplete(testContext.succeeding(response -> {
+      testContext.verify(() -> {
+        assertEquals("abc", response.getString("nextCursor"));
+        assertEquals(5000, response.getInteger("limit"));
+        testContext.completeNow();
+      });
+    }));
+  }
 
+  @Test
+  @DisplayName("Testing search with cursor of another index")
+  void searchWithForeignCursor(VertxTestContext testContext) {
+    String cursor = new SearchCursor("iudx__other", "pit", List.of(FieldValue.of(1L)), 10L).encode();
+    JsonObject request = new JsonObject()
+            .put("id", new JsonArray().add("b58da193-23d9-43eb-b98a-a103d4b6103c"))
+            .put("searchType", "temporalSearch_")
+            .put("timerel", "during")
+            .put("time", "2020-10-10T20:00:00+05:30")
+            .put("endtime", "2020-10-11T20:00:00+05:30")
+            .put("cursor", cursor)
+            .put("applicableFilters", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"));
+    JsonObject jsonObject = new JsonObject()
+            .put("id", "b58da193-23d9-43eb-b98a-a103d4b6103c")
+            .put("type", new JsonArray().add("iudx:Resource").add("iudx:TransitManagement"))
+            .put("resourceGroup", "5b7556b5-0779-4c47-9cf2-3f209779aa22");
+    when(cacheService.get(any(JsonObject.class))).thenReturn(Future.succeededFuture(jsonObject));
+
+    databaseServiceImpl.search(request).onComplete(testContext.failing(failure -> {
+      testContext.verify(() -> {
+        assertEquals(INVALID_CURSOR, new JsonObject(failure.getMessage()).getString("detail"));
+        testContext.completeNow();
+      });
+    }));
+  }
+}
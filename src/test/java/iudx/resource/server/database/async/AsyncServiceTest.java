@@ -98,7 +98,8 @@ public class AsyncServiceTest {
     cacheSer = mock(CacheService.class);
 
     asyncService =
-        new AsyncServiceImpl(vertx, client, pgService, fileOpsHelper, filePath, tenantPrefix,cacheSer);
+        new AsyncServiceImpl(vertx, client, pgService, fileOpsHelper, filePath, tenantPrefix,cacheSer,
+            1, 50000, null, false);
     asyncServiceSpy = spy(asyncService);
     asyncService2 = spy(asyncService);
 
@@ -114,12 +115,12 @@ public class AsyncServiceTest {
               @SuppressWarnings("unchecked")
               @Override
               public AsyncResult<JsonObject> answer(InvocationOnMock arg0) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(1)).handle(asyncResult1);
+                ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult1);
                 return null;
               }
             })
         .when(pgService)
-        .executeQuery(any(), any());
+        .executeParameterizedQuery(any(), any(), any());
 
     Mockito.doAnswer(
             new Answer<AsyncResult<JsonObject>>() {
@@ -131,7 +132,8 @@ public class AsyncServiceTest {
               }
             })
         .when(client)
-        .asyncScroll(any(File.class), any(), any(),any(), any(), any(), anyString(), anyString());
+        .asyncScroll(any(File.class), any(), any(), any(),any(), any(), any(), anyString(), anyString(),
+            anyInt(), anyInt(), any());
 
     Mockito.doAnswer(
             new Answer<AsyncResult<JsonObject>>() {
@@ -204,7 +206,7 @@ public class AsyncServiceTest {
     doAnswer(Answer -> Future.succeededFuture(record))
         .when(asyncServiceSpy)
         .getRecord4RequestId(any());
-    doAnswer(Answer -> Future.succeededFuture()).when(asyncServiceSpy).executePgQuery(any());
+    doAnswer(Answer -> Future.succeededFuture()).when(asyncServiceSpy).executePgQuery(any(), any());
 
     JsonObject providerJson =
             new JsonObject()
@@ -233,7 +235,8 @@ public class AsyncServiceTest {
     when(asyncResult1.succeeded()).thenReturn(true);
     when(asyncResult1.result()).thenReturn(jsonObject);
 
-    when(client.asyncScroll(any(),anyString(),any(),any(),anyString(),any(),anyString(),anyString())).thenReturn(Future.failedFuture(""));
+    when(client.asyncScroll(any(),any(),anyString(),any(),any(),anyString(),any(),anyString(),anyString(),
+        anyInt(),anyInt(),any())).thenReturn(Future.failedFuture(""));
 
     asyncServiceSpy.asyncSearch(requestId, sub, searchId, query, "csv","consumer","","");
 
@@ -269,11 +272,12 @@ public class AsyncServiceTest {
             .put("size", 0);
     when(asyncResult2.succeeded()).thenReturn(true);
     when(asyncResult2.result()).thenReturn(jsonObject2);
-    when(client.asyncScroll(any(),anyString(),any(),any(),anyString(),any(),anyString(),anyString())).thenReturn(Future.succeededFuture(jsonObject2));
+    when(client.asyncScroll(any(),any(),anyString(),any(),any(),anyString(),any(),anyString(),anyString(),
+        anyInt(),anyInt(),any())).thenReturn(Future.succeededFuture(jsonObject2));
 
     asyncServiceSpy.asyncSearch(requestId, sub, searchId, query, "csv","consumer","","");
 
-    verify(asyncServiceSpy, times(1)).executePgQuery(any());
+    verify(asyncServiceSpy, times(1)).executePgQuery(any(), any());
     testContext.completeNow();
   }
   @Test
@@ -288,7 +292,9 @@ public class AsyncServiceTest {
     doAnswer(Answer -> Future.succeededFuture(record))
         .when(asyncServiceSpy)
         .getRecord4RequestId(any());
-    doAnswer(Answer -> Future.failedFuture("fail")).when(asyncServiceSpy).executePgQuery(any());
+    doAnswer(Answer -> Future.failedFuture("fail"))
+        .when(asyncServiceSpy)
+        .executePgQuery(any(), any());
 
     asyncServiceSpy.asyncSearch(requestId, sub, searchId, query, "csv","consumer","","");
     testContext.completeNow();
@@ -429,7 +435,7 @@ public class AsyncServiceTest {
     when(asyncResult1.succeeded()).thenReturn(true);
 
     asyncService
-        .executePgQuery(query)
+        .executePgQuery(query, new JsonArray())
         .onComplete(
             handler -> {
               if (handler.succeeded()) {
@@ -449,13 +455,13 @@ public class AsyncServiceTest {
     doAnswer(new Answer<AsyncResult<JsonObject>>() {
       @Override
       public AsyncResult<JsonObject> answer(InvocationOnMock arg0) throws Throwable {
-        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(1)).handle(asyncResult2);
+        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult2);
         return null;
       }
-    }).when(postgresService).executeQuery(anyString(), any());
+    }).when(postgresService).executeParameterizedQuery(anyString(), any(), any());
     when(jsonArray.isEmpty()).thenReturn(true);
     asyncService2 = new AsyncServiceImpl(Vertx.vertx(), client, postgresService, fileOpsHelper,
-        filePath, tenantPrefix,cacheService);
+        filePath, tenantPrefix,cacheService, 1, 50000, null, false);
     asyncService2.getRecord4RequestId("Dummy ID").onComplete(handler -> {
       if (handler.failed()) {
         assertEquals("Record doesn't exist in db for requestId.", handler.cause().getMessage());
@@ -471,18 +477,18 @@ public class AsyncServiceTest {
   @DisplayName("Test executePGQuery method : failure")
   public void testExecutePgQueryFailure(VertxTestContext vertxTestContext) {
     asyncService2 = new AsyncServiceImpl(Vertx.vertx(), client, postgresService, fileOpsHelper,
-        filePath, tenantPrefix,cacheService);
+        filePath, tenantPrefix,cacheService, 1, 50000, null, false);
     when(asyncResult2.succeeded()).thenReturn(false);
     when(asyncResult2.cause()).thenReturn(throwable);
     doAnswer(new Answer<AsyncResult<JsonObject>>() {
       @Override
       public AsyncResult<JsonObject> answer(InvocationOnMock arg0) throws Throwable {
-        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(1)).handle(asyncResult2);
+        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult2);
         return null;
       }
-    }).when(postgresService).executeQuery(anyString(), any());
+    }).when(postgresService).executeParameterizedQuery(anyString(), any(), any());
 
-    asyncService2.executePgQuery("Dummy Query").onComplete(handler -> {
+    asyncService2.executePgQuery("Dummy Query", new JsonArray()).onComplete(handler -> {
       if (handler.succeeded()) {
         vertxTestContext.failNow(handler.cause());
       } else {
@@ -497,7 +503,7 @@ public class AsyncServiceTest {
   public void testScrollQueryWithInvalidQuery(VertxTestContext vertxTestContext) {
     ProgressListener progressListener = mock(ProgressListener.class);
     asyncService2 = new AsyncServiceImpl(Vertx.vertx(), client, postgresService, fileOpsHelper,
-        filePath, tenantPrefix,cacheService);
+        filePath, tenantPrefix,cacheService, 1, 50000, null, false);
     when(jsonObject.put(anyString(), anyBoolean())).thenReturn(jsonObject);
     asyncService2.scrollQuery(file, jsonObject, "Dummy SearchID", progressListener, "csv", handler -> {
       if (handler.succeeded()) {
@@ -521,10 +527,10 @@ public class AsyncServiceTest {
     lenient().doAnswer(new Answer<AsyncResult<JsonObject>>() {
       @Override
       public AsyncResult<JsonObject> answer(InvocationOnMock arg0) throws Throwable {
-        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(1)).handle(asyncResult2);
+        ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult2);
         return null;
       }
-    }).when(postgresService).executeQuery(anyString(), any());
+    }).when(postgresService).executeParameterizedQuery(anyString(), any(), any());
     listener = new AsyncFileScrollProgressListener("Dummy search ID", postgresService);
     listener.updateProgress(0.55);
     vertxTestContext.completeNow();
@@ -575,7 +581,7 @@ public void successfulAsyncSearchForExistingRecordTest2(VertxTestContext testCon
   doAnswer(Answer -> Future.succeededFuture(record))
           .when(asyncServiceSpy)
           .getRecord4RequestId(any());
-  doAnswer(Answer -> Future.succeededFuture()).when(asyncServiceSpy).executePgQuery(any());
+  doAnswer(Answer -> Future.succeededFuture()).when(asyncServiceSpy).executePgQuery(any(), any());
 
   JsonObject providerJson =
           new JsonObject()
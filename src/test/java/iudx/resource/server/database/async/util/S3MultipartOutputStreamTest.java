@@ -0,0 +1,150 @@
+package iudx.resource.server.database.async.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+public class S3MultipartOutputStreamTest {
+  private static final int PART_SIZE = 8;
+
+  private S3Client s3Client;
+  private SimpleMeterRegistry registry;
+  private Map<Integer, byte[]> uploadedParts;
+
+  @BeforeEach
+  public void setUp() {
+    s3Client = mock(S3Client.class);
+    registry = new SimpleMeterRegistry();
+    uploadedParts = new TreeMap<>();
+    when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+        .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenAnswer(
+            invocation -> {
+              UploadPartRequest request = invocation.getArgument(0);
+              RequestBody body = invocation.getArgument(1);
+              synchronized (uploadedParts) {
+                uploadedParts.put(request.partNumber(), read(body));
+              }
+              return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+            });
+  }
+
+  @Test
+  @DisplayName("Test an object smaller than a part is uploaded with a single put")
+  public void testSmallObject() throws IOException {
+    S3MultipartOutputStream stream = stream();
+    stream.write("[1]".getBytes(StandardCharsets.UTF_8));
+    stream.close();
+
+    ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+    verify(s3Client).putObject(any(PutObjectRequest.class), body.capture());
+    assertEquals("[1]", new String(read(body.getValue()), StandardCharsets.UTF_8));
+    verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    assertEquals(3, stream.getSize());
+  }
+
+  @Test
+  @DisplayName("Test bytes are uploaded in ordered parts and the upload is completed")
+  public void testMultipartUpload() throws IOException {
+    byte[] data = "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8);
+    S3MultipartOutputStream stream = stream();
+    stream.write(data[0]);
+    stream.write(data, 1, data.length - 1);
+    stream.close();
+
+    ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+        ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3Client).completeMultipartUpload(complete.capture());
+    assertEquals(
+        "1,2,3,4",
+        complete.getValue().multipartUpload().parts().stream()
+            .map(CompletedPart::partNumber)
+            .map(String::valueOf)
+            .collect(Collectors.joining(",")));
+    ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+    for (byte[] part : uploadedParts.values()) {
+      uploaded.write(part);
+    }
+    assertArrayEquals(data, uploaded.toByteArray());
+    assertEquals(data.length, stream.getSize());
+    assertEquals(4, registry.get(S3UploadMetrics.PART_DURATION).timer().count());
+    assertEquals(
+        data.length, registry.get(S3UploadMetrics.UPLOAD_BYTES).summary().totalAmount());
+  }
+
+  @Test
+  @DisplayName("Test a failed part aborts the upload")
+  public void testFailedPart() throws IOException {
+    when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+        .thenThrow(S3Exception.builder().message("part failed").build());
+    S3MultipartOutputStream stream = stream();
+    stream.write(new byte[PART_SIZE + 1]);
+
+    assertThrows(IOException.class, stream::close);
+    verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    assertEquals(
+        1, registry.get(S3UploadMetrics.UPLOAD_DURATION).tag("outcome", "failure").timer().count());
+  }
+
+  @Test
+  @DisplayName("Test abort discards the upload")
+  public void testAbort() throws IOException {
+    S3MultipartOutputStream stream = stream();
+    stream.write(new byte[PART_SIZE * 2]);
+    stream.abort();
+    stream.close();
+
+    verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    verify(s3Client, never()).close();
+    assertThrows(IOException.class, () -> stream.write(1));
+  }
+
+  private S3MultipartOutputStream stream() {
+    return new S3MultipartOutputStream(
+        s3Client,
+        "bucket",
+        "object",
+        "attachment; filename=export.json",
+        PART_SIZE,
+        2,
+        new S3UploadMetrics(registry));
+  }
+
+  private static byte[] read(RequestBody body) throws IOException {
+    try (InputStream in = body.contentStreamProvider().newStream()) {
+      return in.readAllBytes();
+    }
+  }
+}
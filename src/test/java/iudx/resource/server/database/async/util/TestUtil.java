@@ -56,10 +56,10 @@ public class TestUtil {
         doAnswer(new Answer<AsyncResult<JsonObject>>() {
             @Override
             public AsyncResult<JsonObject> answer(InvocationOnMock arg0) throws Throwable {
-                ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(1)).handle(asyncResult);
+                ((Handler<AsyncResult<JsonObject>>) arg0.getArgument(2)).handle(asyncResult);
                 return null;
             }
-        }).when(pgService).executeQuery(anyString(), any());
+        }).when(pgService).executeParameterizedQuery(anyString(), any(), any());
         util.writeToDb(searchID,requestID,sub).onComplete(handler -> {
             if (handler.succeeded()) {
                 vertxTestContext.failNow(handler.cause());
@@ -0,0 +1,120 @@
+package iudx.resource.server.database.elastic;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares CSV export of nested ITMS documents through {@link CsvColumnPlan} and {@link
+ * CsvRowWriter} with the per-hit {@link JsonFlatten} maps previously used by {@link
+ * EsResponseFormatterToCsv}. Rows are written into a null writer so only flattening and
+ * formatting are measured.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=iudx.resource.server.database.elastic.CsvFlattenBenchmark}, add {@code -prof
+ * gc} through the runner options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvFlattenBenchmark {
+
+  @Param({"100000"})
+  int hitCount;
+
+  List<Hit<ObjectNode>> hits;
+  Set<String> headers;
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(CsvFlattenBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    hits = new ArrayList<>(hitCount);
+    for (int i = 0; i < hitCount; i++) {
+      String doc =
+          "{\"id\":\"suratmunicipal.org/6db486cb4f720e8585ba1f45a931c63c25dbbbda/rs.iudx.org.in/"
+              + "surat-itms-realtime-info/surat-itms-live-eta\","
+              + "\"trip_id\":\""
+              + (5000 + i)
+              + "\",\"route\":{\"id\":\"56U\",\"name\":\"Sachin, GIDC\",\"direction\":\"UP\","
+              + "\"stops\":{\"last\":{\"id\":\"2405\",\"arrival\":\"20:42:00\"},"
+              + "\"next\":{\"id\":\"2406\",\"eta\":"
+              + (i % 300)
+              + "}}},\"actual_trip_start_time\":\"2020-10-10T20:25:00+05:30\",\"speed\":"
+              + (i % 60)
+              + ".5,\"trip_delay\":"
+              + i
+              + ",\"vehicle\":{\"license_plate\":\"GJ05BX1234\",\"label\":\"S1\","
+              + "\"status\":{\"ignition\":true,\"door\":{\"front\":\"closed\",\"rear\":\"open\"}}},"
+              + "\"location\":{\"type\":\"Point\",\"coordinates\":[72.8296,21.2]},"
+              + "\"observationDateTime\":\"2020-10-10T20:45:00+05:30\"}";
+      ObjectNode source = (ObjectNode) mapper.readTree(doc);
+      String id = String.valueOf(i);
+      hits.add(Hit.of(h -> h.index("iudx__surat-itms").id(id).source(source)));
+    }
+    headers = CsvColumnPlan.discover(hits.subList(0, 1)).columns();
+  }
+
+  @Benchmark
+  public Writer jsonFlatten() throws IOException {
+    Writer writer = Writer.nullWriter();
+    for (Hit<ObjectNode> hit : hits) {
+      Map<String, Object> map = new JsonFlatten(hit.source()).flatten();
+      StringBuilder row = new StringBuilder();
+      for (String field : headers) {
+        Object cell = map.get(field);
+        if (cell == null) {
+          row.append(",");
+        } else {
+          String cellValue = cell.toString();
+          if (cellValue.contains(",") || cellValue.contains("\"")) {
+            cellValue = "\"" + cellValue.replace("\"", "\"\"") + "\"";
+          }
+          row.append(cellValue).append(",");
+        }
+      }
+      writer.append(row.substring(0, row.length() - 1)).append("\n");
+    }
+    return writer;
+  }
+
+  @Benchmark
+  public Writer columnPlan() throws IOException {
+    Writer writer = Writer.nullWriter();
+    CsvRowWriter rowWriter = new CsvRowWriter(CsvColumnPlan.of(headers), writer);
+    for (Hit<ObjectNode> hit : hits) {
+      rowWriter.writeRow(hit.source());
+    }
+    return writer;
+  }
+}
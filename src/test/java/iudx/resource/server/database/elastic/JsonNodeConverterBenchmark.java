@@ -0,0 +1,92 @@
+package iudx.resource.server.database.elastic;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares hit materialisation through {@link JsonNodeConverter} with the toString/parse path
+ * previously used in {@link ElasticClient#asyncSearch}.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=iudx.resource.server.database.elastic.JsonNodeConverterBenchmark}, add {@code
+ * -prof gc} through the runner options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonNodeConverterBenchmark {
+
+  @Param({"5000"})
+  int hitCount;
+
+  List<Hit<ObjectNode>> hits;
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(JsonNodeConverterBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    hits = new ArrayList<>(hitCount);
+    for (int i = 0; i < hitCount; i++) {
+      String doc =
+          "{\"id\":\"suratmunicipal.org/6db486cb4f720e8585ba1f45a931c63c25dbbbda/rs.iudx.org.in/"
+              + "surat-itms-realtime-info/surat-itms-live-eta\","
+              + "\"trip_id\":\""
+              + (5000 + i)
+              + "\",\"route_id\":\"56U\",\"trip_direction\":\"UP\",\"actual_trip_start_time\":"
+              + "\"2020-10-10T20:25:00+05:30\",\"last_stop_arrival_time\":\"20:42:00\","
+              + "\"last_stop_id\":\"2405\",\"speed\":"
+              + (i % 60)
+              + ".5,\"trip_delay\":"
+              + i
+              + ",\"license_plate\":\"GJ05BX1234\",\"vehicle_label\":\"S1\","
+              + "\"location\":{\"type\":\"Point\",\"coordinates\":[72.8296,21.2]},"
+              + "\"observationDateTime\":\"2020-10-10T20:45:00+05:30\"}";
+      ObjectNode source = (ObjectNode) mapper.readTree(doc);
+      String id = String.valueOf(i);
+      hits.add(Hit.of(h -> h.index("iudx__surat-itms").id(id).source(source)));
+    }
+  }
+
+  @Benchmark
+  public JsonArray stringRoundTrip() {
+    JsonArray dbResponse = new JsonArray();
+    for (Hit<ObjectNode> esHitResponse : hits) {
+      dbResponse.add(new JsonObject(esHitResponse.source().toString()));
+    }
+    return dbResponse;
+  }
+
+  @Benchmark
+  public JsonArray treeConversion() {
+    return JsonNodeConverter.decodeHits(hits);
+  }
+}
@@ -0,0 +1,268 @@
+package iudx.resource.server.database.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeRequest;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeResponse;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeRequest;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+public class TestElasticClient {
+
+  private static final Query MATCH_ALL = Query.of(q -> q.matchAll(m -> m));
+
+  private ElasticsearchAsyncClient asyncClient;
+  private ElasticClient elasticClient;
+  private List<SearchRequest> searches;
+  private int documents;
+
+  @BeforeEach
+  public void setUp() {
+    asyncClient = mock(ElasticsearchAsyncClient.class);
+    elasticClient = new ElasticClient("localhost", 9200, "user", "password");
+    elasticClient.asyncClient = asyncClient;
+    searches = new ArrayList<>();
+
+    when(asyncClient.openPointInTime(any(OpenPointInTimeRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(OpenPointInTimeResponse.of(r -> r.id("pit"))));
+    when(asyncClient.closePointInTime(any(ClosePointInTimeRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ClosePointInTimeResponse.of(r -> r.succeeded(true).numFreed(1))));
+    when(asyncClient.search(any(SearchRequest.class), eq(ObjectNode.class)))
+        .thenAnswer(
+            invocation -> {
+              SearchRequest request = invocation.getArgument(0);
+              searches.add(request);
+              return CompletableFuture.completedFuture(page(request));
+            });
+  }
+
+  /** Documents 0..documents-1 in _shard_doc order, paged as ES would. */
+  private SearchResponse<ObjectNode> page(SearchRequest request) {
+    int start =
+        request.searchAfter().isEmpty()
+            ? (request.from() == null ? 0 : request.from())
+            : (int) request.searchAfter().get(0).longValue() + 1;
+    int end = Math.min(documents, start + request.size());
+    List<Hit<ObjectNode>> hits = new ArrayList<>();
+    for (int doc = start; doc < end; doc++) {
+      ObjectNode source = JsonNodeFactory.instance.objectNode().put("id", doc);
+      String id = String.valueOf(doc);
+      FieldValue shardDoc = FieldValue.of(doc);
+      hits.add(Hit.of(h -> h.index("index").id(id).source(source).sort(shardDoc)));
+    }
+    return SearchResponse.of(
+        r ->
+            r.took(1)
+                .timedOut(false)
+                .pitId("pit")
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .hits(
+                    h ->
+                        h.total(t -> t.value(documents).relation(TotalHitsRelation.Eq))
+                            .hits(hits)));
+  }
+
+  @Test
+  @DisplayName("Test stream pages continue after the last hit of one point in time")
+  public void testStreamSearch(VertxTestContext testContext) {
+    documents = 5;
+    JsonArray received = new JsonArray();
+    elasticClient
+        .asyncStreamSearch(
+            "index",
+            MATCH_ALL,
+            4,
+            1,
+            null,
+            100,
+            2,
+            (totalHits, page) -> {
+              received.addAll(new JsonArray("[" + page.toString() + "]"));
+              return Future.succeededFuture();
+            })
+        .onComplete(
+            testContext.succeeding(
+                result ->
+                    testContext.verify(
+                        () -> {
+                          assertEquals(5L, result.getLong("totalHits"));
+                          assertEquals(
+                              new JsonArray()
+                                  .add(new JsonObject().put("id", 1))
+                                  .add(new JsonObject().put("id", 2))
+                                  .add(new JsonObject().put("id", 3))
+                                  .add(new JsonObject().put("id", 4)),
+                              received);
+                          assertEquals(2, searches.size());
+                          assertEquals(1, searches.get(0).from());
+                          assertNull(searches.get(1).from());
+                          assertEquals(2L, searches.get(1).searchAfter().get(0).longValue());
+                          assertEquals("pit", searches.get(1).pit().id());
+                          verify(asyncClient).closePointInTime(any(ClosePointInTimeRequest.class));
+                          testContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a failing page handler fails the stream and closes the point in time")
+  public void testStreamSearchHandlerFailure(VertxTestContext testContext) {
+    documents = 3;
+    elasticClient
+        .asyncStreamSearch(
+            "index",
+            MATCH_ALL,
+            3,
+            0,
+            null,
+            100,
+            2,
+            (totalHits, page) -> {
+              throw new IllegalStateException("consumer gone");
+            })
+        .onComplete(
+            testContext.failing(
+                failure ->
+                    testContext.verify(
+                        () -> {
+                          assertTrue(failure instanceof IllegalStateException);
+                          verify(asyncClient).closePointInTime(any(ClosePointInTimeRequest.class));
+                          testContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test cursor pages end on the last full page")
+  public void testCursorSearchEndsOnExactPage(VertxTestContext testContext) {
+    documents = 4;
+    elasticClient
+        .asyncCursorSearch("index", MATCH_ALL, 2, null, null)
+        .compose(
+            first -> {
+              assertEquals(4L, first.getLong("totalHits"));
+              SearchCursor cursor = SearchCursor.decode(first.getString("nextCursor"));
+              assertEquals(2L, cursor.getRemainingHits());
+              return elasticClient.asyncCursorSearch("index", MATCH_ALL, 2, null, cursor);
+            })
+        .onComplete(
+            testContext.succeeding(
+                last ->
+                    testContext.verify(
+                        () -> {
+                          assertEquals(2, last.getJsonArray("results").size());
+                          assertFalse(last.containsKey("nextCursor"));
+                          assertEquals(2, searches.size());
+                          assertEquals("1m", searches.get(1).pit().keepAlive().time());
+                          verify(asyncClient).closePointInTime(any(ClosePointInTimeRequest.class));
+                          testContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a cursor page that cannot be read fails and closes the point in time")
+  public void testCursorSearchPageFailure(VertxTestContext testContext) {
+    documents = 4;
+    Hit<ObjectNode> hit =
+        Hit.of(h -> h.index("index").id("0").source(JsonNodeFactory.instance.objectNode()));
+    // a first page without a total hit count
+    when(asyncClient.search(any(SearchRequest.class), eq(ObjectNode.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                SearchResponse.of(
+                    r ->
+                        r.took(1)
+                            .timedOut(false)
+                            .shards(s -> s.total(1).successful(1).failed(0))
+                            .hits(h -> h.hits(List.of(hit))))));
+    elasticClient
+        .asyncCursorSearch("index", MATCH_ALL, 2, null, null)
+        .onComplete(
+            testContext.failing(
+                failure ->
+                    testContext.verify(
+                        () -> {
+                          assertTrue(failure instanceof NullPointerException);
+                          verify(asyncClient).closePointInTime(any(ClosePointInTimeRequest.class));
+                          testContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test the total hit count decides between 204, 413 and a response")
+  public void testCheckTotalHits() {
+    assertEquals(204, new JsonObject(elasticClient.checkTotalHits(0, 10)).getInteger("type"));
+    assertNull(elasticClient.checkTotalHits(10, 10));
+    JsonObject tooLarge = new JsonObject(elasticClient.checkTotalHits(11, 10));
+    assertEquals(413, tooLarge.getInteger("type"));
+    assertEquals("urn:dx:rs:payloadTooLarge", tooLarge.getString("title"));
+  }
+
+  @Test
+  @DisplayName("Test a search counting past the limit fails with 413")
+  public void testSearchWithCountTooLarge(VertxTestContext testContext) {
+    documents = 11;
+    elasticClient
+        .asyncSearchWithCount("index", MATCH_ALL, 5, 0, null, 10)
+        .onComplete(
+            testContext.failing(
+                failure ->
+                    testContext.verify(
+                        () -> {
+                          assertEquals(
+                              413, new JsonObject(failure.getMessage()).getInteger("type"));
+                          // counted just far enough to tell the limit is crossed
+                          assertEquals(11, searches.get(0).trackTotalHits().count());
+                          testContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a search without hits fails with 204")
+  public void testSearchWithCountEmpty(VertxTestContext testContext) {
+    documents = 0;
+    elasticClient
+        .asyncSearchWithCount("index", MATCH_ALL, 5, 0, null, 10)
+        .onComplete(
+            testContext.failing(
+                failure ->
+                    testContext.verify(
+                        () -> {
+                          assertEquals(
+                              204, new JsonObject(failure.getMessage()).getInteger("type"));
+                          testContext.completeNow();
+                        })));
+  }
+}
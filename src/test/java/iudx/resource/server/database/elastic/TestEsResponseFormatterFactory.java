@@ -35,7 +35,9 @@ public class TestEsResponseFormatterFactory {
   static Stream<Arguments> values() {
     return Stream.of(
         Arguments.of("csv", filePath +  "dummy_file" + "." + "csv"),
-        Arguments.of("json", filePath + "dummy_file" + "." + "json"));
+        Arguments.of("json", filePath + "dummy_file" + "." + "json"),
+        Arguments.of("json.gz", filePath + "dummy_file" + "." + "json.gz"),
+        Arguments.of("parquet", filePath + "dummy_file" + "." + "parquet"));
   }
 
   @ParameterizedTest
@@ -1,10 +1,12 @@
 package iudx.resource.server.database.elastic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
@@ -14,7 +16,12 @@ import iudx.resource.server.configuration.Configuration;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,65 +33,161 @@ import org.mockito.junit.jupiter.MockitoExtension;
 public class TestEsResponseFormatterToCsv {
     @Mock
     FileWriter fileWriter;
+    private final ObjectMapper mapper = new ObjectMapper();
     private EsResponseFormatterToCsv responseFormatterToCsv;
-    private File file;
-    private Configuration configuration;
-    private JsonObject config;
-    @Mock
-    private List<Hit<ObjectNode>> searchHits;
-    @Mock
-    private Hit<ObjectNode> objectNodeHit;
-    @Mock
-    private ObjectNode objectNode;
-    private Set<String> stringSet;
-    private JsonFlatten jsonFlatten;
-    @Mock
-    private Map<String, Object> map;
-    private LinkedHashMap<String, Object> stringObjectMap;
-
+    private StringWriter output;
 
     @BeforeEach
     public void setUp(VertxTestContext vertxTestContext)
     {
-        configuration = new Configuration();
-        config = configuration.configLoader(8, Vertx.vertx());
+        Configuration configuration = new Configuration();
+        JsonObject config = configuration.configLoader(8, Vertx.vertx());
         String filePath = config.getString("filePath") + "dummy_file" + "." + "csv";
-        file = new File(filePath);
-        EsResponseFormatterToCsv.jsonFlatten = mock(JsonFlatten.class);
-        jsonFlatten = EsResponseFormatterToCsv.jsonFlatten;
-        EsResponseFormatterToCsv.map = mock(LinkedHashMap.class);
-        stringObjectMap = EsResponseFormatterToCsv.map;
-        stringSet = new HashSet<>(Arrays.asList("header1" ,"header2", "header3", "header4"));
-        lenient().when(searchHits.get(anyInt())).thenReturn(objectNodeHit);
-        lenient().when(objectNodeHit.source()).thenReturn(objectNode);
-        lenient().when(jsonFlatten.flatten()).thenReturn(stringObjectMap);
-        lenient().when(stringObjectMap.keySet()).thenReturn(stringSet);
-        responseFormatterToCsv = new EsResponseFormatterToCsv(file);
+        responseFormatterToCsv = new EsResponseFormatterToCsv(new File(filePath));
+        output = new StringWriter();
+        responseFormatterToCsv.fileWriter = output;
         vertxTestContext.completeNow();
     }
 
     @Test
-    @DisplayName("Test method : Success")
+    @DisplayName("Test writeToCsv method : header discovered from every sample hit")
     public void testWriteMethod(VertxTestContext vertxTestContext)
     {
-        responseFormatterToCsv.writeToCsv(searchHits);
-        verify(searchHits, times(1)).get(anyInt());
-        verify(jsonFlatten,times(1)).flatten();
-        verify(stringObjectMap,times(1)).keySet();
+        Set<String> headers =
+            responseFormatterToCsv.writeToCsv(
+                List.of(
+                    hit("{\"id\":\"a\",\"location\":{\"coordinates\":[72.8,21.2]},\"x\":null}"),
+                    hit("{\"id\":\"b\",\"speed\":1.5,\"x\":true}")));
+
+        assertEquals(
+            List.of("id", "location.coordinates.0", "location.coordinates.1", "speed", "x"),
+            List.copyOf(headers));
+        assertEquals("id,location.coordinates.0,location.coordinates.1,speed,x\n", output.toString());
         vertxTestContext.completeNow();
     }
+
     @Test
-    @DisplayName("Test method : Failure")
+    @DisplayName("Test writeToCsv method : Failure")
     public void testWriteMethodFailure(VertxTestContext vertxTestContext) throws IOException {
-        responseFormatterToCsv.writeToCsv(searchHits);
         responseFormatterToCsv.fileWriter = mock(fileWriter.getClass());
         doThrow(new IOException()).when(responseFormatterToCsv.fileWriter).write(anyString());
 
-        verify(searchHits, times(1)).get(anyInt());
-        verify(jsonFlatten,times(1)).flatten();
-        verify(stringObjectMap,times(1)).keySet();
+        assertThrows(
+            RuntimeException.class,
+            () -> responseFormatterToCsv.writeToCsv(List.of(hit("{\"id\":\"a\"}"))));
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Test append method : rows follow the header, unknown fields are dropped")
+    public void testAppend(VertxTestContext vertxTestContext)
+    {
+        Set<String> headers =
+            responseFormatterToCsv.writeToCsv(
+                List.of(hit("{\"id\":\"a\",\"n\":{\"speed\":1,\"ok\":true},\"arr\":[1,2]}")));
+        responseFormatterToCsv.append(
+            List.of(
+                hit("{\"id\":\"a\",\"n\":{\"speed\":1,\"ok\":true},\"arr\":[1,2]}"),
+                hit("{\"arr\":[3],\"id\":\"b\",\"extra\":\"dropped\",\"n\":{\"speed\":2.5}}"),
+                hit("{\"id\":\"say \\\"hi\\\", bye\",\"n\":{\"speed\":null}}")),
+            false,
+            headers);
+
+        assertEquals(
+            "id,n.speed,n.ok,arr.0,arr.1\n"
+                + "a,1,true,1,2\n"
+                + "b,2.5,,3,\n"
+                + "\"say \"\"hi\"\", bye\",,,,\n",
+            output.toString());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Test append method : keys containing dots are written")
+    public void testAppendDottedKeys(VertxTestContext vertxTestContext)
+    {
+        Set<String> headers =
+            responseFormatterToCsv.writeToCsv(
+                List.of(hit("{\"a.b\":1,\"n\":{\"x.y\":[\"p\"]},\"c\":{\"d\":2}}")));
+        responseFormatterToCsv.append(
+            List.of(
+                hit("{\"a.b\":1,\"n\":{\"x.y\":[\"p\"]},\"c\":{\"d\":2}}"),
+                hit("{\"c\":{\"d\":3},\"a.b\":4}")),
+            false,
+            headers);
+
+        assertEquals("a.b,n.x.y.0,c.d\n" + "1,p,2\n" + "4,,3\n", output.toString());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Test append method : declared headers without a discovery pass")
+    public void testAppendDeclaredHeaders(VertxTestContext vertxTestContext)
+    {
+        Set<String> headers = new LinkedHashSet<>(List.of("location.type", "id"));
+        responseFormatterToCsv.append(
+            List.of(hit("{\"id\":\"a\",\"location\":{\"type\":\"Point\"}}")), false, headers);
+
+        assertEquals("Point,a\n", output.toString());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Test append method : big integers and decimals are written")
+    public void testAppendBigNumbers(VertxTestContext vertxTestContext)
+    {
+        Hit<ObjectNode> hit = hit("{\"big\":123456789012345678901234567890}");
+        hit.source().put("decimal", new BigDecimal("0.10"));
+        responseFormatterToCsv.append(
+            List.of(hit), false, new LinkedHashSet<>(List.of("big", "decimal")));
+
+        assertEquals("123456789012345678901234567890,0.10\n", output.toString());
+        vertxTestContext.completeNow();
+    }
+
+    @Test
+    @DisplayName("Test append method : Failure")
+    public void testAppendFailure(VertxTestContext vertxTestContext) throws IOException {
+        responseFormatterToCsv.fileWriter = mock(fileWriter.getClass());
+        doThrow(new IOException()).when(responseFormatterToCsv.fileWriter).write(anyString());
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                responseFormatterToCsv.append(
+                    List.of(hit("{\"id\":\"a\"}")), false, Set.of("id")));
+        vertxTestContext.completeNow();
+    }
 
-        assertThrows(RuntimeException.class,()-> responseFormatterToCsv.writeToCsv(searchHits));
+    @Test
+    @DisplayName("Test concurrent exports sharing nothing write their own rows")
+    public void testConcurrentExports(VertxTestContext vertxTestContext) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> exports = new ArrayList<>();
+            for (int e = 0; e < 4; e++) {
+                String id = "export-" + e;
+                exports.add(
+                    pool.submit(
+                        () -> {
+                            StringWriter writer = new StringWriter();
+                            EsResponseFormatterToCsv formatter = new EsResponseFormatterToCsv(writer);
+                            List<Hit<ObjectNode>> hits = new ArrayList<>();
+                            for (int i = 0; i < 500; i++) {
+                                hits.add(hit("{\"id\":\"" + id + "\",\"seq\":" + i + "}"));
+                            }
+                            Set<String> headers = formatter.writeToCsv(hits.subList(0, 1));
+                            formatter.append(hits, false, headers);
+                            return writer.toString();
+                        }));
+            }
+            for (int e = 0; e < 4; e++) {
+                String[] lines = exports.get(e).get().split("\n");
+                assertEquals(501, lines.length);
+                assertEquals("export-" + e + ",499", lines[500]);
+            }
+        } finally {
+            pool.shutdown();
+        }
         vertxTestContext.completeNow();
     }
 
@@ -106,23 +209,12 @@ public class TestEsResponseFormatterToCsv {
         vertxTestContext.completeNow();
     }
 
-    @Test
-    @DisplayName("Test appendToCsvFile method : Success")
-    public void testAppend(VertxTestContext vertxTestContext)
-    {
-        when(map.get(anyString())).thenReturn("dummy");
-        responseFormatterToCsv.appendToCsvFile(map,stringSet);
-        verify(map, times(stringSet.size())).get(anyString());
-        vertxTestContext.completeNow();
-    }
-
-    @Test
-    @DisplayName("Test appendToCsvFile method : Failure")
-    public void testAppendFailure(VertxTestContext vertxTestContext) throws IOException {
-        responseFormatterToCsv.fileWriter = mock(fileWriter.getClass());
-        when(responseFormatterToCsv.fileWriter.append(anyString())).thenThrow(IOException.class);
-        when(map.get(anyString())).thenReturn("dummy");
-        assertThrows(RuntimeException.class,()-> responseFormatterToCsv.appendToCsvFile(map,stringSet));
-        vertxTestContext.completeNow();
+    private Hit<ObjectNode> hit(String source) {
+        try {
+            ObjectNode node = (ObjectNode) mapper.readTree(source);
+            return Hit.of(h -> h.index("index").id("id").source(node));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
     }
 }
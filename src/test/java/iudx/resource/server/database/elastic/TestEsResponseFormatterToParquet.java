@@ -0,0 +1,337 @@
+package iudx.resource.server.database.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TestEsResponseFormatterToParquet {
+  private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+  private static final String FIRST =
+      "{\"id\":\"a\",\"speed\":1.5,\"count\":7,\"active\":true,\"location\":{\"type\":\"Point\"}}";
+  private final ObjectMapper mapper = new ObjectMapper();
+
+
+  @Test
+  @DisplayName("Test schema is inferred from the hits and flattened")
+  public void testSchema() throws Exception {
+    Map<Integer, Object> footer =
+        export(
+            List.of(hit(FIRST)),
+            List.of(
+                hit(FIRST),
+                hit("{\"id\":\"a\",\"speed\":2,\"count\":8,\"active\":false,\"tags\":[1,2]}")));
+
+    assertEquals(2L, footer.get(3));
+    Map<String, Integer> schema = schema(footer);
+    assertEquals(
+        List.of("id", "speed", "count", "active", "location.type", "tags"),
+        List.copyOf(schema.keySet()));
+    assertEquals(6, schema.get("id"));
+    assertEquals(5, schema.get("speed"));
+    assertEquals(2, schema.get("count"));
+    assertEquals(0, schema.get("active"));
+    assertEquals(6, schema.get("tags"));
+  }
+
+  @Test
+  @DisplayName("Test conflicting values widen the type or fall back to text")
+  public void testTypeConflicts() throws Exception {
+    Map<Integer, Object> footer =
+        export(
+            2,
+            List.of(),
+            List.of(
+                hit("{\"speed\":1,\"status\":1}"),
+                hit("{\"speed\":1.5,\"status\":\"n/a\"}"),
+                hit("{\"speed\":\"n/a\",\"status\":2}")));
+
+    Map<String, Integer> schema = schema(footer);
+    assertEquals(List.of("speed", "status", "speed$text"), List.copyOf(schema.keySet()));
+    assertEquals(5, schema.get("speed"));
+    assertEquals(6, schema.get("status"));
+    assertEquals(6, schema.get("speed$text"));
+  }
+
+  @Test
+  @DisplayName("Test parquet-mr reads back the values of every type and row group")
+  public void testRoundTrip() throws Exception {
+    List<Hit<ObjectNode>> hits = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      hits.add(
+          hit(
+              "{\"id\":\"sensor-"
+                  + (i % 2)
+                  + "\",\"count\":"
+                  + (1L << 40) * i
+                  + ",\"speed\":"
+                  + (i + 0.5)
+                  + ",\"active\":"
+                  + (i % 2 == 0)
+                  + ",\"location\":{\"type\":\"Point\"}}"));
+    }
+    hits.add(hit("{\"id\":\"sensor-0\",\"count\":\"n/a\",\"tags\":[1,2]}"));
+    List<Group> rows = read(exportBytes(4, hits.subList(0, 1), hits));
+
+    assertEquals(6, rows.size());
+    GroupType schema = rows.get(0).getType();
+    assertEquals(
+        PrimitiveTypeName.INT64, schema.getType("count").asPrimitiveType().getPrimitiveTypeName());
+    assertEquals(
+        PrimitiveTypeName.DOUBLE, schema.getType("speed").asPrimitiveType().getPrimitiveTypeName());
+    for (int i = 0; i < 5; i++) {
+      Group row = rows.get(i);
+      assertEquals("sensor-" + (i % 2), row.getString("id", 0));
+      assertEquals((1L << 40) * i, row.getLong("count", 0));
+      assertEquals(i + 0.5, row.getDouble("speed", 0));
+      assertEquals(i % 2 == 0, row.getBoolean("active", 0));
+      assertEquals("Point", row.getString("location.type", 0));
+      assertEquals(0, row.getFieldRepetitionCount("tags"));
+      assertEquals(0, row.getFieldRepetitionCount("count$text"));
+    }
+    Group last = rows.get(5);
+    assertEquals(0, last.getFieldRepetitionCount("count"));
+    assertEquals("n/a", last.getString("count$text", 0));
+    assertEquals("[1,2]", last.getString("tags", 0));
+    assertEquals(0, last.getFieldRepetitionCount("speed"));
+  }
+
+  @Test
+  @DisplayName("Test rows are split into row groups and new fields widen the schema")
+  public void testRowGroupsAndWidening() throws Exception {
+    Map<Integer, Object> footer =
+        export(
+            2,
+            List.of(hit("{\"id\":\"a\"}")),
+            List.of(
+                hit("{\"id\":\"a\"}"),
+                hit("{\"id\":\"b\"}"),
+                hit("{\"id\":\"a\",\"speed\":3}")));
+
+    assertEquals(3L, footer.get(3));
+    assertEquals(List.of("id", "speed"), List.copyOf(schema(footer).keySet()));
+    List<Object> rowGroups = list(footer.get(4));
+    assertEquals(2, rowGroups.size());
+    for (Object rowGroup : rowGroups) {
+      List<Object> chunks = list(struct(rowGroup).get(1));
+      assertEquals(2, chunks.size());
+      assertEquals("speed", path(chunks.get(1)));
+    }
+    assertEquals(2L, struct(rowGroups.get(0)).get(3));
+    assertEquals(1L, struct(rowGroups.get(1)).get(3));
+  }
+
+  @Test
+  @DisplayName("Test repeated strings are dictionary encoded")
+  public void testDictionaryEncoding() throws Exception {
+    List<Hit<ObjectNode>> hits = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      hits.add(hit("{\"id\":\"sensor-" + (i % 3) + "\",\"seq\":\"" + i + "\"}"));
+    }
+    Map<Integer, Object> footer = export(hits.subList(0, 1), hits);
+
+    List<Object> chunks = list(struct(list(footer.get(4)).get(0)).get(1));
+    Map<Integer, Object> id = struct(struct(chunks.get(0)).get(3));
+    Map<Integer, Object> seq = struct(struct(chunks.get(1)).get(3));
+    assertEquals(100L, id.get(5));
+    assertTrue(list(id.get(2)).contains(8));
+    assertTrue(id.containsKey(11));
+    assertFalse(list(seq.get(2)).contains(8));
+    assertNull(seq.get(11));
+  }
+
+  @Test
+  @DisplayName("Test an export without hits is a valid empty file")
+  public void testEmpty() throws Exception {
+    Map<Integer, Object> footer = export(List.of(), List.of());
+    assertEquals(0L, footer.get(3));
+    assertTrue(list(footer.get(4)).isEmpty());
+  }
+
+  private Map<Integer, Object> export(List<Hit<ObjectNode>> header, List<Hit<ObjectNode>> hits) {
+    return export(EsResponseFormatterToParquet.DEFAULT_ROW_GROUP_SIZE, header, hits);
+  }
+
+  private Map<Integer, Object> export(
+      int rowGroupSize, List<Hit<ObjectNode>> header, List<Hit<ObjectNode>> hits) {
+    byte[] bytes = exportBytes(rowGroupSize, header, hits);
+    assertArrayEquals(MAGIC, Arrays.copyOfRange(bytes, 0, 4));
+    assertArrayEquals(MAGIC, Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    int footerLength = buffer.getInt(bytes.length - 8);
+    buffer.position(bytes.length - 8 - footerLength);
+    return new CompactReader(buffer).readStruct();
+  }
+
+  private byte[] exportBytes(
+      int rowGroupSize, List<Hit<ObjectNode>> header, List<Hit<ObjectNode>> hits) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EsResponseFormatter formatter =
+        new EsResponseFormatterFactory("parquet", out, rowGroupSize).createInstance();
+    formatter.write(header);
+    formatter.append(hits, false);
+    formatter.finish();
+    return out.toByteArray();
+  }
+
+  /** Reads the rows back with parquet-mr. */
+  private List<Group> read(byte[] bytes) throws IOException {
+    Path path = Files.createTempFile("export", ".parquet");
+    List<Group> rows = new ArrayList<>();
+    try {
+      Files.write(path, bytes);
+      try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(path))) {
+        MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+        MessageColumnIO columnIo = new ColumnIOFactory().getColumnIO(schema);
+        PageReadStore rowGroup;
+        while ((rowGroup = reader.readNextRowGroup()) != null) {
+          RecordReader<Group> records =
+              columnIo.getRecordReader(rowGroup, new GroupRecordConverter(schema));
+          for (long row = 0; row < rowGroup.getRowCount(); row++) {
+            rows.add(records.read());
+          }
+        }
+      }
+    } finally {
+      Files.delete(path);
+    }
+    return rows;
+  }
+
+  private Map<String, Integer> schema(Map<Integer, Object> footer) {
+    List<Object> elements = list(footer.get(2));
+    assertEquals("schema", string(struct(elements.get(0)).get(4)));
+    assertEquals(elements.size() - 1, struct(elements.get(0)).get(5));
+    Map<String, Integer> schema = new LinkedHashMap<>();
+    for (Object element : elements.subList(1, elements.size())) {
+      schema.put(string(struct(element).get(4)), (Integer) struct(element).get(1));
+    }
+    return schema;
+  }
+
+  private String path(Object chunk) {
+    return string(list(struct(struct(chunk).get(3)).get(3)).get(0));
+  }
+
+  private Hit<ObjectNode> hit(String source) {
+    try {
+      ObjectNode node = (ObjectNode) mapper.readTree(source);
+      return Hit.of(h -> h.index("index").id("id").source(node));
+    } catch (Exception e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Integer, Object> struct(Object value) {
+    return (Map<Integer, Object>) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> list(Object value) {
+    return (List<Object>) value;
+  }
+
+  private static String string(Object value) {
+    return new String((byte[]) value, StandardCharsets.UTF_8);
+  }
+
+  /** Reads Thrift compact structs into maps keyed by field id. */
+  private static final class CompactReader {
+    private final ByteBuffer buffer;
+
+    CompactReader(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    Map<Integer, Object> readStruct() {
+      Map<Integer, Object> struct = new HashMap<>();
+      int fieldId = 0;
+      while (true) {
+        int header = buffer.get() & 0xFF;
+        if (header == 0) {
+          return struct;
+        }
+        int delta = header >>> 4;
+        fieldId = delta == 0 ? (int) zigzag(varint()) : fieldId + delta;
+        struct.put(fieldId, read(header & 0x0F));
+      }
+    }
+
+    private Object read(int type) {
+      switch (type) {
+        case 1:
+          return true;
+        case 2:
+          return false;
+        case 5:
+          return (int) zigzag(varint());
+        case 6:
+          return zigzag(varint());
+        case 8:
+          byte[] bytes = new byte[(int) varint()];
+          buffer.get(bytes);
+          return bytes;
+        case 9:
+          int header = buffer.get() & 0xFF;
+          int size = header >>> 4 == 15 ? (int) varint() : header >>> 4;
+          List<Object> elements = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            elements.add(read(header & 0x0F));
+          }
+          return elements;
+        case 12:
+          return readStruct();
+        default:
+          throw new IllegalStateException("unexpected type " + type);
+      }
+    }
+
+    private long varint() {
+      long value = 0;
+      int shift = 0;
+      int b;
+      do {
+        b = buffer.get() & 0xFF;
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+
+    private static long zigzag(long value) {
+      return (value >>> 1) ^ -(value & 1);
+    }
+  }
+}
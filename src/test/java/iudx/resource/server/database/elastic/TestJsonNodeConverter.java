@@ -0,0 +1,73 @@
+package iudx.resource.server.database.elastic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith({VertxExtension.class})
+public class TestJsonNodeConverter {
+  private ObjectNode source;
+  private String json;
+
+  @BeforeEach
+  public void setUp(VertxTestContext vertxTestContext) throws JsonProcessingException {
+    json =
+        "{\"id\":\"b58da193-23d9-43eb-b98a-a103d4b6103c\","
+            + "\"trip_id\":\"5011\","
+            + "\"speed\":23.45,"
+            + "\"route_count\":24,"
+            + "\"odometer\":78542894753894535,"
+            + "\"isActive\":true,"
+            + "\"license_plate\":null,"
+            + "\"location\":{\"type\":\"Point\",\"coordinates\":[72.8296,21.2]},"
+            + "\"stops\":[{\"name\":\"A\",\"seq\":1},{\"name\":\"B\",\"seq\":2}],"
+            + "\"observationDateTime\":\"2020-10-10T20:45:00+05:30\"}";
+    source = (ObjectNode) new ObjectMapper().readTree(json);
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test toJsonObject matches parsed JSON text")
+  public void testToJsonObject(VertxTestContext vertxTestContext) {
+    JsonObject result = JsonNodeConverter.toJsonObject(source);
+
+    assertEquals(new JsonObject(json), result);
+    assertEquals(new JsonObject(json).encode(), result.encode());
+    assertEquals(Integer.class, result.getValue("route_count").getClass());
+    assertEquals(Long.class, result.getValue("odometer").getClass());
+    assertEquals(Double.class, result.getValue("speed").getClass());
+    assertTrue(result.containsKey("license_plate"));
+    assertNull(result.getValue("license_plate"));
+    assertEquals(
+        72.8296, result.getJsonObject("location").getJsonArray("coordinates").getDouble(0));
+    assertEquals("B", result.getJsonArray("stops").getJsonObject(1).getString("name"));
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test decodeHits skips hits without source")
+  public void testDecodeHits(VertxTestContext vertxTestContext) {
+    List<Hit<ObjectNode>> hits =
+        List.of(
+            Hit.of(h -> h.index("dummy").id("1").source(source)),
+            Hit.of(h -> h.index("dummy").id("2")));
+
+    JsonArray result = JsonNodeConverter.decodeHits(hits);
+
+    assertEquals(1, result.size());
+    assertEquals(new JsonObject(json), result.getJsonObject(0));
+    vertxTestContext.completeNow();
+  }
+}
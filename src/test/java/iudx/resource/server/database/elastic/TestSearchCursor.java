@@ -0,0 +1,58 @@
+package iudx.resource.server.database.elastic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith({VertxExtension.class})
+public class TestSearchCursor {
+
+  @Test
+  @DisplayName("Test cursor survives encode and decode")
+  public void testEncodeDecode(VertxTestContext vertxTestContext) {
+    SearchCursor cursor =
+        new SearchCursor(
+            "iudx__surat-itms",
+            "46ToAwMDaWR5BXV1aWQy",
+            List.of(FieldValue.of(1602342900000L), FieldValue.of(42L)),
+            120L);
+
+    String token = cursor.encode();
+    SearchCursor decoded = SearchCursor.decode(token);
+
+    assertTrue(token.matches("^[a-zA-Z0-9_-]+$"));
+    assertEquals("iudx__surat-itms", decoded.getIndex());
+    assertEquals("46ToAwMDaWR5BXV1aWQy", decoded.getPitId());
+    assertEquals(2, decoded.getSearchAfter().size());
+    assertEquals(1602342900000L, decoded.getSearchAfter().get(0).longValue());
+    assertEquals(42L, decoded.getSearchAfter().get(1).longValue());
+    assertEquals(120L, decoded.getRemainingHits());
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test decode rejects tokens which are not cursors")
+  public void testDecodeInvalid(VertxTestContext vertxTestContext) {
+    String noSearchAfter =
+        Base64.getUrlEncoder()
+            .encodeToString(
+                "{\"index\":\"iudx__surat-itms\",\"pit\":\"id\"}".getBytes(StandardCharsets.UTF_8));
+    String wrongType =
+        Base64.getUrlEncoder()
+            .encodeToString(
+                "{\"index\":\"i\",\"pit\":\"id\",\"after\":[{}]}".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not-a-cursor"));
+    assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(noSearchAfter));
+    assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(wrongType));
+    vertxTestContext.completeNow();
+  }
+}
@@ -0,0 +1,333 @@
+package iudx.resource.server.database.elastic;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.ClearScrollRequest;
+import co.elastic.clients.elasticsearch.core.ClearScrollResponse;
+import co.elastic.clients.elasticsearch.core.ScrollRequest;
+import co.elastic.clients.elasticsearch.core.ScrollResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonArray;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import iudx.resource.server.database.async.ProgressListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+@ExtendWith({VertxExtension.class})
+public class TestSlicedScrollExport {
+  @TempDir Path tempDir;
+  private ElasticsearchAsyncClient asyncClient;
+  private ProgressListener progressListener;
+  private WorkerExecutor executor;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @BeforeEach
+  public void setUp(Vertx vertx, VertxTestContext vertxTestContext) throws Exception {
+    asyncClient = mock(ElasticsearchAsyncClient.class);
+    progressListener = mock(ProgressListener.class);
+    executor = vertx.createSharedWorkerExecutor("test-export-pool", 2);
+
+    // probe request, then first batch of each slice
+    when(asyncClient.search(any(SearchRequest.class), eq(ObjectNode.class)))
+        .thenAnswer(
+            invocation -> {
+              SearchRequest request = invocation.getArgument(0);
+              if (request.scroll() == null) {
+                return completed(searchResponse(null, 4, hit("{\"id\":\"a\",\"speed\":1}")));
+              }
+              String slice = request.slice() == null ? "0" : request.slice().id();
+              return completed(
+                  searchResponse(
+                      "scroll-" + slice,
+                      2,
+                      hit("{\"id\":\"" + slice + "-1\",\"speed\":1}"),
+                      hit("{\"id\":\"" + slice + "-2\",\"speed\":2}")));
+            });
+    when(asyncClient.scroll(any(ScrollRequest.class), eq(ObjectNode.class)))
+        .thenAnswer(
+            invocation -> {
+              ScrollRequest request = invocation.getArgument(0);
+              return completed(
+                  ScrollResponse.<ObjectNode>of(
+                      r ->
+                          r.took(1)
+                              .timedOut(false)
+                              .shards(s -> s.total(1).successful(1).failed(0))
+                              .scrollId(request.scrollId())
+                              .hits(h -> h.hits(List.of()))));
+            });
+    when(asyncClient.clearScroll(any(ClearScrollRequest.class)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ClearScrollResponse.of(r -> r.succeeded(true).numFreed(1))));
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test slices are merged into one JSON array")
+  public void testJsonExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    File file = tempDir.resolve("export.json").toFile();
+    export(vertx, file, "json", 2)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          JsonArray result = new JsonArray(Files.readString(file.toPath()));
+                          assertEquals(4, result.size());
+                          assertFalse(new File(file.getPath() + ".part0").exists());
+                          assertFalse(new File(file.getPath() + ".part1").exists());
+                          verify(asyncClient, times(2))
+                              .clearScroll(any(ClearScrollRequest.class));
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test slices are merged into one CSV with a single header")
+  public void testCsvExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    File file = tempDir.resolve("export.csv").toFile();
+    export(vertx, file, "csv", 2)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          List<String> lines = Files.readAllLines(file.toPath());
+                          assertEquals(5, lines.size());
+                          assertEquals(1, lines.stream().filter(l -> l.contains("speed")).count());
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test every prefetched batch is written in order")
+  public void testPipelinedExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    AtomicInteger scrolls = new AtomicInteger();
+    when(asyncClient.scroll(any(ScrollRequest.class), eq(ObjectNode.class)))
+        .thenAnswer(
+            invocation -> {
+              int page = scrolls.incrementAndGet();
+              List<Hit<ObjectNode>> hits =
+                  page > 3
+                      ? List.of()
+                      : List.of(hit("{\"id\":\"page-" + page + "\",\"speed\":" + page + "}"));
+              return completed(
+                  ScrollResponse.<ObjectNode>of(
+                      r ->
+                          r.took(1)
+                              .timedOut(false)
+                              .shards(s -> s.total(1).successful(1).failed(0))
+                              .scrollId("scroll-" + page)
+                              .hits(h -> h.hits(hits))));
+            });
+    File file = tempDir.resolve("pipelined.json").toFile();
+    export(vertx, file, "json", 1)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          JsonArray result = new JsonArray(Files.readString(file.toPath()));
+                          assertEquals(5, result.size());
+                          assertEquals("page-3", result.getJsonObject(4).getString("id"));
+                          assertEquals(4, scrolls.get());
+                          verify(progressListener, times(4))
+                              .updateStageTimings(anyLong(), anyLong());
+                          verify(asyncClient).clearScroll(any(ClearScrollRequest.class));
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a sink is written by a single slice without part files")
+  public void testSinkExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    File file = tempDir.resolve("sink.json").toFile();
+    AtomicBoolean closed = new AtomicBoolean();
+    ByteArrayOutputStream sink =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+    export(vertx, file, sink, "json", 2)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          JsonArray result = new JsonArray(sink.toString(StandardCharsets.UTF_8));
+                          assertEquals(2, result.size());
+                          assertTrue(closed.get());
+                          // the probe and the first batch of one slice
+                          verify(asyncClient, times(2))
+                              .search(any(SearchRequest.class), eq(ObjectNode.class));
+                          try (Stream<Path> files = Files.list(tempDir)) {
+                            assertEquals(0, files.count());
+                          }
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test merged slices are gzip compressed for json.gz")
+  public void testCompressedJsonExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    File file = tempDir.resolve("export.json.gz").toFile();
+    export(vertx, file, "json.gz", 2)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          JsonArray result = new JsonArray(gunzip(file));
+                          assertEquals(4, result.size());
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a single slice is gzip compressed for csv.gz")
+  public void testCompressedCsvExport(Vertx vertx, VertxTestContext vertxTestContext) {
+    File file = tempDir.resolve("export.csv.gz").toFile();
+    export(vertx, file, "csv.gz", 1)
+        .onComplete(
+            vertxTestContext.succeeding(
+                exported ->
+                    vertxTestContext.verify(
+                        () -> {
+                          String[] lines = gunzip(file).split("\n");
+                          assertEquals(3, lines.length);
+                          assertTrue(lines[0].contains("speed"));
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  @Test
+  @DisplayName("Test a failed slice cancels the others and the parts are deleted")
+  public void testFailedSliceCancelsOthers(Vertx vertx, VertxTestContext vertxTestContext) {
+    // the next batches are only answered once both slices wrote their first one, then slice 0
+    // fails while slice 1 waits on a batch that never comes, only the cancellation settles it
+    CompletableFuture<ScrollResponse<ObjectNode>> slice0Batch = new CompletableFuture<>();
+    when(asyncClient.scroll(any(ScrollRequest.class), eq(ObjectNode.class)))
+        .thenAnswer(
+            invocation -> {
+              ScrollRequest request = invocation.getArgument(0);
+              return "scroll-0".equals(request.scrollId())
+                  ? slice0Batch
+                  : new CompletableFuture<>();
+            });
+    AtomicInteger written = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              if (written.incrementAndGet() == 2) {
+                IOException expired = new IOException("scroll expired");
+                vertx.runOnContext(failing -> slice0Batch.completeExceptionally(expired));
+              }
+              return null;
+            })
+        .when(progressListener)
+        .updateProgress(anyDouble());
+    File file = tempDir.resolve("failed.json").toFile();
+    export(vertx, file, "json", 2)
+        .onComplete(
+            vertxTestContext.failing(
+                failure ->
+                    vertxTestContext.verify(
+                        () -> {
+                          assertEquals("scroll expired", failure.getMessage());
+                          assertEquals(2, written.get());
+                          try (Stream<Path> files = Files.list(tempDir)) {
+                            assertEquals(0, files.count());
+                          }
+                          verify(asyncClient, times(2)).clearScroll(any(ClearScrollRequest.class));
+                          vertxTestContext.completeNow();
+                        })));
+  }
+
+  private Future<Void> export(Vertx vertx, File file, String format, int slices) {
+    return export(vertx, file, null, format, slices);
+  }
+
+  private Future<Void> export(
+      Vertx vertx, File file, OutputStream sink, String format, int slices) {
+    Promise<Void> promise = Promise.promise();
+    // run from an event-loop context, as the async verticle does
+    vertx.runOnContext(
+        start ->
+            new SlicedScrollExport(
+                    asyncClient, executor, file, sink, "index", Query.of(q -> q.matchAll(m -> m)),
+                    null, progressListener, format, slices, 50000)
+                .export()
+                .onComplete(promise));
+    return promise.future();
+  }
+
+  private static String gunzip(File file) throws IOException {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private Hit<ObjectNode> hit(String source) throws Exception {
+    ObjectNode node = (ObjectNode) mapper.readTree(source);
+    return Hit.of(h -> h.index("index").id(node.get("id").asText()).source(node));
+  }
+
+  @SafeVarargs
+  private SearchResponse<ObjectNode> searchResponse(
+      String scrollId, long total, Hit<ObjectNode>... hits) {
+    return SearchResponse.of(
+        r ->
+            r.took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .scrollId(scrollId)
+                .hits(
+                    h ->
+                        h.total(t -> t.value(total).relation(TotalHitsRelation.Eq))
+                            .hits(List.of(hits))));
+  }
+
+  private static <T> CompletableFuture<T> completed(T value) {
+    return CompletableFuture.completedFuture(value);
+  }
+}
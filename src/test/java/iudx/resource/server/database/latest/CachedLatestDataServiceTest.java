@@ -0,0 +1,104 @@
+package iudx.resource.server.database.latest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CachedLatestDataServiceTest {
+
+  private static final String ID = "iisc.ac.in/rs.iudx.io/pune-env-flood/FWR055";
+
+  private SimpleMeterRegistry registry;
+  private List<Handler<AsyncResult<JsonObject>>> reads;
+  private CachedLatestDataService cache;
+
+  private static JsonObject request(String... ids) {
+    JsonArray array = new JsonArray();
+    for (String id : ids) {
+      array.add(id);
+    }
+    return new JsonObject().put("id", array);
+  }
+
+  private double gets(String result) {
+    return registry
+        .get(CachedLatestDataService.CACHE_GETS)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  @BeforeEach
+  public void setUp() {
+    registry = new SimpleMeterRegistry();
+    reads = new ArrayList<>();
+    LatestDataService delegate =
+        new LatestDataService() {
+          @Override
+          public LatestDataService getLatestData(
+              JsonObject request, Handler<AsyncResult<JsonObject>> handler) {
+            reads.add(handler);
+            return this;
+          }
+        };
+    cache = new CachedLatestDataService(delegate, "iudx", 60000, 10, registry);
+  }
+
+  @Test
+  @DisplayName("Test concurrent queries share one read and later ones are served cached")
+  public void testHit() {
+    List<JsonObject> responses = new ArrayList<>();
+    cache.getLatestData(request(ID), ar -> responses.add(ar.result()));
+    cache.getLatestData(request(ID), ar -> responses.add(ar.result()));
+    assertEquals(1, reads.size());
+
+    JsonObject value = new JsonObject().put("results", new JsonArray().add(ID));
+    reads.get(0).handle(Future.succeededFuture(value));
+    cache.getLatestData(request(ID), ar -> responses.add(ar.result()));
+
+    assertEquals(1, reads.size());
+    assertEquals(3, responses.size());
+    responses.forEach(response -> assertEquals(value, response));
+    assertEquals(1, gets("hit"));
+    assertEquals(2, gets("miss"));
+    assertEquals(1, registry.get(CachedLatestDataService.CACHE_STALENESS).summary().count());
+  }
+
+  @Test
+  @DisplayName("Test keyspace notification evicts the value")
+  public void testInvalidate() {
+    cache.getLatestData(request(ID), ar -> {});
+    cache.getLatestData(request(ID).put("rawResults", true), ar -> {});
+    reads.forEach(read -> read.handle(Future.succeededFuture(new JsonObject())));
+    assertEquals(2, cache.size());
+
+    cache.invalidate("iudx:" + ID);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  @DisplayName("Test failures and queries for several ids are not cached")
+  public void testNotCached() {
+    List<AsyncResult<JsonObject>> responses = new ArrayList<>();
+    cache.getLatestData(request(ID), responses::add);
+    reads.get(0).handle(Future.failedFuture("not found"));
+    cache.getLatestData(request(ID, "other/id"), responses::add);
+    reads.get(1).handle(Future.succeededFuture(new JsonObject()));
+
+    assertTrue(responses.get(0).failed());
+    assertEquals(0, cache.size());
+    cache.getLatestData(request(ID), responses::add);
+    assertEquals(3, reads.size());
+  }
+}
@@ -0,0 +1,134 @@
+package iudx.resource.server.database.latest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import iudx.resource.server.cache.CacheService;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+public class LatestDataServiceImplTest {
+
+  private static final String GROUP_ID = "iisc.ac.in/rs.iudx.io/surat-itms-realtime-information";
+  private static final String RESOURCE_ID = "iisc.ac.in/rs.iudx.io/pune-env-flood/FWR055";
+
+  @Mock RedisClient redisClient;
+  @Mock CacheService cacheService;
+  private LatestDataServiceImpl latestService;
+
+  @BeforeEach
+  public void setUp() {
+    latestService = new LatestDataServiceImpl(redisClient, cacheService, "iudx");
+  }
+
+  @Test
+  @DisplayName("Test latest values of several ids are fetched in one batch")
+  public void testBatch(VertxTestContext testContext) {
+    when(cacheService.get(any()))
+        .thenReturn(Future.succeededFuture(new JsonObject()))
+        .thenReturn(Future.failedFuture("no unique attribute"))
+        .thenReturn(Future.failedFuture("no unique attribute"));
+    JsonObject snapshot =
+        new JsonObject()
+            .put("iudx:" + GROUP_ID, "key")
+            .put("_a", new JsonObject().put("id", "a"))
+            .put("_b", new JsonObject().put("id", "b"));
+    JsonObject resource = new JsonObject().put("id", RESOURCE_ID);
+    when(redisClient.getAll(any()))
+        .thenReturn(Future.succeededFuture(Arrays.asList(snapshot, resource, null)));
+
+    JsonObject request =
+        new JsonObject()
+            .put("id", new JsonArray().add(GROUP_ID).add(RESOURCE_ID).add("missing/id"));
+    latestService.getLatestData(
+        request,
+        testContext.succeeding(
+            response -> {
+              @SuppressWarnings("unchecked")
+              ArgumentCaptor<List<RedisArgs>> args = ArgumentCaptor.forClass(List.class);
+              verify(redisClient).getAll(args.capture());
+              verify(redisClient, never()).searchAsync(any(), any(), any());
+              assertEquals(3, args.getValue().size());
+              assertEquals(".", args.getValue().get(0).getPath());
+              assertTrue(args.getValue().get(1).getPath().startsWith("._"));
+
+              JsonArray results = response.getJsonArray("results");
+              assertEquals(3, results.size());
+              assertEquals(resource, results.getJsonObject(2));
+              testContext.completeNow();
+            }));
+  }
+
+  @Test
+  @DisplayName("Test raw latest value is passed on undecoded")
+  public void testRaw(VertxTestContext testContext) {
+    when(cacheService.get(any())).thenReturn(Future.failedFuture("no unique attribute"));
+    String value = "{\"id\":\"" + RESOURCE_ID + "\"}";
+    when(redisClient.getRaw(any(), any())).thenReturn(Future.succeededFuture(Buffer.buffer(value)));
+
+    JsonObject request =
+        new JsonObject().put("id", new JsonArray().add(RESOURCE_ID)).put("rawResults", true);
+    latestService.getLatestData(
+        request,
+        testContext.succeeding(
+            response -> {
+              assertEquals("[" + value + "]", response.getString("rawResults"));
+              assertTrue(!response.containsKey("results"));
+              testContext.completeNow();
+            }));
+  }
+
+  @Test
+  @DisplayName("Test batch without any latest value fails")
+  public void testBatchNotFound(VertxTestContext testContext) {
+    when(cacheService.get(any())).thenReturn(Future.failedFuture("no unique attribute"));
+    when(redisClient.getAll(any())).thenReturn(Future.succeededFuture(Arrays.asList(null, null)));
+
+    JsonObject request =
+        new JsonObject().put("id", new JsonArray().add(RESOURCE_ID).add("missing/id"));
+    latestService.getLatestData(
+        request,
+        testContext.failing(
+            failure -> {
+              assertEquals(204, new JsonObject(failure.getMessage()).getInteger("type"));
+              testContext.completeNow();
+            }));
+  }
+
+  @Test
+  @DisplayName("Test batch failing to read Redis is not reported as not found")
+  public void testBatchRedisDown(VertxTestContext testContext) {
+    when(cacheService.get(any())).thenReturn(Future.failedFuture("no unique attribute"));
+    when(redisClient.getAll(any())).thenReturn(Future.failedFuture("Connection refused"));
+
+    JsonObject request =
+        new JsonObject().put("id", new JsonArray().add(RESOURCE_ID).add("other/id"));
+    latestService.getLatestData(
+        request,
+        testContext.failing(
+            failure -> {
+              JsonObject response = new JsonObject(failure.getMessage());
+              assertEquals(500, response.getInteger("type"));
+              assertEquals("urn:dx:rs:DatabaseError", response.getString("title"));
+              testContext.completeNow();
+            }));
+  }
+}
@@ -0,0 +1,143 @@
+package iudx.resource.server.database.latest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Timeout;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisAPI;
+import io.vertx.redis.client.RedisConnection;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.impl.types.ErrorType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+
+@ExtendWith(VertxExtension.class)
+public class RedisClientTest {
+
+  @Test
+  @DisplayName("Test keys map to their cluster hash slot")
+  public void testSlot() {
+    assertEquals(12182, RedisClient.slot("foo"));
+    assertEquals(12739, RedisClient.slot("123456789"));
+    assertEquals(RedisClient.slot("user1000"), RedisClient.slot("{user1000}.following"));
+    assertEquals(RedisClient.slot("iudx:{a}"), RedisClient.slot("tenant:{a}"));
+  }
+
+  @Test
+  @Timeout(value = 30, timeUnit = TimeUnit.SECONDS)
+  @DisplayName("Test start fails once Redis stays unreachable")
+  public void testStartUnreachable(Vertx vertx, VertxTestContext testContext) {
+    JsonObject config =
+        new JsonObject()
+            .put("redisUsername", "user")
+            .put("redisPassword", "password")
+            .put("redisHost", "127.0.0.1")
+            .put("redisPort", 1)
+            .put("redisMode", "STANDALONE")
+            .put("redisMaxWaitingHandlers", 16);
+    new RedisClient(vertx, config).start().onComplete(testContext.failingThenComplete());
+  }
+
+  private static RedisArgs args(String key, String path) {
+    RedisArgs args = new RedisArgs();
+    args.setKey(key);
+    args.setPath(path);
+    return args;
+  }
+
+  @Test
+  @DisplayName("Test missing values are null and failed reads fail the batch")
+  public void testGetAll(VertxTestContext testContext) {
+    RedisAPI redis = mock(RedisAPI.class);
+    when(redis.send(eq(Command.JSON_GET), eq("nil"), any())).thenReturn(Future.succeededFuture());
+    when(redis.send(eq(Command.JSON_GET), eq("no-path"), any()))
+        .thenReturn(Future.failedFuture(ErrorType.create("ERR Path '._a' does not exist")));
+    when(redis.send(eq(Command.JSON_GET), eq("down"), any()))
+        .thenReturn(Future.failedFuture("Connection refused"));
+    RedisClient client = new RedisClient(redis);
+
+    client
+        .getAll(List.of(args("nil", "._a"), args("no-path", "._b")))
+        .onComplete(
+            testContext.succeeding(
+                values -> {
+                  testContext.verify(
+                      () -> {
+                        assertEquals(2, values.size());
+                        assertNull(values.get(0));
+                        assertNull(values.get(1));
+                      });
+                  client
+                      .getAll(List.of(args("nil", "._a"), args("down", "._c")))
+                      .onComplete(testContext.failingThenComplete());
+                }));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  @Timeout(value = 10, timeUnit = TimeUnit.SECONDS)
+  @DisplayName("Test a dropped keyspace subscription is re-established")
+  public void testKeyspaceResubscribe(Vertx vertx, VertxTestContext testContext) {
+    Redis redis = mock(Redis.class);
+    RedisConnection dropping = mock(RedisConnection.class);
+    RedisConnection connection = mock(RedisConnection.class);
+    when(dropping.send(any(Request.class))).thenReturn(Future.succeededFuture());
+    when(connection.send(any(Request.class))).thenReturn(Future.succeededFuture());
+    when(redis.connect())
+        .thenReturn(
+            Future.succeededFuture(dropping),
+            Future.failedFuture("Connection refused"),
+            Future.succeededFuture(connection));
+    AtomicInteger gaps = new AtomicInteger();
+    RedisClient client = new RedisClient(vertx, redis);
+
+    client
+        .onKeyspaceEvents(
+            "*",
+            key -> {},
+            gap -> {
+              if (gaps.incrementAndGet() == 2) {
+                testContext.verify(
+                    () -> {
+                      assertTrue(client.isKeyspaceSubscribed());
+                      verify(redis, times(3)).connect();
+                      verify(connection).send(any(Request.class));
+                    });
+                testContext.completeNow();
+              }
+            })
+        .onComplete(
+            testContext.succeeding(
+                subscribed -> {
+                  ArgumentCaptor<Handler<Void>> end = ArgumentCaptor.forClass(Handler.class);
+                  verify(dropping).endHandler(end.capture());
+                  end.getValue().handle(null);
+                  testContext.verify(
+                      () -> {
+                        assertFalse(client.isKeyspaceSubscribed());
+                        assertEquals(1, gaps.get());
+                      });
+                }));
+  }
+}
@@ -0,0 +1,90 @@
+package iudx.resource.server.database.latest;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.impl.types.BulkType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares decoding a JSON.GET reply through a String, as {@link RedisClient#get} used to, with
+ * decoding it straight from the reply buffer and with passing the reply text on undecoded, as done
+ * for latest searches without encryption.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=iudx.resource.server.database.latest.RedisJsonDecodeBenchmark}, add {@code
+ * -prof gc} through the runner options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisJsonDecodeBenchmark {
+
+  /** entities in the reply, 1 for a resource and more for a group snapshot */
+  @Param({"1", "500"})
+  int entityCount;
+
+  Response reply;
+
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(RedisJsonDecodeBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+
+  @Setup
+  public void setUp() {
+    JsonObject document = new JsonObject();
+    for (int i = 0; i < entityCount; i++) {
+      document.put(
+          "_" + i,
+          new JsonObject(
+              "{\"id\":\"suratmunicipal.org/6db486cb4f720e8585ba1f45a931c63c25dbbbda/"
+                  + "rs.iudx.org.in/surat-itms-realtime-info/surat-itms-live-eta\","
+                  + "\"trip_id\":\""
+                  + (5000 + i)
+                  + "\",\"route_id\":\"56U\",\"trip_direction\":\"UP\","
+                  + "\"actual_trip_start_time\":\"2020-10-10T20:25:00+05:30\","
+                  + "\"last_stop_arrival_time\":\"20:42:00\",\"last_stop_id\":\"2405\","
+                  + "\"speed\":"
+                  + (i % 60)
+                  + ".5,\"license_plate\":\"GJ05BX1234\",\"vehicle_label\":\"S1\","
+                  + "\"location\":{\"type\":\"Point\",\"coordinates\":[72.8296,21.2]},"
+                  + "\"observationDateTime\":\"2020-10-10T20:45:00+05:30\"}"));
+    }
+    reply = BulkType.create(Buffer.buffer(document.encode()), false);
+  }
+
+  @Benchmark
+  public JsonObject stringRoundTrip() {
+    return new JsonObject(reply.toString());
+  }
+
+  @Benchmark
+  public JsonObject bufferDecode() {
+    return new JsonObject(reply.toBuffer());
+  }
+
+  @Benchmark
+  public String rawPassthrough() {
+    return "[" + reply.toBuffer() + "]";
+  }
+}
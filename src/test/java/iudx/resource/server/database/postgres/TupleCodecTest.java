@@ -0,0 +1,57 @@
+package iudx.resource.server.database.postgres;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
+import iudx.resource.server.database.async.util.QueryProgress;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TupleCodecTest {
+
+  @Test
+  @DisplayName("Test parameters survive the trip over the event bus")
+  public void testRoundTrip() {
+    UUID id = UUID.randomUUID();
+    LocalDateTime expiry = LocalDateTime.of(2024, 1, 1, 10, 0, 30);
+    OffsetDateTime created = OffsetDateTime.parse("2024-01-01T10:00:00+05:30");
+    JsonObject item = new JsonObject().put("name", "pune-env-flood");
+
+    JsonArray params =
+        TupleCodec.params(
+            id, "queue", 12, 0.5, true, null, QueryProgress.COMPLETE, expiry, created,
+            LocalDate.of(2024, 1, 1), item);
+    Tuple tuple = TupleCodec.decode(new JsonArray(params.encode()));
+
+    assertEquals(11, tuple.size());
+    assertEquals(id, tuple.getUUID(0));
+    assertEquals("queue", tuple.getString(1));
+    assertEquals(12, tuple.getInteger(2));
+    assertEquals(0.5, tuple.getDouble(3));
+    assertEquals(true, tuple.getBoolean(4));
+    assertNull(tuple.getValue(5));
+    assertEquals("COMPLETE", tuple.getString(6));
+    assertEquals(expiry, tuple.getLocalDateTime(7));
+    assertEquals(created, tuple.getOffsetDateTime(8));
+    assertEquals(LocalDate.of(2024, 1, 1), tuple.getLocalDate(9));
+    assertEquals(item, tuple.getJsonObject(10));
+    assertEquals(params, TupleCodec.encode(tuple));
+  }
+
+  @Test
+  @DisplayName("Test unsupported parameters are rejected")
+  public void testUnsupported() {
+    assertThrows(IllegalArgumentException.class, () -> TupleCodec.params(new Object()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TupleCodec.decode(new JsonArray().add(new JsonObject().put("interval", "1 day"))));
+  }
+}
@@ -0,0 +1,96 @@
+package iudx.resource.server.databroker.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.rabbitmq.RabbitMQClient;
+import io.vertx.rabbitmq.RabbitMQConsumer;
+import io.vertx.rabbitmq.RabbitMQMessage;
+import io.vertx.rabbitmq.RabbitMQOptions;
+import iudx.resource.server.cache.CacheService;
+import iudx.resource.server.cache.cachelmpl.CacheType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith({VertxExtension.class, MockitoExtension.class})
+public class TestCatalogueItemQlistener {
+  CatalogueItemQlistener catalogueItemQlistener;
+  @Mock Vertx vertx;
+  @Mock CacheService cache;
+  @Mock RabbitMQOptions config;
+  @Mock RabbitMQConsumer rabbitMQConsumer;
+  @Mock RabbitMQMessage message;
+  @Mock AsyncResult<RabbitMQConsumer> consumerAsyncResult;
+
+  @BeforeEach
+  public void setUp(VertxTestContext vertxTestContext) {
+    catalogueItemQlistener = new CatalogueItemQlistener(vertx, cache, config, "Dummy vHost");
+    catalogueItemQlistener.client = mock(RabbitMQClient.class);
+    when(catalogueItemQlistener.client.start()).thenReturn(Future.succeededFuture());
+    when(consumerAsyncResult.succeeded()).thenReturn(true);
+    when(consumerAsyncResult.result()).thenReturn(rabbitMQConsumer);
+    doAnswer(
+            invocation -> {
+              ((Handler<AsyncResult<RabbitMQConsumer>>) invocation.getArgument(2))
+                  .handle(consumerAsyncResult);
+              return null;
+            })
+        .when(catalogueItemQlistener.client)
+        .basicConsumer(anyString(), any(), any());
+    doAnswer(
+            invocation -> {
+              ((Handler<RabbitMQMessage>) invocation.getArgument(0)).handle(message);
+              return null;
+            })
+        .when(rabbitMQConsumer)
+        .handler(any());
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test item event refreshes only the changed item")
+  public void testItemEvent(VertxTestContext vertxTestContext) {
+    JsonObject event = new JsonObject().put("id", "dummy_id").put("eventType", "UPDATE");
+    when(message.body()).thenReturn(event.toBuffer());
+    when(cache.refresh(any())).thenReturn(Future.succeededFuture(new JsonObject()));
+
+    catalogueItemQlistener.start();
+
+    ArgumentCaptor<JsonObject> refresh = ArgumentCaptor.forClass(JsonObject.class);
+    verify(cache).refresh(refresh.capture());
+    assertEquals(CacheType.CATALOGUE_CACHE.name(), refresh.getValue().getString("type"));
+    assertEquals("dummy_id", refresh.getValue().getString("key"));
+    vertxTestContext.completeNow();
+  }
+
+  @Test
+  @DisplayName("Test events without body or id are dropped")
+  public void testInvalidEvent(VertxTestContext vertxTestContext) {
+    when(message.body()).thenReturn(null).thenReturn(Buffer.buffer("{}"));
+
+    catalogueItemQlistener.start();
+    catalogueItemQlistener.start();
+
+    verify(cache, never()).refresh(any());
+    vertxTestContext.completeNow();
+  }
+}
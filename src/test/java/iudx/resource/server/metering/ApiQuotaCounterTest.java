@@ -0,0 +1,81 @@
+package iudx.resource.server.metering;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+public class ApiQuotaCounterTest {
+
+  private ApiQuotaCounter apiQuota;
+  private AtomicInteger seeds;
+
+  @BeforeEach
+  public void setUp(Vertx vertx, VertxTestContext testContext) {
+    apiQuota = new ApiQuotaCounter(vertx);
+    seeds = new AtomicInteger();
+    vertx
+        .sharedData()
+        .getAsyncMap(ApiQuotaCounter.MAP_NAME)
+        .compose(map -> map.clear())
+        .onComplete(testContext.succeedingThenComplete());
+  }
+
+  private Future<Long> auditedCount() {
+    seeds.incrementAndGet();
+    return Future.succeededFuture(5L);
+  }
+
+  @Test
+  @DisplayName("Test counter is seeded once and counts metered calls")
+  public void testSeedAndIncrement(VertxTestContext testContext) {
+    Future.all(
+            apiQuota.count("user", this::auditedCount), apiQuota.count("user", this::auditedCount))
+        .compose(seeded -> apiQuota.increment("user"))
+        .compose(incremented -> apiQuota.increment("user"))
+        .compose(incremented -> apiQuota.count("user", this::auditedCount))
+        .onComplete(
+            testContext.succeeding(
+                count -> {
+                  assertEquals(7L, count);
+                  assertEquals(1, seeds.get());
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test calls before the counter is seeded are left to the audit count")
+  public void testIncrementBeforeSeed(VertxTestContext testContext) {
+    apiQuota
+        .increment("user")
+        .compose(incremented -> apiQuota.count("user", this::auditedCount))
+        .onComplete(
+            testContext.succeeding(
+                count -> {
+                  assertEquals(5L, count);
+                  testContext.completeNow();
+                }));
+  }
+
+  @Test
+  @DisplayName("Test failed seed is retried on the next check")
+  public void testSeedFailure(VertxTestContext testContext) {
+    apiQuota
+        .count("user", () -> Future.failedFuture("db down"))
+        .recover(failure -> apiQuota.count("user", this::auditedCount))
+        .onComplete(
+            testContext.succeeding(
+                count -> {
+                  assertEquals(5L, count);
+                  testContext.completeNow();
+                }));
+  }
+}